@@ -19,6 +19,23 @@
 
 package jp.co.ntt.oss.jboss.byteman.framework.adapter;
 
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.StressStatus;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Frequency;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HeavyHitters;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.LatencyHistogram;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Rate;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Reservoir;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanEvent;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.StackProfile;
+
 import org.jboss.byteman.rule.helper.Helper;
 
 /**
@@ -228,6 +245,19 @@ public interface DistributedAdapter {
 	 */
 	public boolean countDown(Object identifier) throws Exception;
 
+	/**
+	 * Waits until the countdown is triggered, that is, until {@link #countDown(Object)} returns <code>true</code>
+	 * and the countdown is deleted. The waiting thread is parked at the controller node until it is notified.
+	 * A thread which arrives before the countdown is created waits for it to be created and triggered,
+	 * and a thread which arrives after the trigger returns at once until the countdown is created again.
+	 *
+	 * @param identifier an identifier for the countdown
+	 * @param millis the maximum time to wait (milliseconds)
+	 * @return <code>true</code> if the countdown is triggered or its state is deleted, or <code>false</code> if the timeout elapses
+	 * @throws Exception
+	 */
+	public boolean awaitCountDown(Object identifier, long millis) throws Exception;
+
 	/**
 	 * Provides {@link Helper#createCounter(Object, int)} function at the controller node in distributed environment.
 	 *
@@ -347,8 +377,11 @@ public interface DistributedAdapter {
 	 *
 	 * @param identifier an identifier for the trace
 	 * @param message the message to output
-	 * @return the result of {@link Helper#trace(Object, String)} execution
+	 * @return the result of {@link Helper#trace(Object, String)} execution.
+	 *         A relay controller returns before the message is written, and reports a failure to write it
+	 *         by returning <code>false</code> for the next message of the identifier.
 	 * @see Helper#trace(Object, String)
+	 * @see jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.RelayHost
 	 * @throws Exception
 	 */
 	public boolean trace(Object identifier, String message) throws Exception;
@@ -358,8 +391,11 @@ public interface DistributedAdapter {
 	 *
 	 * @param identifier an identifier for the trace
 	 * @param message the message to output
-	 * @return the result of {@link Helper#traceln(Object, String)} execution
+	 * @return the result of {@link Helper#traceln(Object, String)} execution.
+	 *         A relay controller returns before the message is written, and reports a failure to write it
+	 *         by returning <code>false</code> for the next message of the identifier.
 	 * @see Helper#traceln(Object, String)
+	 * @see jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.RelayHost
 	 * @throws Exception
 	 */
 	public boolean traceln(Object identifier, String message) throws Exception;
@@ -409,4 +445,804 @@ public interface DistributedAdapter {
 	 */
 	public Object doCallback(Object identifier, Object... parameters) throws Exception;
 
+	/**
+	 * Deletes the state of all the identifiers scoped by the specified namespace at the controller node.
+	 * Flags, counters, timers, rendezvous, countdowns, semaphores, token buckets, phasers, mailboxes, values, leases, delays, traces and callbacks are deleted, and waiting threads are woken up.
+	 * The metrics of the identifiers are also deleted on the registered nodes, and their stress workloads are cancelled.
+	 *
+	 * @param namespace the name of the namespace
+	 * @return the number of the deleted identifiers
+	 * @see Namespace
+	 * @throws Exception
+	 */
+	public int deleteNamespace(String namespace) throws Exception;
+
+	/**
+	 * Registers the endpoint of a node, from which the metrics recorded on the node are pulled.
+	 * The endpoint replaces the previous one of the same node.
+	 *
+	 * @param node the identifier of the node
+	 * @param target the endpoint of the node
+	 * @throws Exception
+	 */
+	public void registerNode(String node, Object target) throws Exception;
+
+	/**
+	 * Returns the latency histogram merged from all the nodes.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @return the merged latency histogram, which is empty if no latency is recorded
+	 * @throws Exception
+	 */
+	public LatencyHistogram getLatencyHistogram(Object identifier) throws Exception;
+
+	/**
+	 * Returns the latency at the specified percentile over all the nodes.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @param percentile the percentile between 0 and 100
+	 * @return the latency at the percentile (nanoseconds), or 0 if no latency is recorded
+	 * @see LatencyHistogram#getValueAtPercentile(double)
+	 * @throws Exception
+	 */
+	public long getLatencyPercentile(Object identifier, double percentile) throws Exception;
+
+	/**
+	 * Returns the maximum latency over all the nodes.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @return the maximum latency (nanoseconds), or 0 if no latency is recorded
+	 * @throws Exception
+	 */
+	public long getLatencyMax(Object identifier) throws Exception;
+
+	/**
+	 * Returns the number of the latencies recorded on all the nodes.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @return the number of the recorded latencies
+	 * @throws Exception
+	 */
+	public long getLatencyCount(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the latency histograms on all the nodes.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @return <code>true</code> if a latency histogram existed on any node
+	 * @throws Exception
+	 */
+	public boolean deleteLatency(Object identifier) throws Exception;
+
+	/**
+	 * Reports the starts and the ends of spans recorded on a node.
+	 * The timestamps are corrected by the clock offset of the node, which is estimated by the controller,
+	 * and matched by their correlation keys into the histograms of the durations.
+	 *
+	 * @param node the identifier of the node
+	 * @param events the events recorded on the node
+	 * @throws Exception
+	 */
+	public void reportSpans(String node, List<SpanEvent> events) throws Exception;
+
+	/**
+	 * Returns the histogram of the durations of the matched spans.
+	 *
+	 * @param identifier an identifier for the span
+	 * @return the histogram of the durations (nanoseconds), which is empty if no span is matched
+	 * @throws Exception
+	 */
+	public LatencyHistogram getSpanHistogram(Object identifier) throws Exception;
+
+	/**
+	 * Returns the number of the span events which were discarded because their counterparts did not arrive.
+	 *
+	 * @param identifier an identifier for the span
+	 * @return the number of the discarded events
+	 * @throws Exception
+	 */
+	public long getUnmatchedSpans(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the histogram and the pending events of the span.
+	 *
+	 * @param identifier an identifier for the span
+	 * @return <code>true</code> if the span existed
+	 * @throws Exception
+	 */
+	public boolean deleteSpan(Object identifier) throws Exception;
+
+	/**
+	 * Returns the current offset of the clock of the node from the clock of the controller.
+	 * The controller estimates it continuously from the exchanges of timestamps with the node.
+	 *
+	 * @param node the identifier of the node
+	 * @return the offset (nanoseconds), which is positive if the clock of the node is ahead
+	 * @throws IllegalArgumentException if the node is not registered
+	 * @throws Exception
+	 */
+	public long getClockOffset(String node) throws Exception;
+
+	/**
+	 * Returns the drift of the clock of the node from the clock of the controller.
+	 *
+	 * @param node the identifier of the node
+	 * @return the drift (parts per million), which is positive if the clock of the node runs faster
+	 * @throws IllegalArgumentException if the node is not registered
+	 * @throws Exception
+	 */
+	public double getClockDrift(String node) throws Exception;
+
+	/**
+	 * Returns the bound of the error of the offset of the clock of the node.
+	 *
+	 * @param node the identifier of the node
+	 * @return the bound of the error (nanoseconds)
+	 * @throws IllegalArgumentException if the node is not registered
+	 * @throws Exception
+	 */
+	public long getClockError(String node) throws Exception;
+
+	/**
+	 * Reports the numbers of the events marked on a node since the last report.
+	 *
+	 * @param node the identifier of the node
+	 * @param deltas the map of the identifiers for the rates and the numbers of the marked events
+	 * @throws Exception
+	 */
+	public void reportMarks(String node, Map<Object, Long> deltas) throws Exception;
+
+	/**
+	 * Returns the rate of the events marked on all the nodes.
+	 *
+	 * @param identifier an identifier for the rate
+	 * @return the snapshot of the rate, whose count is 0 if no event is marked
+	 * @throws Exception
+	 */
+	public Rate getRate(Object identifier) throws Exception;
+
+	/**
+	 * Returns the rates of the events marked on each node.
+	 *
+	 * @param identifier an identifier for the rate
+	 * @return the map of the identifiers of the nodes and their snapshots of the rates
+	 * @throws Exception
+	 */
+	public Map<String, Rate> getNodeRates(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the rates of all the nodes.
+	 *
+	 * @param identifier an identifier for the rate
+	 * @return <code>true</code> if the rate existed
+	 * @throws Exception
+	 */
+	public boolean deleteRate(Object identifier) throws Exception;
+
+	/**
+	 * Returns the distinct-count sketch merged from all the nodes.
+	 *
+	 * @param identifier an identifier for the distinct count
+	 * @return the merged sketch, or <code>null</code> if no value is offered
+	 * @throws Exception
+	 */
+	public HyperLogLog getDistinctSketch(Object identifier) throws Exception;
+
+	/**
+	 * Returns the estimated number of the distinct values offered on all the nodes.
+	 * The relative standard error is given by {@link HyperLogLog#getRelativeError()} of the sketch.
+	 *
+	 * @param identifier an identifier for the distinct count
+	 * @return the estimated number of the distinct values, or 0 if no value is offered
+	 * @throws Exception
+	 */
+	public long getDistinctCount(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the distinct-count sketches on all the nodes.
+	 *
+	 * @param identifier an identifier for the distinct count
+	 * @return <code>true</code> if a sketch existed on any node
+	 * @throws Exception
+	 */
+	public boolean deleteDistinct(Object identifier) throws Exception;
+
+	/**
+	 * Returns the heavy hitters merged from all the nodes.
+	 *
+	 * @param identifier an identifier for the frequencies
+	 * @return the merged heavy hitters, or <code>null</code> if no value is offered
+	 * @throws Exception
+	 */
+	public HeavyHitters getFrequentSketch(Object identifier) throws Exception;
+
+	/**
+	 * Returns the most frequent values offered on all the nodes.
+	 *
+	 * @param identifier an identifier for the frequencies
+	 * @return the values with their estimated frequencies and error bounds in the descending order of the frequencies,
+	 *         which is empty if no value is offered
+	 * @throws Exception
+	 */
+	public List<Frequency> getTopFrequent(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the heavy hitters on all the nodes.
+	 *
+	 * @param identifier an identifier for the frequencies
+	 * @return <code>true</code> if the heavy hitters existed on any node
+	 * @throws Exception
+	 */
+	public boolean deleteFrequent(Object identifier) throws Exception;
+
+	/**
+	 * Returns the reservoir merged from all the nodes.
+	 *
+	 * @param identifier an identifier for the sample
+	 * @return the merged reservoir, or <code>null</code> if no value is offered
+	 * @throws Exception
+	 */
+	public Reservoir getReservoir(Object identifier) throws Exception;
+
+	/**
+	 * Returns the values sampled from all the nodes.
+	 *
+	 * @param identifier an identifier for the sample
+	 * @return the sampled values, which is empty if no value is offered
+	 * @throws Exception
+	 */
+	public List<Object> getSample(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the reservoirs on all the nodes.
+	 *
+	 * @param identifier an identifier for the sample
+	 * @return <code>true</code> if the reservoir existed on any node
+	 * @throws Exception
+	 */
+	public boolean deleteSample(Object identifier) throws Exception;
+
+	/**
+	 * Returns the histogram of the resource usages merged from all the nodes.
+	 *
+	 * @param identifier an identifier for the code region
+	 * @param resource the resource
+	 * @return the merged histogram, which is empty if no usage is recorded
+	 * @throws Exception
+	 */
+	public LatencyHistogram getResourceHistogram(Object identifier, Resource resource) throws Exception;
+
+	/**
+	 * Deletes the histograms of the resource usages on all the nodes.
+	 *
+	 * @param identifier an identifier for the code region
+	 * @return <code>true</code> if any histogram existed on any node
+	 * @throws Exception
+	 */
+	public boolean deleteResource(Object identifier) throws Exception;
+
+	/**
+	 * Returns the histogram of the times waited to acquire a monitor, merged from all the nodes.
+	 *
+	 * @param identifier an identifier for the monitor
+	 * @return the merged histogram (nanoseconds), which is empty if no wait is recorded
+	 * @throws Exception
+	 */
+	public LatencyHistogram getContentionHistogram(Object identifier) throws Exception;
+
+	/**
+	 * Returns the histograms of the times waited to acquire a monitor on each node.
+	 *
+	 * @param identifier an identifier for the monitor
+	 * @return the map of the identifiers of the nodes and their histograms (nanoseconds),
+	 *         which does not contain the nodes where no wait is recorded
+	 * @throws Exception
+	 */
+	public Map<String, LatencyHistogram> getNodeContentionHistograms(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the histograms of the times waited to acquire a monitor on all the nodes.
+	 *
+	 * @param identifier an identifier for the monitor
+	 * @return <code>true</code> if the histogram existed on any node
+	 * @throws Exception
+	 */
+	public boolean deleteContention(Object identifier) throws Exception;
+
+	/**
+	 * Reports the folded stacks sampled by a profiling session on a node.
+	 * It is called by the nodes, not by tests.
+	 *
+	 * @param node the identifier of the node
+	 * @param identifier an identifier for the profile
+	 * @param profile the folded stacks
+	 * @throws Exception
+	 */
+	public void reportProfile(String node, Object identifier, StackProfile profile) throws Exception;
+
+	/**
+	 * Returns the folded stacks reported by all the nodes.
+	 *
+	 * @param identifier an identifier for the profile
+	 * @return the merged folded stacks, or <code>null</code> if no profile is reported
+	 * @throws Exception
+	 */
+	public StackProfile getProfile(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the folded stacks reported by the nodes. The files written in the result directory are kept.
+	 *
+	 * @param identifier an identifier for the profile
+	 * @return <code>true</code> if any profile was reported
+	 * @throws Exception
+	 */
+	public boolean deleteProfile(Object identifier) throws Exception;
+
+	/**
+	 * Creates a semaphore which grants the permits in the order of the requests from all the nodes.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @param permits the number of the permits
+	 * @return <code>true</code> if the semaphore is created, or <code>false</code> if it already exists
+	 * @throws Exception
+	 * @see FairSemaphore
+	 */
+	public boolean createSemaphore(Object identifier, int permits) throws Exception;
+
+	/**
+	 * Requests a permit of the semaphore. The requester polls the grant by {@link #pollPermit(Object, long)}.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @param node the node identifier of the requester, whose permits are returned when the node is lost
+	 * @return the ticket of the request
+	 * @throws Exception
+	 * @see FairSemaphore#request(String)
+	 */
+	public long requestPermit(Object identifier, String node) throws Exception;
+
+	/**
+	 * Polls whether a permit of the semaphore is granted to the ticket.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @param ticket the ticket returned by {@link #requestPermit(Object, String)}
+	 * @return <code>true</code> if a permit is granted, which is held until {@link #releasePermit(Object, String)}
+	 * @throws Exception
+	 * @see FairSemaphore#poll(long)
+	 */
+	public boolean pollPermit(Object identifier, long ticket) throws Exception;
+
+	/**
+	 * Cancels the request of a permit of the semaphore, returning the permit if it is granted but not polled yet.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @param ticket the ticket returned by {@link #requestPermit(Object, String)}
+	 * @return <code>true</code> if the ticket was waiting or granted
+	 * @throws Exception
+	 * @see FairSemaphore#cancel(long)
+	 */
+	public boolean cancelPermit(Object identifier, long ticket) throws Exception;
+
+	/**
+	 * Releases a permit of the semaphore held by the node.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @param node the node identifier of the holder
+	 * @return <code>true</code> if a permit was held by the node
+	 * @throws Exception
+	 * @see FairSemaphore#release(String)
+	 */
+	public boolean releasePermit(Object identifier, String node) throws Exception;
+
+	/**
+	 * Returns the number of the permits of the semaphore which are not granted.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @return the number of the available permits
+	 * @throws Exception
+	 */
+	public int getAvailablePermits(Object identifier) throws Exception;
+
+	/**
+	 * Returns the number of the requests waiting for a permit of the semaphore.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @return the number of the waiting requests
+	 * @throws Exception
+	 */
+	public int getPermitQueueLength(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the semaphore. The waiting requests fail when they are polled next time.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @return <code>true</code> if the semaphore existed
+	 * @throws Exception
+	 */
+	public boolean deleteSemaphore(Object identifier) throws Exception;
+
+	/**
+	 * Creates a token bucket which limits the rate of {@link jp.co.ntt.oss.jboss.byteman.framework.helper.DistributedHelper#throttle(Object)} on all the nodes.
+	 *
+	 * @param identifier an identifier for the token bucket
+	 * @param rate the number of the tokens added per second
+	 * @param burst the maximum number of the tokens
+	 * @return <code>true</code> if the token bucket is created, or <code>false</code> if it already exists
+	 * @throws Exception
+	 * @see TokenBucket
+	 */
+	public boolean createTokenBucket(Object identifier, double rate, long burst) throws Exception;
+
+	/**
+	 * Changes the rate and the burst of the token bucket, which takes effect on the next lease of each node.
+	 *
+	 * @param identifier an identifier for the token bucket
+	 * @param rate the number of the tokens added per second
+	 * @param burst the maximum number of the tokens
+	 * @throws Exception
+	 */
+	public void setTokenRate(Object identifier, double rate, long burst) throws Exception;
+
+	/**
+	 * Returns the number of the tokens added per second to the token bucket.
+	 *
+	 * @param identifier an identifier for the token bucket
+	 * @return the rate
+	 * @throws Exception
+	 */
+	public double getTokenRate(Object identifier) throws Exception;
+
+	/**
+	 * Leases a batch of the tokens of the token bucket.
+	 * It is called by the nodes, not by tests.
+	 *
+	 * @param identifier an identifier for the token bucket
+	 * @return the number of the leased tokens, which is 0 if no token is available
+	 * @throws Exception
+	 * @see TokenBucket#lease()
+	 */
+	public int leaseTokens(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the token bucket.
+	 *
+	 * @param identifier an identifier for the token bucket
+	 * @return <code>true</code> if the token bucket existed
+	 * @throws Exception
+	 */
+	public boolean deleteTokenBucket(Object identifier) throws Exception;
+
+	/**
+	 * Creates a phaser, which is a reusable barrier whose parties may register and deregister between the phases.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @param parties the number of the parties initially registered
+	 * @return <code>true</code> if the phaser is created, or <code>false</code> if it already exists
+	 * @throws Exception
+	 * @see DistributedPhaser
+	 */
+	public boolean createPhaser(Object identifier, int parties) throws Exception;
+
+	/**
+	 * Registers a party with the phaser.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the current phase
+	 * @throws Exception
+	 * @see DistributedPhaser#register()
+	 */
+	public int registerPhaser(Object identifier) throws Exception;
+
+	/**
+	 * Arrives at the current phase of the phaser without waiting for the others.
+	 * The party awaits the advance by polling {@link #getPhase(Object)} until it changes from the returned phase.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the phase arrived at
+	 * @throws Exception
+	 * @see DistributedPhaser#arrive()
+	 */
+	public int arrivePhaser(Object identifier) throws Exception;
+
+	/**
+	 * Arrives at the current phase of the phaser and deregisters a party.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the phase arrived at
+	 * @throws Exception
+	 * @see DistributedPhaser#arriveAndDeregister()
+	 */
+	public int deregisterPhaser(Object identifier) throws Exception;
+
+	/**
+	 * Returns the current phase of the phaser.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the current phase
+	 * @throws Exception
+	 */
+	public int getPhase(Object identifier) throws Exception;
+
+	/**
+	 * Returns the number of the parties registered with the phaser.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the number of the registered parties
+	 * @throws Exception
+	 */
+	public int getPhaserParties(Object identifier) throws Exception;
+
+	/**
+	 * Returns the number of the parties arrived at the current phase of the phaser.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the number of the arrived parties
+	 * @throws Exception
+	 */
+	public int getArrivedParties(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the phaser. The parties awaiting the advance fail when they poll it next time.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return <code>true</code> if the phaser existed
+	 * @throws Exception
+	 */
+	public boolean deletePhaser(Object identifier) throws Exception;
+
+	/**
+	 * Creates a bounded FIFO mailbox of the values passed between the rules on the nodes.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @param capacity the maximum number of the values in the mailbox
+	 * @return <code>true</code> if the mailbox is created, or <code>false</code> if it already exists
+	 * @throws Exception
+	 */
+	public boolean createMailbox(Object identifier, int capacity) throws Exception;
+
+	/**
+	 * Puts a value into the mailbox, waiting while it is full.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @param value the value encoded by {@link jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec}
+	 * @param timeout the maximum time to wait (milliseconds), or 0 not to wait
+	 * @return <code>true</code> if the value is put, or <code>false</code> if the mailbox is still full or deleted
+	 * @throws Exception
+	 */
+	public boolean putMail(Object identifier, byte[] value, long timeout) throws Exception;
+
+	/**
+	 * Takes the oldest value from the mailbox, waiting while it is empty.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @param timeout the maximum time to wait (milliseconds), or 0 not to wait
+	 * @return the encoded value, or <code>null</code> if the mailbox is still empty or deleted
+	 * @throws Exception
+	 */
+	public byte[] takeMail(Object identifier, long timeout) throws Exception;
+
+	/**
+	 * Takes the oldest values from the mailbox at once without waiting.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @param max the maximum number of the values to take
+	 * @return the encoded values in the order they are put
+	 * @throws Exception
+	 */
+	public List<byte[]> drainMail(Object identifier, int max) throws Exception;
+
+	/**
+	 * Returns the number of the values in the mailbox.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @return the number of the values
+	 * @throws Exception
+	 */
+	public int getMailboxSize(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the mailbox. The values left in it are discarded, and the waiting threads are woken up.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @return <code>true</code> if the mailbox existed
+	 * @throws Exception
+	 */
+	public boolean deleteMailbox(Object identifier) throws Exception;
+
+	/**
+	 * Returns the value of the key-value store.
+	 *
+	 * @param identifier an identifier for the value
+	 * @return the value with its version, whose value is <code>null</code> if it does not exist
+	 * @throws Exception
+	 */
+	public VersionedValue getValue(Object identifier) throws Exception;
+
+	/**
+	 * Returns the value of the key-value store, and lets the node cache it until it is invalidated. <br/>
+	 * When the value is mutated next time, the controller node calls
+	 * {@link jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.NodeIF#invalidateValue(Object, long)} of the node once.
+	 *
+	 * @param node the identifier of the node registered by {@link #registerNode(String, Object)}
+	 * @param identifier an identifier for the value
+	 * @return the value with its version, whose value is <code>null</code> if it does not exist
+	 * @throws Exception
+	 */
+	public VersionedValue watchValue(String node, Object identifier) throws Exception;
+
+	/**
+	 * Sets the value of the key-value store.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param value the value encoded by {@link jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec}
+	 * @return the version of the value
+	 * @throws Exception
+	 */
+	public long putValue(Object identifier, byte[] value) throws Exception;
+
+	/**
+	 * Sets the value of the key-value store if the current value is equal to the expected one.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param expected the expected encoded value, or <code>null</code> to expect that the value does not exist
+	 * @param value the encoded value
+	 * @return the version of the value, or -1 if the current value is not equal to the expected one
+	 * @throws Exception
+	 * @see ValueStore#compareAndSet(Object, byte[], byte[])
+	 */
+	public long compareAndSetValue(Object identifier, byte[] expected, byte[] value) throws Exception;
+
+	/**
+	 * Updates the integer value of the key-value store atomically. A value which does not exist is regarded as 0.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param update the update
+	 * @param operand the operand of the update
+	 * @return the value before the update
+	 * @throws Exception
+	 * @see ValueStore#getAndUpdate(Object, ValueStore.Update, long)
+	 */
+	public long getAndUpdateValue(Object identifier, ValueStore.Update update, long operand) throws Exception;
+
+	/**
+	 * Deletes the value of the key-value store.
+	 *
+	 * @param identifier an identifier for the value
+	 * @return <code>true</code> if the value existed
+	 * @throws Exception
+	 */
+	public boolean deleteValue(Object identifier) throws Exception;
+
+	/**
+	 * Acquires the lease which makes the node the owner of the identifier for the time to live.
+	 * The lease is not granted while it is held, even to the same node, and the holder extends it by {@link #renewLease(Object, long, long)}.
+	 * The lease is released when the node is lost as well as when the time to live elapses.
+	 *
+	 * @param identifier an identifier for the lease
+	 * @param node the identifier of the node registered by {@link #registerNode(String, Object)}
+	 * @param ttl the time to live (milliseconds)
+	 * @return the fencing token, or -1 if the lease is already held
+	 * @throws Exception
+	 * @see Lease#acquire(String, long, long)
+	 */
+	public long acquireLease(Object identifier, String node, long ttl) throws Exception;
+
+	/**
+	 * Renews the lease for the time to live from now.
+	 *
+	 * @param identifier an identifier for the lease
+	 * @param token the fencing token returned by {@link #acquireLease(Object, String, long)}
+	 * @param ttl the time to live (milliseconds)
+	 * @return <code>true</code> if the lease is renewed, or <code>false</code> if the token is not valid any more
+	 * @throws Exception
+	 */
+	public boolean renewLease(Object identifier, long token, long ttl) throws Exception;
+
+	/**
+	 * Releases the lease.
+	 *
+	 * @param identifier an identifier for the lease
+	 * @param token the fencing token returned by {@link #acquireLease(Object, String, long)}
+	 * @return <code>true</code> if the lease is released, or <code>false</code> if the token is not valid any more
+	 * @throws Exception
+	 */
+	public boolean releaseLease(Object identifier, long token) throws Exception;
+
+	/**
+	 * Returns whether the fencing token is of the lease held now.
+	 *
+	 * @param identifier an identifier for the lease
+	 * @param token the fencing token
+	 * @return <code>true</code> if the token is valid
+	 * @throws Exception
+	 */
+	public boolean isLeaseValid(Object identifier, long token) throws Exception;
+
+	/**
+	 * Returns the node which holds the lease now.
+	 *
+	 * @param identifier an identifier for the lease
+	 * @return the identifier of the node, or <code>null</code> if no node holds the lease
+	 * @throws Exception
+	 */
+	public String getLeaseHolder(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the lease. The fencing tokens start over when it is acquired again.
+	 *
+	 * @param identifier an identifier for the lease
+	 * @return <code>true</code> if the lease existed
+	 * @throws Exception
+	 */
+	public boolean deleteLease(Object identifier) throws Exception;
+
+	/**
+	 * Sets the distribution of the delays injected by the rules, and sends it to all the registered nodes.
+	 * The nodes keep a copy of it, so that a delay is injected without calling the controller node.
+	 *
+	 * @param identifier an identifier for the delay
+	 * @param distribution the distribution, or <code>null</code> to inject no delay
+	 * @throws Exception
+	 */
+	public void setDelay(Object identifier, DelayDistribution distribution) throws Exception;
+
+	/**
+	 * Returns the distribution of the delays with its version, which the nodes read when they inject the delay first.
+	 *
+	 * @param identifier an identifier for the delay
+	 * @return the distribution encoded by {@link jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec} with its version,
+	 *         whose value is <code>null</code> if no distribution is set
+	 * @throws Exception
+	 */
+	public VersionedValue getDelay(Object identifier) throws Exception;
+
+	/**
+	 * Returns the histogram of the delays actually injected, merged from all the nodes.
+	 *
+	 * @param identifier an identifier for the delay
+	 * @return the merged histogram (nanoseconds), which is empty if no delay is injected
+	 * @throws Exception
+	 */
+	public LatencyHistogram getInjectedDelayHistogram(Object identifier) throws Exception;
+
+	/**
+	 * Deletes the distribution of the delays, and the histograms of the injected delays on all the nodes.
+	 *
+	 * @param identifier an identifier for the delay
+	 * @return <code>true</code> if the distribution or any histogram existed
+	 * @throws Exception
+	 */
+	public boolean deleteDelay(Object identifier) throws Exception;
+
+	/**
+	 * Returns the states of the stress workloads started by the rules on the nodes.
+	 *
+	 * @param identifier an identifier for the workload
+	 * @return the map of the identifiers of the nodes and the states,
+	 *         which does not contain the nodes where no workload of the identifier is started
+	 * @throws Exception
+	 */
+	public Map<String, StressStatus> getStressStatuses(Object identifier) throws Exception;
+
+	/**
+	 * Cancels the stress workloads on all the nodes.
+	 *
+	 * @param identifier an identifier for the workload
+	 * @return <code>true</code> if the workload was running on any node
+	 * @throws Exception
+	 */
+	public boolean cancelStress(Object identifier) throws Exception;
+
+	/**
+	 * Runs the task in parallel in the JVMs of the nodes, and gathers the results. <br/>
+	 * The failures of the task do not unregister the nodes, as well as the timeouts.
+	 * The results can be reduced on the controller node by {@link TaskResults#reduce(Object, TaskResults.Reducer)}.
+	 *
+	 * @param task the task, whose class must be available on the nodes
+	 * @param nodes the identifiers of the nodes, or <code>null</code> for all the registered nodes
+	 * @param timeout the timeout to wait for all the nodes (milliseconds)
+	 * @return the results of the nodes, which contain the failures of the nodes not registered or timed out
+	 * @throws Exception
+	 */
+	public <T extends Serializable> TaskResults<T> executeTask(NodeTask<T> task, Collection<String> nodes, long timeout) throws Exception;
+
 }
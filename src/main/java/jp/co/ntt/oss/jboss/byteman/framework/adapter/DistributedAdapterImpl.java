@@ -19,12 +19,59 @@
 
 package jp.co.ntt.oss.jboss.byteman.framework.adapter;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.rmi.MarshalException;
 import java.rmi.RemoteException;
+import java.rmi.ServerError;
+import java.rmi.ServerException;
+import java.rmi.UnmarshalException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Journal.Kind;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Journal.Operation;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace.ScopedIdentifier;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.CallbackIF;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.NodeIF;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.StressStatus;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Clock;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.ClockEstimator;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Frequency;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HeavyHitters;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.LatencyHistogram;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Rate;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.RateMeter;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Reservoir;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanEvent;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanMatcher;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.StackProfile;
 import jp.co.ntt.oss.jboss.byteman.framework.util.Logger;
+import jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec;
 
 import org.jboss.byteman.rule.helper.Helper;
 
@@ -65,8 +112,49 @@ import org.jboss.byteman.rule.helper.Helper;
  * <li>{@link #trace(Object, String)}</li>
  * <li>{@link #traceln(Object, String)}</li>
  * </ul> 
+ * The metrics such as latencies are recorded on the nodes, and pulled from the nodes registered by
+ * {@link #registerNode(String, Object)} and merged when they are requested.
+ * A node which cannot be reached is unregistered. <br/>
+ * The clocks of the registered nodes are sampled every {@link #CLOCK_SAMPLE_INTERVAL} milliseconds,
+ * from which their offsets and drifts are estimated by {@link ClockEstimator}.
+ * The spans are reported by the nodes by {@link #reportSpans(String, List)}, and their timestamps are corrected
+ * by the estimated offsets before they are matched.
+ * The marks are accumulated on the nodes and reported by {@link #reportMarks(String, Map)},
+ * from which the rates of each node and all the nodes are measured by {@link RateMeter}. <br/>
+ * The identifiers scoped by a {@link Namespace} are remembered when the state is created,
+ * so that {@link #deleteNamespace(String)} can delete them at once. <br/>
+ * The profiles reported by the nodes are merged per identifier, and each of them is also written
+ * to the directory given by {@link #setProfileDirectory(File)} in the collapsed-stack format. <br/>
+ * If a {@link Journal} is opened by {@link #openJournal(Journal)}, the mutations of flags, counters, countdowns and timers
+ * are appended to it. A mutation and its append are made atomic by a lock striped by the identifier,
+ * so that the journal records the mutations of an identifier in the order they are applied,
+ * and only the mutations which change the state are appended. Rendezvous, joins, semaphores, token buckets, phasers, mailboxes, leases and waiters are not journaled because the waiting threads do not survive a crash,
+ * and traces are already written to their files. The values of the key-value store are not journaled either,
+ * because the journal holds only numbers. <br/>
+ * The nodes which cache a value are remembered by {@link #watchValue(String, Object)},
+ * and each of them is notified once when the value is mutated next time. <br/>
+ * The leases and the semaphore permits held by a node are released when the node is lost, which is detected by the clock sampling
+ * every {@link #CLOCK_SAMPLE_INTERVAL} milliseconds at the latest.
+ * A lost node is retried by the clock sampling for {@link #LOST_NODE_RETENTION} milliseconds,
+ * and registered again if it can be reached, so that a transient failure does not lose the node for good. <br/>
+ * The distributions of the injected delays are versioned like the values of the key-value store,
+ * and sent to all the registered nodes when they are set. <br/>
+ * A triggered countdown releases the threads which await it for {@link #COUNT_DOWN_RETENTION} milliseconds,
+ * after which it is forgotten like a countdown never created. <br/>
+ * The tasks of {@link #executeTask(NodeTask, Collection, long)} are sent to the nodes by a pool of daemon threads,
+ * which is started when a task is executed first.
  */
 public class DistributedAdapterImpl implements DistributedAdapter {
+	/** The interval to sample the clocks of the registered nodes (milliseconds). */
+	public static final long CLOCK_SAMPLE_INTERVAL = 1000;
+	/** The number of the samples of the clock taken when a node is registered. */
+	public static final int CLOCK_INITIAL_SAMPLES = 4;
+	/** The time for which a lost node is retried before it is forgotten (milliseconds). */
+	public static final long LOST_NODE_RETENTION = 60000;
+	/** The number of the locks which make a journaled mutation and its append atomic. */
+	public static final int JOURNAL_LOCK_STRIPES = 64;
+	/** The time for which a triggered countdown releases the threads arriving late (milliseconds). */
+	public static final long COUNT_DOWN_RETENTION = 60000;
 	/** Default helper. **/
 	protected Helper helper = new Helper(null) {
 	};
@@ -75,6 +163,60 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 
 	private static Map<Object, CallbackIF> callbacks = new ConcurrentHashMap<Object, CallbackIF>();
 
+	private static Map<String, Set<Object>> scopedIdentifiers = new ConcurrentHashMap<String, Set<Object>>();
+
+	private static Map<Object, Integer> rendezvousParties = new ConcurrentHashMap<Object, Integer>();
+
+	private static Map<Object, Long> timerOffsets = new ConcurrentHashMap<Object, Long>();
+
+	private static volatile Journal journal;
+
+	private static final Object[] journalLocks = new Object[JOURNAL_LOCK_STRIPES];
+
+	static {
+		for(int i = 0; i < journalLocks.length; i++) {
+			journalLocks[i] = new Object();
+		}
+	}
+
+	private static ConcurrentMap<Object, CountDownGate> countDownGates = new ConcurrentHashMap<Object, CountDownGate>();
+
+	private static ConcurrentMap<Object, StackProfile> profiles = new ConcurrentHashMap<Object, StackProfile>();
+
+	private static volatile File profileDirectory;
+
+	private static ConcurrentMap<Object, FairSemaphore> semaphores = new ConcurrentHashMap<Object, FairSemaphore>();
+
+	private static ConcurrentMap<Object, TokenBucket> tokenBuckets = new ConcurrentHashMap<Object, TokenBucket>();
+
+	private static ConcurrentMap<Object, DistributedPhaser> phasers = new ConcurrentHashMap<Object, DistributedPhaser>();
+
+	private static ConcurrentMap<Object, Mailbox> mailboxes = new ConcurrentHashMap<Object, Mailbox>();
+
+	private static ValueStore values = new ValueStore();
+
+	private static ConcurrentMap<Object, Set<String>> valueWatchers = new ConcurrentHashMap<Object, Set<String>>();
+
+	private static ConcurrentMap<Object, Lease> leases = new ConcurrentHashMap<Object, Lease>();
+
+	private static ValueStore delays = new ValueStore();
+
+	private static ConcurrentMap<String, NodeIF> nodes = new ConcurrentHashMap<String, NodeIF>();
+
+	private static Map<String, ClockEstimator> clocks = new ConcurrentHashMap<String, ClockEstimator>();
+
+	private static ConcurrentMap<String, LostNode> lostNodes = new ConcurrentHashMap<String, LostNode>();
+
+	private static ScheduledExecutorService clockSampler;
+
+	private static ExecutorService taskExecutor;
+
+	private static SpanMatcher spans = new SpanMatcher();
+
+	private static ConcurrentMap<Object, RateMeter> rates = new ConcurrentHashMap<Object, RateMeter>();
+
+	private static ConcurrentMap<Object, ConcurrentMap<String, RateMeter>> nodeRates = new ConcurrentHashMap<Object, ConcurrentMap<String, RateMeter>>();
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -92,6 +234,7 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public void waitFor(Object identifier, long millisecs) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
 		helper.waitFor(identifier, millisecs);
 		logger.debug("End identifier %s", identifier);
 	}
@@ -124,7 +267,11 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean createRendezvous(Object identifier, int expected, boolean restartable) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
 		boolean result = helper.createRendezvous(identifier, expected, restartable);
+		if(result && identifier instanceof ScopedIdentifier) {
+			rendezvousParties.put(identifier, expected);
+		}
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
 	}
@@ -169,6 +316,9 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	public boolean deleteRendezvous(Object identifier, int expected) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
 		boolean result = helper.deleteRendezvous(identifier, expected);
+		if(result) {
+			rendezvousParties.remove(identifier);
+		}
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
 	}
@@ -179,6 +329,7 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean createJoin(Object identifier, int max) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
 		boolean result = helper.createJoin(identifier, max);
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
@@ -223,7 +374,14 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean flag(Object identifier) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		boolean result = helper.flag(identifier);
+		remember(identifier);
+		boolean result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.flag(identifier);
+			if(result) {
+				journal(Kind.FLAG, Operation.SET, identifier, 1);
+			}
+		}
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
 	}
@@ -245,7 +403,13 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean clear(Object identifier) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		boolean result = helper.clear(identifier);
+		boolean result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.clear(identifier);
+			if(result) {
+				journal(Kind.FLAG, Operation.DELETE, identifier, 0);
+			}
+		}
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
 	}
@@ -267,18 +431,111 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean countDown(Object identifier) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		boolean result = helper.countDown(identifier);
+		boolean result;
+		synchronized (getJournalLock(identifier)) {
+			boolean exists = helper.isCountDown(identifier);
+			result = helper.countDown(identifier);
+			if(result) {
+				journal(Kind.COUNT_DOWN, Operation.DELETE, identifier, 0);
+			} else if(exists) {
+				journal(Kind.COUNT_DOWN, Operation.ADD, identifier, -1);
+			}
+		}
+		if(result) {
+			openCountDownGate(identifier);
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The gate of a triggered countdown is kept open until the countdown is created again
+	 * or {@link #COUNT_DOWN_RETENTION} milliseconds elapse, so that a thread which arrives after the trigger returns at once.
+	 * The closed gate of a countdown not created yet is removed when its last waiter times out.
+	 */
+	@Override
+	public boolean awaitCountDown(Object identifier, long millis) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		CountDownGate gate;
+		while(!(gate = getCountDownGate(identifier)).enter()) {
+			countDownGates.remove(identifier, gate);
+		}
+		boolean result;
+		try {
+			result = gate.await(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RemoteException(String.format("Interrupted while waiting for the countdown [%s].", identifier), e);
+		} finally {
+			if(gate.leave()) {
+				countDownGates.remove(identifier, gate);
+			}
+		}
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
 	}
 
+	/**
+	 * Opens the gate of the triggered countdown, and forgets the gates opened more than {@link #COUNT_DOWN_RETENTION} ago.
+	 */
+	private void openCountDownGate(Object identifier) {
+		CountDownGate gate;
+		while(!(gate = getCountDownGate(identifier)).open()) {
+			countDownGates.remove(identifier, gate);
+		}
+		pruneCountDownGates(System.currentTimeMillis());
+	}
+
+	/**
+	 * Removes the gates of the countdowns triggered more than {@link #COUNT_DOWN_RETENTION} milliseconds before the specified time.
+	 *
+	 * @param now the current time in milliseconds
+	 */
+	protected void pruneCountDownGates(long now) {
+		for(Map.Entry<Object, CountDownGate> entry : countDownGates.entrySet()) {
+			if(entry.getValue().expire(now)) {
+				countDownGates.remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Returns the gate of the countdown, creating a closed one if it does not exist.
+	 */
+	private CountDownGate getCountDownGate(Object identifier) {
+		CountDownGate gate = countDownGates.get(identifier);
+		if(gate == null) {
+			CountDownGate created = new CountDownGate();
+			gate = countDownGates.putIfAbsent(identifier, created);
+			if(gate == null) {
+				gate = created;
+			}
+		}
+		return gate;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public boolean createCountDown(Object identifier, int count) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		boolean result = helper.createCountDown(identifier, count);
+		remember(identifier);
+		boolean result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.createCountDown(identifier, count);
+			if(result) {
+				journal(Kind.COUNT_DOWN, Operation.SET, identifier, count);
+			}
+		}
+		if(result) {
+			// the waiters of the previous countdown have been released, and the new ones wait for this countdown.
+			CountDownGate gate = countDownGates.get(identifier);
+			if(gate != null && gate.discardIfOpen()) {
+				countDownGates.remove(identifier, gate);
+			}
+		}
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
 	}
@@ -289,7 +546,14 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean createCounter(Object identifier, int value) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		boolean result = helper.createCounter(identifier, value);
+		remember(identifier);
+		boolean result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.createCounter(identifier, value);
+			if(result) {
+				journal(Kind.COUNTER, Operation.SET, identifier, value);
+			}
+		}
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
 	}
@@ -300,7 +564,13 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean deleteCounter(Object identifier) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		boolean result = helper.deleteCounter(identifier);
+		boolean result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.deleteCounter(identifier);
+			if(result) {
+				journal(Kind.COUNTER, Operation.DELETE, identifier, 0);
+			}
+		}
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
 	}
@@ -311,7 +581,14 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public int readCounter(Object identifier, boolean zero) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		int result = helper.readCounter(identifier, zero);
+		int result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.readCounter(identifier, zero);
+			Journal current = journal;
+			if(zero && current != null && current.get(Kind.COUNTER, identifier) != null) {
+				journal(Kind.COUNTER, Operation.SET, identifier, 0);
+			}
+		}
 		logger.debug("End identifier %s: Returns %d", identifier, result);
 		return result;
 	}
@@ -322,7 +599,12 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public int incrementCounter(Object identifier, int amount) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		int result = helper.incrementCounter(identifier, amount);
+		remember(identifier);
+		int result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.incrementCounter(identifier, amount);
+			journal(Kind.COUNTER, Operation.ADD, identifier, amount);
+		}
 		logger.debug("End identifier %s: Returns %d", identifier, result);
 		return result;
 	}
@@ -333,7 +615,12 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public int decrementCounter(Object identifier) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		int result = helper.decrementCounter(identifier);
+		remember(identifier);
+		int result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.decrementCounter(identifier);
+			journal(Kind.COUNTER, Operation.ADD, identifier, -1);
+		}
 		logger.debug("End identifier %s: Returns %d", identifier, result);
 		return result;
 	}
@@ -344,7 +631,14 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean createTimer(Object identifier) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		boolean result = helper.createTimer(identifier);
+		remember(identifier);
+		boolean result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.createTimer(identifier);
+			if(result) {
+				journal(Kind.TIMER, Operation.SET, identifier, System.currentTimeMillis());
+			}
+		}
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
 	}
@@ -355,7 +649,14 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean deleteTimer(Object identifier) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		boolean result = helper.deleteTimer(identifier);
+		boolean result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.deleteTimer(identifier);
+			timerOffsets.remove(identifier);
+			if(result) {
+				journal(Kind.TIMER, Operation.DELETE, identifier, 0);
+			}
+		}
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
 	}
@@ -366,7 +667,7 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public long getElapsedTimeFromTimer(Object identifier) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		long result = helper.getElapsedTimeFromTimer(identifier);
+		long result = helper.getElapsedTimeFromTimer(identifier) + getTimerOffset(identifier);
 		logger.debug("End identifier %s: Returns %d", identifier, result);
 		return result;
 	}
@@ -377,7 +678,12 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public long resetTimer(Object identifier) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
-		long result = helper.resetTimer(identifier);
+		long result;
+		synchronized (getJournalLock(identifier)) {
+			result = helper.resetTimer(identifier) + getTimerOffset(identifier);
+			timerOffsets.remove(identifier);
+			journal(Kind.TIMER, Operation.SET, identifier, System.currentTimeMillis());
+		}
 		logger.debug("End identifier %s: Returns %d", identifier, result);
 		return result;
 	}
@@ -388,6 +694,7 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean traceOpen(Object identifier, String fileName) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
 		boolean result = helper.traceOpen(identifier, fileName);
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
@@ -410,6 +717,8 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean trace(Object identifier, String message) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
+		// the trace is opened if it is not opened yet, and closed with the namespace.
+		remember(identifier);
 		boolean result = helper.trace(identifier, message);
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
@@ -421,6 +730,7 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public boolean traceln(Object identifier, String message) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
 		boolean result = helper.traceln(identifier, message);
 		logger.debug("End identifier %s: Returns %b", identifier, result);
 		return result;
@@ -463,6 +773,7 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 	@Override
 	public void registerCallback(Object identifier, Object target) throws RemoteException {
 		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
 		callbacks.put(identifier, (CallbackIF) target);
 		logger.debug("End identifier %s", identifier);
 	}
@@ -494,4 +805,1774 @@ public class DistributedAdapterImpl implements DistributedAdapter {
 		throw e;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deleteNamespace(String namespace) throws RemoteException {
+		logger.debug("Start namespace %s", namespace);
+		Set<Object> identifiers = scopedIdentifiers.remove(namespace);
+		if(identifiers == null) {
+			identifiers = Collections.emptySet();
+		}
+		for(Object identifier : identifiers) {
+			deleteScoped(identifier);
+		}
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				entry.getValue().deleteNamespace(namespace);
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End namespace %s: Returns %d", namespace, identifiers.size());
+		return identifiers.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void registerNode(String node, Object target) throws RemoteException {
+		logger.debug("Start node %s", node);
+		NodeIF endpoint = (NodeIF) target;
+		ClockEstimator clock = new ClockEstimator();
+		lostNodes.remove(node);
+		nodes.put(node, endpoint);
+		clocks.put(node, clock);
+		try {
+			for(int i = 0; i < CLOCK_INITIAL_SAMPLES; i++) {
+				sampleClock(endpoint, clock);
+			}
+		} catch (RemoteException e) {
+			lostNode(node, endpoint, e);
+		}
+		startClockSampler();
+		logger.debug("End node %s", node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getLatencyHistogram(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		LatencyHistogram result = new LatencyHistogram();
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				LatencyHistogram histogram = entry.getValue().getLatencyHistogram(identifier);
+				if(histogram != null) {
+					result.merge(histogram);
+				}
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyPercentile(Object identifier, double percentile) throws RemoteException {
+		return getLatencyHistogram(identifier).getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyMax(Object identifier) throws RemoteException {
+		return getLatencyHistogram(identifier).getMax();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyCount(Object identifier) throws RemoteException {
+		return getLatencyHistogram(identifier).getCount();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLatency(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = false;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				result |= entry.getValue().deleteLatency(identifier);
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HyperLogLog getDistinctSketch(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		HyperLogLog result = null;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				HyperLogLog sketch = entry.getValue().getDistinctSketch(identifier);
+				if(sketch == null) {
+					continue;
+				}
+				if(result == null) {
+					result = sketch.copy();
+				} else {
+					result.merge(sketch);
+				}
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getDistinctCount(Object identifier) throws RemoteException {
+		HyperLogLog sketch = getDistinctSketch(identifier);
+		return sketch == null ? 0 : sketch.getCardinality();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDistinct(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = false;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				result |= entry.getValue().deleteDistinct(identifier);
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HeavyHitters getFrequentSketch(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		HeavyHitters result = null;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				HeavyHitters sketch = entry.getValue().getFrequentSketch(identifier);
+				if(sketch == null) {
+					continue;
+				}
+				if(result == null) {
+					result = sketch.copy();
+				} else {
+					result.merge(sketch);
+				}
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Frequency> getTopFrequent(Object identifier) throws RemoteException {
+		HeavyHitters sketch = getFrequentSketch(identifier);
+		return sketch == null ? new ArrayList<Frequency>() : sketch.getTop();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteFrequent(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = false;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				result |= entry.getValue().deleteFrequent(identifier);
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Reservoir getReservoir(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		Reservoir result = null;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				Reservoir reservoir = entry.getValue().getReservoir(identifier);
+				if(reservoir == null) {
+					continue;
+				}
+				if(result == null) {
+					result = reservoir.copy();
+				} else {
+					result.merge(reservoir);
+				}
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Object> getSample(Object identifier) throws RemoteException {
+		Reservoir reservoir = getReservoir(identifier);
+		return reservoir == null ? new ArrayList<Object>() : reservoir.getValues();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSample(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = false;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				result |= entry.getValue().deleteSample(identifier);
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getResourceHistogram(Object identifier, Resource resource) throws RemoteException {
+		logger.debug("Start identifier %s: %s", identifier, resource);
+		LatencyHistogram result = new LatencyHistogram();
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				LatencyHistogram histogram = entry.getValue().getResourceHistogram(identifier, resource);
+				if(histogram != null) {
+					result.merge(histogram);
+				}
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteResource(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = false;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				result |= entry.getValue().deleteResource(identifier);
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getContentionHistogram(Object identifier) throws RemoteException {
+		LatencyHistogram result = new LatencyHistogram();
+		for(LatencyHistogram histogram : getNodeContentionHistograms(identifier).values()) {
+			result.merge(histogram);
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, LatencyHistogram> getNodeContentionHistograms(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		Map<String, LatencyHistogram> result = new TreeMap<String, LatencyHistogram>();
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				LatencyHistogram histogram = entry.getValue().getContentionHistogram(identifier);
+				if(histogram != null) {
+					result.put(entry.getKey(), histogram);
+				}
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteContention(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = false;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				result |= entry.getValue().deleteContention(identifier);
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportProfile(String node, Object identifier, StackProfile profile) throws RemoteException {
+		logger.debug("Start node %s: identifier %s", node, identifier);
+		remember(identifier);
+		StackProfile merged = profiles.get(identifier);
+		if(merged == null) {
+			StackProfile created = new StackProfile();
+			merged = profiles.putIfAbsent(identifier, created);
+			if(merged == null) {
+				merged = created;
+			}
+		}
+		merged.merge(profile);
+		File directory = profileDirectory;
+		if(directory != null) {
+			writeProfile(directory, node, identifier, profile);
+		}
+		logger.debug("End node %s: %s", node, profile);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public StackProfile getProfile(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		StackProfile profile = profiles.get(identifier);
+		StackProfile result = profile == null ? null : profile.copy();
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteProfile(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = profiles.remove(identifier) != null;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createSemaphore(Object identifier, int permits) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
+		boolean result = semaphores.putIfAbsent(identifier, new FairSemaphore(permits)) == null;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long requestPermit(Object identifier, String node) throws RemoteException {
+		logger.debug("Start identifier %s: node %s", identifier, node);
+		long result = getSemaphore(identifier).request(node);
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean pollPermit(Object identifier, long ticket) throws RemoteException {
+		logger.debug("Start identifier %s: ticket %d", identifier, ticket);
+		boolean result = getSemaphore(identifier).poll(ticket);
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelPermit(Object identifier, long ticket) throws RemoteException {
+		logger.debug("Start identifier %s: ticket %d", identifier, ticket);
+		FairSemaphore semaphore = semaphores.get(identifier);
+		boolean result = semaphore != null && semaphore.cancel(ticket);
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean releasePermit(Object identifier, String node) throws RemoteException {
+		logger.debug("Start identifier %s: node %s", identifier, node);
+		boolean result = getSemaphore(identifier).release(node);
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getAvailablePermits(Object identifier) throws RemoteException {
+		return getSemaphore(identifier).getAvailablePermits();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPermitQueueLength(Object identifier) throws RemoteException {
+		return getSemaphore(identifier).getQueueLength();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSemaphore(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = semaphores.remove(identifier) != null;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createTokenBucket(Object identifier, double rate, long burst) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
+		boolean result = tokenBuckets.putIfAbsent(identifier, new TokenBucket(rate, burst)) == null;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTokenRate(Object identifier, double rate, long burst) throws RemoteException {
+		logger.debug("Start identifier %s: rate %s, burst %d", identifier, rate, burst);
+		getTokenBucket(identifier).setRate(rate, burst);
+		logger.debug("End identifier %s", identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getTokenRate(Object identifier) throws RemoteException {
+		return getTokenBucket(identifier).getRate();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int leaseTokens(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		int result = getTokenBucket(identifier).lease();
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteTokenBucket(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = tokenBuckets.remove(identifier) != null;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createPhaser(Object identifier, int parties) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
+		boolean result = phasers.putIfAbsent(identifier, new DistributedPhaser(parties)) == null;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int registerPhaser(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		int result = getPhaser(identifier).register();
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int arrivePhaser(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		int result = getPhaser(identifier).arrive();
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deregisterPhaser(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		int result = getPhaser(identifier).arriveAndDeregister();
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPhase(Object identifier) throws RemoteException {
+		return getPhaser(identifier).getPhase();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPhaserParties(Object identifier) throws RemoteException {
+		return getPhaser(identifier).getParties();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getArrivedParties(Object identifier) throws RemoteException {
+		return getPhaser(identifier).getArrived();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deletePhaser(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = phasers.remove(identifier) != null;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createMailbox(Object identifier, int capacity) throws RemoteException {
+		logger.debug("Start identifier %s: capacity %d", identifier, capacity);
+		remember(identifier);
+		boolean result = mailboxes.putIfAbsent(identifier, new Mailbox(capacity)) == null;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean putMail(Object identifier, byte[] value, long timeout) throws RemoteException {
+		logger.debug("Start identifier %s: timeout %d", identifier, timeout);
+		boolean result;
+		try {
+			result = getMailbox(identifier).offer(value, timeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RemoteException(String.format("Interrupted while waiting for the mailbox [%s].", identifier), e);
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] takeMail(Object identifier, long timeout) throws RemoteException {
+		logger.debug("Start identifier %s: timeout %d", identifier, timeout);
+		byte[] result;
+		try {
+			result = getMailbox(identifier).poll(timeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RemoteException(String.format("Interrupted while waiting for the mailbox [%s].", identifier), e);
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result != null);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<byte[]> drainMail(Object identifier, int max) throws RemoteException {
+		logger.debug("Start identifier %s: max %d", identifier, max);
+		List<byte[]> result = getMailbox(identifier).drain(max);
+		logger.debug("End identifier %s: Returns %d values", identifier, result.size());
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getMailboxSize(Object identifier) throws RemoteException {
+		return getMailbox(identifier).size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteMailbox(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		Mailbox mailbox = mailboxes.remove(identifier);
+		if(mailbox != null) {
+			mailbox.close();
+		}
+		boolean result = mailbox != null;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue getValue(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		VersionedValue result = values.get(identifier);
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue watchValue(String node, Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s: node %s", identifier, node);
+		remember(identifier);
+		// the watcher is added before reading, so that a mutation after reading always notifies it.
+		Set<String> watchers = valueWatchers.get(identifier);
+		if(watchers == null) {
+			Set<String> created = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+			watchers = valueWatchers.putIfAbsent(identifier, created);
+			if(watchers == null) {
+				watchers = created;
+			}
+		}
+		watchers.add(node);
+		VersionedValue result = values.get(identifier);
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long putValue(Object identifier, byte[] value) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
+		long result = values.put(identifier, value);
+		invalidateValue(identifier, result);
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long compareAndSetValue(Object identifier, byte[] expected, byte[] value) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		remember(identifier);
+		long result = values.compareAndSet(identifier, expected, value);
+		if(result >= 0) {
+			invalidateValue(identifier, result);
+		}
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getAndUpdateValue(Object identifier, ValueStore.Update update, long operand) throws RemoteException {
+		logger.debug("Start identifier %s: %s %d", identifier, update, operand);
+		remember(identifier);
+		long result;
+		long version;
+		// the version is read in the same lock, so that the notified version is the one of this update.
+		synchronized(values) {
+			try {
+				result = values.getAndUpdate(identifier, update, operand);
+			} catch (IllegalArgumentException e) {
+				logger.error(e, "identifier %s", identifier);
+				throw e;
+			}
+			version = values.get(identifier).getVersion();
+		}
+		invalidateValue(identifier, version);
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteValue(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		long version = values.delete(identifier);
+		if(version >= 0) {
+			invalidateValue(identifier, version);
+		}
+		boolean result = version >= 0;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long acquireLease(Object identifier, String node, long ttl) throws RemoteException {
+		logger.debug("Start identifier %s: node %s, ttl %d", identifier, node, ttl);
+		remember(identifier);
+		Lease lease = leases.get(identifier);
+		if(lease == null) {
+			Lease created = new Lease();
+			lease = leases.putIfAbsent(identifier, created);
+			if(lease == null) {
+				lease = created;
+			}
+		}
+		long result = lease.acquire(node, ttl);
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean renewLease(Object identifier, long token, long ttl) throws RemoteException {
+		logger.debug("Start identifier %s: token %d, ttl %d", identifier, token, ttl);
+		Lease lease = leases.get(identifier);
+		boolean result = lease != null && lease.renew(token, ttl);
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean releaseLease(Object identifier, long token) throws RemoteException {
+		logger.debug("Start identifier %s: token %d", identifier, token);
+		Lease lease = leases.get(identifier);
+		boolean result = lease != null && lease.release(token);
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLeaseValid(Object identifier, long token) throws RemoteException {
+		Lease lease = leases.get(identifier);
+		return lease != null && lease.isValid(token);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getLeaseHolder(Object identifier) throws RemoteException {
+		Lease lease = leases.get(identifier);
+		return lease == null ? null : lease.getHolder();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLease(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = leases.remove(identifier) != null;
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setDelay(Object identifier, DelayDistribution distribution) throws RemoteException {
+		logger.debug("Start identifier %s: %s", identifier, distribution);
+		remember(identifier);
+		byte[] value = null;
+		long version;
+		if(distribution == null) {
+			version = delays.delete(identifier);
+		} else {
+			try {
+				value = ValueCodec.encode(distribution);
+			} catch (IOException e) {
+				throw new RemoteException(String.format("Failed to encode the delay [%s].", identifier), e);
+			}
+			version = delays.put(identifier, value);
+		}
+		if(version >= 0) {
+			VersionedValue update = new VersionedValue(value, version);
+			for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+				try {
+					entry.getValue().updateDelay(identifier, update);
+				} catch (RemoteException e) {
+					lostNode(entry.getKey(), entry.getValue(), e);
+				}
+			}
+		}
+		logger.debug("End identifier %s", identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue getDelay(Object identifier) throws RemoteException {
+		return delays.get(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getInjectedDelayHistogram(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		LatencyHistogram result = new LatencyHistogram();
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				LatencyHistogram histogram = entry.getValue().getInjectedDelayHistogram(identifier);
+				if(histogram != null) {
+					result.merge(histogram);
+				}
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDelay(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = delays.delete(identifier) >= 0;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				result |= entry.getValue().deleteInjectedDelay(identifier);
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, StressStatus> getStressStatuses(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		Map<String, StressStatus> result = new TreeMap<String, StressStatus>();
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				StressStatus status = entry.getValue().getStressStatus(identifier);
+				if(status != null) {
+					result.put(entry.getKey(), status);
+				}
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelStress(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = false;
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			try {
+				result |= entry.getValue().cancelStress(identifier);
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The task is sent to the nodes in parallel, and the results are waited for until the common deadline.
+	 * A node which cannot be reached is unregistered, while a node which failed to unmarshal the task
+	 * or whose task timed out is not.
+	 */
+	@Override
+	public <T extends Serializable> TaskResults<T> executeTask(final NodeTask<T> task, Collection<String> nodes, long timeout) throws RemoteException {
+		logger.debug("Start task %s: nodes %s, timeout %d", task, nodes, timeout);
+		long deadline = System.currentTimeMillis() + timeout;
+		TaskResults<T> result = new TaskResults<T>();
+		Map<String, NodeIF> targets = new TreeMap<String, NodeIF>();
+		if(nodes == null) {
+			targets.putAll(DistributedAdapterImpl.nodes);
+		} else {
+			for(String node : nodes) {
+				NodeIF target = DistributedAdapterImpl.nodes.get(node);
+				if(target == null) {
+					result.addFailure(node, new IllegalArgumentException(String.format("[%s] is not a registered node.", node)));
+				} else {
+					targets.put(node, target);
+				}
+			}
+		}
+		ExecutorService executor = getTaskExecutor();
+		Map<String, Future<T>> futures = new TreeMap<String, Future<T>>();
+		for(Map.Entry<String, NodeIF> entry : targets.entrySet()) {
+			final NodeIF target = entry.getValue();
+			futures.put(entry.getKey(), executor.submit(new Callable<T>() {
+				@Override
+				public T call() throws Exception {
+					return target.execute(task);
+				}
+			}));
+		}
+		for(Map.Entry<String, Future<T>> entry : futures.entrySet()) {
+			String node = entry.getKey();
+			try {
+				result.addResult(node, entry.getValue().get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS));
+			} catch (TimeoutException e) {
+				entry.getValue().cancel(true);
+				result.addFailure(node, new TimeoutException(
+						String.format("The task did not finish on the node [%s] in %d milliseconds.", node, timeout)));
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if(cause instanceof ExecutionException && cause.getCause() instanceof Exception) {
+					cause = cause.getCause();
+				} else if(cause instanceof RemoteException && isNodeLost((RemoteException) cause)) {
+					lostNode(node, targets.get(node), (RemoteException) cause);
+				}
+				result.addFailure(node, cause instanceof Exception ? (Exception) cause : e);
+			} catch (InterruptedException e) {
+				for(Future<T> future : futures.values()) {
+					future.cancel(true);
+				}
+				Thread.currentThread().interrupt();
+				throw new RemoteException(String.format("Interrupted while running the task %s.", task), e);
+			}
+		}
+		logger.debug("End task %s: Returns %s", task, result);
+		return result;
+	}
+
+	/**
+	 * Notifies the nodes caching the value that it is mutated, and forgets them.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param version the version of the mutation
+	 */
+	private void invalidateValue(Object identifier, long version) {
+		Set<String> watchers = valueWatchers.remove(identifier);
+		if(watchers == null) {
+			return;
+		}
+		for(String node : watchers) {
+			NodeIF target = nodes.get(node);
+			if(target == null) {
+				continue;
+			}
+			try {
+				target.invalidateValue(identifier, version);
+			} catch (RemoteException e) {
+				lostNode(node, target, e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the phaser of the specified identifier.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the phaser
+	 * @throws IllegalArgumentException if the phaser is not created
+	 */
+	private DistributedPhaser getPhaser(Object identifier) {
+		DistributedPhaser phaser = phasers.get(identifier);
+		if(phaser == null) {
+			RuntimeException e = new IllegalArgumentException(String.format("The phaser of the identifier [%s] is not created.", identifier));
+			logger.error(e, "identifier %s", identifier);
+			throw e;
+		}
+		return phaser;
+	}
+
+	/**
+	 * Returns the token bucket of the specified identifier.
+	 *
+	 * @param identifier an identifier for the token bucket
+	 * @return the token bucket
+	 * @throws IllegalArgumentException if the token bucket is not created
+	 */
+	private TokenBucket getTokenBucket(Object identifier) {
+		TokenBucket bucket = tokenBuckets.get(identifier);
+		if(bucket == null) {
+			RuntimeException e = new IllegalArgumentException(String.format("The token bucket of the identifier [%s] is not created.", identifier));
+			logger.error(e, "identifier %s", identifier);
+			throw e;
+		}
+		return bucket;
+	}
+
+	/**
+	 * Returns the mailbox of the specified identifier.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @return the mailbox
+	 * @throws IllegalArgumentException if the mailbox is not created
+	 */
+	private Mailbox getMailbox(Object identifier) {
+		Mailbox mailbox = mailboxes.get(identifier);
+		if(mailbox == null) {
+			RuntimeException e = new IllegalArgumentException(String.format("The mailbox of the identifier [%s] is not created.", identifier));
+			logger.error(e, "identifier %s", identifier);
+			throw e;
+		}
+		return mailbox;
+	}
+
+	/**
+	 * Returns the semaphore of the specified identifier.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @return the semaphore
+	 * @throws IllegalArgumentException if the semaphore is not created
+	 */
+	private FairSemaphore getSemaphore(Object identifier) {
+		FairSemaphore semaphore = semaphores.get(identifier);
+		if(semaphore == null) {
+			RuntimeException e = new IllegalArgumentException(String.format("The semaphore of the identifier [%s] is not created.", identifier));
+			logger.error(e, "identifier %s", identifier);
+			throw e;
+		}
+		return semaphore;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportSpans(String node, List<SpanEvent> events) throws RemoteException {
+		logger.debug("Start node %s: %d events", node, events.size());
+		ClockEstimator clock = clocks.get(node);
+		for(SpanEvent event : events) {
+			remember(event.getIdentifier());
+			spans.add(clock == null ? event : event.correct(event.getTimestamp() - clock.toLocalTime(event.getTimestamp())));
+		}
+		logger.debug("End node %s", node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getSpanHistogram(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		LatencyHistogram result = spans.getHistogram(identifier);
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getUnmatchedSpans(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		long result = spans.getUnmatched(identifier);
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSpan(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = spans.delete(identifier);
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportMarks(String node, Map<Object, Long> deltas) throws RemoteException {
+		logger.debug("Start node %s: %d identifiers", node, deltas.size());
+		long now = System.nanoTime();
+		for(Map.Entry<Object, Long> entry : deltas.entrySet()) {
+			remember(entry.getKey());
+			getRateMeter(rates, entry.getKey()).mark(entry.getValue(), now);
+			ConcurrentMap<String, RateMeter> meters = nodeRates.get(entry.getKey());
+			if(meters == null) {
+				ConcurrentMap<String, RateMeter> created = new ConcurrentHashMap<String, RateMeter>();
+				meters = nodeRates.putIfAbsent(entry.getKey(), created);
+				if(meters == null) {
+					meters = created;
+				}
+			}
+			getRateMeter(meters, node).mark(entry.getValue(), now);
+		}
+		logger.debug("End node %s", node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Rate getRate(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		RateMeter meter = rates.get(identifier);
+		Rate result = meter == null ? new Rate(0, 0, 0, 0) : meter.getRate();
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Rate> getNodeRates(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		Map<String, Rate> result = new TreeMap<String, Rate>();
+		Map<String, RateMeter> meters = nodeRates.get(identifier);
+		if(meters != null) {
+			for(Map.Entry<String, RateMeter> entry : meters.entrySet()) {
+				result.put(entry.getKey(), entry.getValue().getRate());
+			}
+		}
+		logger.debug("End identifier %s: Returns %s", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteRate(Object identifier) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		boolean result = rates.remove(identifier) != null;
+		nodeRates.remove(identifier);
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * Returns the rate meter of the key, creating it if it does not exist.
+	 */
+	private <K> RateMeter getRateMeter(ConcurrentMap<K, RateMeter> meters, K key) {
+		RateMeter meter = meters.get(key);
+		if(meter == null) {
+			RateMeter created = new RateMeter();
+			meter = meters.putIfAbsent(key, created);
+			if(meter == null) {
+				meter = created;
+			}
+		}
+		return meter;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getClockOffset(String node) throws RemoteException {
+		logger.debug("Start node %s", node);
+		long result = getClock(node).getOffset(Clock.currentTimeNanos());
+		logger.debug("End node %s: Returns %d", node, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getClockDrift(String node) throws RemoteException {
+		logger.debug("Start node %s", node);
+		double result = getClock(node).getDrift() * 1000000;
+		logger.debug("End node %s: Returns %f", node, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getClockError(String node) throws RemoteException {
+		logger.debug("Start node %s", node);
+		long result = getClock(node).getError();
+		logger.debug("End node %s: Returns %d", node, result);
+		return result;
+	}
+
+	/**
+	 * Returns the estimator of the clock of the node.
+	 *
+	 * @param node the identifier of the node
+	 * @return the estimator of the clock
+	 * @throws IllegalArgumentException if the node is not registered
+	 */
+	protected ClockEstimator getClock(String node) {
+		ClockEstimator clock = clocks.get(node);
+		if(clock == null) {
+			throw new IllegalArgumentException(String.format("[%s] is not registered.", node));
+		}
+		return clock;
+	}
+
+	/**
+	 * Samples the clock of the node once.
+	 *
+	 * @param target the endpoint of the node
+	 * @param clock the estimator of the clock
+	 * @throws RemoteException if the node cannot be reached
+	 */
+	protected void sampleClock(NodeIF target, ClockEstimator clock) throws RemoteException {
+		long sent = Clock.currentTimeNanos();
+		long remote = target.currentTimeNanos();
+		long received = Clock.currentTimeNanos();
+		clock.addSample(sent, remote, received);
+	}
+
+	/**
+	 * Samples the clocks of all the registered nodes, and retries the lost nodes.
+	 */
+	protected void sampleClocks() {
+		for(Map.Entry<String, NodeIF> entry : nodes.entrySet()) {
+			ClockEstimator clock = clocks.get(entry.getKey());
+			if(clock == null) {
+				continue;
+			}
+			try {
+				sampleClock(entry.getValue(), clock);
+			} catch (RemoteException e) {
+				lostNode(entry.getKey(), entry.getValue(), e);
+			}
+		}
+		retryLostNodes();
+	}
+
+	/**
+	 * Registers again the lost nodes which can be reached again, and forgets the ones lost
+	 * more than {@link #LOST_NODE_RETENTION} milliseconds ago.
+	 * The state cached on a node which comes back is discarded, because it may have missed the invalidations.
+	 */
+	protected void retryLostNodes() {
+		long now = System.currentTimeMillis();
+		for(Map.Entry<String, LostNode> entry : lostNodes.entrySet()) {
+			LostNode lost = entry.getValue();
+			if(now - lost.since > LOST_NODE_RETENTION) {
+				lostNodes.remove(entry.getKey(), lost);
+				logger.debug("Forgot the lost node %s", entry.getKey());
+				continue;
+			}
+			try {
+				lost.endpoint.discardCachedState();
+			} catch (RemoteException e) {
+				continue;
+			}
+			if(lostNodes.remove(entry.getKey(), lost) && !nodes.containsKey(entry.getKey())) {
+				logger.debug("The lost node %s came back", entry.getKey());
+				try {
+					registerNode(entry.getKey(), lost.endpoint);
+				} catch (RemoteException e) {
+					lostNode(entry.getKey(), lost.endpoint, e);
+				}
+			}
+		}
+	}
+
+	private void startClockSampler() {
+		synchronized (clocks) {
+			if(clockSampler != null) {
+				return;
+			}
+			clockSampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "DistributedAdapterImpl-clockSampler");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			clockSampler.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					sampleClocks();
+				}
+			}, CLOCK_SAMPLE_INTERVAL, CLOCK_SAMPLE_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private ExecutorService getTaskExecutor() {
+		synchronized (nodes) {
+			if(taskExecutor == null) {
+				taskExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "DistributedAdapterImpl-task");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+			}
+			return taskExecutor;
+		}
+	}
+
+	/**
+	 * Returns whether the exception means that the node cannot be reached.
+	 * The exceptions of marshalling and the exceptions thrown in the node are not,
+	 * such as the one thrown when the class of a task is not available on the node.
+	 *
+	 * @param e the exception thrown by the node
+	 * @return <code>true</code> if the node cannot be reached
+	 */
+	protected boolean isNodeLost(RemoteException e) {
+		return !(e instanceof MarshalException || e instanceof UnmarshalException
+				|| e instanceof ServerException || e instanceof ServerError);
+	}
+
+	/**
+	 * Returns the registered nodes.
+	 *
+	 * @return the map of the identifiers of the nodes and their endpoints
+	 */
+	protected Map<String, NodeIF> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Unregisters the node which cannot be reached.
+	 *
+	 * @param node the identifier of the node
+	 * @param target the endpoint of the node
+	 * @param e the cause
+	 */
+	protected void lostNode(String node, NodeIF target, Exception e) {
+		logger.error(e, "node %s", node);
+		if(nodes.remove(node, target)) {
+			lostNodes.put(node, new LostNode(target, System.currentTimeMillis()));
+			clocks.remove(node);
+			for(Map.Entry<Object, Lease> entry : leases.entrySet()) {
+				if(entry.getValue().releaseHolder(node)) {
+					logger.debug("Released the lease %s of the node %s", entry.getKey(), node);
+				}
+			}
+			for(Map.Entry<Object, FairSemaphore> entry : semaphores.entrySet()) {
+				int released = entry.getValue().releaseNode(node);
+				if(released > 0) {
+					logger.debug("Released %d permits of the semaphore %s of the node %s", released, entry.getKey(), node);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Deletes all the state of the specified scoped identifier.
+	 * Joins are not deleted because {@link Helper} does not provide a way to delete them.
+	 *
+	 * @param identifier the scoped identifier
+	 */
+	protected void deleteScoped(Object identifier) {
+		helper.signalWake(identifier, false);
+		synchronized (getJournalLock(identifier)) {
+			helper.clear(identifier);
+			helper.deleteCounter(identifier);
+			helper.deleteTimer(identifier);
+			timerOffsets.remove(identifier);
+			// the countdown is deleted when it is counted down after reaching zero.
+			while(helper.isCountDown(identifier)) {
+				helper.countDown(identifier);
+			}
+			for(Kind kind : Kind.values()) {
+				journal(kind, Operation.DELETE, identifier, 0);
+			}
+		}
+		helper.traceClose(identifier);
+		Integer expected = rendezvousParties.remove(identifier);
+		if(expected != null) {
+			helper.deleteRendezvous(identifier, expected);
+		}
+		CountDownGate gate = countDownGates.remove(identifier);
+		if(gate != null) {
+			gate.open();
+		}
+		callbacks.remove(identifier);
+		spans.delete(identifier);
+		profiles.remove(identifier);
+		semaphores.remove(identifier);
+		tokenBuckets.remove(identifier);
+		phasers.remove(identifier);
+		Mailbox mailbox = mailboxes.remove(identifier);
+		if(mailbox != null) {
+			mailbox.close();
+		}
+		// the nodes drop their caches by deleteNamespace.
+		values.delete(identifier);
+		valueWatchers.remove(identifier);
+		leases.remove(identifier);
+		delays.delete(identifier);
+		rates.remove(identifier);
+		nodeRates.remove(identifier);
+	}
+
+	/**
+	 * Restores the state from the journal and starts to append the mutations to it.
+	 *
+	 * @param journal the journal opened on the result directory
+	 */
+	public void openJournal(Journal journal) {
+		logger.debug("Start journal");
+		long now = System.currentTimeMillis();
+		for(Journal.Entry entry : journal.getState()) {
+			Object identifier = entry.getIdentifier();
+			remember(identifier);
+			switch(entry.getKind()) {
+			case FLAG:
+				helper.flag(identifier);
+				break;
+			case COUNTER:
+				helper.deleteCounter(identifier);
+				helper.createCounter(identifier, (int) entry.getValue());
+				break;
+			case COUNT_DOWN:
+				helper.createCountDown(identifier, (int) entry.getValue());
+				break;
+			case TIMER:
+				// Helper does not accept the start time, so the elapsed time before the restart is kept as an offset.
+				helper.deleteTimer(identifier);
+				helper.createTimer(identifier);
+				timerOffsets.put(identifier, now - entry.getValue());
+				break;
+			}
+		}
+		DistributedAdapterImpl.journal = journal;
+		logger.debug("End journal");
+	}
+
+	/**
+	 * Stops appending the mutations and closes the journal.
+	 *
+	 * @throws IOException if the journal could not be closed
+	 */
+	public void closeJournal() throws IOException {
+		Journal current = journal;
+		journal = null;
+		if(current != null) {
+			current.close();
+		}
+	}
+
+	/**
+	 * Sets the directory where the profiles reported by the nodes are written.
+	 * The directory is created when the first profile is reported.
+	 *
+	 * @param directory the directory, or <code>null</code> not to write the profiles
+	 */
+	public void setProfileDirectory(File directory) {
+		profileDirectory = directory;
+	}
+
+	/**
+	 * Writes a profile reported by a node in the collapsed-stack format,
+	 * to the file named after the identifier, the node and the time when it is reported.
+	 * A failure is logged and does not fail the report.
+	 *
+	 * @param directory the directory
+	 * @param node the identifier of the node
+	 * @param identifier an identifier for the profile
+	 * @param profile the folded stacks
+	 */
+	protected void writeProfile(File directory, String node, Object identifier, StackProfile profile) {
+		String name = String.format("%s-%s-%d.folded", identifier, node, System.currentTimeMillis()).replaceAll("[^A-Za-z0-9._-]", "_");
+		Writer writer = null;
+		try {
+			if(!directory.isDirectory() && !directory.mkdirs()) {
+				throw new IOException(String.format("%s could not be created.", directory));
+			}
+			writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(directory, name)), "UTF-8"));
+			profile.write(writer);
+		} catch (IOException e) {
+			logger.error(e, "identifier %s", identifier);
+		} finally {
+			if(writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					logger.error(e, "identifier %s", identifier);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends the mutation to the journal if it is opened.
+	 * A failure is logged and does not fail the operation which is already applied.
+	 *
+	 * @param kind the kind of the state
+	 * @param operation the operation
+	 * @param identifier the identifier of the state
+	 * @param value the value of the operation
+	 */
+	protected void journal(Kind kind, Operation operation, Object identifier, long value) {
+		Journal current = journal;
+		if(current == null) {
+			return;
+		}
+		try {
+			current.append(kind, operation, identifier, value);
+		} catch (IOException e) {
+			logger.error(e, "identifier %s", identifier);
+		}
+	}
+
+	/**
+	 * Returns the lock which makes a mutation of the identifier and its append to the journal atomic.
+	 *
+	 * @param identifier the identifier of the state
+	 * @return the lock
+	 */
+	protected Object getJournalLock(Object identifier) {
+		int hash = identifier == null ? 0 : identifier.hashCode();
+		hash ^= hash >>> 16;
+		return journalLocks[(hash & Integer.MAX_VALUE) % journalLocks.length];
+	}
+
+	/**
+	 * Returns the elapsed time of the timer before the controller was restarted.
+	 */
+	private long getTimerOffset(Object identifier) {
+		Long offset = timerOffsets.get(identifier);
+		return offset == null ? 0 : offset;
+	}
+
+	/**
+	 * Remembers the identifier if it is scoped by a namespace.
+	 *
+	 * @param identifier an identifier
+	 */
+	protected void remember(Object identifier) {
+		if(identifier instanceof ScopedIdentifier) {
+			String namespace = ((ScopedIdentifier) identifier).getNamespace();
+			Set<Object> identifiers = scopedIdentifiers.get(namespace);
+			if(identifiers == null) {
+				synchronized (scopedIdentifiers) {
+					identifiers = scopedIdentifiers.get(namespace);
+					if(identifiers == null) {
+						identifiers = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+						scopedIdentifiers.put(namespace, identifiers);
+					}
+				}
+			}
+			identifiers.add(identifier);
+		}
+	}
+
+	/**
+	 * The endpoint of a node which could not be reached, which is retried until it is forgotten.
+	 */
+	private static class LostNode {
+
+		private NodeIF endpoint;
+
+		private long since;
+
+		private LostNode(NodeIF endpoint, long since) {
+			this.endpoint = endpoint;
+			this.since = since;
+		}
+	}
+
+	/**
+	 * The gate which the threads waiting for a countdown wait at. It is opened when the countdown is triggered.
+	 */
+	private static class CountDownGate {
+
+		private boolean open;
+
+		private long openTime;
+
+		private int waiters;
+
+		/** Whether the gate is removed from the map, after which it is not used any more. */
+		private boolean removed;
+
+		/**
+		 * Returns <code>true</code> if the gate is open, which is removed then.
+		 */
+		private synchronized boolean discardIfOpen() {
+			if(open && !removed) {
+				removed = true;
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Opens the gate. It returns <code>false</code> if the gate is removed, and the caller opens a new one.
+		 */
+		private synchronized boolean open() {
+			if(removed) {
+				return false;
+			}
+			if(!open) {
+				open = true;
+				openTime = System.currentTimeMillis();
+				notifyAll();
+			}
+			return true;
+		}
+
+		/**
+		 * Enters the gate as a waiter. It returns <code>false</code> if the gate is removed, and the caller enters a new one.
+		 */
+		private synchronized boolean enter() {
+			if(removed) {
+				return false;
+			}
+			waiters++;
+			return true;
+		}
+
+		/**
+		 * Leaves the gate. It returns <code>true</code> if the gate is closed and has no waiter, which is removed then.
+		 */
+		private synchronized boolean leave() {
+			if(--waiters == 0 && !open) {
+				removed = true;
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Returns <code>true</code> if the gate was opened more than {@link #COUNT_DOWN_RETENTION} ago, which is removed then.
+		 */
+		private synchronized boolean expire(long now) {
+			if(open && now - openTime > COUNT_DOWN_RETENTION) {
+				removed = true;
+				return true;
+			}
+			return false;
+		}
+
+		private synchronized boolean await(long millis) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + millis;
+			while(!open) {
+				long remaining = deadline - System.currentTimeMillis();
+				if(remaining <= 0) {
+					return false;
+				}
+				wait(remaining);
+			}
+			return true;
+		}
+	}
+
 }
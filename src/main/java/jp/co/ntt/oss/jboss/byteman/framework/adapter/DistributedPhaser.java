@@ -0,0 +1,131 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+/**
+ * The reusable barrier whose parties may register and deregister between the phases, like {@link java.util.concurrent.Phaser}. <br/>
+ * The phase advances when all the registered parties arrive. No thread waits on this object:
+ * the parties which await the advance poll {@link #getPhase()} until it changes from the phase they arrived at.
+ * The phase number wraps around to 0 after {@link Integer#MAX_VALUE}. All the methods are thread-safe.
+ *
+ * @see DistributedAdapter#arrivePhaser(Object)
+ */
+public class DistributedPhaser {
+
+	private int phase;
+
+	private int parties;
+
+	private int arrived;
+
+	/**
+	 * Constructs with the number of the parties initially registered.
+	 *
+	 * @param parties the number of the parties
+	 */
+	public DistributedPhaser(int parties) {
+		if(parties < 0) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid number of parties.", parties));
+		}
+		this.parties = parties;
+	}
+
+	/**
+	 * Registers a party. The party takes part from the current phase.
+	 *
+	 * @return the current phase
+	 */
+	public synchronized int register() {
+		parties++;
+		return phase;
+	}
+
+	/**
+	 * Arrives at the current phase without waiting for the others.
+	 *
+	 * @return the phase arrived at
+	 * @throws IllegalStateException if all the registered parties have already arrived
+	 */
+	public synchronized int arrive() {
+		return arrive(false);
+	}
+
+	/**
+	 * Arrives at the current phase and deregisters a party.
+	 *
+	 * @return the phase arrived at
+	 * @throws IllegalStateException if all the registered parties have already arrived
+	 */
+	public synchronized int arriveAndDeregister() {
+		return arrive(true);
+	}
+
+	/**
+	 * Returns the current phase.
+	 *
+	 * @return the current phase
+	 */
+	public synchronized int getPhase() {
+		return phase;
+	}
+
+	/**
+	 * Returns the number of the registered parties.
+	 *
+	 * @return the number of the registered parties
+	 */
+	public synchronized int getParties() {
+		return parties;
+	}
+
+	/**
+	 * Returns the number of the parties arrived at the current phase.
+	 *
+	 * @return the number of the arrived parties
+	 */
+	public synchronized int getArrived() {
+		return arrived;
+	}
+
+	private int arrive(boolean deregister) {
+		if(arrived >= parties) {
+			throw new IllegalStateException(String.format("All the %d parties have already arrived at the phase %d.", parties, phase));
+		}
+		int result = phase;
+		if(deregister) {
+			parties--;
+		} else {
+			arrived++;
+		}
+		if(parties > 0 && arrived >= parties) {
+			phase = (phase + 1) & Integer.MAX_VALUE;
+			arrived = 0;
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format("phase=%d, parties=%d, arrived=%d", phase, parties, arrived);
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The semaphore which grants the permits in the order of the requests without parking the requesting threads. <br/>
+ * A requester receives a ticket by {@link #request(String)}, which waits in a FIFO queue.
+ * Whenever a permit becomes available, it is granted to the oldest waiting ticket at once,
+ * so that the order of the grants does not depend on when the requesters poll them by {@link #poll(long)}.
+ * A permit granted to a ticket is held by the node of the requester once it is polled,
+ * until it is released by {@link #release(String)}.
+ * When a node is lost, {@link #releaseNode(String)} cancels its tickets and returns all the permits of the node.
+ * All the methods are thread-safe.
+ *
+ * @see DistributedAdapter#requestPermit(Object, String)
+ */
+public class FairSemaphore {
+
+	private int permits;
+
+	private int available;
+
+	private long lastTicket;
+
+	private Map<Long, String> waiting = new LinkedHashMap<Long, String>();
+
+	private Map<Long, String> granted = new HashMap<Long, String>();
+
+	private Map<String, Integer> held = new HashMap<String, Integer>();
+
+	/**
+	 * Constructs with the number of the permits.
+	 *
+	 * @param permits the number of the permits
+	 */
+	public FairSemaphore(int permits) {
+		if(permits <= 0) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid number of permits.", permits));
+		}
+		this.permits = permits;
+		this.available = permits;
+	}
+
+	/**
+	 * Returns the number of the permits.
+	 *
+	 * @return the number of the permits
+	 */
+	public int getPermits() {
+		return permits;
+	}
+
+	/**
+	 * Requests a permit. The permit is granted at once if no older ticket is waiting and a permit is available.
+	 *
+	 * @param node the node identifier of the requester
+	 * @return the ticket, which is positive
+	 */
+	public synchronized long request(String node) {
+		long ticket = ++lastTicket;
+		waiting.put(ticket, node);
+		grant();
+		return ticket;
+	}
+
+	/**
+	 * Polls whether a permit is granted to the ticket. Once it returns <code>true</code>, the node of the requester holds the permit.
+	 *
+	 * @param ticket the ticket
+	 * @return <code>true</code> if a permit is granted to the ticket
+	 */
+	public synchronized boolean poll(long ticket) {
+		if(!granted.containsKey(ticket)) {
+			return false;
+		}
+		String node = granted.remove(ticket);
+		Integer count = held.get(node);
+		held.put(node, count == null ? 1 : count + 1);
+		return true;
+	}
+
+	/**
+	 * Cancels the request of the ticket. If a permit is granted to the ticket but not polled yet, it is returned.
+	 *
+	 * @param ticket the ticket
+	 * @return <code>true</code> if the ticket was waiting or granted
+	 */
+	public synchronized boolean cancel(long ticket) {
+		if(waiting.containsKey(ticket)) {
+			waiting.remove(ticket);
+			return true;
+		}
+		if(granted.containsKey(ticket)) {
+			granted.remove(ticket);
+			available++;
+			grant();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Releases a permit held by the node, which is granted to the oldest waiting ticket if any.
+	 *
+	 * @param node the node identifier of the holder
+	 * @return <code>true</code> if a permit was held, or <code>false</code> if the node holds no permit
+	 */
+	public synchronized boolean release(String node) {
+		Integer count = held.get(node);
+		if(count == null) {
+			return false;
+		}
+		if(count > 1) {
+			held.put(node, count - 1);
+		} else {
+			held.remove(node);
+		}
+		available++;
+		grant();
+		return true;
+	}
+
+	/**
+	 * Cancels all the tickets of the node and returns all the permits granted to or held by it.
+	 *
+	 * @param node the node identifier
+	 * @return the number of the returned permits
+	 */
+	public synchronized int releaseNode(String node) {
+		for(Iterator<String> iterator = waiting.values().iterator(); iterator.hasNext();) {
+			if(equals(node, iterator.next())) {
+				iterator.remove();
+			}
+		}
+		int released = 0;
+		for(Iterator<String> iterator = granted.values().iterator(); iterator.hasNext();) {
+			if(equals(node, iterator.next())) {
+				iterator.remove();
+				released++;
+			}
+		}
+		Integer count = held.remove(node);
+		if(count != null) {
+			released += count;
+		}
+		available += released;
+		grant();
+		return released;
+	}
+
+	/**
+	 * Returns the number of the permits which are not granted.
+	 *
+	 * @return the number of the available permits
+	 */
+	public synchronized int getAvailablePermits() {
+		return available;
+	}
+
+	/**
+	 * Returns the number of the tickets waiting for a permit.
+	 *
+	 * @return the number of the waiting tickets
+	 */
+	public synchronized int getQueueLength() {
+		return waiting.size();
+	}
+
+	private void grant() {
+		for(Iterator<Map.Entry<Long, String>> iterator = waiting.entrySet().iterator(); available > 0 && iterator.hasNext();) {
+			Map.Entry<Long, String> entry = iterator.next();
+			granted.put(entry.getKey(), entry.getValue());
+			iterator.remove();
+			available--;
+		}
+	}
+
+	private static boolean equals(String node1, String node2) {
+		return node1 == null ? node2 == null : node1.equals(node2);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format("permits=%d, available=%d, waiting=%d", permits, available, waiting.size());
+	}
+}
@@ -0,0 +1,811 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace.ScopedIdentifier;
+import jp.co.ntt.oss.jboss.byteman.framework.util.Logger;
+
+/**
+ * The append-only journal of the state mutations on the controller node. <br/>
+ * The mutations are appended to a memory-mapped segment file, so that an append costs a memory copy and survives a crash of the JVM.
+ * The segment is forced to the disk by a background thread at the commit interval (group commit),
+ * so a crash of the OS loses at most the mutations within the last interval. <br/>
+ * When the segment becomes full, the appends continue in a new segment, which is prepared in advance,
+ * and the full segment is compacted by another background thread.
+ * The compaction folds the full segments into the snapshot file, which records the generation of the last segment in it,
+ * and deletes them. The active segment is also compacted at the compaction interval.
+ * A new segment is a new file, so it needs no clearing. <br/>
+ * Opening a journal in the same directory rebuilds the state from the snapshot and the segments newer than it. <br/>
+ * The files can be read offline by {@link #read(File)}, or printed as follows:
+ * <pre>
+ * java -cp byteman-framework.jar:... jp.co.ntt.oss.jboss.byteman.framework.adapter.Journal &lt;directory&gt;
+ * </pre>
+ */
+public class Journal {
+
+	/** The prefix of the file names of the segments, which is followed by the generation. */
+	public static final String JOURNAL_PREFIX = "journal.";
+
+	/** The suffix of the file names of the segments. */
+	public static final String JOURNAL_SUFFIX = ".log";
+
+	/** The file name of the snapshot. */
+	public static final String SNAPSHOT_FILE = "journal.snapshot";
+
+	/** The default capacity of a segment (bytes). */
+	public static final int DEFAULT_CAPACITY = 16 * 1024 * 1024;
+
+	/** The default interval to force the journal to the disk (milliseconds). */
+	public static final long DEFAULT_COMMIT_INTERVAL = 10;
+
+	/** The default interval to compact the journal (milliseconds). */
+	public static final long DEFAULT_COMPACT_INTERVAL = 60 * 1000;
+
+	/** The size of the header of a record, which consists of the length and the CRC32 of the body. */
+	private static final int HEADER_SIZE = 8;
+
+	private static final byte TYPE_STRING = 'S';
+	private static final byte TYPE_INTEGER = 'I';
+	private static final byte TYPE_LONG = 'L';
+	private static final byte TYPE_SCOPED = 'N';
+	private static final byte TYPE_OBJECT = 'O';
+
+	/**
+	 * The kind of the state.
+	 */
+	public enum Kind {
+		/** The flag. The value is always 1. */
+		FLAG,
+		/** The counter. The value is the value of the counter. */
+		COUNTER,
+		/** The countdown. The value is the remaining count. */
+		COUNT_DOWN,
+		/** The timer. The value is the start time in milliseconds. */
+		TIMER
+	}
+
+	/**
+	 * The operation of a mutation.
+	 */
+	public enum Operation {
+		/** Sets the value. */
+		SET,
+		/** Adds the value to the existing value. Ignored for a countdown which does not exist. */
+		ADD,
+		/** Deletes the state. */
+		DELETE
+	}
+
+	/** Logger. **/
+	protected Logger logger = Logger.getLogger();
+
+	private File directory;
+
+	private int capacity;
+
+	private Segment active;
+
+	private Segment spare;
+
+	private List<Segment> sealed = new ArrayList<Segment>();
+
+	private Map<Kind, Map<Object, Long>> state = newState();
+
+	/** The state in the snapshot file, which is accessed only while compacting. */
+	private Map<Kind, Map<Object, Long>> snapshotState = newState();
+
+	private final Object compactLock = new Object();
+
+	private ScheduledExecutorService committer;
+
+	private ScheduledExecutorService compactor;
+
+	private Runnable compaction = new Runnable() {
+		@Override
+		public void run() {
+			try {
+				compact();
+			} catch (Exception e) {
+				logger.error(e, "Failed to compact the journal");
+			}
+		}
+	};
+
+	/**
+	 * Opens the journal in the specified directory with the default settings.
+	 *
+	 * @param directory the directory of the journal
+	 * @throws IOException if the journal could not be opened
+	 */
+	public Journal(File directory) throws IOException {
+		this(directory, DEFAULT_CAPACITY, DEFAULT_COMMIT_INTERVAL, DEFAULT_COMPACT_INTERVAL);
+	}
+
+	/**
+	 * Opens the journal in the specified directory.
+	 * The state is rebuilt from the existing files and compacted.
+	 *
+	 * @param directory the directory of the journal
+	 * @param capacity the capacity of a segment (bytes)
+	 * @param commitInterval the interval to force the journal to the disk (milliseconds)
+	 * @param compactInterval the interval to compact the journal (milliseconds)
+	 * @throws IOException if the journal could not be opened
+	 */
+	public Journal(File directory, int capacity, long commitInterval, long compactInterval) throws IOException {
+		this.directory = directory;
+		this.capacity = capacity;
+		if(!directory.exists() && !directory.mkdirs()) {
+			throw new IOException(String.format("Failed to create the directory %s", directory));
+		}
+		for(Entry entry : read(directory)) {
+			fold(state, entry);
+			fold(snapshotState, entry);
+		}
+		// the segments of the previous run are folded into the snapshot, and deleted.
+		long generation = readGeneration(new File(directory, SNAPSHOT_FILE));
+		TreeSet<Long> generations = getGenerations(directory);
+		if(!generations.isEmpty()) {
+			generation = Math.max(generation, generations.last());
+		}
+		writeSnapshot(generation);
+		for(long segment : generations) {
+			deleteFile(getJournalFile(directory, segment));
+		}
+		active = new Segment(generation + 1);
+		logger.debug("Opened the journal in %s", directory);
+
+		committer = newExecutor("Journal-committer");
+		committer.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				commit();
+			}
+		}, commitInterval, commitInterval, TimeUnit.MILLISECONDS);
+		compactor = newExecutor("Journal-compactor");
+		compactor.scheduleWithFixedDelay(compaction, compactInterval, compactInterval, TimeUnit.MILLISECONDS);
+		compactor.execute(new Runnable() {
+			@Override
+			public void run() {
+				prepareSpare();
+			}
+		});
+	}
+
+	/**
+	 * Returns the file of the segment of the specified generation.
+	 *
+	 * @param directory the directory of the journal
+	 * @param generation the generation of the segment
+	 * @return the file of the segment
+	 */
+	public static File getJournalFile(File directory, long generation) {
+		return new File(directory, JOURNAL_PREFIX + generation + JOURNAL_SUFFIX);
+	}
+
+	/**
+	 * Appends a mutation to the journal.
+	 * The mutation is not forced to the disk until the next commit.
+	 * If the segment is full, the appends continue in a new segment, and the full one is compacted in the background.
+	 *
+	 * @param kind the kind of the state
+	 * @param operation the operation
+	 * @param identifier the identifier of the state
+	 * @param value the value of the operation
+	 * @throws IOException if the mutation could not be appended
+	 */
+	public void append(Kind kind, Operation operation, Object identifier, long value) throws IOException {
+		Entry entry = new Entry(kind, operation, identifier, value);
+		byte[] body = encode(entry);
+		if(body.length + HEADER_SIZE * 2 > capacity) {
+			throw new IllegalArgumentException(String.format("The mutation of the identifier [%s] is too large.", identifier));
+		}
+		synchronized (this) {
+			if(active == null) {
+				throw new IllegalStateException("The journal is closed.");
+			}
+			// keeps the room for the terminator.
+			if(active.buffer.remaining() < body.length + HEADER_SIZE * 2) {
+				rotate();
+				try {
+					compactor.execute(compaction);
+				} catch (RejectedExecutionException e) {
+					// the journal is being closed, which compacts the segments.
+				}
+			}
+			write(active.buffer, body);
+			active.dirty = true;
+			fold(state, entry);
+		}
+	}
+
+	/**
+	 * Returns the current value of the state.
+	 *
+	 * @param kind the kind of the state
+	 * @param identifier the identifier of the state
+	 * @return the current value, or <code>null</code> if the state does not exist
+	 */
+	public synchronized Long get(Kind kind, Object identifier) {
+		return state.get(kind).get(identifier);
+	}
+
+	/**
+	 * Returns the current state as the list of {@link Operation#SET} entries.
+	 *
+	 * @return the current state
+	 */
+	public synchronized List<Entry> getState() {
+		return toEntries(state);
+	}
+
+	/**
+	 * Forces the appended mutations to the disk, including the ones in the segments which are not compacted yet.
+	 */
+	public void commit() {
+		List<Segment> committing;
+		synchronized (this) {
+			if(active == null) {
+				return;
+			}
+			committing = new ArrayList<Segment>(sealed);
+			committing.add(active);
+		}
+		// MappedByteBuffer#force() may run concurrently with the appends.
+		for(Segment segment : committing) {
+			if(segment.dirty) {
+				segment.dirty = false;
+				segment.buffer.force();
+			}
+		}
+	}
+
+	/**
+	 * Folds the full segments and the active one into the snapshot file, and deletes them.
+	 * The appends continue in a new segment while the snapshot is written.
+	 *
+	 * @throws IOException if the snapshot could not be written
+	 */
+	public void compact() throws IOException {
+		synchronized (compactLock) {
+			List<Segment> compacting;
+			synchronized (this) {
+				if(active == null) {
+					return;
+				}
+				if(active.buffer.position() > 0) {
+					rotate();
+				}
+				compacting = new ArrayList<Segment>(sealed);
+			}
+			if(!compacting.isEmpty()) {
+				for(Segment segment : compacting) {
+					List<Entry> entries = new ArrayList<Entry>();
+					read(segment.file, false, entries);
+					for(Entry entry : entries) {
+						fold(snapshotState, entry);
+					}
+				}
+				writeSnapshot(compacting.get(compacting.size() - 1).generation);
+				synchronized (this) {
+					sealed.removeAll(compacting);
+				}
+				for(Segment segment : compacting) {
+					segment.close();
+					deleteFile(segment.file);
+				}
+				logger.debug("Compacted %d segments of the journal in %s", compacting.size(), directory);
+			}
+		}
+		prepareSpare();
+	}
+
+	/**
+	 * Compacts and closes the journal.
+	 *
+	 * @throws IOException if the journal could not be closed
+	 */
+	public void close() throws IOException {
+		committer.shutdown();
+		compactor.shutdown();
+		synchronized (compactLock) {
+			compact();
+			synchronized (this) {
+				if(active == null) {
+					return;
+				}
+				active.close();
+				deleteFile(active.file);
+				active = null;
+				if(spare != null) {
+					spare.close();
+					deleteFile(spare.file);
+					spare = null;
+				}
+			}
+		}
+		logger.debug("Closed the journal in %s", directory);
+	}
+
+	/**
+	 * Reads the entries in the specified directory in the order of the mutations.
+	 * The snapshot entries come first, followed by the entries of the segments newer than the snapshot.
+	 * A torn record at the tail of a segment is ignored.
+	 *
+	 * @param directory the directory of the journal
+	 * @return the entries
+	 * @throws IOException if the files could not be read
+	 */
+	public static List<Entry> read(File directory) throws IOException {
+		List<Entry> entries = new ArrayList<Entry>();
+		long generation = read(new File(directory, SNAPSHOT_FILE), true, entries);
+		for(long segment : getGenerations(directory)) {
+			if(segment > generation) {
+				read(getJournalFile(directory, segment), false, entries);
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Reads the entries in the file.
+	 *
+	 * @return the generation recorded in the snapshot file, or 0
+	 */
+	private static long read(File file, boolean snapshot, List<Entry> entries) throws IOException {
+		if(!file.exists()) {
+			return 0;
+		}
+		long generation = 0;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if(snapshot) {
+				generation = in.readLong();
+			}
+			while(true) {
+				int length = in.readInt();
+				if(length <= 0 || length > file.length()) {
+					break;
+				}
+				int crc = in.readInt();
+				byte[] body = new byte[length];
+				in.readFully(body);
+				if(checksum(body) != crc) {
+					break;
+				}
+				entries.add(decode(body));
+			}
+		} catch (EOFException e) {
+			// the end of the file
+		} finally {
+			in.close();
+		}
+		return generation;
+	}
+
+	private static long readGeneration(File snapshot) throws IOException {
+		if(!snapshot.exists()) {
+			return 0;
+		}
+		DataInputStream in = new DataInputStream(new FileInputStream(snapshot));
+		try {
+			return in.readLong();
+		} catch (EOFException e) {
+			return 0;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static TreeSet<Long> getGenerations(File directory) {
+		TreeSet<Long> generations = new TreeSet<Long>();
+		String[] names = directory.list();
+		if(names == null) {
+			return generations;
+		}
+		for(String name : names) {
+			if(name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_SUFFIX)) {
+				try {
+					generations.add(Long.parseLong(name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length())));
+				} catch (NumberFormatException e) {
+					// not a segment
+				}
+			}
+		}
+		return generations;
+	}
+
+	/**
+	 * Writes the state in the snapshot file through a temporary file, which is replaced atomically.
+	 *
+	 * @param generation the generation of the last segment folded into the state
+	 */
+	private void writeSnapshot(long generation) throws IOException {
+		File temporary = new File(directory, SNAPSHOT_FILE + ".tmp");
+		FileOutputStream out = new FileOutputStream(temporary);
+		try {
+			DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+			data.writeLong(generation);
+			for(Entry entry : toEntries(snapshotState)) {
+				byte[] body = encode(entry);
+				data.writeInt(body.length);
+				data.writeInt(checksum(body));
+				data.write(body);
+			}
+			data.writeInt(0);
+			data.flush();
+			out.getFD().sync();
+		} finally {
+			out.close();
+		}
+		File snapshot = new File(directory, SNAPSHOT_FILE);
+		if(!temporary.renameTo(snapshot)) {
+			// some platforms do not replace the existing file.
+			snapshot.delete();
+			if(!temporary.renameTo(snapshot)) {
+				throw new IOException(String.format("Failed to rename %s", temporary));
+			}
+		}
+	}
+
+	/**
+	 * Seals the active segment, and switches to the spare segment or a new one.
+	 * It must be called while holding the lock of this journal.
+	 */
+	private void rotate() throws IOException {
+		Segment next = spare;
+		spare = null;
+		if(next == null || next.generation != active.generation + 1) {
+			if(next != null) {
+				next.close();
+				deleteFile(next.file);
+			}
+			next = new Segment(active.generation + 1);
+		}
+		sealed.add(active);
+		active = next;
+	}
+
+	/**
+	 * Prepares the next segment in advance, so that the appends do not create a file when the active segment is full.
+	 */
+	private void prepareSpare() {
+		long generation;
+		synchronized (this) {
+			if(active == null || spare != null) {
+				return;
+			}
+			generation = active.generation + 1;
+		}
+		Segment prepared;
+		try {
+			prepared = new Segment(generation);
+		} catch (IOException e) {
+			logger.error(e, "Failed to prepare the segment %d", generation);
+			return;
+		}
+		synchronized (this) {
+			if(active != null && spare == null && active.generation + 1 == generation) {
+				spare = prepared;
+				return;
+			}
+		}
+		prepared.close();
+		deleteFile(prepared.file);
+	}
+
+	private void deleteFile(File file) {
+		if(file.exists() && !file.delete()) {
+			// a segment which is still mapped cannot be deleted on some platforms. it is deleted when the journal is opened next time.
+			logger.debug("Failed to delete %s", file);
+		}
+	}
+
+	private ScheduledExecutorService newExecutor(final String name) {
+		return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	private static Map<Kind, Map<Object, Long>> newState() {
+		Map<Kind, Map<Object, Long>> state = new EnumMap<Kind, Map<Object, Long>>(Kind.class);
+		for(Kind kind : Kind.values()) {
+			state.put(kind, new HashMap<Object, Long>());
+		}
+		return state;
+	}
+
+	private static List<Entry> toEntries(Map<Kind, Map<Object, Long>> state) {
+		List<Entry> entries = new ArrayList<Entry>();
+		for(Map.Entry<Kind, Map<Object, Long>> kind : state.entrySet()) {
+			for(Map.Entry<Object, Long> value : kind.getValue().entrySet()) {
+				entries.add(new Entry(kind.getKey(), Operation.SET, value.getKey(), value.getValue()));
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Folds the entry into the state.
+	 */
+	private static void fold(Map<Kind, Map<Object, Long>> state, Entry entry) {
+		Map<Object, Long> values = state.get(entry.getKind());
+		switch(entry.getOperation()) {
+		case SET:
+			values.put(entry.getIdentifier(), entry.getValue());
+			break;
+		case ADD:
+			Long value = values.get(entry.getIdentifier());
+			if(value != null) {
+				values.put(entry.getIdentifier(), value + entry.getValue());
+			} else if(entry.getKind() != Kind.COUNT_DOWN) {
+				values.put(entry.getIdentifier(), entry.getValue());
+			}
+			break;
+		case DELETE:
+			values.remove(entry.getIdentifier());
+			break;
+		}
+	}
+
+	private static void write(MappedByteBuffer buffer, byte[] body) {
+		int position = buffer.position();
+		// writes the body before the length, so that a reader never sees a length without its body.
+		buffer.position(position + HEADER_SIZE);
+		buffer.put(body);
+		buffer.putInt(position + 4, checksum(body));
+		buffer.putInt(position, body.length);
+	}
+
+	private static int checksum(byte[] body) {
+		CRC32 crc = new CRC32();
+		crc.update(body);
+		return (int) crc.getValue();
+	}
+
+	private static byte[] encode(Entry entry) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(entry.getKind().ordinal());
+		out.writeByte(entry.getOperation().ordinal());
+		out.writeLong(entry.getValue());
+		encodeIdentifier(out, entry.getIdentifier());
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Encodes the identifier. Only the identifiers of the other types are serialized as objects.
+	 */
+	private static void encodeIdentifier(DataOutputStream out, Object identifier) throws IOException {
+		if(identifier instanceof String) {
+			out.writeByte(TYPE_STRING);
+			out.writeUTF((String) identifier);
+		} else if(identifier instanceof Integer) {
+			out.writeByte(TYPE_INTEGER);
+			out.writeInt((Integer) identifier);
+		} else if(identifier instanceof Long) {
+			out.writeByte(TYPE_LONG);
+			out.writeLong((Long) identifier);
+		} else if(identifier instanceof ScopedIdentifier) {
+			ScopedIdentifier scoped = (ScopedIdentifier) identifier;
+			out.writeByte(TYPE_SCOPED);
+			out.writeUTF(scoped.getNamespace());
+			encodeIdentifier(out, scoped.getIdentifier());
+		} else {
+			out.writeByte(TYPE_OBJECT);
+			ObjectOutputStream object = new ObjectOutputStream(out);
+			object.writeObject(identifier);
+			object.flush();
+		}
+	}
+
+	private static Entry decode(byte[] body) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+		Kind kind = Kind.values()[in.readByte()];
+		Operation operation = Operation.values()[in.readByte()];
+		long value = in.readLong();
+		return new Entry(kind, operation, decodeIdentifier(in), value);
+	}
+
+	private static Object decodeIdentifier(DataInputStream in) throws IOException {
+		switch(in.readByte()) {
+		case TYPE_STRING:
+			return in.readUTF();
+		case TYPE_INTEGER:
+			return in.readInt();
+		case TYPE_LONG:
+			return in.readLong();
+		case TYPE_SCOPED:
+			String namespace = in.readUTF();
+			return new ScopedIdentifier(namespace, decodeIdentifier(in));
+		default:
+			try {
+				return new ObjectInputStream(in).readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException(String.format("Failed to read the identifier: %s", e.getMessage()));
+			}
+		}
+	}
+
+	/**
+	 * A segment of the journal, which is a memory-mapped file of the capacity.
+	 */
+	private class Segment {
+
+		private long generation;
+
+		private File file;
+
+		private RandomAccessFile access;
+
+		private MappedByteBuffer buffer;
+
+		private volatile boolean dirty;
+
+		/**
+		 * Creates the file of the segment, which is filled with zeros by the file system.
+		 */
+		private Segment(long generation) throws IOException {
+			this.generation = generation;
+			this.file = getJournalFile(directory, generation);
+			access = new RandomAccessFile(file, "rw");
+			try {
+				access.setLength(0);
+				access.setLength(capacity);
+				buffer = access.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+			} catch (IOException e) {
+				access.close();
+				throw e;
+			}
+		}
+
+		private void close() {
+			try {
+				access.close();
+			} catch (IOException e) {
+				logger.error(e, "Failed to close %s", file);
+			}
+		}
+	}
+
+	/**
+	 * Prints the entries in the specified directory, one entry per line separated by tabs.
+	 *
+	 * @param args the directory of the journal
+	 * @throws IOException if the files could not be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1) {
+			System.err.println("Usage: Journal <directory>");
+			System.exit(1);
+		}
+		for(Entry entry : read(new File(args[0]))) {
+			System.out.println(entry);
+		}
+	}
+
+	/**
+	 * A mutation in the journal.
+	 *
+	 */
+	public static class Entry {
+
+		private Kind kind;
+
+		private Operation operation;
+
+		private Object identifier;
+
+		private long value;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param kind the kind of the state
+		 * @param operation the operation
+		 * @param identifier the identifier of the state
+		 * @param value the value of the operation
+		 */
+		public Entry(Kind kind, Operation operation, Object identifier, long value) {
+			this.kind = kind;
+			this.operation = operation;
+			this.identifier = identifier;
+			this.value = value;
+		}
+
+		/**
+		 * Returns the kind of the state.
+		 *
+		 * @return the kind of the state
+		 */
+		public Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * Returns the operation.
+		 *
+		 * @return the operation
+		 */
+		public Operation getOperation() {
+			return operation;
+		}
+
+		/**
+		 * Returns the identifier of the state.
+		 *
+		 * @return the identifier of the state
+		 */
+		public Object getIdentifier() {
+			return identifier;
+		}
+
+		/**
+		 * Returns the value of the operation.
+		 *
+		 * @return the value of the operation
+		 */
+		public long getValue() {
+			return value;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+			return kind + "\t" + operation + "\t" + identifier + "\t" + value;
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+/**
+ * The lease which makes one node the owner of an identifier for a limited time. <br/>
+ * Every grant of the lease is given a fencing token greater than the previous ones,
+ * so that an action of a former owner whose lease has expired can be told from the one of the current owner.
+ * The lease expires when the time to live elapses without renewal, or when the owner is lost.
+ * All the methods are thread-safe.
+ *
+ * @see DistributedAdapter#acquireLease(Object, String, long)
+ */
+public class Lease {
+
+	private String holder;
+
+	private long token;
+
+	private long expiry;
+
+	/**
+	 * Acquires the lease now.
+	 *
+	 * @param node the identifier of the node
+	 * @param ttl the time to live (milliseconds)
+	 * @return the fencing token, or -1 if the lease is already held
+	 * @see #acquire(String, long, long)
+	 */
+	public long acquire(String node, long ttl) {
+		return acquire(node, ttl, System.currentTimeMillis());
+	}
+
+	/**
+	 * Acquires the lease at the specified time. The lease is not granted while it is held, even to the node holding it,
+	 * so that only one of the threads on the node takes the action of the owner. The holder extends it by {@link #renew(long, long, long)}.
+	 *
+	 * @param node the identifier of the node
+	 * @param ttl the time to live (milliseconds)
+	 * @param now the current time in milliseconds
+	 * @return the fencing token, or -1 if the lease is already held
+	 */
+	public synchronized long acquire(String node, long ttl, long now) {
+		validate(ttl);
+		if(isHeld(now)) {
+			return -1;
+		}
+		holder = node;
+		token++;
+		expiry = now + ttl;
+		return token;
+	}
+
+	/**
+	 * Renews the lease now.
+	 *
+	 * @param token the fencing token
+	 * @param ttl the time to live from now (milliseconds)
+	 * @return <code>true</code> if the lease is renewed
+	 * @see #renew(long, long, long)
+	 */
+	public boolean renew(long token, long ttl) {
+		return renew(token, ttl, System.currentTimeMillis());
+	}
+
+	/**
+	 * Renews the lease at the specified time.
+	 *
+	 * @param token the fencing token
+	 * @param ttl the time to live from now (milliseconds)
+	 * @param now the current time in milliseconds
+	 * @return <code>true</code> if the lease is renewed, or <code>false</code> if the token is not valid any more
+	 */
+	public synchronized boolean renew(long token, long ttl, long now) {
+		validate(ttl);
+		if(!isValid(token, now)) {
+			return false;
+		}
+		expiry = now + ttl;
+		return true;
+	}
+
+	/**
+	 * Releases the lease.
+	 *
+	 * @param token the fencing token
+	 * @return <code>true</code> if the lease is released, or <code>false</code> if the token is not valid any more
+	 */
+	public synchronized boolean release(long token) {
+		if(!isValid(token, System.currentTimeMillis())) {
+			return false;
+		}
+		holder = null;
+		return true;
+	}
+
+	/**
+	 * Releases the lease if the specified node holds it.
+	 *
+	 * @param node the identifier of the node
+	 * @return <code>true</code> if the lease is released
+	 */
+	public synchronized boolean releaseHolder(String node) {
+		if(holder == null || !holder.equals(node)) {
+			return false;
+		}
+		holder = null;
+		return true;
+	}
+
+	/**
+	 * Returns the node which holds the lease now.
+	 *
+	 * @return the identifier of the node, or <code>null</code> if no node holds the lease
+	 */
+	public synchronized String getHolder() {
+		return isHeld(System.currentTimeMillis()) ? holder : null;
+	}
+
+	/**
+	 * Returns whether the fencing token is of the lease held now.
+	 *
+	 * @param token the fencing token
+	 * @return <code>true</code> if the token is valid
+	 */
+	public boolean isValid(long token) {
+		return isValid(token, System.currentTimeMillis());
+	}
+
+	/**
+	 * Returns whether the fencing token is of the lease held at the specified time.
+	 *
+	 * @param token the fencing token
+	 * @param now the current time in milliseconds
+	 * @return <code>true</code> if the token is valid
+	 */
+	public synchronized boolean isValid(long token, long now) {
+		return isHeld(now) && this.token == token;
+	}
+
+	private boolean isHeld(long now) {
+		return holder != null && now < expiry;
+	}
+
+	private static void validate(long ttl) {
+		if(ttl <= 0) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid time to live.", ttl));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format("holder=%s, token=%d, expiry=%d", holder, token, expiry);
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+/**
+ * The task which reads an attribute of an MBean on the platform MBean server of the node,
+ * such as <code>ThreadCount</code> of <code>java.lang:type=Threading</code>. <br/>
+ * It is available on all the nodes because it is a class of the framework.
+ *
+ */
+public class MBeanAttributeTask implements NodeTask<Serializable> {
+
+	private static final long serialVersionUID = 1L;
+
+	private String objectName;
+
+	private String attribute;
+
+	/**
+	 * Constructs with the name of the MBean and the attribute.
+	 *
+	 * @param objectName the object name of the MBean
+	 * @param attribute the name of the attribute
+	 */
+	public MBeanAttributeTask(String objectName, String attribute) {
+		this.objectName = objectName;
+		this.attribute = attribute;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Serializable call() throws Exception {
+		Object value = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(objectName), attribute);
+		if(value != null && !(value instanceof Serializable)) {
+			throw new IllegalStateException(String.format("The attribute [%s] of [%s] is not serializable.", attribute, objectName));
+		}
+		return (Serializable) value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return objectName + "." + attribute;
+	}
+}
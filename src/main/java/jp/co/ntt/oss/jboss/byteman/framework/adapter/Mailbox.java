@@ -0,0 +1,150 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * The bounded FIFO queue of the values passed between the rules on the nodes. <br/>
+ * The values are kept as encoded by {@link jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec}.
+ * A producer waits while the mailbox is full, and a consumer waits while it is empty.
+ * All the methods are thread-safe.
+ *
+ * @see DistributedAdapter#putMail(Object, byte[], long)
+ */
+public class Mailbox {
+
+	private int capacity;
+
+	private Queue<byte[]> values = new ArrayDeque<byte[]>();
+
+	private boolean closed;
+
+	/**
+	 * Constructs with the capacity.
+	 *
+	 * @param capacity the maximum number of the values
+	 */
+	public Mailbox(int capacity) {
+		if(capacity <= 0) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid capacity.", capacity));
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Returns the capacity.
+	 *
+	 * @return the maximum number of the values
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Puts a value, waiting while the mailbox is full.
+	 *
+	 * @param value the encoded value
+	 * @param timeout the maximum time to wait (milliseconds), or 0 not to wait
+	 * @return <code>true</code> if the value is put, or <code>false</code> if the mailbox is still full or closed
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public synchronized boolean offer(byte[] value, long timeout) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		while(!closed && values.size() >= capacity) {
+			long remaining = deadline - System.currentTimeMillis();
+			if(remaining <= 0) {
+				return false;
+			}
+			wait(remaining);
+		}
+		if(closed) {
+			return false;
+		}
+		values.add(value);
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * Takes the oldest value, waiting while the mailbox is empty.
+	 *
+	 * @param timeout the maximum time to wait (milliseconds), or 0 not to wait
+	 * @return the encoded value, or <code>null</code> if the mailbox is still empty or closed
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public synchronized byte[] poll(long timeout) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		while(!closed && values.isEmpty()) {
+			long remaining = deadline - System.currentTimeMillis();
+			if(remaining <= 0) {
+				return null;
+			}
+			wait(remaining);
+		}
+		byte[] value = values.poll();
+		notifyAll();
+		return value;
+	}
+
+	/**
+	 * Takes the oldest values at once without waiting.
+	 *
+	 * @param max the maximum number of the values to take
+	 * @return the encoded values, which is empty if the mailbox is empty
+	 */
+	public synchronized List<byte[]> drain(int max) {
+		List<byte[]> result = new ArrayList<byte[]>(Math.min(max, values.size()));
+		while(result.size() < max && !values.isEmpty()) {
+			result.add(values.poll());
+		}
+		notifyAll();
+		return result;
+	}
+
+	/**
+	 * Returns the number of the values in the mailbox.
+	 *
+	 * @return the number of the values
+	 */
+	public synchronized int size() {
+		return values.size();
+	}
+
+	/**
+	 * Closes the mailbox and wakes up the waiting threads. The values left in the mailbox are discarded.
+	 */
+	public synchronized void close() {
+		closed = true;
+		values.clear();
+		notifyAll();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format("capacity=%d, size=%d", capacity, values.size());
+	}
+}
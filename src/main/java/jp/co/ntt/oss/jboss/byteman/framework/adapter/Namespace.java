@@ -0,0 +1,210 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import java.io.Serializable;
+
+/**
+ * The namespace which scopes identifiers on the controller node. <br/>
+ * Identifiers scoped by different namespaces never collide, so that several tests can share one controller concurrently.
+ * A rule script belongs to the namespace when its script name is prefixed by {@link #toScriptName(String)}.
+ *
+ * @see NamespacedAdapter
+ */
+public class Namespace implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The separator between a namespace name and a script name. */
+	public static final String SCRIPT_SEPARATOR = "::";
+
+	/** The identifier of the trace to the standard output, which is never scoped. */
+	public static final String TRACE_OUT = "out";
+
+	/** The identifier of the trace to the standard error, which is never scoped. */
+	public static final String TRACE_ERR = "err";
+
+	private String name;
+
+	/**
+	 * Constructs with the name of the namespace.
+	 *
+	 * @param name the name of the namespace
+	 */
+	public Namespace(String name) {
+		if(name == null || name.length() == 0 || name.contains(SCRIPT_SEPARATOR)) {
+			throw new IllegalArgumentException(String.format("[%s] is not a valid namespace.", name));
+		}
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name of the namespace.
+	 *
+	 * @return the name of the namespace
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the identifier scoped by this namespace.
+	 *
+	 * @param identifier an identifier
+	 * @return the scoped identifier
+	 */
+	public Object scope(Object identifier) {
+		return new ScopedIdentifier(name, identifier);
+	}
+
+	/**
+	 * Returns the identifier of a trace scoped by this namespace.
+	 * {@link #TRACE_OUT} and {@link #TRACE_ERR} are returned as they are,
+	 * because they are the standard streams shared by all the namespaces.
+	 *
+	 * @param identifier an identifier for the trace
+	 * @return the scoped identifier
+	 */
+	public Object scopeTrace(Object identifier) {
+		return TRACE_OUT.equals(identifier) || TRACE_ERR.equals(identifier) ? identifier : scope(identifier);
+	}
+
+	/**
+	 * Returns the script name which belongs to this namespace.
+	 *
+	 * @param scriptName a script name
+	 * @return the script name prefixed by the namespace
+	 */
+	public String toScriptName(String scriptName) {
+		return name + SCRIPT_SEPARATOR + scriptName;
+	}
+
+	/**
+	 * Returns the namespace which the specified script name belongs to.
+	 *
+	 * @param scriptName a script name
+	 * @return the namespace, or <code>null</code> if the script does not belong to any namespace
+	 */
+	public static Namespace fromScriptName(String scriptName) {
+		if(scriptName == null) {
+			return null;
+		}
+		int index = scriptName.indexOf(SCRIPT_SEPARATOR);
+		if(index <= 0) {
+			return null;
+		}
+		return new Namespace(scriptName.substring(0, index));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Namespace && name.equals(((Namespace) obj).name);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		return name.hashCode();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	/**
+	 * The identifier scoped by a namespace.
+	 *
+	 */
+	public static class ScopedIdentifier implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private String namespace;
+
+		private Object identifier;
+
+		/**
+		 * Constructs with the name of the namespace and the original identifier.
+		 *
+		 * @param namespace the name of the namespace
+		 * @param identifier the original identifier
+		 */
+		public ScopedIdentifier(String namespace, Object identifier) {
+			this.namespace = namespace;
+			this.identifier = identifier;
+		}
+
+		/**
+		 * Returns the name of the namespace.
+		 *
+		 * @return the name of the namespace
+		 */
+		public String getNamespace() {
+			return namespace;
+		}
+
+		/**
+		 * Returns the original identifier.
+		 *
+		 * @return the original identifier
+		 */
+		public Object getIdentifier() {
+			return identifier;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof ScopedIdentifier)) {
+				return false;
+			}
+			ScopedIdentifier other = (ScopedIdentifier) obj;
+			return namespace.equals(other.namespace)
+					&& (identifier == null ? other.identifier == null : identifier.equals(other.identifier));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			return namespace.hashCode() * 31 + (identifier == null ? 0 : identifier.hashCode());
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+			return namespace + SCRIPT_SEPARATOR + identifier;
+		}
+	}
+}
@@ -0,0 +1,1054 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.StressStatus;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Frequency;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HeavyHitters;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.LatencyHistogram;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Rate;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Reservoir;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanEvent;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.StackProfile;
+
+/**
+ * The {@link DistributedAdapter} which scopes all the identifiers by a {@link Namespace}
+ * and delegates to another {@link DistributedAdapter}. <br/>
+ * A test obtains this adapter for its own namespace, so that its identifiers do not collide with those of other tests
+ * sharing the same controller.
+ *
+ * @see Namespace
+ */
+public class NamespacedAdapter implements DistributedAdapter {
+
+	private Namespace namespace;
+
+	private DistributedAdapter delegate;
+
+	/**
+	 * Constructs with the namespace and the adapter to delegate.
+	 *
+	 * @param namespace the namespace
+	 * @param delegate the adapter to delegate
+	 */
+	public NamespacedAdapter(Namespace namespace, DistributedAdapter delegate) {
+		this.namespace = namespace;
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Returns the namespace.
+	 *
+	 * @return the namespace
+	 */
+	public Namespace getNamespace() {
+		return namespace;
+	}
+
+	/**
+	 * Deletes the state of all the identifiers in this namespace.
+	 *
+	 * @return the number of the deleted identifiers
+	 * @see DistributedAdapter#deleteNamespace(String)
+	 * @throws Exception
+	 */
+	public int deleteNamespace() throws Exception {
+		return delegate.deleteNamespace(namespace.getName());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean waiting(Object identifier) throws Exception {
+		return delegate.waiting(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void waitFor(Object identifier, long millisecs) throws Exception {
+		delegate.waitFor(namespace.scope(identifier), millisecs);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean signalWake(Object identifier, boolean mustMeet) throws Exception {
+		return delegate.signalWake(namespace.scope(identifier), mustMeet);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean signalThrow(Object identifier, boolean mustMeet) throws Exception {
+		return delegate.signalThrow(namespace.scope(identifier), mustMeet);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createRendezvous(Object identifier, int expected, boolean restartable) throws Exception {
+		return delegate.createRendezvous(namespace.scope(identifier), expected, restartable);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isRendezvous(Object identifier, int expected) throws Exception {
+		return delegate.isRendezvous(namespace.scope(identifier), expected);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getRendezvous(Object identifier, int expected) throws Exception {
+		return delegate.getRendezvous(namespace.scope(identifier), expected);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int rendezvous(Object identifier) throws Exception {
+		return delegate.rendezvous(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteRendezvous(Object identifier, int expected) throws Exception {
+		return delegate.deleteRendezvous(namespace.scope(identifier), expected);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createJoin(Object identifier, int max) throws Exception {
+		return delegate.createJoin(namespace.scope(identifier), max);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isJoin(Object identifier, int max) throws Exception {
+		return delegate.isJoin(namespace.scope(identifier), max);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean joinEnlist(Object identifier) throws Exception {
+		return delegate.joinEnlist(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean joinWait(Object identifier, int count) throws Exception {
+		return delegate.joinWait(namespace.scope(identifier), count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean flag(Object identifier) throws Exception {
+		return delegate.flag(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean flagged(Object identifier) throws Exception {
+		return delegate.flagged(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean clear(Object identifier) throws Exception {
+		return delegate.clear(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isCountDown(Object identifier) throws Exception {
+		return delegate.isCountDown(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createCountDown(Object identifier, int count) throws Exception {
+		return delegate.createCountDown(namespace.scope(identifier), count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean countDown(Object identifier) throws Exception {
+		return delegate.countDown(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createCounter(Object identifier, int value) throws Exception {
+		return delegate.createCounter(namespace.scope(identifier), value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteCounter(Object identifier) throws Exception {
+		return delegate.deleteCounter(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int readCounter(Object identifier, boolean zero) throws Exception {
+		return delegate.readCounter(namespace.scope(identifier), zero);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int incrementCounter(Object identifier, int amount) throws Exception {
+		return delegate.incrementCounter(namespace.scope(identifier), amount);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int decrementCounter(Object identifier) throws Exception {
+		return delegate.decrementCounter(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createTimer(Object identifier) throws Exception {
+		return delegate.createTimer(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteTimer(Object identifier) throws Exception {
+		return delegate.deleteTimer(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getElapsedTimeFromTimer(Object identifier) throws Exception {
+		return delegate.getElapsedTimeFromTimer(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long resetTimer(Object identifier) throws Exception {
+		return delegate.resetTimer(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean traceOpen(Object identifier, String fileName) throws Exception {
+		return delegate.traceOpen(namespace.scope(identifier), fileName);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean traceClose(Object identifier) throws Exception {
+		return delegate.traceClose(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean trace(Object identifier, String message) throws Exception {
+		return delegate.trace(namespace.scopeTrace(identifier), message);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean traceln(Object identifier, String message) throws Exception {
+		return delegate.traceln(namespace.scopeTrace(identifier), message);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void killRemoteJVM(Object identifier) throws Exception {
+		delegate.killRemoteJVM(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void killRemoteJVM(Object identifier, int exitCode) throws Exception {
+		delegate.killRemoteJVM(namespace.scope(identifier), exitCode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void registerCallback(Object identifier, Object target) throws Exception {
+		delegate.registerCallback(namespace.scope(identifier), target);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void unregisterCallback(Object identifier) throws Exception {
+		delegate.unregisterCallback(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object doCallback(Object identifier, Object... parameters) throws Exception {
+		return delegate.doCallback(namespace.scope(identifier), parameters);
+	}
+
+	/**
+	 * Deletes the state of this namespace. The other namespaces of the shared controller cannot be deleted.
+	 *
+	 * @param namespace the name of this namespace
+	 * @return the number of the deleted identifiers
+	 * @throws IllegalArgumentException if the name is not the one of this namespace
+	 * @see #deleteNamespace()
+	 */
+	@Override
+	public int deleteNamespace(String namespace) throws Exception {
+		if(!this.namespace.getName().equals(namespace)) {
+			throw new IllegalArgumentException(String.format("[%s] is not the namespace of this adapter.", namespace));
+		}
+		return deleteNamespace();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void registerNode(String node, Object target) throws Exception {
+		delegate.registerNode(node, target);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getLatencyHistogram(Object identifier) throws Exception {
+		return delegate.getLatencyHistogram(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyPercentile(Object identifier, double percentile) throws Exception {
+		return delegate.getLatencyPercentile(namespace.scope(identifier), percentile);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyMax(Object identifier) throws Exception {
+		return delegate.getLatencyMax(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyCount(Object identifier) throws Exception {
+		return delegate.getLatencyCount(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLatency(Object identifier) throws Exception {
+		return delegate.deleteLatency(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportSpans(String node, List<SpanEvent> events) throws Exception {
+		List<SpanEvent> scoped = new ArrayList<SpanEvent>(events.size());
+		for(SpanEvent event : events) {
+			scoped.add(new SpanEvent(namespace.scope(event.getIdentifier()), event.getKey(), event.isStart(), event.getTimestamp()));
+		}
+		delegate.reportSpans(node, scoped);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getSpanHistogram(Object identifier) throws Exception {
+		return delegate.getSpanHistogram(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getUnmatchedSpans(Object identifier) throws Exception {
+		return delegate.getUnmatchedSpans(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSpan(Object identifier) throws Exception {
+		return delegate.deleteSpan(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getClockOffset(String node) throws Exception {
+		return delegate.getClockOffset(node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getClockDrift(String node) throws Exception {
+		return delegate.getClockDrift(node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getClockError(String node) throws Exception {
+		return delegate.getClockError(node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportMarks(String node, Map<Object, Long> deltas) throws Exception {
+		Map<Object, Long> scoped = new HashMap<Object, Long>();
+		for(Map.Entry<Object, Long> entry : deltas.entrySet()) {
+			scoped.put(namespace.scope(entry.getKey()), entry.getValue());
+		}
+		delegate.reportMarks(node, scoped);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Rate getRate(Object identifier) throws Exception {
+		return delegate.getRate(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Rate> getNodeRates(Object identifier) throws Exception {
+		return delegate.getNodeRates(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteRate(Object identifier) throws Exception {
+		return delegate.deleteRate(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HyperLogLog getDistinctSketch(Object identifier) throws Exception {
+		return delegate.getDistinctSketch(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getDistinctCount(Object identifier) throws Exception {
+		return delegate.getDistinctCount(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDistinct(Object identifier) throws Exception {
+		return delegate.deleteDistinct(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HeavyHitters getFrequentSketch(Object identifier) throws Exception {
+		return delegate.getFrequentSketch(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Frequency> getTopFrequent(Object identifier) throws Exception {
+		return delegate.getTopFrequent(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteFrequent(Object identifier) throws Exception {
+		return delegate.deleteFrequent(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Reservoir getReservoir(Object identifier) throws Exception {
+		return delegate.getReservoir(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Object> getSample(Object identifier) throws Exception {
+		return delegate.getSample(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSample(Object identifier) throws Exception {
+		return delegate.deleteSample(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getResourceHistogram(Object identifier, Resource resource) throws Exception {
+		return delegate.getResourceHistogram(namespace.scope(identifier), resource);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteResource(Object identifier) throws Exception {
+		return delegate.deleteResource(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getContentionHistogram(Object identifier) throws Exception {
+		return delegate.getContentionHistogram(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, LatencyHistogram> getNodeContentionHistograms(Object identifier) throws Exception {
+		return delegate.getNodeContentionHistograms(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteContention(Object identifier) throws Exception {
+		return delegate.deleteContention(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportProfile(String node, Object identifier, StackProfile profile) throws Exception {
+		delegate.reportProfile(node, namespace.scope(identifier), profile);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public StackProfile getProfile(Object identifier) throws Exception {
+		return delegate.getProfile(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteProfile(Object identifier) throws Exception {
+		return delegate.deleteProfile(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createSemaphore(Object identifier, int permits) throws Exception {
+		return delegate.createSemaphore(namespace.scope(identifier), permits);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long requestPermit(Object identifier, String node) throws Exception {
+		return delegate.requestPermit(namespace.scope(identifier), node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean pollPermit(Object identifier, long ticket) throws Exception {
+		return delegate.pollPermit(namespace.scope(identifier), ticket);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelPermit(Object identifier, long ticket) throws Exception {
+		return delegate.cancelPermit(namespace.scope(identifier), ticket);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean releasePermit(Object identifier, String node) throws Exception {
+		return delegate.releasePermit(namespace.scope(identifier), node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getAvailablePermits(Object identifier) throws Exception {
+		return delegate.getAvailablePermits(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPermitQueueLength(Object identifier) throws Exception {
+		return delegate.getPermitQueueLength(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSemaphore(Object identifier) throws Exception {
+		return delegate.deleteSemaphore(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createTokenBucket(Object identifier, double rate, long burst) throws Exception {
+		return delegate.createTokenBucket(namespace.scope(identifier), rate, burst);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTokenRate(Object identifier, double rate, long burst) throws Exception {
+		delegate.setTokenRate(namespace.scope(identifier), rate, burst);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getTokenRate(Object identifier) throws Exception {
+		return delegate.getTokenRate(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int leaseTokens(Object identifier) throws Exception {
+		return delegate.leaseTokens(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteTokenBucket(Object identifier) throws Exception {
+		return delegate.deleteTokenBucket(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createPhaser(Object identifier, int parties) throws Exception {
+		return delegate.createPhaser(namespace.scope(identifier), parties);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int registerPhaser(Object identifier) throws Exception {
+		return delegate.registerPhaser(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int arrivePhaser(Object identifier) throws Exception {
+		return delegate.arrivePhaser(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deregisterPhaser(Object identifier) throws Exception {
+		return delegate.deregisterPhaser(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPhase(Object identifier) throws Exception {
+		return delegate.getPhase(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPhaserParties(Object identifier) throws Exception {
+		return delegate.getPhaserParties(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getArrivedParties(Object identifier) throws Exception {
+		return delegate.getArrivedParties(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deletePhaser(Object identifier) throws Exception {
+		return delegate.deletePhaser(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean awaitCountDown(Object identifier, long millis) throws Exception {
+		return delegate.awaitCountDown(namespace.scope(identifier), millis);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createMailbox(Object identifier, int capacity) throws Exception {
+		return delegate.createMailbox(namespace.scope(identifier), capacity);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean putMail(Object identifier, byte[] value, long timeout) throws Exception {
+		return delegate.putMail(namespace.scope(identifier), value, timeout);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] takeMail(Object identifier, long timeout) throws Exception {
+		return delegate.takeMail(namespace.scope(identifier), timeout);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<byte[]> drainMail(Object identifier, int max) throws Exception {
+		return delegate.drainMail(namespace.scope(identifier), max);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getMailboxSize(Object identifier) throws Exception {
+		return delegate.getMailboxSize(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteMailbox(Object identifier) throws Exception {
+		return delegate.deleteMailbox(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue getValue(Object identifier) throws Exception {
+		return delegate.getValue(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue watchValue(String node, Object identifier) throws Exception {
+		return delegate.watchValue(node, namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long putValue(Object identifier, byte[] value) throws Exception {
+		return delegate.putValue(namespace.scope(identifier), value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long compareAndSetValue(Object identifier, byte[] expected, byte[] value) throws Exception {
+		return delegate.compareAndSetValue(namespace.scope(identifier), expected, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getAndUpdateValue(Object identifier, ValueStore.Update update, long operand) throws Exception {
+		return delegate.getAndUpdateValue(namespace.scope(identifier), update, operand);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteValue(Object identifier) throws Exception {
+		return delegate.deleteValue(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long acquireLease(Object identifier, String node, long ttl) throws Exception {
+		return delegate.acquireLease(namespace.scope(identifier), node, ttl);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean renewLease(Object identifier, long token, long ttl) throws Exception {
+		return delegate.renewLease(namespace.scope(identifier), token, ttl);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean releaseLease(Object identifier, long token) throws Exception {
+		return delegate.releaseLease(namespace.scope(identifier), token);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLeaseValid(Object identifier, long token) throws Exception {
+		return delegate.isLeaseValid(namespace.scope(identifier), token);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getLeaseHolder(Object identifier) throws Exception {
+		return delegate.getLeaseHolder(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLease(Object identifier) throws Exception {
+		return delegate.deleteLease(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setDelay(Object identifier, DelayDistribution distribution) throws Exception {
+		delegate.setDelay(namespace.scope(identifier), distribution);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue getDelay(Object identifier) throws Exception {
+		return delegate.getDelay(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getInjectedDelayHistogram(Object identifier) throws Exception {
+		return delegate.getInjectedDelayHistogram(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDelay(Object identifier) throws Exception {
+		return delegate.deleteDelay(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, StressStatus> getStressStatuses(Object identifier) throws Exception {
+		return delegate.getStressStatuses(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelStress(Object identifier) throws Exception {
+		return delegate.cancelStress(namespace.scope(identifier));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T extends Serializable> TaskResults<T> executeTask(NodeTask<T> task, Collection<String> nodes, long timeout) throws Exception {
+		return delegate.executeTask(task, nodes, timeout);
+	}
+
+}
@@ -0,0 +1,42 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import java.io.Serializable;
+
+/**
+ * The task which is sent to the nodes and run in their JVMs. <br/>
+ * The class of the task must be available on the nodes, as well as the class of the result on the controller node.
+ *
+ * @param <T> the type of the result
+ * @see DistributedAdapter#executeTask(NodeTask, java.util.Collection, long)
+ * @see MBeanAttributeTask
+ */
+public interface NodeTask<T extends Serializable> extends Serializable {
+
+	/**
+	 * Runs the task in the JVM of a node.
+	 *
+	 * @return the result
+	 * @throws Exception if the task fails
+	 */
+	public T call() throws Exception;
+
+}
@@ -0,0 +1,131 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The results of a {@link NodeTask} run on the nodes. <br/>
+ * The task may fail on some nodes, or not finish in the timeout, while it succeeds on the others.
+ *
+ * @param <T> the type of the results
+ * @see DistributedAdapter#executeTask(NodeTask, java.util.Collection, long)
+ */
+public class TaskResults<T extends Serializable> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The function which reduces the results of the nodes into one value.
+	 *
+	 * @param <T> the type of the results
+	 * @param <R> the type of the reduced value
+	 */
+	public interface Reducer<T, R> {
+
+		/**
+		 * Reduces the result of a node into the value.
+		 *
+		 * @param value the value reduced so far
+		 * @param node the identifier of the node
+		 * @param result the result of the node
+		 * @return the reduced value
+		 */
+		public R reduce(R value, String node, T result);
+
+	}
+
+	private Map<String, T> results = new TreeMap<String, T>();
+
+	private Map<String, Exception> failures = new TreeMap<String, Exception>();
+
+	/**
+	 * Adds the result of a node.
+	 *
+	 * @param node the identifier of the node
+	 * @param result the result
+	 */
+	public void addResult(String node, T result) {
+		results.put(node, result);
+	}
+
+	/**
+	 * Adds the failure of a node.
+	 *
+	 * @param node the identifier of the node
+	 * @param failure the exception thrown by the task, or {@link java.util.concurrent.TimeoutException} if it did not finish
+	 */
+	public void addFailure(String node, Exception failure) {
+		failures.put(node, failure);
+	}
+
+	/**
+	 * Returns the results of the nodes where the task succeeded.
+	 *
+	 * @return the unmodifiable map of the identifiers of the nodes and the results
+	 */
+	public Map<String, T> getResults() {
+		return Collections.unmodifiableMap(results);
+	}
+
+	/**
+	 * Returns the failures of the nodes where the task failed or did not finish.
+	 *
+	 * @return the unmodifiable map of the identifiers of the nodes and the exceptions
+	 */
+	public Map<String, Exception> getFailures() {
+		return Collections.unmodifiableMap(failures);
+	}
+
+	/**
+	 * Returns whether the task succeeded on all the nodes.
+	 *
+	 * @return <code>true</code> if no failure is recorded
+	 */
+	public boolean isSucceeded() {
+		return failures.isEmpty();
+	}
+
+	/**
+	 * Reduces the results of the nodes where the task succeeded, in the order of the identifiers of the nodes.
+	 *
+	 * @param initial the initial value
+	 * @param reducer the reducer
+	 * @return the reduced value
+	 */
+	public <R> R reduce(R initial, Reducer<? super T, R> reducer) {
+		R value = initial;
+		for(Map.Entry<String, T> entry : results.entrySet()) {
+			value = reducer.reduce(value, entry.getKey(), entry.getValue());
+		}
+		return value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return String.format("results=%s, failures=%s", results, failures.keySet());
+	}
+}
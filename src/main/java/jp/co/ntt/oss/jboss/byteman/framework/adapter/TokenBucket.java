@@ -0,0 +1,167 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+/**
+ * The token bucket which limits the rate of operations across the nodes. <br/>
+ * The bucket is refilled at the rate up to the burst, lazily when it is accessed, so that no thread is needed.
+ * The nodes lease the tokens in batches of {@link #LEASE_PERIOD} worth of the rate, so that an operation does not
+ * always cost a round-trip to the controller node. The operations never exceed the rate plus the burst in total,
+ * although a node may hold a batch which it does not use. All the methods are thread-safe.
+ *
+ * @see DistributedAdapter#leaseTokens(Object)
+ */
+public class TokenBucket {
+
+	/** The period of the rate which a batch of the tokens covers (nanoseconds). */
+	public static final long LEASE_PERIOD = 50L * 1000 * 1000;
+
+	private double rate;
+
+	private long burst;
+
+	private double tokens;
+
+	private long lastRefill;
+
+	/**
+	 * Constructs a new instance which is full now.
+	 *
+	 * @param rate the number of the tokens added per second
+	 * @param burst the maximum number of the tokens
+	 */
+	public TokenBucket(double rate, long burst) {
+		this(rate, burst, System.nanoTime());
+	}
+
+	/**
+	 * Constructs a new instance which is full at the specified time.
+	 *
+	 * @param rate the number of the tokens added per second
+	 * @param burst the maximum number of the tokens
+	 * @param now the current time by {@link System#nanoTime()}
+	 */
+	public TokenBucket(double rate, long burst, long now) {
+		validate(rate, burst);
+		this.rate = rate;
+		this.burst = burst;
+		this.tokens = burst;
+		this.lastRefill = now;
+	}
+
+	/**
+	 * Leases a batch of the tokens now.
+	 *
+	 * @return the number of the leased tokens, which is 0 if no token is available
+	 */
+	public int lease() {
+		return lease(System.nanoTime());
+	}
+
+	/**
+	 * Leases a batch of the tokens at the specified time.
+	 *
+	 * @param now the current time by {@link System#nanoTime()}
+	 * @return the number of the leased tokens, which is 0 if no token is available
+	 */
+	public synchronized int lease(long now) {
+		refill(now);
+		int leased = (int) Math.min(Math.floor(tokens), getBatchSize());
+		tokens -= leased;
+		return leased;
+	}
+
+	/**
+	 * Changes the rate and the burst now. The tokens exceeding the new burst are discarded.
+	 *
+	 * @param rate the number of the tokens added per second
+	 * @param burst the maximum number of the tokens
+	 */
+	public void setRate(double rate, long burst) {
+		setRate(rate, burst, System.nanoTime());
+	}
+
+	/**
+	 * Changes the rate and the burst at the specified time. The tokens exceeding the new burst are discarded.
+	 *
+	 * @param rate the number of the tokens added per second
+	 * @param burst the maximum number of the tokens
+	 * @param now the current time by {@link System#nanoTime()}
+	 */
+	public synchronized void setRate(double rate, long burst, long now) {
+		validate(rate, burst);
+		refill(now);
+		this.rate = rate;
+		this.burst = burst;
+		tokens = Math.min(tokens, burst);
+	}
+
+	/**
+	 * Returns the number of the tokens added per second.
+	 *
+	 * @return the rate
+	 */
+	public synchronized double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Returns the maximum number of the tokens.
+	 *
+	 * @return the burst
+	 */
+	public synchronized long getBurst() {
+		return burst;
+	}
+
+	/**
+	 * Returns the maximum number of the tokens leased at once, which is {@link #LEASE_PERIOD} worth of the rate
+	 * but neither less than 1 nor more than the burst.
+	 *
+	 * @return the size of a batch
+	 */
+	public synchronized long getBatchSize() {
+		return Math.max(1, Math.min(burst, (long) (rate * LEASE_PERIOD / 1e9)));
+	}
+
+	private void refill(long now) {
+		if(now > lastRefill) {
+			tokens = Math.min(burst, tokens + rate * (now - lastRefill) / 1e9);
+			lastRefill = now;
+		}
+	}
+
+	private static void validate(double rate, long burst) {
+		if(!(rate > 0) || Double.isInfinite(rate)) {
+			throw new IllegalArgumentException(String.format("[%s] is not a valid rate.", rate));
+		}
+		if(burst <= 0 || burst > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid burst.", burst));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format("rate=%s, burst=%d, tokens=%.1f", rate, burst, tokens);
+	}
+}
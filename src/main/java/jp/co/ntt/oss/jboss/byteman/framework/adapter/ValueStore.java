@@ -0,0 +1,193 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec;
+
+/**
+ * The key-value store on the controller node. <br/>
+ * The values are kept as encoded by {@link ValueCodec}, and compared by their encoded bytes.
+ * Every mutation is given the next version of a single sequence. All the methods are thread-safe.
+ *
+ * @see DistributedAdapter#putValue(Object, byte[])
+ */
+public class ValueStore {
+
+	/**
+	 * The update of an integer value by {@link ValueStore#getAndUpdate(Object, Update, long)}.
+	 */
+	public enum Update {
+		/** Adds the operand to the value. */
+		ADD {
+			@Override
+			public long apply(long value, long operand) {
+				return value + operand;
+			}
+		},
+		/** Sets the greater of the value and the operand. */
+		MAX {
+			@Override
+			public long apply(long value, long operand) {
+				return Math.max(value, operand);
+			}
+		},
+		/** Sets the lesser of the value and the operand. */
+		MIN {
+			@Override
+			public long apply(long value, long operand) {
+				return Math.min(value, operand);
+			}
+		},
+		/** Sets the operand. */
+		SET {
+			@Override
+			public long apply(long value, long operand) {
+				return operand;
+			}
+		};
+
+		/**
+		 * Returns the updated value.
+		 *
+		 * @param value the current value
+		 * @param operand the operand
+		 * @return the updated value
+		 */
+		public abstract long apply(long value, long operand);
+	}
+
+	private Map<Object, VersionedValue> values = new HashMap<Object, VersionedValue>();
+
+	private long version;
+
+	/**
+	 * Returns the value.
+	 *
+	 * @param identifier an identifier for the value
+	 * @return the value, whose value is <code>null</code> if it does not exist
+	 */
+	public synchronized VersionedValue get(Object identifier) {
+		VersionedValue value = values.get(identifier);
+		return value != null ? value : new VersionedValue(null, version);
+	}
+
+	/**
+	 * Sets the value.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param value the encoded value
+	 * @return the version of the mutation
+	 */
+	public synchronized long put(Object identifier, byte[] value) {
+		values.put(identifier, new VersionedValue(value, ++version));
+		return version;
+	}
+
+	/**
+	 * Sets the value if the current value is equal to the expected one.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param expected the expected encoded value, or <code>null</code> to expect that the value does not exist
+	 * @param value the encoded value
+	 * @return the version of the mutation, or -1 if the current value is not equal to the expected one
+	 */
+	public synchronized long compareAndSet(Object identifier, byte[] expected, byte[] value) {
+		VersionedValue current = values.get(identifier);
+		if(current == null ? expected != null : !Arrays.equals(current.getValue(), expected)) {
+			return -1;
+		}
+		return put(identifier, value);
+	}
+
+	/**
+	 * Updates the integer value atomically. A value which does not exist is regarded as 0.
+	 * The updated value is stored as a {@link Long}.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param update the update
+	 * @param operand the operand of the update
+	 * @return the value before the update
+	 * @throws IllegalArgumentException if the current value is not an integer
+	 */
+	public synchronized long getAndUpdate(Object identifier, Update update, long operand) {
+		long current = 0;
+		VersionedValue value = values.get(identifier);
+		if(value != null) {
+			Object decoded;
+			try {
+				decoded = ValueCodec.decode(value.getValue());
+			} catch (IOException e) {
+				decoded = null;
+			}
+			if(!(decoded instanceof Long || decoded instanceof Integer || decoded instanceof Short || decoded instanceof Byte)) {
+				throw new IllegalArgumentException(String.format("The value of the identifier [%s] is not an integer.", identifier));
+			}
+			current = ((Number) decoded).longValue();
+		}
+		try {
+			put(identifier, ValueCodec.encode(update.apply(current, operand)));
+		} catch (IOException e) {
+			// a long is always encoded.
+			throw new IllegalStateException(e);
+		}
+		return current;
+	}
+
+	/**
+	 * Deletes the value.
+	 *
+	 * @param identifier an identifier for the value
+	 * @return the version of the mutation, or -1 if the value did not exist
+	 */
+	public synchronized long delete(Object identifier) {
+		return values.remove(identifier) != null ? ++version : -1;
+	}
+
+	/**
+	 * Returns the number of the values.
+	 *
+	 * @return the number of the values
+	 */
+	public synchronized int size() {
+		return values.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String toString() {
+		StringBuilder builder = new StringBuilder();
+		for(Iterator<Map.Entry<Object, VersionedValue>> iterator = values.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<Object, VersionedValue> entry = iterator.next();
+			builder.append(entry.getKey()).append('=').append(entry.getValue().getVersion());
+			if(iterator.hasNext()) {
+				builder.append(", ");
+			}
+		}
+		return builder.toString();
+	}
+}
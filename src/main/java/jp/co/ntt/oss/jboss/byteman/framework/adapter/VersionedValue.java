@@ -0,0 +1,76 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import java.io.Serializable;
+
+/**
+ * The value of the key-value store on the controller node with its version. <br/>
+ * The versions are assigned from a single sequence of the store, so that a greater version always means a later mutation.
+ * A value which does not exist is represented by <code>null</code> with the version of the store when it is read.
+ *
+ * @see ValueStore
+ */
+public class VersionedValue implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private byte[] value;
+
+	private long version;
+
+	/**
+	 * Constructs with the value and the version.
+	 *
+	 * @param value the value encoded by {@link jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec},
+	 *        or <code>null</code> if the value does not exist
+	 * @param version the version
+	 */
+	public VersionedValue(byte[] value, long version) {
+		this.value = value;
+		this.version = version;
+	}
+
+	/**
+	 * Returns the value.
+	 *
+	 * @return the encoded value, or <code>null</code> if the value does not exist
+	 */
+	public byte[] getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns the version.
+	 *
+	 * @return the version
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return String.format("version=%d, exists=%b", version, value != null);
+	}
+}
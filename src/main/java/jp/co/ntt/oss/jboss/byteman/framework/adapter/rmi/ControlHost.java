@@ -19,20 +19,36 @@
 
 package jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi;
 
+import java.io.File;
+import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.jboss.byteman.rule.helper.Helper;
 
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapterImpl;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Journal;
 
 /**
  * The implementation of {@link ControlIF}.
- *
+ * <br/>
+ * Usually the instrumentor exports it in the test process. It can also be started in its own process
+ * as a controller shard of {@link ShardedHost} as follows:
+ * <pre>
+ * java -cp byteman-framework.jar:... jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlHost &lt;port&gt; [&lt;directory&gt;]
+ * </pre>
+ * If the directory is given, the state of the shard is journaled in it,
+ * and the profiles reported to the shard are written to {@link #PROFILE_DIRECTORY} in it.
  */
 public class ControlHost extends DistributedAdapterImpl implements ControlIF {
 
+	/** The directory under the result directory where the profiles reported by the nodes are written. */
+	public static final String PROFILE_DIRECTORY = "profile";
+
 	private Map<String, JoinServerThread> joinThreadMap = new ConcurrentHashMap<String, JoinServerThread>();
 
 	/**
@@ -93,6 +109,35 @@ public class ControlHost extends DistributedAdapterImpl implements ControlIF {
 		logger.debug("End key %s", key);
 	}
 
+	/**
+	 * Starts a controller shard which is bound to a RMI registry on the specified port.
+	 *
+	 * @param args the port of the RMI registry, and optionally the directory of the journal and the profiles
+	 * @throws Exception if the shard could not be started
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1) {
+			System.err.println("Usage: ControlHost <port> [<directory>]");
+			System.exit(1);
+		}
+		Registry registry = LocateRegistry.createRegistry(Integer.parseInt(args[0]));
+		ControlHost host = new ControlHost();
+		if(args.length > 1) {
+			File directory = new File(args[1]);
+			host.openJournal(new Journal(directory));
+			host.setProfileDirectory(new File(directory, PROFILE_DIRECTORY));
+			host.logger.debug("Opened the journal in %s", directory);
+		}
+		Remote stub = UnicastRemoteObject.exportObject(host, 0);
+		registry.rebind(CONTROL_ID, stub);
+		host.logger.debug("Started the controller shard on the port %s", args[0]);
+		synchronized (host) {
+			while(true) {
+				host.wait();
+			}
+		}
+	}
+
 	/**
 	 * A server thread for function of join.
 	 *
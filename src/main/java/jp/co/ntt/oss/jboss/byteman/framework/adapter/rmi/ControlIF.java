@@ -19,12 +19,31 @@
 
 package jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi;
 
+import java.io.Serializable;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import org.jboss.byteman.rule.helper.Helper;
 
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.NodeTask;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.TaskResults;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.ValueStore;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.VersionedValue;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.StressStatus;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Frequency;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HeavyHitters;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.LatencyHistogram;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Rate;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Reservoir;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanEvent;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.StackProfile;
 
 /**
  * The RMI communication endpoint interface of the controller for test.
@@ -279,4 +298,497 @@ public interface ControlIF extends Remote, DistributedAdapter {
 	 */
 	@Override
 	public Object doCallback(Object identifier, Object... parameters) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deleteNamespace(String namespace) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void registerNode(String node, Object target) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getLatencyHistogram(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyPercentile(Object identifier, double percentile) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyMax(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyCount(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLatency(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportSpans(String node, List<SpanEvent> events) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getSpanHistogram(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getUnmatchedSpans(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSpan(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getClockOffset(String node) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getClockDrift(String node) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getClockError(String node) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportMarks(String node, Map<Object, Long> deltas) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Rate getRate(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Rate> getNodeRates(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteRate(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HyperLogLog getDistinctSketch(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getDistinctCount(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDistinct(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HeavyHitters getFrequentSketch(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Frequency> getTopFrequent(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteFrequent(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Reservoir getReservoir(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Object> getSample(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSample(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getResourceHistogram(Object identifier, Resource resource) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteResource(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getContentionHistogram(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, LatencyHistogram> getNodeContentionHistograms(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteContention(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportProfile(String node, Object identifier, StackProfile profile) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public StackProfile getProfile(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteProfile(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createSemaphore(Object identifier, int permits) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long requestPermit(Object identifier, String node) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean pollPermit(Object identifier, long ticket) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelPermit(Object identifier, long ticket) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean releasePermit(Object identifier, String node) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getAvailablePermits(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPermitQueueLength(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSemaphore(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createTokenBucket(Object identifier, double rate, long burst) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTokenRate(Object identifier, double rate, long burst) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getTokenRate(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int leaseTokens(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteTokenBucket(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createPhaser(Object identifier, int parties) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int registerPhaser(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int arrivePhaser(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deregisterPhaser(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPhase(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPhaserParties(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getArrivedParties(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deletePhaser(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean awaitCountDown(Object identifier, long millis) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createMailbox(Object identifier, int capacity) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean putMail(Object identifier, byte[] value, long timeout) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] takeMail(Object identifier, long timeout) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<byte[]> drainMail(Object identifier, int max) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getMailboxSize(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteMailbox(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue getValue(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue watchValue(String node, Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long putValue(Object identifier, byte[] value) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long compareAndSetValue(Object identifier, byte[] expected, byte[] value) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getAndUpdateValue(Object identifier, ValueStore.Update update, long operand) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteValue(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long acquireLease(Object identifier, String node, long ttl) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean renewLease(Object identifier, long token, long ttl) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean releaseLease(Object identifier, long token) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLeaseValid(Object identifier, long token) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getLeaseHolder(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLease(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setDelay(Object identifier, DelayDistribution distribution) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue getDelay(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getInjectedDelayHistogram(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDelay(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, StressStatus> getStressStatuses(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelStress(Object identifier) throws RemoteException;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T extends Serializable> TaskResults<T> executeTask(NodeTask<T> task, Collection<String> nodes, long timeout) throws RemoteException;
+
 }
@@ -0,0 +1,255 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi;
+
+import java.io.Serializable;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.concurrent.ExecutionException;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.NodeTask;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.VersionedValue;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.StressStatus;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HeavyHitters;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.LatencyHistogram;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Reservoir;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+
+/**
+ * The RMI communication endpoint interface of a node. <br/>
+ * A node records metrics locally and registers this endpoint with the controller,
+ * so that the controller can pull and merge them on demand.
+ *
+ */
+public interface NodeIF extends Remote {
+
+	/**
+	 * Returns the identifier of the node.
+	 *
+	 * @return the identifier of the node
+	 * @throws RemoteException
+	 */
+	public String getNodeId() throws RemoteException;
+
+	/**
+	 * Returns the current time of the node, from which the controller estimates the offset of the clock of the node.
+	 *
+	 * @return the nanoseconds since the epoch
+	 * @throws RemoteException
+	 * @see jp.co.ntt.oss.jboss.byteman.framework.metric.Clock#currentTimeNanos()
+	 */
+	public long currentTimeNanos() throws RemoteException;
+
+	/**
+	 * Returns a copy of the latency histogram recorded on the node.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @return the copy of the latency histogram, or <code>null</code> if no latency is recorded
+	 * @throws RemoteException
+	 */
+	public LatencyHistogram getLatencyHistogram(Object identifier) throws RemoteException;
+
+	/**
+	 * Deletes the latency histogram recorded on the node.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @return <code>true</code> if the latency histogram existed
+	 * @throws RemoteException
+	 */
+	public boolean deleteLatency(Object identifier) throws RemoteException;
+
+	/**
+	 * Returns a copy of the distinct-count sketch recorded on the node.
+	 *
+	 * @param identifier an identifier for the distinct count
+	 * @return the copy of the sketch, or <code>null</code> if no value is offered
+	 * @throws RemoteException
+	 */
+	public HyperLogLog getDistinctSketch(Object identifier) throws RemoteException;
+
+	/**
+	 * Deletes the distinct-count sketch recorded on the node.
+	 *
+	 * @param identifier an identifier for the distinct count
+	 * @return <code>true</code> if the sketch existed
+	 * @throws RemoteException
+	 */
+	public boolean deleteDistinct(Object identifier) throws RemoteException;
+
+	/**
+	 * Returns a copy of the heavy hitters recorded on the node.
+	 *
+	 * @param identifier an identifier for the frequencies
+	 * @return the copy of the heavy hitters, or <code>null</code> if no value is offered
+	 * @throws RemoteException
+	 */
+	public HeavyHitters getFrequentSketch(Object identifier) throws RemoteException;
+
+	/**
+	 * Deletes the heavy hitters recorded on the node.
+	 *
+	 * @param identifier an identifier for the frequencies
+	 * @return <code>true</code> if the heavy hitters existed
+	 * @throws RemoteException
+	 */
+	public boolean deleteFrequent(Object identifier) throws RemoteException;
+
+	/**
+	 * Returns a copy of the reservoir recorded on the node.
+	 *
+	 * @param identifier an identifier for the sample
+	 * @return the copy of the reservoir, or <code>null</code> if no value is offered
+	 * @throws RemoteException
+	 */
+	public Reservoir getReservoir(Object identifier) throws RemoteException;
+
+	/**
+	 * Deletes the reservoir recorded on the node.
+	 *
+	 * @param identifier an identifier for the sample
+	 * @return <code>true</code> if the reservoir existed
+	 * @throws RemoteException
+	 */
+	public boolean deleteSample(Object identifier) throws RemoteException;
+
+	/**
+	 * Returns a copy of the histogram of the resource usages recorded on the node.
+	 *
+	 * @param identifier an identifier for the code region
+	 * @param resource the resource
+	 * @return the copy of the histogram, or <code>null</code> if no usage is recorded
+	 * @throws RemoteException
+	 */
+	public LatencyHistogram getResourceHistogram(Object identifier, Resource resource) throws RemoteException;
+
+	/**
+	 * Deletes the histograms of all the resource usages recorded on the node.
+	 *
+	 * @param identifier an identifier for the code region
+	 * @return <code>true</code> if any histogram existed
+	 * @throws RemoteException
+	 */
+	public boolean deleteResource(Object identifier) throws RemoteException;
+
+	/**
+	 * Returns a copy of the histogram of the times waited to acquire a monitor on the node.
+	 *
+	 * @param identifier an identifier for the monitor
+	 * @return the copy of the histogram, or <code>null</code> if no wait is recorded
+	 * @throws RemoteException
+	 */
+	public LatencyHistogram getContentionHistogram(Object identifier) throws RemoteException;
+
+	/**
+	 * Deletes the histogram of the times waited to acquire a monitor on the node.
+	 *
+	 * @param identifier an identifier for the monitor
+	 * @return <code>true</code> if the histogram existed
+	 * @throws RemoteException
+	 */
+	public boolean deleteContention(Object identifier) throws RemoteException;
+
+	/**
+	 * Invalidates the value of the key-value store cached on the node, which is mutated on the controller node.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param version the version of the mutation
+	 * @throws RemoteException
+	 * @see jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter#watchValue(String, Object)
+	 */
+	public void invalidateValue(Object identifier, long version) throws RemoteException;
+
+	/**
+	 * Updates the distribution of the delays kept on the node. An update older than the kept one is ignored.
+	 *
+	 * @param identifier an identifier for the delay
+	 * @param distribution the encoded distribution with its version, whose value is <code>null</code> if it is unset
+	 * @throws RemoteException
+	 * @see jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter#setDelay(Object, jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution)
+	 */
+	public void updateDelay(Object identifier, VersionedValue distribution) throws RemoteException;
+
+	/**
+	 * Discards the values of the key-value store and the distributions of the delays kept on the node.
+	 * It is called when the node is registered again, because the controller may have been restarted
+	 * with new versions, or the invalidations and the updates may have been missed while the node was lost.
+	 *
+	 * @throws RemoteException
+	 */
+	public void discardCachedState() throws RemoteException;
+
+	/**
+	 * Returns a copy of the histogram of the delays injected on the node.
+	 *
+	 * @param identifier an identifier for the delay
+	 * @return the copy of the histogram (nanoseconds), or <code>null</code> if no delay is injected
+	 * @throws RemoteException
+	 */
+	public LatencyHistogram getInjectedDelayHistogram(Object identifier) throws RemoteException;
+
+	/**
+	 * Deletes the distribution of the delays kept on the node and the histogram of the injected delays.
+	 *
+	 * @param identifier an identifier for the delay
+	 * @return <code>true</code> if the histogram existed
+	 * @throws RemoteException
+	 */
+	public boolean deleteInjectedDelay(Object identifier) throws RemoteException;
+
+	/**
+	 * Returns the state of the stress workload on the node.
+	 *
+	 * @param identifier an identifier for the workload
+	 * @return the state of the last workload of the identifier, or <code>null</code> if no workload is started
+	 * @throws RemoteException
+	 */
+	public StressStatus getStressStatus(Object identifier) throws RemoteException;
+
+	/**
+	 * Cancels the stress workload on the node. The threads of the workload end soon, and the retained heap is released.
+	 *
+	 * @param identifier an identifier for the workload
+	 * @return <code>true</code> if the workload was running
+	 * @throws RemoteException
+	 */
+	public boolean cancelStress(Object identifier) throws RemoteException;
+
+	/**
+	 * Runs the task in the JVM of the node.
+	 *
+	 * @param task the task
+	 * @return the result of the task
+	 * @throws RemoteException
+	 * @throws ExecutionException if the task fails, which has the cause thrown by the task
+	 */
+	public <T extends Serializable> T execute(NodeTask<T> task) throws RemoteException, ExecutionException;
+
+	/**
+	 * Deletes all the metrics and the cached values of the identifiers scoped by the specified namespace on the node.
+	 * The stress workloads of the identifiers are cancelled.
+	 *
+	 * @param namespace the name of the namespace
+	 * @return the number of the deleted identifiers
+	 * @throws RemoteException
+	 */
+	public int deleteNamespace(String namespace) throws RemoteException;
+
+}
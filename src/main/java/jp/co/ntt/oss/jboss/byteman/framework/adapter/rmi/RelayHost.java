@@ -0,0 +1,1356 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi;
+
+import java.io.Serializable;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.NodeTask;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.TaskResults;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.ValueStore;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.VersionedValue;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.StressStatus;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Frequency;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HeavyHitters;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.LatencyHistogram;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Rate;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Reservoir;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanEvent;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.StackProfile;
+import jp.co.ntt.oss.jboss.byteman.framework.util.DistributedConfig;
+import jp.co.ntt.oss.jboss.byteman.framework.util.Logger;
+
+/**
+ * The relay controller which stands between the nodes and the root controller. <br/>
+ * A relay is started per rack or per host group, and the nodes in the group use it instead of the root controller
+ * (see <code>node.relay</code> in {@link DistributedConfig}). The relay reduces the load of the root controller as follows:
+ * <ul>
+ * <li>{@link #incrementCounter(Object, int)} calls arriving while an upstream call for the same identifier is in flight
+ * are combined into one upstream call. Each caller still receives the value it would receive if the calls were applied one by one.</li>
+ * <li>{@link #trace(Object, String)} and {@link #traceln(Object, String)} messages are buffered and sent in batches.
+ * {@link #traceOpen(Object, String)} and {@link #traceClose(Object)} flush the buffer first, so the order of the messages is kept.
+ * A message is accepted before it is written, so a failure to write it is reported by the next message of the identifier.</li>
+ * </ul>
+ * If <code>controller.shards</code> is set, the relay forwards to the controller shards.
+ * The other methods are forwarded as they are. Rendezvous, countdowns, joins and waiters are not combined because
+ * {@link org.jboss.byteman.rule.helper.Helper} counts the individual threads, and combining them would change their semantics.
+ * Start a relay as follows:
+ * <pre>
+ * java -cp byteman-framework.jar:... jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.RelayHost &lt;port&gt;
+ * </pre>
+ */
+public class RelayHost implements ControlIF {
+
+	/** The default interval to flush the buffered traces (milliseconds). */
+	public static final long DEFAULT_FLUSH_INTERVAL = 100;
+
+	/** Logger. **/
+	protected Logger logger = Logger.getLogger();
+
+	private ControlIF upstream;
+
+	private Map<Object, CombiningCounter> counters = new ConcurrentHashMap<Object, CombiningCounter>();
+
+	private Map<Object, StringBuilder> traces = new HashMap<Object, StringBuilder>();
+
+	private Set<Object> failedTraces = new HashSet<Object>();
+
+	private ConcurrentMap<Object, Object> sendLocks = new ConcurrentHashMap<Object, Object>();
+
+	private ScheduledExecutorService flusher;
+
+	/**
+	 * Constructs with the upstream controller.
+	 *
+	 * @param upstream the upstream controller
+	 * @param flushInterval the interval to flush the buffered traces (milliseconds)
+	 */
+	public RelayHost(ControlIF upstream, long flushInterval) {
+		this.upstream = upstream;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "RelayHost-flusher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		flusher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					flush();
+				} catch (Exception e) {
+					logger.error(e, "Failed to flush the traces");
+				}
+			}
+		}, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sends all the buffered traces to the upstream controller.
+	 * The traces of the other identifiers are sent even if one of them fails.
+	 *
+	 * @throws RemoteException the first failure of the upstream calls
+	 */
+	public void flush() throws RemoteException {
+		List<Object> identifiers;
+		synchronized (traces) {
+			if(traces.isEmpty()) {
+				return;
+			}
+			identifiers = new ArrayList<Object>(traces.keySet());
+		}
+		RemoteException failure = null;
+		for(Object identifier : identifiers) {
+			try {
+				flush(identifier);
+			} catch (RemoteException e) {
+				if(failure == null) {
+					failure = e;
+				}
+			}
+		}
+		if(failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Flushes the traces of the specified identifier.
+	 * The buffer is taken and sent while holding the send lock of the identifier,
+	 * so that the batches and the other upstream calls of the identifier arrive in order.
+	 */
+	private void flush(Object identifier) throws RemoteException {
+		synchronized (getSendLock(identifier)) {
+			StringBuilder buffer;
+			synchronized (traces) {
+				buffer = traces.remove(identifier);
+			}
+			if(buffer != null) {
+				send(identifier, buffer);
+			}
+		}
+	}
+
+	/**
+	 * Returns the lock which serializes the upstream calls of the trace.
+	 * The locks are kept, because the identifiers of the traces are few.
+	 */
+	private Object getSendLock(Object identifier) {
+		Object lock = sendLocks.get(identifier);
+		if(lock == null) {
+			Object created = new Object();
+			lock = sendLocks.putIfAbsent(identifier, created);
+			if(lock == null) {
+				lock = created;
+			}
+		}
+		return lock;
+	}
+
+	/**
+	 * Sends the buffered messages upstream, and remembers the identifier if they are not written.
+	 */
+	private void send(Object identifier, StringBuilder buffer) throws RemoteException {
+		boolean written = false;
+		try {
+			written = upstream.trace(identifier, buffer.toString());
+		} finally {
+			if(!written) {
+				synchronized (traces) {
+					failedTraces.add(identifier);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops flushing the traces periodically and flushes the rest.
+	 *
+	 * @throws RemoteException
+	 */
+	public void shutdown() throws RemoteException {
+		flusher.shutdown();
+		flush();
+	}
+
+	/**
+	 * Increments the counter. The calls for the same identifier are combined while an upstream call is in flight.
+	 */
+	@Override
+	public int incrementCounter(Object identifier, int amount) throws RemoteException {
+		logger.debug("Start identifier %s", identifier);
+		CombiningCounter counter = counters.get(identifier);
+		if(counter == null) {
+			synchronized (counters) {
+				counter = counters.get(identifier);
+				if(counter == null) {
+					counter = new CombiningCounter(identifier);
+					counters.put(identifier, counter);
+				}
+			}
+		}
+		int result = counter.increment(amount);
+		logger.debug("End identifier %s: Returns %d", identifier, result);
+		return result;
+	}
+
+	/**
+	 * Buffers the message. It is sent to the upstream controller later.
+	 *
+	 * @return <code>false</code> if the messages of the identifier sent last time were not written, otherwise <code>true</code>
+	 */
+	@Override
+	public boolean trace(Object identifier, String message) throws RemoteException {
+		boolean result;
+		synchronized (traces) {
+			result = !failedTraces.remove(identifier);
+			StringBuilder buffer = traces.get(identifier);
+			if(buffer == null) {
+				buffer = new StringBuilder();
+				traces.put(identifier, buffer);
+			}
+			buffer.append(message);
+		}
+		return result;
+	}
+
+	/**
+	 * Buffers the message with a line separator. It is sent to the upstream controller later.
+	 *
+	 * @return <code>false</code> if the messages of the identifier sent last time were not written, otherwise <code>true</code>
+	 */
+	@Override
+	public boolean traceln(Object identifier, String message) throws RemoteException {
+		return trace(identifier, message + System.getProperty("line.separator"));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean traceOpen(Object identifier, String fileName) throws RemoteException {
+		synchronized (getSendLock(identifier)) {
+			flush(identifier);
+			return upstream.traceOpen(identifier, fileName);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean traceClose(Object identifier) throws RemoteException {
+		synchronized (getSendLock(identifier)) {
+			flush(identifier);
+			return upstream.traceClose(identifier);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean waiting(Object identifier) throws RemoteException {
+		return upstream.waiting(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void waitFor(Object identifier, long millisecs) throws RemoteException {
+		upstream.waitFor(identifier, millisecs);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean signalWake(Object identifier, boolean mustMeet) throws RemoteException {
+		return upstream.signalWake(identifier, mustMeet);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean signalThrow(Object identifier, boolean mustMeet) throws RemoteException {
+		return upstream.signalThrow(identifier, mustMeet);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createRendezvous(Object identifier, int expected, boolean restartable) throws RemoteException {
+		return upstream.createRendezvous(identifier, expected, restartable);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isRendezvous(Object identifier, int expected) throws RemoteException {
+		return upstream.isRendezvous(identifier, expected);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getRendezvous(Object identifier, int expected) throws RemoteException {
+		return upstream.getRendezvous(identifier, expected);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int rendezvous(Object identifier) throws RemoteException {
+		return upstream.rendezvous(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteRendezvous(Object identifier, int expected) throws RemoteException {
+		return upstream.deleteRendezvous(identifier, expected);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createJoin(Object identifier, int max) throws RemoteException {
+		return upstream.createJoin(identifier, max);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isJoin(Object identifier, int max) throws RemoteException {
+		return upstream.isJoin(identifier, max);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean joinEnlist(Object identifier) throws RemoteException {
+		return upstream.joinEnlist(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String joinEnlistStart(Object identifier) throws RemoteException {
+		return upstream.joinEnlistStart(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void joinEnlistEnd(String key) throws RemoteException {
+		upstream.joinEnlistEnd(key);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean joinWait(Object identifier, int count) throws RemoteException {
+		return upstream.joinWait(identifier, count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean flag(Object identifier) throws RemoteException {
+		return upstream.flag(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean flagged(Object identifier) throws RemoteException {
+		return upstream.flagged(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean clear(Object identifier) throws RemoteException {
+		return upstream.clear(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isCountDown(Object identifier) throws RemoteException {
+		return upstream.isCountDown(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createCountDown(Object identifier, int count) throws RemoteException {
+		return upstream.createCountDown(identifier, count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean countDown(Object identifier) throws RemoteException {
+		return upstream.countDown(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createCounter(Object identifier, int value) throws RemoteException {
+		return upstream.createCounter(identifier, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteCounter(Object identifier) throws RemoteException {
+		return upstream.deleteCounter(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int readCounter(Object identifier, boolean zero) throws RemoteException {
+		return upstream.readCounter(identifier, zero);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int decrementCounter(Object identifier) throws RemoteException {
+		return upstream.decrementCounter(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createTimer(Object identifier) throws RemoteException {
+		return upstream.createTimer(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteTimer(Object identifier) throws RemoteException {
+		return upstream.deleteTimer(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getElapsedTimeFromTimer(Object identifier) throws RemoteException {
+		return upstream.getElapsedTimeFromTimer(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long resetTimer(Object identifier) throws RemoteException {
+		return upstream.resetTimer(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void killRemoteJVM(Object identifier) throws RemoteException {
+		upstream.killRemoteJVM(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void killRemoteJVM(Object identifier, int exitCode) throws RemoteException {
+		upstream.killRemoteJVM(identifier, exitCode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void registerCallback(Object identifier, Object target) throws RemoteException {
+		upstream.registerCallback(identifier, target);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void unregisterCallback(Object identifier) throws RemoteException {
+		upstream.unregisterCallback(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object doCallback(Object identifier, Object... parameters) throws RemoteException {
+		return upstream.doCallback(identifier, parameters);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deleteNamespace(String namespace) throws RemoteException {
+		return upstream.deleteNamespace(namespace);
+	}
+
+	/**
+	 * The counter which combines the increments while an upstream call is in flight.
+	 *
+	 */
+	protected class CombiningCounter {
+
+		private Object identifier;
+
+		private Batch pending;
+
+		private Object sendLock = new Object();
+
+		/**
+		 * Constructs with the identifier of the counter.
+		 *
+		 * @param identifier the identifier
+		 */
+		protected CombiningCounter(Object identifier) {
+			this.identifier = identifier;
+		}
+
+		/**
+		 * Increments the counter and returns the value as if the increments were applied one by one.
+		 *
+		 * @param amount the amount to increment
+		 * @return the value of the counter after this increment
+		 * @throws RemoteException
+		 */
+		protected int increment(int amount) throws RemoteException {
+			Batch batch;
+			int offset;
+			boolean leader;
+			synchronized (this) {
+				if(pending == null) {
+					pending = new Batch();
+				}
+				batch = pending;
+				offset = batch.total;
+				batch.total += amount;
+				leader = batch.size++ == 0;
+			}
+			if(leader) {
+				// the increments arriving while the previous batch is in flight are combined into this batch.
+				synchronized (sendLock) {
+					synchronized (this) {
+						pending = null;
+					}
+					try {
+						batch.complete(upstream.incrementCounter(identifier, batch.total), null);
+					} catch (RemoteException e) {
+						batch.complete(0, e);
+					} catch (RuntimeException e) {
+						batch.complete(0, new RemoteException(e.getMessage(), e));
+					}
+				}
+			}
+			return batch.await() - batch.total + offset + amount;
+		}
+	}
+
+	/**
+	 * The increments combined into one upstream call.
+	 *
+	 */
+	private static class Batch {
+
+		private int total;
+
+		private int size;
+
+		private boolean done;
+
+		private int result;
+
+		private RemoteException error;
+
+		private synchronized void complete(int result, RemoteException error) {
+			this.result = result;
+			this.error = error;
+			this.done = true;
+			notifyAll();
+		}
+
+		private synchronized int await() throws RemoteException {
+			boolean interrupted = false;
+			while(!done) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if(interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if(error != null) {
+				throw error;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void registerNode(String node, Object target) throws RemoteException {
+		upstream.registerNode(node, target);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getLatencyHistogram(Object identifier) throws RemoteException {
+		return upstream.getLatencyHistogram(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyPercentile(Object identifier, double percentile) throws RemoteException {
+		return upstream.getLatencyPercentile(identifier, percentile);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyMax(Object identifier) throws RemoteException {
+		return upstream.getLatencyMax(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyCount(Object identifier) throws RemoteException {
+		return upstream.getLatencyCount(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLatency(Object identifier) throws RemoteException {
+		return upstream.deleteLatency(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportSpans(String node, List<SpanEvent> events) throws RemoteException {
+		upstream.reportSpans(node, events);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getSpanHistogram(Object identifier) throws RemoteException {
+		return upstream.getSpanHistogram(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getUnmatchedSpans(Object identifier) throws RemoteException {
+		return upstream.getUnmatchedSpans(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSpan(Object identifier) throws RemoteException {
+		return upstream.deleteSpan(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getClockOffset(String node) throws RemoteException {
+		return upstream.getClockOffset(node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getClockDrift(String node) throws RemoteException {
+		return upstream.getClockDrift(node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getClockError(String node) throws RemoteException {
+		return upstream.getClockError(node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportMarks(String node, Map<Object, Long> deltas) throws RemoteException {
+		upstream.reportMarks(node, deltas);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Rate getRate(Object identifier) throws RemoteException {
+		return upstream.getRate(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Rate> getNodeRates(Object identifier) throws RemoteException {
+		return upstream.getNodeRates(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteRate(Object identifier) throws RemoteException {
+		return upstream.deleteRate(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HyperLogLog getDistinctSketch(Object identifier) throws RemoteException {
+		return upstream.getDistinctSketch(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getDistinctCount(Object identifier) throws RemoteException {
+		return upstream.getDistinctCount(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDistinct(Object identifier) throws RemoteException {
+		return upstream.deleteDistinct(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HeavyHitters getFrequentSketch(Object identifier) throws RemoteException {
+		return upstream.getFrequentSketch(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Frequency> getTopFrequent(Object identifier) throws RemoteException {
+		return upstream.getTopFrequent(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteFrequent(Object identifier) throws RemoteException {
+		return upstream.deleteFrequent(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Reservoir getReservoir(Object identifier) throws RemoteException {
+		return upstream.getReservoir(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Object> getSample(Object identifier) throws RemoteException {
+		return upstream.getSample(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSample(Object identifier) throws RemoteException {
+		return upstream.deleteSample(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getResourceHistogram(Object identifier, Resource resource) throws RemoteException {
+		return upstream.getResourceHistogram(identifier, resource);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteResource(Object identifier) throws RemoteException {
+		return upstream.deleteResource(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getContentionHistogram(Object identifier) throws RemoteException {
+		return upstream.getContentionHistogram(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, LatencyHistogram> getNodeContentionHistograms(Object identifier) throws RemoteException {
+		return upstream.getNodeContentionHistograms(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteContention(Object identifier) throws RemoteException {
+		return upstream.deleteContention(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportProfile(String node, Object identifier, StackProfile profile) throws RemoteException {
+		upstream.reportProfile(node, identifier, profile);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public StackProfile getProfile(Object identifier) throws RemoteException {
+		return upstream.getProfile(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteProfile(Object identifier) throws RemoteException {
+		return upstream.deleteProfile(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createSemaphore(Object identifier, int permits) throws RemoteException {
+		return upstream.createSemaphore(identifier, permits);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long requestPermit(Object identifier, String node) throws RemoteException {
+		return upstream.requestPermit(identifier, node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean pollPermit(Object identifier, long ticket) throws RemoteException {
+		return upstream.pollPermit(identifier, ticket);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelPermit(Object identifier, long ticket) throws RemoteException {
+		return upstream.cancelPermit(identifier, ticket);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean releasePermit(Object identifier, String node) throws RemoteException {
+		return upstream.releasePermit(identifier, node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getAvailablePermits(Object identifier) throws RemoteException {
+		return upstream.getAvailablePermits(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPermitQueueLength(Object identifier) throws RemoteException {
+		return upstream.getPermitQueueLength(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSemaphore(Object identifier) throws RemoteException {
+		return upstream.deleteSemaphore(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createTokenBucket(Object identifier, double rate, long burst) throws RemoteException {
+		return upstream.createTokenBucket(identifier, rate, burst);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTokenRate(Object identifier, double rate, long burst) throws RemoteException {
+		upstream.setTokenRate(identifier, rate, burst);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getTokenRate(Object identifier) throws RemoteException {
+		return upstream.getTokenRate(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int leaseTokens(Object identifier) throws RemoteException {
+		return upstream.leaseTokens(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteTokenBucket(Object identifier) throws RemoteException {
+		return upstream.deleteTokenBucket(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createPhaser(Object identifier, int parties) throws RemoteException {
+		return upstream.createPhaser(identifier, parties);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int registerPhaser(Object identifier) throws RemoteException {
+		return upstream.registerPhaser(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int arrivePhaser(Object identifier) throws RemoteException {
+		return upstream.arrivePhaser(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deregisterPhaser(Object identifier) throws RemoteException {
+		return upstream.deregisterPhaser(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPhase(Object identifier) throws RemoteException {
+		return upstream.getPhase(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPhaserParties(Object identifier) throws RemoteException {
+		return upstream.getPhaserParties(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getArrivedParties(Object identifier) throws RemoteException {
+		return upstream.getArrivedParties(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deletePhaser(Object identifier) throws RemoteException {
+		return upstream.deletePhaser(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean awaitCountDown(Object identifier, long millis) throws RemoteException {
+		return upstream.awaitCountDown(identifier, millis);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createMailbox(Object identifier, int capacity) throws RemoteException {
+		return upstream.createMailbox(identifier, capacity);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean putMail(Object identifier, byte[] value, long timeout) throws RemoteException {
+		return upstream.putMail(identifier, value, timeout);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] takeMail(Object identifier, long timeout) throws RemoteException {
+		return upstream.takeMail(identifier, timeout);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<byte[]> drainMail(Object identifier, int max) throws RemoteException {
+		return upstream.drainMail(identifier, max);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getMailboxSize(Object identifier) throws RemoteException {
+		return upstream.getMailboxSize(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteMailbox(Object identifier) throws RemoteException {
+		return upstream.deleteMailbox(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue getValue(Object identifier) throws RemoteException {
+		return upstream.getValue(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue watchValue(String node, Object identifier) throws RemoteException {
+		return upstream.watchValue(node, identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long putValue(Object identifier, byte[] value) throws RemoteException {
+		return upstream.putValue(identifier, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long compareAndSetValue(Object identifier, byte[] expected, byte[] value) throws RemoteException {
+		return upstream.compareAndSetValue(identifier, expected, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getAndUpdateValue(Object identifier, ValueStore.Update update, long operand) throws RemoteException {
+		return upstream.getAndUpdateValue(identifier, update, operand);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteValue(Object identifier) throws RemoteException {
+		return upstream.deleteValue(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long acquireLease(Object identifier, String node, long ttl) throws RemoteException {
+		return upstream.acquireLease(identifier, node, ttl);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean renewLease(Object identifier, long token, long ttl) throws RemoteException {
+		return upstream.renewLease(identifier, token, ttl);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean releaseLease(Object identifier, long token) throws RemoteException {
+		return upstream.releaseLease(identifier, token);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLeaseValid(Object identifier, long token) throws RemoteException {
+		return upstream.isLeaseValid(identifier, token);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getLeaseHolder(Object identifier) throws RemoteException {
+		return upstream.getLeaseHolder(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLease(Object identifier) throws RemoteException {
+		return upstream.deleteLease(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setDelay(Object identifier, DelayDistribution distribution) throws RemoteException {
+		upstream.setDelay(identifier, distribution);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue getDelay(Object identifier) throws RemoteException {
+		return upstream.getDelay(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getInjectedDelayHistogram(Object identifier) throws RemoteException {
+		return upstream.getInjectedDelayHistogram(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDelay(Object identifier) throws RemoteException {
+		return upstream.deleteDelay(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, StressStatus> getStressStatuses(Object identifier) throws RemoteException {
+		return upstream.getStressStatuses(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelStress(Object identifier) throws RemoteException {
+		return upstream.cancelStress(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T extends Serializable> TaskResults<T> executeTask(NodeTask<T> task, Collection<String> nodes, long timeout) throws RemoteException {
+		return upstream.executeTask(task, nodes, timeout);
+	}
+
+	/**
+	 * Starts the relay on the specified port. The upstream controller is specified by the configuration file.
+	 *
+	 * @param args the port of the relay
+	 * @throws Exception if the relay could not be started
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1) {
+			System.err.println("Usage: RelayHost <port>");
+			System.exit(1);
+		}
+		DistributedConfig config = DistributedConfig.getConfig();
+		Registry upstreamRegistry = LocateRegistry.getRegistry(config.getRmiHost(), config.getRmiPort());
+		ControlIF upstream = config.getShards().isEmpty()
+				? (ControlIF) upstreamRegistry.lookup(CONTROL_ID) : ShardedHost.lookup(config.getShards());
+
+		Registry registry = LocateRegistry.createRegistry(Integer.parseInt(args[0]));
+		final RelayHost relay = new RelayHost(upstream, DEFAULT_FLUSH_INTERVAL);
+		Remote stub = UnicastRemoteObject.exportObject(relay, 0);
+		registry.rebind(CONTROL_ID, stub);
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				try {
+					relay.shutdown();
+				} catch (Exception e) {
+					relay.logger.error(e, "Failed to flush the traces");
+				}
+			}
+		});
+		relay.logger.debug("Started the relay on the port %s", args[0]);
+		synchronized (relay) {
+			while(true) {
+				relay.wait();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,1296 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi;
+
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace.ScopedIdentifier;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.NodeTask;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.TaskResults;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.ValueStore;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.VersionedValue;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.StressStatus;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Frequency;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HeavyHitters;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.LatencyHistogram;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Rate;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Reservoir;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanEvent;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.StackProfile;
+import jp.co.ntt.oss.jboss.byteman.framework.util.DistributedConfig;
+
+/**
+ * The controller which distributes the identifiers across several controller shards. <br/>
+ * Each identifier is routed to one shard by consistent hashing of its string representation,
+ * so the nodes and the test side which are configured with the same shard addresses
+ * (see <code>controller.shards</code> in {@link DistributedConfig}) always agree on the shard of an identifier.
+ * An identifier whose string representation is inherited from {@link Object}, which differs between the JVMs, is rejected.
+ * Adding a shard moves only the identifiers which the new shard takes over. <br/>
+ * The methods which are not bound to an identifier, such as {@link #deleteNamespace(String)},
+ * are scattered to all the shards and their results are gathered. <br/>
+ * Each shard is a {@link ControlHost} in its own process, which can be started as follows:
+ * <pre>
+ * java -cp byteman-framework.jar:... jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlHost &lt;port&gt;
+ * </pre>
+ */
+public class ShardedHost implements ControlIF {
+
+	/** The number of the points on the hash ring per shard. */
+	public static final int VIRTUAL_NODES = 160;
+
+	private static final String KEY_SEPARATOR = ":";
+
+	private List<ControlIF> shards = new ArrayList<ControlIF>();
+
+	private TreeMap<Long, Integer> ring = new TreeMap<Long, Integer>();
+
+	private static ConcurrentMap<Class<?>, Boolean> stableClasses = new ConcurrentHashMap<Class<?>, Boolean>();
+
+	private ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "ShardedHost-gatherer");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * Constructs with the shards.
+	 * The names of the shards decide their positions on the hash ring, so they must be the same on all the nodes.
+	 *
+	 * @param shards the map of the shard names, typically the addresses, and the shards
+	 */
+	public ShardedHost(Map<String, ControlIF> shards) {
+		if(shards.isEmpty()) {
+			throw new IllegalArgumentException("No shard is defined.");
+		}
+		for(Map.Entry<String, ControlIF> entry : shards.entrySet()) {
+			int index = this.shards.size();
+			this.shards.add(entry.getValue());
+			for(int i = 0; i < VIRTUAL_NODES; i++) {
+				ring.put(hash(entry.getKey() + "#" + i), index);
+			}
+		}
+	}
+
+	/**
+	 * Looks up the shards on the specified addresses.
+	 *
+	 * @param addresses the addresses of the shards in the form of host:port
+	 * @return the controller which distributes the identifiers across the shards
+	 * @throws RemoteException if a registry could not be contacted
+	 * @throws NotBoundException if a shard is not bound to a registry
+	 */
+	public static ShardedHost lookup(List<String> addresses) throws RemoteException, NotBoundException {
+		Map<String, ControlIF> shards = new LinkedHashMap<String, ControlIF>();
+		for(String address : addresses) {
+			int index = address.lastIndexOf(':');
+			if(index <= 0) {
+				throw new IllegalArgumentException(String.format("[%s] is not a valid shard address.", address));
+			}
+			Registry registry = LocateRegistry.getRegistry(address.substring(0, index), Integer.parseInt(address.substring(index + 1)));
+			shards.put(address, (ControlIF) registry.lookup(CONTROL_ID));
+		}
+		return new ShardedHost(shards);
+	}
+
+	/**
+	 * Returns the shards.
+	 *
+	 * @return the shards
+	 */
+	public List<ControlIF> getShards() {
+		return shards;
+	}
+
+	/**
+	 * Returns the index of the shard which the specified identifier is routed to.
+	 *
+	 * @param identifier an identifier
+	 * @return the index of the shard
+	 * @throws IllegalArgumentException if the string representation of the identifier is not stable across the JVMs
+	 */
+	public int getShardIndex(Object identifier) {
+		SortedMap<Long, Integer> tail = ring.tailMap(hash(toKey(identifier)));
+		return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+	}
+
+	/**
+	 * Returns the shard which the specified identifier is routed to.
+	 *
+	 * @param identifier an identifier
+	 * @return the shard
+	 */
+	protected ControlIF shardFor(Object identifier) {
+		return shards.get(getShardIndex(identifier));
+	}
+
+	/**
+	 * Calls all the shards concurrently and gathers the results in the order of the shards.
+	 *
+	 * @param call the call to each shard
+	 * @return the results of the shards
+	 * @throws RemoteException if a shard fails
+	 */
+	protected <T> List<T> gather(final ShardCall<T> call) throws RemoteException {
+		List<Future<T>> futures = new ArrayList<Future<T>>();
+		for(final ControlIF shard : shards) {
+			futures.add(executor.submit(new Callable<T>() {
+				@Override
+				public T call() throws Exception {
+					return call.call(shard);
+				}
+			}));
+		}
+		List<T> results = new ArrayList<T>();
+		for(Future<T> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RemoteException("Interrupted while gathering the results of the shards", e);
+			} catch (ExecutionException e) {
+				if(e.getCause() instanceof RemoteException) {
+					throw (RemoteException) e.getCause();
+				}
+				throw new RemoteException("Failed to gather the results of the shards", e.getCause());
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Returns the key of the identifier on the hash ring, which is the same in all the JVMs.
+	 * The scoped identifiers are encoded as their namespaces and the keys of their original identifiers.
+	 */
+	private static String toKey(Object identifier) {
+		if(identifier == null || identifier instanceof String) {
+			return String.valueOf(identifier);
+		}
+		if(identifier instanceof ScopedIdentifier) {
+			ScopedIdentifier scoped = (ScopedIdentifier) identifier;
+			return scoped.getNamespace() + Namespace.SCRIPT_SEPARATOR + toKey(scoped.getIdentifier());
+		}
+		if(!isStable(identifier.getClass())) {
+			throw new IllegalArgumentException(String.format(
+					"[%s] cannot be routed to a shard, because its string representation is not stable.", identifier));
+		}
+		return identifier.toString();
+	}
+
+	/**
+	 * Returns whether the class overrides {@link Object#toString()}.
+	 */
+	private static boolean isStable(Class<?> type) {
+		Boolean stable = stableClasses.get(type);
+		if(stable == null) {
+			try {
+				stable = !type.isArray() && type.getMethod("toString").getDeclaringClass() != Object.class;
+			} catch (NoSuchMethodException e) {
+				stable = false;
+			}
+			stableClasses.put(type, stable);
+		}
+		return stable;
+	}
+
+	/**
+	 * Returns the position of the specified key on the hash ring.
+	 */
+	private static long hash(String key) {
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("MD5").digest(key.getBytes("UTF-8"));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+		return ((long) (digest[3] & 0xFF) << 24) | ((long) (digest[2] & 0xFF) << 16)
+				| ((long) (digest[1] & 0xFF) << 8) | (digest[0] & 0xFF);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The returned key is prefixed by the index of the shard, so that {@link #joinEnlistEnd(String)} reaches the same shard.
+	 */
+	@Override
+	public String joinEnlistStart(Object identifier) throws RemoteException {
+		int index = getShardIndex(identifier);
+		String key = shards.get(index).joinEnlistStart(identifier);
+		return key == null ? null : index + KEY_SEPARATOR + key;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void joinEnlistEnd(String key) throws RemoteException {
+		int index = key.indexOf(KEY_SEPARATOR);
+		shards.get(Integer.parseInt(key.substring(0, index))).joinEnlistEnd(key.substring(index + 1));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The namespace is deleted from all the shards.
+	 */
+	@Override
+	public int deleteNamespace(final String namespace) throws RemoteException {
+		int result = 0;
+		for(int count : gather(new ShardCall<Integer>() {
+			@Override
+			public Integer call(ControlIF shard) throws RemoteException {
+				return shard.deleteNamespace(namespace);
+			}
+		})) {
+			result += count;
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean waiting(Object identifier) throws RemoteException {
+		return shardFor(identifier).waiting(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void waitFor(Object identifier, long millisecs) throws RemoteException {
+		shardFor(identifier).waitFor(identifier, millisecs);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean signalWake(Object identifier, boolean mustMeet) throws RemoteException {
+		return shardFor(identifier).signalWake(identifier, mustMeet);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean signalThrow(Object identifier, boolean mustMeet) throws RemoteException {
+		return shardFor(identifier).signalThrow(identifier, mustMeet);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createRendezvous(Object identifier, int expected, boolean restartable) throws RemoteException {
+		return shardFor(identifier).createRendezvous(identifier, expected, restartable);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isRendezvous(Object identifier, int expected) throws RemoteException {
+		return shardFor(identifier).isRendezvous(identifier, expected);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getRendezvous(Object identifier, int expected) throws RemoteException {
+		return shardFor(identifier).getRendezvous(identifier, expected);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int rendezvous(Object identifier) throws RemoteException {
+		return shardFor(identifier).rendezvous(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteRendezvous(Object identifier, int expected) throws RemoteException {
+		return shardFor(identifier).deleteRendezvous(identifier, expected);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createJoin(Object identifier, int max) throws RemoteException {
+		return shardFor(identifier).createJoin(identifier, max);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isJoin(Object identifier, int max) throws RemoteException {
+		return shardFor(identifier).isJoin(identifier, max);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean joinEnlist(Object identifier) throws RemoteException {
+		return shardFor(identifier).joinEnlist(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean joinWait(Object identifier, int count) throws RemoteException {
+		return shardFor(identifier).joinWait(identifier, count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean flag(Object identifier) throws RemoteException {
+		return shardFor(identifier).flag(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean flagged(Object identifier) throws RemoteException {
+		return shardFor(identifier).flagged(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean clear(Object identifier) throws RemoteException {
+		return shardFor(identifier).clear(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isCountDown(Object identifier) throws RemoteException {
+		return shardFor(identifier).isCountDown(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createCountDown(Object identifier, int count) throws RemoteException {
+		return shardFor(identifier).createCountDown(identifier, count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean countDown(Object identifier) throws RemoteException {
+		return shardFor(identifier).countDown(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createCounter(Object identifier, int value) throws RemoteException {
+		return shardFor(identifier).createCounter(identifier, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteCounter(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteCounter(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int readCounter(Object identifier, boolean zero) throws RemoteException {
+		return shardFor(identifier).readCounter(identifier, zero);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int incrementCounter(Object identifier, int amount) throws RemoteException {
+		return shardFor(identifier).incrementCounter(identifier, amount);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int decrementCounter(Object identifier) throws RemoteException {
+		return shardFor(identifier).decrementCounter(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createTimer(Object identifier) throws RemoteException {
+		return shardFor(identifier).createTimer(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteTimer(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteTimer(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getElapsedTimeFromTimer(Object identifier) throws RemoteException {
+		return shardFor(identifier).getElapsedTimeFromTimer(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long resetTimer(Object identifier) throws RemoteException {
+		return shardFor(identifier).resetTimer(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean traceOpen(Object identifier, String fileName) throws RemoteException {
+		return shardFor(identifier).traceOpen(identifier, fileName);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean traceClose(Object identifier) throws RemoteException {
+		return shardFor(identifier).traceClose(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean trace(Object identifier, String message) throws RemoteException {
+		return shardFor(identifier).trace(identifier, message);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean traceln(Object identifier, String message) throws RemoteException {
+		return shardFor(identifier).traceln(identifier, message);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void killRemoteJVM(Object identifier) throws RemoteException {
+		shardFor(identifier).killRemoteJVM(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void killRemoteJVM(Object identifier, int exitCode) throws RemoteException {
+		shardFor(identifier).killRemoteJVM(identifier, exitCode);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void registerCallback(Object identifier, Object target) throws RemoteException {
+		shardFor(identifier).registerCallback(identifier, target);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void unregisterCallback(Object identifier) throws RemoteException {
+		shardFor(identifier).unregisterCallback(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object doCallback(Object identifier, Object... parameters) throws RemoteException {
+		return shardFor(identifier).doCallback(identifier, parameters);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 * It is sent to all the shards.
+	 */
+	@Override
+	public void registerNode(final String node, final Object target) throws RemoteException {
+		gather(new ShardCall<Void>() {
+			@Override
+			public Void call(ControlIF shard) throws RemoteException {
+				shard.registerNode(node, target);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getLatencyHistogram(Object identifier) throws RemoteException {
+		return shardFor(identifier).getLatencyHistogram(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyPercentile(Object identifier, double percentile) throws RemoteException {
+		return shardFor(identifier).getLatencyPercentile(identifier, percentile);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyMax(Object identifier) throws RemoteException {
+		return shardFor(identifier).getLatencyMax(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLatencyCount(Object identifier) throws RemoteException {
+		return shardFor(identifier).getLatencyCount(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLatency(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteLatency(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The events are split by the shards of their identifiers.
+	 */
+	@Override
+	public void reportSpans(String node, List<SpanEvent> events) throws RemoteException {
+		Map<Integer, List<SpanEvent>> batches = new LinkedHashMap<Integer, List<SpanEvent>>();
+		for(SpanEvent event : events) {
+			int index = getShardIndex(event.getIdentifier());
+			List<SpanEvent> batch = batches.get(index);
+			if(batch == null) {
+				batch = new ArrayList<SpanEvent>();
+				batches.put(index, batch);
+			}
+			batch.add(event);
+		}
+		for(Map.Entry<Integer, List<SpanEvent>> entry : batches.entrySet()) {
+			shards.get(entry.getKey()).reportSpans(node, entry.getValue());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getSpanHistogram(Object identifier) throws RemoteException {
+		return shardFor(identifier).getSpanHistogram(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getUnmatchedSpans(Object identifier) throws RemoteException {
+		return shardFor(identifier).getUnmatchedSpans(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSpan(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteSpan(identifier);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 * Every shard estimates the clocks of all the nodes, and the shard of the node answers.
+	 */
+	@Override
+	public long getClockOffset(String node) throws RemoteException {
+		return shardFor(node).getClockOffset(node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Every shard estimates the clocks of all the nodes, and the shard of the node answers.
+	 */
+	@Override
+	public double getClockDrift(String node) throws RemoteException {
+		return shardFor(node).getClockDrift(node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Every shard estimates the clocks of all the nodes, and the shard of the node answers.
+	 */
+	@Override
+	public long getClockError(String node) throws RemoteException {
+		return shardFor(node).getClockError(node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The marks are split by the shards of their identifiers.
+	 */
+	@Override
+	public void reportMarks(String node, Map<Object, Long> deltas) throws RemoteException {
+		Map<Integer, Map<Object, Long>> batches = new LinkedHashMap<Integer, Map<Object, Long>>();
+		for(Map.Entry<Object, Long> entry : deltas.entrySet()) {
+			int index = getShardIndex(entry.getKey());
+			Map<Object, Long> batch = batches.get(index);
+			if(batch == null) {
+				batch = new HashMap<Object, Long>();
+				batches.put(index, batch);
+			}
+			batch.put(entry.getKey(), entry.getValue());
+		}
+		for(Map.Entry<Integer, Map<Object, Long>> entry : batches.entrySet()) {
+			shards.get(entry.getKey()).reportMarks(node, entry.getValue());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Rate getRate(Object identifier) throws RemoteException {
+		return shardFor(identifier).getRate(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, Rate> getNodeRates(Object identifier) throws RemoteException {
+		return shardFor(identifier).getNodeRates(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteRate(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteRate(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HyperLogLog getDistinctSketch(Object identifier) throws RemoteException {
+		return shardFor(identifier).getDistinctSketch(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getDistinctCount(Object identifier) throws RemoteException {
+		return shardFor(identifier).getDistinctCount(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDistinct(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteDistinct(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HeavyHitters getFrequentSketch(Object identifier) throws RemoteException {
+		return shardFor(identifier).getFrequentSketch(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Frequency> getTopFrequent(Object identifier) throws RemoteException {
+		return shardFor(identifier).getTopFrequent(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteFrequent(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteFrequent(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Reservoir getReservoir(Object identifier) throws RemoteException {
+		return shardFor(identifier).getReservoir(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Object> getSample(Object identifier) throws RemoteException {
+		return shardFor(identifier).getSample(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSample(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteSample(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getResourceHistogram(Object identifier, Resource resource) throws RemoteException {
+		return shardFor(identifier).getResourceHistogram(identifier, resource);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteResource(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteResource(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getContentionHistogram(Object identifier) throws RemoteException {
+		return shardFor(identifier).getContentionHistogram(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, LatencyHistogram> getNodeContentionHistograms(Object identifier) throws RemoteException {
+		return shardFor(identifier).getNodeContentionHistograms(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteContention(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteContention(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reportProfile(String node, Object identifier, StackProfile profile) throws RemoteException {
+		shardFor(identifier).reportProfile(node, identifier, profile);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public StackProfile getProfile(Object identifier) throws RemoteException {
+		return shardFor(identifier).getProfile(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteProfile(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteProfile(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createSemaphore(Object identifier, int permits) throws RemoteException {
+		return shardFor(identifier).createSemaphore(identifier, permits);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long requestPermit(Object identifier, String node) throws RemoteException {
+		return shardFor(identifier).requestPermit(identifier, node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean pollPermit(Object identifier, long ticket) throws RemoteException {
+		return shardFor(identifier).pollPermit(identifier, ticket);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelPermit(Object identifier, long ticket) throws RemoteException {
+		return shardFor(identifier).cancelPermit(identifier, ticket);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean releasePermit(Object identifier, String node) throws RemoteException {
+		return shardFor(identifier).releasePermit(identifier, node);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getAvailablePermits(Object identifier) throws RemoteException {
+		return shardFor(identifier).getAvailablePermits(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPermitQueueLength(Object identifier) throws RemoteException {
+		return shardFor(identifier).getPermitQueueLength(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSemaphore(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteSemaphore(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createTokenBucket(Object identifier, double rate, long burst) throws RemoteException {
+		return shardFor(identifier).createTokenBucket(identifier, rate, burst);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTokenRate(Object identifier, double rate, long burst) throws RemoteException {
+		shardFor(identifier).setTokenRate(identifier, rate, burst);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getTokenRate(Object identifier) throws RemoteException {
+		return shardFor(identifier).getTokenRate(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int leaseTokens(Object identifier) throws RemoteException {
+		return shardFor(identifier).leaseTokens(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteTokenBucket(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteTokenBucket(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createPhaser(Object identifier, int parties) throws RemoteException {
+		return shardFor(identifier).createPhaser(identifier, parties);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int registerPhaser(Object identifier) throws RemoteException {
+		return shardFor(identifier).registerPhaser(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int arrivePhaser(Object identifier) throws RemoteException {
+		return shardFor(identifier).arrivePhaser(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deregisterPhaser(Object identifier) throws RemoteException {
+		return shardFor(identifier).deregisterPhaser(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPhase(Object identifier) throws RemoteException {
+		return shardFor(identifier).getPhase(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPhaserParties(Object identifier) throws RemoteException {
+		return shardFor(identifier).getPhaserParties(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getArrivedParties(Object identifier) throws RemoteException {
+		return shardFor(identifier).getArrivedParties(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deletePhaser(Object identifier) throws RemoteException {
+		return shardFor(identifier).deletePhaser(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean awaitCountDown(Object identifier, long millis) throws RemoteException {
+		return shardFor(identifier).awaitCountDown(identifier, millis);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean createMailbox(Object identifier, int capacity) throws RemoteException {
+		return shardFor(identifier).createMailbox(identifier, capacity);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean putMail(Object identifier, byte[] value, long timeout) throws RemoteException {
+		return shardFor(identifier).putMail(identifier, value, timeout);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public byte[] takeMail(Object identifier, long timeout) throws RemoteException {
+		return shardFor(identifier).takeMail(identifier, timeout);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<byte[]> drainMail(Object identifier, int max) throws RemoteException {
+		return shardFor(identifier).drainMail(identifier, max);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getMailboxSize(Object identifier) throws RemoteException {
+		return shardFor(identifier).getMailboxSize(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteMailbox(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteMailbox(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue getValue(Object identifier) throws RemoteException {
+		return shardFor(identifier).getValue(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue watchValue(String node, Object identifier) throws RemoteException {
+		return shardFor(identifier).watchValue(node, identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long putValue(Object identifier, byte[] value) throws RemoteException {
+		return shardFor(identifier).putValue(identifier, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long compareAndSetValue(Object identifier, byte[] expected, byte[] value) throws RemoteException {
+		return shardFor(identifier).compareAndSetValue(identifier, expected, value);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getAndUpdateValue(Object identifier, ValueStore.Update update, long operand) throws RemoteException {
+		return shardFor(identifier).getAndUpdateValue(identifier, update, operand);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteValue(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteValue(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long acquireLease(Object identifier, String node, long ttl) throws RemoteException {
+		return shardFor(identifier).acquireLease(identifier, node, ttl);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean renewLease(Object identifier, long token, long ttl) throws RemoteException {
+		return shardFor(identifier).renewLease(identifier, token, ttl);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean releaseLease(Object identifier, long token) throws RemoteException {
+		return shardFor(identifier).releaseLease(identifier, token);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLeaseValid(Object identifier, long token) throws RemoteException {
+		return shardFor(identifier).isLeaseValid(identifier, token);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getLeaseHolder(Object identifier) throws RemoteException {
+		return shardFor(identifier).getLeaseHolder(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLease(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteLease(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setDelay(Object identifier, DelayDistribution distribution) throws RemoteException {
+		shardFor(identifier).setDelay(identifier, distribution);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public VersionedValue getDelay(Object identifier) throws RemoteException {
+		return shardFor(identifier).getDelay(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getInjectedDelayHistogram(Object identifier) throws RemoteException {
+		return shardFor(identifier).getInjectedDelayHistogram(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDelay(Object identifier) throws RemoteException {
+		return shardFor(identifier).deleteDelay(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, StressStatus> getStressStatuses(Object identifier) throws RemoteException {
+		return shardFor(identifier).getStressStatuses(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelStress(Object identifier) throws RemoteException {
+		return shardFor(identifier).cancelStress(identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The task is run by the first shard, because the nodes are registered with all the shards.
+	 */
+	@Override
+	public <T extends Serializable> TaskResults<T> executeTask(NodeTask<T> task, Collection<String> nodes, long timeout) throws RemoteException {
+		return shards.get(0).executeTask(task, nodes, timeout);
+	}
+
+	/**
+	 * The call to a shard for {@link ShardedHost#gather(ShardCall)}.
+	 *
+	 * @param <T> the type of the result
+	 */
+	protected interface ShardCall<T> {
+
+		/**
+		 * Calls the shard.
+		 *
+		 * @param shard a shard
+		 * @return the result of the shard
+		 * @throws RemoteException
+		 */
+		T call(ControlIF shard) throws RemoteException;
+	}
+
+}
@@ -19,6 +19,8 @@
 
 package jp.co.ntt.oss.jboss.byteman.framework.controller;
 
+import java.util.List;
+
 import jp.co.ntt.oss.jboss.byteman.framework.helper.DistributedHelper;
 import jp.co.ntt.oss.jboss.byteman.framework.util.DistributedConfig;
 import jp.co.ntt.oss.jboss.byteman.framework.util.DistributedConfig.DistributedNodeConfig;
@@ -127,6 +129,8 @@ public abstract class AbstractNodeController implements NodeController {
 	 * <li>node.bytemanframework.jar</li>
 	 * <li>node.byteman.port (It is required to change a default value [1099].)</li>
 	 * </ul>
+	 * If <code>node.relay</code> is set, the node connects to the relay instead of the controller.
+	 * Otherwise, if <code>controller.shards</code> is set, the node connects to the controller shards.
 	 *
 	 * @param scripts the list of the path of a rule script
 	 * @return the definition of properties for a Byteman agent
@@ -146,8 +150,17 @@ public abstract class AbstractNodeController implements NodeController {
 		  .append("=sys:").append(bytemanFWJar)
 		  .append(",address:").append(getNodeConfig(DistributedConfig.NODE_ADDRESS))
 		  .append(",port:").append(getNodeConfig(DistributedConfig.NODE_BYTEMAN_PORT))
-		  .append(",prop:").append(DistributedHelper.PROP_HOSTNAME).append("=").append(DistributedConfig.getConfig().getRmiHost())
-		  .append(",prop:").append(DistributedHelper.PROP_PORT).append("=").append(DistributedConfig.getConfig().getRmiPort());
+		  .append(",prop:").append(DistributedHelper.PROP_HOSTNAME).append("=").append(getControllerHost())
+		  .append(",prop:").append(DistributedHelper.PROP_PORT).append("=").append(getControllerPort())
+		  .append(",prop:").append(DistributedHelper.PROP_NODE).append("=").append(identifier);
+		List<String> shards = DistributedConfig.getConfig().getShards();
+		if(getNodeConfig(DistributedConfig.NODE_RELAY) == null && !shards.isEmpty()) {
+			// a comma separates the agent options.
+			sb.append(",prop:").append(DistributedHelper.PROP_SHARDS).append("=");
+			for(int i = 0; i < shards.size(); i++) {
+				sb.append(i == 0 ? "" : DistributedHelper.SHARD_SEPARATOR).append(shards.get(i));
+			}
+		}
 		if(scripts.length != 0) {
 			for(String script : scripts) {
 				sb.append(",script:").append(script);
@@ -156,4 +169,32 @@ public abstract class AbstractNodeController implements NodeController {
 		return sb.toString();
 	}
 
+	/**
+	 * Returns the host which the node connects to. It is the relay if <code>node.relay</code> is set, otherwise the controller.
+	 *
+	 * @return the host which the node connects to
+	 */
+	protected String getControllerHost() {
+		String relay = getNodeConfig(DistributedConfig.NODE_RELAY);
+		if(relay == null) {
+			return DistributedConfig.getConfig().getRmiHost();
+		}
+		int index = relay.lastIndexOf(':');
+		return index < 0 ? relay : relay.substring(0, index);
+	}
+
+	/**
+	 * Returns the port which the node connects to. It is the relay if <code>node.relay</code> is set, otherwise the controller.
+	 *
+	 * @return the port which the node connects to
+	 */
+	protected int getControllerPort() {
+		String relay = getNodeConfig(DistributedConfig.NODE_RELAY);
+		if(relay == null) {
+			return DistributedConfig.getConfig().getRmiPort();
+		}
+		int index = relay.lastIndexOf(':');
+		return index < 0 ? DistributedConfig.getConfig().getRmiPort() : Integer.parseInt(relay.substring(index + 1));
+	}
+
 }
@@ -0,0 +1,203 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.fault;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * The distribution of the delays injected on the nodes. <br/>
+ * The parameters are given in milliseconds, and the delays are sampled in nanoseconds.
+ * An instance is immutable, so that it can be shared by the threads of a node.
+ *
+ * @see jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter#setDelay(Object, DelayDistribution)
+ */
+public class DelayDistribution implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final double NANOS_PER_MILLI = 1000 * 1000;
+
+	/**
+	 * The kind of the distribution.
+	 */
+	public enum Kind {
+		/** The same delay every time. */
+		FIXED,
+		/** The delays distributed uniformly between the minimum and the maximum. */
+		UNIFORM,
+		/** The delays distributed exponentially with the mean. */
+		EXPONENTIAL,
+		/** The delays whose logarithms are distributed normally, which have a long tail over the median. */
+		LOG_NORMAL,
+		/** The mixture of a fast distribution and a slow distribution. */
+		BIMODAL
+	}
+
+	private Kind kind;
+
+	private double first;
+
+	private double second;
+
+	private DelayDistribution fast;
+
+	private DelayDistribution slow;
+
+	private DelayDistribution(Kind kind, double first, double second, DelayDistribution fast, DelayDistribution slow) {
+		this.kind = kind;
+		this.first = first;
+		this.second = second;
+		this.fast = fast;
+		this.slow = slow;
+	}
+
+	/**
+	 * Returns the distribution of the same delay every time.
+	 *
+	 * @param millis the delay (milliseconds)
+	 * @return the distribution
+	 */
+	public static DelayDistribution fixed(double millis) {
+		validate(millis);
+		return new DelayDistribution(Kind.FIXED, millis, 0, null, null);
+	}
+
+	/**
+	 * Returns the distribution of the delays distributed uniformly.
+	 *
+	 * @param min the minimum delay (milliseconds)
+	 * @param max the maximum delay (milliseconds)
+	 * @return the distribution
+	 */
+	public static DelayDistribution uniform(double min, double max) {
+		validate(min);
+		validate(max);
+		if(max < min) {
+			throw new IllegalArgumentException(String.format("[%s, %s] is not a valid range of the delay.", min, max));
+		}
+		return new DelayDistribution(Kind.UNIFORM, min, max, null, null);
+	}
+
+	/**
+	 * Returns the distribution of the delays distributed exponentially.
+	 *
+	 * @param mean the mean delay (milliseconds)
+	 * @return the distribution
+	 */
+	public static DelayDistribution exponential(double mean) {
+		validate(mean);
+		return new DelayDistribution(Kind.EXPONENTIAL, mean, 0, null, null);
+	}
+
+	/**
+	 * Returns the distribution of the delays distributed log-normally.
+	 *
+	 * @param median the median delay (milliseconds)
+	 * @param sigma the standard deviation of the logarithm of the delay, which widens the tail as it grows
+	 * @return the distribution
+	 */
+	public static DelayDistribution logNormal(double median, double sigma) {
+		validate(median);
+		if(!(sigma >= 0) || Double.isInfinite(sigma)) {
+			throw new IllegalArgumentException(String.format("[%s] is not a valid sigma.", sigma));
+		}
+		return new DelayDistribution(Kind.LOG_NORMAL, median, sigma, null, null);
+	}
+
+	/**
+	 * Returns the mixture of a fast distribution and a slow distribution.
+	 *
+	 * @param fast the distribution of the fast delays
+	 * @param slow the distribution of the slow delays
+	 * @param probability the probability of a slow delay
+	 * @return the distribution
+	 */
+	public static DelayDistribution bimodal(DelayDistribution fast, DelayDistribution slow, double probability) {
+		if(fast == null || slow == null) {
+			throw new IllegalArgumentException("The distributions of a bimodal distribution must not be null.");
+		}
+		if(!(probability >= 0 && probability <= 1)) {
+			throw new IllegalArgumentException(String.format("[%s] is not a valid probability.", probability));
+		}
+		return new DelayDistribution(Kind.BIMODAL, probability, 0, fast, slow);
+	}
+
+	/**
+	 * Returns the kind of the distribution.
+	 *
+	 * @return the kind
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Samples a delay.
+	 *
+	 * @param random the source of the randomness
+	 * @return the delay (nanoseconds)
+	 */
+	public long sample(Random random) {
+		double millis;
+		switch(kind) {
+		case FIXED:
+			millis = first;
+			break;
+		case UNIFORM:
+			millis = first + (second - first) * random.nextDouble();
+			break;
+		case EXPONENTIAL:
+			millis = -first * Math.log(1 - random.nextDouble());
+			break;
+		case LOG_NORMAL:
+			millis = first * Math.exp(second * random.nextGaussian());
+			break;
+		default:
+			return (random.nextDouble() < first ? slow : fast).sample(random);
+		}
+		return (long) Math.min(millis * NANOS_PER_MILLI, Long.MAX_VALUE);
+	}
+
+	private static void validate(double millis) {
+		if(!(millis >= 0) || Double.isInfinite(millis)) {
+			throw new IllegalArgumentException(String.format("[%s] is not a valid delay.", millis));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		switch(kind) {
+		case FIXED:
+			return String.format("fixed(%s)", first);
+		case UNIFORM:
+			return String.format("uniform(%s, %s)", first, second);
+		case EXPONENTIAL:
+			return String.format("exponential(%s)", first);
+		case LOG_NORMAL:
+			return String.format("logNormal(%s, %s)", first, second);
+		default:
+			return String.format("bimodal(%s, %s, %s)", fast, slow, first);
+		}
+	}
+}
@@ -0,0 +1,295 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.fault;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The workload which stresses the resources of the node for a limited time. <br/>
+ * It runs on daemon threads, which end when the duration elapses or the workload is cancelled.
+ * The retained heap is released at the end, and also when the heap is exhausted before retaining all the bytes.
+ *
+ */
+public class Stress {
+
+	/** The maximum duration of a workload (seconds). */
+	public static final int MAX_DURATION = 600;
+
+	/** The maximum ratio of the bytes retained to the maximum heap size. */
+	public static final double MAX_HEAP_RATIO = 0.5;
+
+	/** The maximum number of the threads burning the CPU per processor. */
+	public static final int MAX_THREADS_PER_PROCESSOR = 4;
+
+	/** The size of a chunk of the retained heap. */
+	public static final int CHUNK_SIZE = 1024 * 1024;
+
+	private static final int PAGE_SIZE = 4096;
+
+	/**
+	 * The kind of the workload.
+	 */
+	public enum Kind {
+		/** Burns the CPU on the threads. */
+		CPU,
+		/** Allocates and retains the heap. */
+		HEAP
+	}
+
+	private Kind kind;
+
+	private long amount;
+
+	private long duration;
+
+	private volatile long startTime;
+
+	private volatile long endTime;
+
+	private volatile boolean cancelled;
+
+	private CountDownLatch finished;
+
+	private AtomicLong applied = new AtomicLong();
+
+	private List<byte[]> retained = new ArrayList<byte[]>();
+
+	private Stress(Kind kind, long amount, int seconds) {
+		if(seconds <= 0 || seconds > MAX_DURATION) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid duration.", seconds));
+		}
+		this.kind = kind;
+		this.amount = amount;
+		this.duration = seconds * 1000L;
+	}
+
+	/**
+	 * Returns the workload which burns the CPU on the threads.
+	 *
+	 * @param threads the number of the threads, which must not exceed {@link #getMaxThreads()}
+	 * @param seconds the duration, which must not exceed {@link #MAX_DURATION}
+	 * @return the workload, which is not started yet
+	 */
+	public static Stress cpu(int threads, int seconds) {
+		if(threads <= 0 || threads > getMaxThreads()) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid number of threads.", threads));
+		}
+		return new Stress(Kind.CPU, threads, seconds);
+	}
+
+	/**
+	 * Returns the workload which allocates and retains the heap.
+	 *
+	 * @param bytes the bytes to retain, which must not exceed {@link #getMaxHeap()}
+	 * @param seconds the duration, which must not exceed {@link #MAX_DURATION}
+	 * @return the workload, which is not started yet
+	 */
+	public static Stress heap(long bytes, int seconds) {
+		if(bytes <= 0 || bytes > getMaxHeap()) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid number of bytes.", bytes));
+		}
+		return new Stress(Kind.HEAP, bytes, seconds);
+	}
+
+	/**
+	 * Returns the maximum number of the threads burning the CPU of this node,
+	 * which is {@link #MAX_THREADS_PER_PROCESSOR} times the number of the processors.
+	 *
+	 * @return the maximum number of the threads
+	 */
+	public static int getMaxThreads() {
+		return Runtime.getRuntime().availableProcessors() * MAX_THREADS_PER_PROCESSOR;
+	}
+
+	/**
+	 * Returns the maximum bytes retained on this node, which is {@link #MAX_HEAP_RATIO} of the maximum heap size.
+	 *
+	 * @return the maximum bytes
+	 */
+	public static long getMaxHeap() {
+		return (long) (Runtime.getRuntime().maxMemory() * MAX_HEAP_RATIO);
+	}
+
+	/**
+	 * Returns the kind of the workload.
+	 *
+	 * @return the kind
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Returns the amount of the workload, which is the number of the threads or the bytes to retain.
+	 *
+	 * @return the amount
+	 */
+	public long getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Starts the workload.
+	 *
+	 * @param name the prefix of the names of the threads
+	 */
+	public synchronized void start(String name) {
+		if(finished != null) {
+			throw new IllegalStateException("The workload is already started.");
+		}
+		startTime = System.currentTimeMillis();
+		endTime = startTime + duration;
+		int threads = kind == Kind.CPU ? (int) amount : 1;
+		finished = new CountDownLatch(threads);
+		for(int i = 0; i < threads; i++) {
+			Thread thread = new Thread(name + "-" + i) {
+				@Override
+				public void run() {
+					try {
+						if(kind == Kind.CPU) {
+							burn();
+						} else {
+							retain();
+						}
+					} finally {
+						finished.countDown();
+					}
+				}
+			};
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Cancels the workload. It returns without waiting for the threads to end.
+	 *
+	 * @return <code>true</code> if the workload was running and not cancelled yet
+	 */
+	public boolean cancel() {
+		boolean running;
+		synchronized(this) {
+			running = isRunning() && !cancelled;
+			cancelled = true;
+		}
+		synchronized(retained) {
+			retained.notifyAll();
+		}
+		if(running) {
+			endTime = Math.min(endTime, System.currentTimeMillis());
+		}
+		return running;
+	}
+
+	/**
+	 * Waits for the threads of the workload to end.
+	 *
+	 * @param millis the maximum time to wait
+	 * @return <code>true</code> if the threads end
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public boolean await(long millis) throws InterruptedException {
+		CountDownLatch latch;
+		synchronized(this) {
+			latch = finished;
+		}
+		return latch == null || latch.await(millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns whether the workload is running.
+	 *
+	 * @return <code>true</code> if the workload is started and its threads have not ended
+	 */
+	public synchronized boolean isRunning() {
+		return finished != null && finished.getCount() > 0;
+	}
+
+	/**
+	 * Returns the snapshot of the state of the workload.
+	 *
+	 * @return the state
+	 */
+	public StressStatus getStatus() {
+		return new StressStatus(kind, amount, startTime, endTime, isRunning(), cancelled, applied.get());
+	}
+
+	private boolean isActive() {
+		return !cancelled && System.currentTimeMillis() < endTime;
+	}
+
+	private void burn() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		boolean measured = bean.isCurrentThreadCpuTimeSupported() && bean.isThreadCpuTimeEnabled();
+		long last = measured ? bean.getCurrentThreadCpuTime() : System.nanoTime();
+		double sink = 1;
+		while(isActive()) {
+			for(int i = 1; i < 100000; i++) {
+				sink += Math.sqrt(i * sink) % 7;
+			}
+			long now = measured ? bean.getCurrentThreadCpuTime() : System.nanoTime();
+			applied.addAndGet(now - last);
+			last = now;
+		}
+		if(sink == 0) {
+			// never happens, which keeps the loop from being eliminated.
+			applied.set(-1);
+		}
+	}
+
+	private void retain() {
+		try {
+			long remaining = amount;
+			while(remaining > 0 && isActive()) {
+				byte[] chunk = new byte[(int) Math.min(remaining, CHUNK_SIZE)];
+				// touches the pages, so that the heap is committed.
+				for(int i = 0; i < chunk.length; i += PAGE_SIZE) {
+					chunk[i] = 1;
+				}
+				synchronized(retained) {
+					retained.add(chunk);
+				}
+				remaining -= chunk.length;
+				applied.addAndGet(chunk.length);
+			}
+			synchronized(retained) {
+				long wait;
+				while(isActive() && (wait = endTime - System.currentTimeMillis()) > 0) {
+					retained.wait(wait);
+				}
+			}
+		} catch (OutOfMemoryError e) {
+			cancelled = true;
+		} catch (InterruptedException e) {
+			cancelled = true;
+		} finally {
+			synchronized(retained) {
+				retained.clear();
+			}
+			applied.set(0);
+		}
+	}
+}
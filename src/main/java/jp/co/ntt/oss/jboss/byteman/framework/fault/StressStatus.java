@@ -0,0 +1,138 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.fault;
+
+import java.io.Serializable;
+
+/**
+ * The snapshot of the state of a stress workload on a node.
+ *
+ * @see Stress#getStatus()
+ */
+public class StressStatus implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Stress.Kind kind;
+
+	private long amount;
+
+	private long startTime;
+
+	private long endTime;
+
+	private boolean running;
+
+	private boolean cancelled;
+
+	private long applied;
+
+	/**
+	 * Constructs with the state.
+	 *
+	 * @param kind the kind of the workload
+	 * @param amount the number of the threads or the bytes requested
+	 * @param startTime the time when the workload started in milliseconds
+	 * @param endTime the time when the workload ends or ended in milliseconds
+	 * @param running whether the workload is running
+	 * @param cancelled whether the workload is cancelled
+	 * @param applied the CPU time burnt in nanoseconds or the bytes retained
+	 */
+	public StressStatus(Stress.Kind kind, long amount, long startTime, long endTime, boolean running, boolean cancelled, long applied) {
+		this.kind = kind;
+		this.amount = amount;
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.running = running;
+		this.cancelled = cancelled;
+		this.applied = applied;
+	}
+
+	/**
+	 * Returns the kind of the workload.
+	 *
+	 * @return the kind
+	 */
+	public Stress.Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Returns the amount requested.
+	 *
+	 * @return the number of the threads for {@link Stress.Kind#CPU}, or the bytes for {@link Stress.Kind#HEAP}
+	 */
+	public long getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Returns the time when the workload started.
+	 *
+	 * @return the milliseconds since the epoch
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Returns the time when the workload ends, or ended if it is cancelled.
+	 *
+	 * @return the milliseconds since the epoch
+	 */
+	public long getEndTime() {
+		return endTime;
+	}
+
+	/**
+	 * Returns whether the workload is running.
+	 *
+	 * @return <code>true</code> if the workload is running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Returns whether the workload is cancelled before the end.
+	 *
+	 * @return <code>true</code> if the workload is cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Returns the amount applied so far.
+	 *
+	 * @return the CPU time burnt in nanoseconds for {@link Stress.Kind#CPU}, or the bytes retained for {@link Stress.Kind#HEAP}
+	 */
+	public long getApplied() {
+		return applied;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return String.format("kind=%s, amount=%d, running=%b, cancelled=%b, applied=%d", kind, amount, running, cancelled, applied);
+	}
+}
@@ -19,21 +19,36 @@
 
 package jp.co.ntt.oss.jboss.byteman.framework.helper;
 
+import java.io.IOException;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.ValueStore;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.VersionedValue;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.CallbackIF;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.CallbackInvoker;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlIF;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ShardedHost;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.Stress;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Clock;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HeavyHitters;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Reservoir;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanEvent;
 import jp.co.ntt.oss.jboss.byteman.framework.util.Logger;
+import jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec;
 
 import org.jboss.byteman.agent.Transformer;
 import org.jboss.byteman.rule.Rule;
@@ -64,6 +79,7 @@ import org.jboss.byteman.rule.helper.Helper;
  * <li>{@link #isCountDown(Object)}</li>
  * <li>{@link #createCountDown(Object, int)}</li>
  * <li>{@link #countDown(Object)}</li>
+ * <li>{@link #awaitCountDown(Object, long)}</li>
  * <li>{@link #createCounter(Object, int)}</li>
  * <li>{@link #deleteCounter(Object)}</li>
  * <li>{@link #readCounter(Object, boolean)}</li>
@@ -78,6 +94,71 @@ import org.jboss.byteman.rule.helper.Helper;
  * <li>{@link #trace(Object, String)}</li>
  * <li>{@link #traceln(Object, String)}</li>
  * </ul>
+ * As for the following methods, they provide the synchronization and the exchange of values which {@link Helper} class does not have.
+ * The state is held on the controller node, which parks its threads only for the mailboxes.
+ * The values put into the mailboxes and the key-value store are encoded by {@link ValueCodec},
+ * which encodes the primitive wrappers and strings compactly.
+ * <ul>
+ * <li>{@link #createSemaphore(Object, int)}</li>
+ * <li>{@link #acquire(Object, long)}</li>
+ * <li>{@link #release(Object)}</li>
+ * <li>{@link #throttle(Object)}</li>
+ * <li>{@link #createPhaser(Object, int)}</li>
+ * <li>{@link #register(Object)}</li>
+ * <li>{@link #arrive(Object)}</li>
+ * <li>{@link #arriveAndAwaitAdvance(Object, long)}</li>
+ * <li>{@link #deregister(Object)}</li>
+ * <li>{@link #getPhase(Object)}</li>
+ * <li>{@link #createMailbox(Object, int)}</li>
+ * <li>{@link #put(Object, Object)}</li>
+ * <li>{@link #put(Object, Object, long)}</li>
+ * <li>{@link #take(Object, long)}</li>
+ * <li>{@link #poll(Object)}</li>
+ * <li>{@link #drain(Object, int)}</li>
+ * <li>{@link #setValue(Object, Object)}</li>
+ * <li>{@link #getValue(Object)}</li>
+ * <li>{@link #getCachedValue(Object)}</li>
+ * <li>{@link #compareAndSet(Object, Object, Object)}</li>
+ * <li>{@link #getAndAdd(Object, long)}</li>
+ * <li>{@link #getAndUpdate(Object, String, long)}</li>
+ * <li>{@link #deleteValue(Object)}</li>
+ * <li>{@link #tryAcquireLease(Object, long)}</li>
+ * <li>{@link #renewLease(Object, long, long)}</li>
+ * <li>{@link #releaseLease(Object, long)}</li>
+ * <li>{@link #isLeaseValid(Object, long)}</li>
+ * </ul>
+ * As for the following methods, they record metrics on the node without calling the controller node.
+ * The controller node pulls and merges them from the nodes on demand.
+ * <ul>
+ * <li>{@link #recordLatency(Object, long)}</li>
+ * <li>{@link #startLatency(Object)}</li>
+ * <li>{@link #stopLatency(Object)}</li>
+ * <li>{@link #startResources(Object)}</li>
+ * <li>{@link #stopResources(Object)}</li>
+ * <li>{@link #lockWaiting(Object)}</li>
+ * <li>{@link #lockAcquired(Object)}</li>
+ * <li>{@link #profile(Object, int)}</li>
+ * <li>{@link #profile(Object, int, String)}</li>
+ * <li>{@link #spanStart(Object, Object)}</li>
+ * <li>{@link #spanEnd(Object, Object)}</li>
+ * <li>{@link #mark(Object)}</li>
+ * <li>{@link #mark(Object, long)}</li>
+ * <li>{@link #countDistinct(Object, Object)}</li>
+ * <li>{@link #countDistinct(Object, Object, int)}</li>
+ * <li>{@link #countFrequent(Object, Object)}</li>
+ * <li>{@link #countFrequent(Object, Object, int)}</li>
+ * <li>{@link #sample(Object, Object)}</li>
+ * <li>{@link #sample(Object, Object, double, int)}</li>
+ * </ul>
+ * As for the following methods, they inject faults on the node as configured on the controller node.
+ * The node keeps a copy of the configuration, so that a fault is injected without calling the controller node.
+ * <ul>
+ * <li>{@link #delay(Object)}</li>
+ * <li>{@link #burnCpu(Object, int, int)}</li>
+ * <li>{@link #retainHeap(Object, long, int)}</li>
+ * </ul>
+ * If the rule is loaded from a script which belongs to a {@link Namespace},
+ * all the identifiers are scoped by the namespace before they are sent to the controller node.
  * 
  */
 public class DistributedHelper extends Helper {
@@ -85,10 +166,47 @@ public class DistributedHelper extends Helper {
 	public static final String PROP_HOSTNAME = Transformer.BYTEMAN_PACKAGE_PREFIX + "jp.co.ntt.oss.jboss.byteman.framework.host";
 	/** The system property key for the RMI port. */
 	public static final String PROP_PORT = Transformer.BYTEMAN_PACKAGE_PREFIX + "jp.co.ntt.oss.jboss.byteman.framework.port";
+	/** The system property key for the addresses of the controller shards. */
+	public static final String PROP_SHARDS = Transformer.BYTEMAN_PACKAGE_PREFIX + "jp.co.ntt.oss.jboss.byteman.framework.shards";
+	/** The system property key for the identifier of the node. */
+	public static final String PROP_NODE = Transformer.BYTEMAN_PACKAGE_PREFIX + "jp.co.ntt.oss.jboss.byteman.framework.node";
+	/** The separator of the addresses in {@link #PROP_SHARDS}. */
+	public static final String SHARD_SEPARATOR = ";";
+	/** The maximum interval to poll the controller node while waiting for a permit (milliseconds). */
+	public static final long MAX_POLL_INTERVAL = 50;
 	/** Logger. **/
 	protected Logger logger = Logger.getLogger();
 	/** For accessing to the controller. */
 	protected DistributedAdapter adapter;
+	/** The namespace which the rule belongs to. */
+	protected Namespace namespace;
+
+	private static ShardedHost shardedHost;
+
+	private static final long NANOS_PER_MILLI = 1000 * 1000;
+
+	private static ThreadLocal<Map<Object, Long>> stopwatches = new ThreadLocal<Map<Object, Long>>() {
+		@Override
+		protected Map<Object, Long> initialValue() {
+			return new HashMap<Object, Long>();
+		}
+	};
+
+	private static ThreadLocal<Map<Object, long[]>> resourceMeters = new ThreadLocal<Map<Object, long[]>>() {
+		@Override
+		protected Map<Object, long[]> initialValue() {
+			return new HashMap<Object, long[]>();
+		}
+	};
+
+	private static ThreadLocal<Map<Object, Long>> lockWaits = new ThreadLocal<Map<Object, Long>>() {
+		@Override
+		protected Map<Object, Long> initialValue() {
+			return new HashMap<Object, Long>();
+		}
+	};
+
+	private static String shardedAddresses;
 
 	/**
 	 * Constructs a new instance with a {@link Rule}.
@@ -98,20 +216,28 @@ public class DistributedHelper extends Helper {
 	protected DistributedHelper(Rule rule) {
 		super(rule);
 		initAdapter();
+		namespace = Namespace.fromScriptName(rule.getFile());
 	}
 
 	/**
 	 * Sets up a instance of {@link DistributedAdapter}.
 	 * The instance of {@link ControlIF} is acquired from <code>LocateRegistry</code> of RMI.
+	 * If the addresses of the controller shards are given, the identifiers are distributed across the shards by {@link ShardedHost}.
+	 * The shards are looked up once per JVM.
 	 */
 	protected void initAdapter() {
 		logger.debug("Start rule %s", rule.getName());
 		String hostname = System.getProperty(PROP_HOSTNAME, "localhost");
 		String portValue = System.getProperty(PROP_PORT, "1099");
 		int port = Integer.parseInt(portValue);
+		String shards = System.getProperty(PROP_SHARDS);
 		try {
-			Registry registry = LocateRegistry.getRegistry(hostname, port);
-			adapter = (ControlIF) registry.lookup(ControlIF.CONTROL_ID);
+			if(shards != null && shards.length() > 0) {
+				adapter = getShardedHost(shards);
+			} else {
+				Registry registry = LocateRegistry.getRegistry(hostname, port);
+				adapter = (ControlIF) registry.lookup(ControlIF.CONTROL_ID);
+			}
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : initAdapter ", rule.getName()), e);
@@ -119,6 +245,40 @@ public class DistributedHelper extends Helper {
 		logger.debug("End rule %s", rule.getName());
 	}
 
+	/**
+	 * Returns the {@link ShardedHost} for the specified shard addresses.
+	 */
+	private static synchronized ShardedHost getShardedHost(String shards) throws Exception {
+		if(shardedHost == null || !shards.equals(shardedAddresses)) {
+			shardedHost = ShardedHost.lookup(Arrays.asList(shards.split(SHARD_SEPARATOR)));
+			shardedAddresses = shards;
+		}
+		return shardedHost;
+	}
+
+	/**
+	 * Returns the identifier scoped by the namespace of the rule.
+	 * The identifier is returned as it is if the rule does not belong to any namespace.
+	 *
+	 * @param identifier an identifier
+	 * @return the scoped identifier
+	 * @see Namespace#fromScriptName(String)
+	 */
+	protected Object scope(Object identifier) {
+		return namespace == null ? identifier : namespace.scope(identifier);
+	}
+
+	/**
+	 * Returns the identifier of a trace scoped by the namespace of the rule.
+	 *
+	 * @param identifier an identifier for the trace
+	 * @return the scoped identifier
+	 * @see Namespace#scopeTrace(Object)
+	 */
+	protected Object scopeTrace(Object identifier) {
+		return namespace == null ? identifier : namespace.scopeTrace(identifier);
+	}
+
 	/**
 	 * Provides {@link Helper#waiting(Object)} function for the distributed environment.
 	 *
@@ -131,7 +291,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.waiting(identifier);
+			result = adapter.waiting(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : waiting ", rule.getName()), e);
@@ -151,7 +311,7 @@ public class DistributedHelper extends Helper {
 	public void waitFor(Object identifier, long millisecs) {
 		logger.debug("Start rule %s", rule.getName());
 		try {
-			adapter.waitFor(identifier, millisecs);
+			adapter.waitFor(scope(identifier), millisecs);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : waitFor ", rule.getName()), e);
@@ -172,7 +332,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.signalWake(identifier, mustMeet);
+			result = adapter.signalWake(scope(identifier), mustMeet);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : signalWake ", rule.getName()), e);
@@ -194,7 +354,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.signalThrow(identifier, mustMeet);
+			result = adapter.signalThrow(scope(identifier), mustMeet);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : signalThrow ", rule.getName()), e);
@@ -216,7 +376,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.createRendezvous(identifier, expected, restartable);
+			result = adapter.createRendezvous(scope(identifier), expected, restartable);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : createRendezvous ", rule.getName()), e);
@@ -238,7 +398,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.isRendezvous(identifier, expected);
+			result = adapter.isRendezvous(scope(identifier), expected);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : isRendezvous ", rule.getName()), e);
@@ -260,7 +420,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		int result;
 		try {
-			result = adapter.getRendezvous(identifier, expected);
+			result = adapter.getRendezvous(scope(identifier), expected);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : getRendezvous ", rule.getName()), e);
@@ -281,7 +441,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		int result;
 		try {
-			result = adapter.rendezvous(identifier);
+			result = adapter.rendezvous(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : rendezvous ", rule.getName()), e);
@@ -303,7 +463,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.deleteRendezvous(identifier, expected);
+			result = adapter.deleteRendezvous(scope(identifier), expected);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : deleteRendezvous ", rule.getName()), e);
@@ -325,7 +485,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.createJoin(identifier, max);
+			result = adapter.createJoin(scope(identifier), max);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : createJoin ", rule.getName()), e);
@@ -347,7 +507,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.isJoin(identifier, max);
+			result = adapter.isJoin(scope(identifier), max);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : isJoin ", rule.getName()), e);
@@ -371,23 +531,25 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 
 		Thread current = Thread.currentThread();
+		// the threads are kept by the scoped identifier, so that the joins of the namespaces do not share them.
+		Object scoped = scope(identifier);
 		// checks whether it was called from the same thread.
-		if(joinThreadMap.containsKey(identifier) && joinThreadMap.get(identifier).contains(current)) {
+		if(joinThreadMap.containsKey(scoped) && joinThreadMap.get(scoped).contains(current)) {
 			logger.debug("End rule %s: Returns %b because of the same thread", rule.getName(), false);
 			return false;
 		}
 		try {
-			String key = ((ControlIF) adapter).joinEnlistStart(identifier);
+			String key = ((ControlIF) adapter).joinEnlistStart(scoped);
 			if(key == null) {
 				logger.debug("End rule %s: Returns %b", rule.getName(), false);
 				return false;
 			}
-			JoinClientThread thread = new JoinClientThread(identifier, key, current);
+			JoinClientThread thread = new JoinClientThread(scoped, key, current);
 			thread.start();
-			List<Thread> threads = joinThreadMap.get(identifier);
+			List<Thread> threads = joinThreadMap.get(scoped);
 			if(threads == null) {
 				threads = Collections.synchronizedList(new ArrayList<Thread>());
-				joinThreadMap.put(identifier, threads);
+				joinThreadMap.put(scoped, threads);
 			}
 			threads.add(current);
 
@@ -412,7 +574,7 @@ public class DistributedHelper extends Helper {
 		/**
 		 * Constructs a new instance.
 		 *
-		 * @param identifier an identifier for join
+		 * @param identifier the scoped identifier for join
 		 * @param serverThreadKey the key of server thread
 		 * @param parent a parent thread
 		 */
@@ -458,7 +620,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.joinWait(identifier, count);
+			result = adapter.joinWait(scope(identifier), count);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : joinWait ", rule.getName()), e);
@@ -479,7 +641,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.flag(identifier);
+			result = adapter.flag(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : flag ", rule.getName()), e);
@@ -500,7 +662,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.flagged(identifier);
+			result = adapter.flagged(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : flagged ", rule.getName()), e);
@@ -521,7 +683,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.clear(identifier);
+			result = adapter.clear(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : clear ", rule.getName()), e);
@@ -542,7 +704,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.isCountDown(identifier);
+			result = adapter.isCountDown(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : isCountDown ", rule.getName()), e);
@@ -564,7 +726,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.createCountDown(identifier, count);
+			result = adapter.createCountDown(scope(identifier), count);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : createCountDown ", rule.getName()), e);
@@ -584,7 +746,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.countDown(identifier);
+			result = adapter.countDown(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : countDown ", rule.getName()), e);
@@ -593,6 +755,27 @@ public class DistributedHelper extends Helper {
 		return result;
 	}
 
+	/**
+	 * Waits until the countdown is triggered on the controller node, or the timeout elapses.
+	 *
+	 * @param identifier an identifier for the countdown
+	 * @param millis the maximum time to wait (milliseconds)
+	 * @return the result of {@link DistributedAdapter#awaitCountDown(Object, long)} execution
+	 * @see DistributedAdapter#awaitCountDown(Object, long)
+	 */
+	public boolean awaitCountDown(Object identifier, long millis) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.awaitCountDown(scope(identifier), millis);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : awaitCountDown ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
 	/**
 	 * Provides {@link Helper#createCounter(Object, int)} function for the distributed environment.
 	 *
@@ -606,7 +789,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.createCounter(identifier, value);
+			result = adapter.createCounter(scope(identifier), value);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : createCounter ", rule.getName()), e);
@@ -627,7 +810,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.deleteCounter(identifier);
+			result = adapter.deleteCounter(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : deleteCounter ", rule.getName()), e);
@@ -649,7 +832,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		int result;
 		try {
-			result = adapter.readCounter(identifier, zero);
+			result = adapter.readCounter(scope(identifier), zero);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : readCounter ", rule.getName()), e);
@@ -671,7 +854,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		int result;
 		try {
-			result = adapter.incrementCounter(identifier, amount);
+			result = adapter.incrementCounter(scope(identifier), amount);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : incrementCounter ", rule.getName()), e);
@@ -692,7 +875,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		int result;
 		try {
-			result = adapter.decrementCounter(identifier);
+			result = adapter.decrementCounter(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : decrementCounter ", rule.getName()), e);
@@ -713,7 +896,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.createTimer(identifier);
+			result = adapter.createTimer(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : createTimer ", rule.getName()), e);
@@ -734,7 +917,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.deleteTimer(identifier);
+			result = adapter.deleteTimer(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : deleteTimer ", rule.getName()), e);
@@ -755,7 +938,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		long result;
 		try {
-			result = adapter.getElapsedTimeFromTimer(identifier);
+			result = adapter.getElapsedTimeFromTimer(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : getElapsedTimeFromTimer ", rule.getName()), e);
@@ -776,7 +959,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		long result;
 		try {
-			result = adapter.resetTimer(identifier);
+			result = adapter.resetTimer(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : resetTimer ", rule.getName()), e);
@@ -798,7 +981,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.traceOpen(identifier, fileName);
+			result = adapter.traceOpen(scope(identifier), fileName);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : traceOpen ", rule.getName()), e);
@@ -819,7 +1002,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.traceClose(identifier);
+			result = adapter.traceClose(scope(identifier));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : traceClose ", rule.getName()), e);
@@ -841,7 +1024,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.trace(identifier, message);
+			result = adapter.trace(scopeTrace(identifier), message);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : trace ", rule.getName()), e);
@@ -863,7 +1046,7 @@ public class DistributedHelper extends Helper {
 		logger.debug("Start rule %s", rule.getName());
 		boolean result;
 		try {
-			result = adapter.traceln(identifier, message);
+			result = adapter.traceln(scopeTrace(identifier), message);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : traceln ", rule.getName()), e);
@@ -885,7 +1068,7 @@ public class DistributedHelper extends Helper {
 	public void registerCallback(Object identifier, Object target, String methodName) {
 		logger.debug("Start rule %s", rule.getName());
 		try {
-			adapter.registerCallback(identifier, new CallbackInvoker(target, methodName));
+			adapter.registerCallback(scope(identifier), new CallbackInvoker(target, methodName));
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : registerCallback ", rule.getName()), e);
@@ -917,7 +1100,7 @@ public class DistributedHelper extends Helper {
 				}
 			};
 			UnicastRemoteObject.exportObject(callback, 0);
-			adapter.registerCallback(identifier, callback);
+			adapter.registerCallback(scope(identifier), callback);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : prepareKillJVM ", rule.getName()), e);
@@ -944,11 +1127,1020 @@ public class DistributedHelper extends Helper {
 	public void killRemoteJVM(Object identifier, int exitCode) {
 		logger.debug("Start rule %s", rule.getName());
 		try {
-			adapter.killRemoteJVM(identifier, exitCode);
+			adapter.killRemoteJVM(scope(identifier), exitCode);
 		} catch (Exception e) {
 			logger.error(e, "rule %s", rule.getName());
 			throw new ExecuteException(String.format("rule %s : killRemoteJVM ", rule.getName()), e);
 		}
 		logger.debug("End rule %s", rule.getName());
 	}
+
+	/**
+	 * Returns the endpoint of this node, which is registered with the controller node at the first call.
+	 *
+	 * @return the endpoint of this node
+	 * @see NodeHost#getInstance(DistributedAdapter)
+	 */
+	protected NodeHost getNodeHost() {
+		try {
+			return NodeHost.getInstance(adapter);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : getNodeHost ", rule.getName()), e);
+		}
+	}
+
+	/**
+	 * Records a latency into the histogram on this node.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @param nanos the latency (nanoseconds)
+	 * @see DistributedAdapter#getLatencyHistogram(Object)
+	 */
+	public void recordLatency(Object identifier, long nanos) {
+		logger.debug("Start rule %s", rule.getName());
+		getNodeHost().getLatency(scope(identifier)).record(nanos);
+		logger.debug("End rule %s", rule.getName());
+	}
+
+	/**
+	 * Starts the stopwatch of the current thread for the latency.
+	 * The stopwatch uses {@link System#nanoTime()} of this node.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @see #stopLatency(Object)
+	 */
+	public void startLatency(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		stopwatches.get().put(scope(identifier), System.nanoTime());
+		logger.debug("End rule %s", rule.getName());
+	}
+
+	/**
+	 * Stops the stopwatch of the current thread and records the elapsed time as a latency.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @return the recorded latency (nanoseconds), or -1 if the stopwatch is not started by the current thread
+	 * @see #startLatency(Object)
+	 */
+	public long stopLatency(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		long now = System.nanoTime();
+		Long start = stopwatches.get().remove(scope(identifier));
+		long result = -1;
+		if(start != null) {
+			result = now - start;
+			getNodeHost().getLatency(scope(identifier)).record(result);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Creates a semaphore on the controller node, which caps the number of the threads holding its permits on all the nodes.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @param permits the number of the permits
+	 * @return the result of {@link DistributedAdapter#createSemaphore(Object, int)} execution
+	 * @see DistributedAdapter#createSemaphore(Object, int)
+	 */
+	public boolean createSemaphore(Object identifier, int permits) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.createSemaphore(scope(identifier), permits);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : createSemaphore ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Acquires a permit of the semaphore. The permits are granted in the order of the requests from all the nodes.
+	 * The current thread polls the grant with the interval doubling up to {@link #MAX_POLL_INTERVAL}.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @param timeout the maximum time to wait (milliseconds), or 0 not to wait
+	 * @return <code>true</code> if a permit is acquired, or <code>false</code> if the timeout elapses
+	 * @see DistributedAdapter#requestPermit(Object, String)
+	 * @see DistributedAdapter#pollPermit(Object, long)
+	 */
+	public boolean acquire(Object identifier, long timeout) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result = false;
+		try {
+			Object scoped = scope(identifier);
+			long ticket = adapter.requestPermit(scoped, getNodeHost().getNodeId());
+			long deadline = System.currentTimeMillis() + timeout;
+			long interval = 1;
+			try {
+				while(!(result = adapter.pollPermit(scoped, ticket))) {
+					long remaining = deadline - System.currentTimeMillis();
+					if(remaining <= 0) {
+						break;
+					}
+					Thread.sleep(Math.min(interval, remaining));
+					interval = Math.min(interval * 2, MAX_POLL_INTERVAL);
+				}
+			} finally {
+				if(!result) {
+					adapter.cancelPermit(scoped, ticket);
+				}
+			}
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : acquire ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Releases a permit of the semaphore.
+	 *
+	 * @param identifier an identifier for the semaphore
+	 * @return the result of {@link DistributedAdapter#releasePermit(Object, String)} execution
+	 * @see DistributedAdapter#releasePermit(Object, String)
+	 */
+	public boolean release(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.releasePermit(scope(identifier), getNodeHost().getNodeId());
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : release ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Waits until a token of the token bucket created on the controller node is available, and takes it.
+	 * The tokens are leased from the controller node in batches and taken locally,
+	 * and the current thread polls the controller node with the interval doubling up to {@link #MAX_POLL_INTERVAL}
+	 * while no token is available.
+	 *
+	 * @param identifier an identifier for the token bucket
+	 * @return the time waited for the token (milliseconds)
+	 * @see DistributedAdapter#createTokenBucket(Object, double, long)
+	 * @see DistributedAdapter#setTokenRate(Object, double, long)
+	 */
+	public long throttle(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		long start = System.currentTimeMillis();
+		try {
+			NodeHost host = getNodeHost();
+			Object scoped = scope(identifier);
+			long interval = 1;
+			while(!host.takeToken(scoped)) {
+				Thread.sleep(interval);
+				interval = Math.min(interval * 2, MAX_POLL_INTERVAL);
+			}
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : throttle ", rule.getName()), e);
+		}
+		long result = System.currentTimeMillis() - start;
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Creates a phaser on the controller node, which lines up the parties on all the nodes at each phase.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @param parties the number of the parties initially registered
+	 * @return the result of {@link DistributedAdapter#createPhaser(Object, int)} execution
+	 * @see DistributedAdapter#createPhaser(Object, int)
+	 */
+	public boolean createPhaser(Object identifier, int parties) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.createPhaser(scope(identifier), parties);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : createPhaser ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Registers a party with the phaser.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the result of {@link DistributedAdapter#registerPhaser(Object)} execution
+	 * @see DistributedAdapter#registerPhaser(Object)
+	 */
+	public int register(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		int result;
+		try {
+			result = adapter.registerPhaser(scope(identifier));
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : register ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Arrives at the current phase of the phaser without waiting for the others.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the result of {@link DistributedAdapter#arrivePhaser(Object)} execution
+	 * @see DistributedAdapter#arrivePhaser(Object)
+	 */
+	public int arrive(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		int result;
+		try {
+			result = adapter.arrivePhaser(scope(identifier));
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : arrive ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Arrives at the current phase of the phaser and waits until all the other parties arrive.
+	 * The current thread polls the phase with the interval doubling up to {@link #MAX_POLL_INTERVAL}.
+	 * The arrival is not cancelled when the timeout elapses.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @param timeout the maximum time to wait (milliseconds)
+	 * @return the phase after the advance, or -1 if the timeout elapses
+	 * @see DistributedAdapter#arrivePhaser(Object)
+	 * @see DistributedAdapter#getPhase(Object)
+	 */
+	public int arriveAndAwaitAdvance(Object identifier, long timeout) {
+		logger.debug("Start rule %s", rule.getName());
+		int result = -1;
+		try {
+			Object scoped = scope(identifier);
+			int arrived = adapter.arrivePhaser(scoped);
+			long deadline = System.currentTimeMillis() + timeout;
+			long interval = 1;
+			int phase;
+			while((phase = adapter.getPhase(scoped)) == arrived) {
+				long remaining = deadline - System.currentTimeMillis();
+				if(remaining <= 0) {
+					break;
+				}
+				Thread.sleep(Math.min(interval, remaining));
+				interval = Math.min(interval * 2, MAX_POLL_INTERVAL);
+			}
+			if(phase != arrived) {
+				result = phase;
+			}
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : arriveAndAwaitAdvance ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Arrives at the current phase of the phaser and deregisters a party.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the result of {@link DistributedAdapter#deregisterPhaser(Object)} execution
+	 * @see DistributedAdapter#deregisterPhaser(Object)
+	 */
+	public int deregister(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		int result;
+		try {
+			result = adapter.deregisterPhaser(scope(identifier));
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : deregister ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Returns the current phase of the phaser.
+	 *
+	 * @param identifier an identifier for the phaser
+	 * @return the result of {@link DistributedAdapter#getPhase(Object)} execution
+	 * @see DistributedAdapter#getPhase(Object)
+	 */
+	public int getPhase(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		int result;
+		try {
+			result = adapter.getPhase(scope(identifier));
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : getPhase ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Creates a bounded FIFO mailbox on the controller node, which passes values between the rules on all the nodes.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @param capacity the maximum number of the values in the mailbox
+	 * @return the result of {@link DistributedAdapter#createMailbox(Object, int)} execution
+	 * @see DistributedAdapter#createMailbox(Object, int)
+	 */
+	public boolean createMailbox(Object identifier, int capacity) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.createMailbox(scope(identifier), capacity);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : createMailbox ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Puts a value into the mailbox without waiting.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @param value the value, which must be serializable unless it is <code>null</code>, a primitive wrapper or a string
+	 * @return <code>true</code> if the value is put, or <code>false</code> if the mailbox is full
+	 * @see #put(Object, Object, long)
+	 */
+	public boolean put(Object identifier, Object value) {
+		return put(identifier, value, 0);
+	}
+
+	/**
+	 * Puts a value into the mailbox, waiting while it is full.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @param value the value, which must be serializable unless it is <code>null</code>, a primitive wrapper or a string
+	 * @param timeout the maximum time to wait (milliseconds), or 0 not to wait
+	 * @return <code>true</code> if the value is put, or <code>false</code> if the mailbox is still full
+	 * @see DistributedAdapter#putMail(Object, byte[], long)
+	 */
+	public boolean put(Object identifier, Object value, long timeout) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.putMail(scope(identifier), ValueCodec.encode(value), timeout);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : put ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Takes the oldest value from the mailbox, waiting while it is empty.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @param timeout the maximum time to wait (milliseconds), or 0 not to wait
+	 * @return the value, or <code>null</code> if the mailbox is still empty
+	 * @see DistributedAdapter#takeMail(Object, long)
+	 */
+	public Object take(Object identifier, long timeout) {
+		logger.debug("Start rule %s", rule.getName());
+		Object result;
+		try {
+			byte[] value = adapter.takeMail(scope(identifier), timeout);
+			result = value == null ? null : ValueCodec.decode(value);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : take ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %s", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Takes the oldest value from the mailbox without waiting.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @return the value, or <code>null</code> if the mailbox is empty
+	 * @see #take(Object, long)
+	 */
+	public Object poll(Object identifier) {
+		return take(identifier, 0);
+	}
+
+	/**
+	 * Takes the oldest values from the mailbox at once without waiting.
+	 * It costs a single call to the controller node however many values are taken.
+	 *
+	 * @param identifier an identifier for the mailbox
+	 * @param max the maximum number of the values to take
+	 * @return the values in the order they are put, which is empty if the mailbox is empty
+	 * @see DistributedAdapter#drainMail(Object, int)
+	 */
+	public List<Object> drain(Object identifier, int max) {
+		logger.debug("Start rule %s", rule.getName());
+		List<Object> result;
+		try {
+			List<byte[]> values = adapter.drainMail(scope(identifier), max);
+			result = new ArrayList<Object>(values.size());
+			for(byte[] value : values) {
+				result.add(ValueCodec.decode(value));
+			}
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : drain ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %d values", rule.getName(), result.size());
+		return result;
+	}
+
+	/**
+	 * Sets the value of the key-value store on the controller node.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param value the value, which must be serializable unless it is <code>null</code>, a primitive wrapper or a string
+	 * @return the version of the value
+	 * @see DistributedAdapter#putValue(Object, byte[])
+	 */
+	public long setValue(Object identifier, Object value) {
+		logger.debug("Start rule %s", rule.getName());
+		long result;
+		try {
+			result = adapter.putValue(scope(identifier), ValueCodec.encode(value));
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : setValue ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Returns the value of the key-value store on the controller node.
+	 *
+	 * @param identifier an identifier for the value
+	 * @return the value, or <code>null</code> if it does not exist
+	 * @see DistributedAdapter#getValue(Object)
+	 */
+	public Object getValue(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		Object result;
+		try {
+			result = decode(adapter.getValue(scope(identifier)));
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : getValue ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %s", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Returns the value of the key-value store, which is cached on the node until the controller node invalidates it.
+	 * It calls the controller node only when the value is read for the first time or after it is mutated.
+	 *
+	 * @param identifier an identifier for the value
+	 * @return the value, or <code>null</code> if it does not exist
+	 * @see NodeHost#getCachedValue(Object)
+	 */
+	public Object getCachedValue(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		Object result;
+		try {
+			result = decode(getNodeHost().getCachedValue(scope(identifier)));
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : getCachedValue ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %s", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Sets the value of the key-value store if the current value is equal to the expected one.
+	 * The values are compared by their encoded forms.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param expected the expected value, or <code>null</code> to expect that the value does not exist
+	 * @param value the value
+	 * @return <code>true</code> if the value is set
+	 * @see DistributedAdapter#compareAndSetValue(Object, byte[], byte[])
+	 */
+	public boolean compareAndSet(Object identifier, Object expected, Object value) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.compareAndSetValue(scope(identifier), expected == null ? null : ValueCodec.encode(expected),
+					ValueCodec.encode(value)) >= 0;
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : compareAndSet ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Adds the delta to the integer value of the key-value store atomically.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param delta the delta
+	 * @return the value before the update
+	 * @see #getAndUpdate(Object, String, long)
+	 */
+	public long getAndAdd(Object identifier, long delta) {
+		return getAndUpdate(identifier, ValueStore.Update.ADD.name(), delta);
+	}
+
+	/**
+	 * Updates the integer value of the key-value store atomically. A value which does not exist is regarded as 0.
+	 *
+	 * @param identifier an identifier for the value
+	 * @param update the name of the {@link ValueStore.Update}, which is <code>add</code>, <code>max</code>, <code>min</code> or <code>set</code>
+	 * @param operand the operand of the update
+	 * @return the value before the update
+	 * @see DistributedAdapter#getAndUpdateValue(Object, ValueStore.Update, long)
+	 */
+	public long getAndUpdate(Object identifier, String update, long operand) {
+		logger.debug("Start rule %s", rule.getName());
+		long result;
+		try {
+			result = adapter.getAndUpdateValue(scope(identifier), ValueStore.Update.valueOf(update.toUpperCase()), operand);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : getAndUpdate ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Deletes the value of the key-value store on the controller node.
+	 *
+	 * @param identifier an identifier for the value
+	 * @return the result of {@link DistributedAdapter#deleteValue(Object)} execution
+	 * @see DistributedAdapter#deleteValue(Object)
+	 */
+	public boolean deleteValue(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.deleteValue(scope(identifier));
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : deleteValue ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Tries to acquire the lease which makes this node the owner of the identifier for the time to live.
+	 * Only one thread of one node holds the lease at a time, so that a rule running on several nodes can take an action on one of them.
+	 * The holder extends the lease by {@link #renewLease(Object, long, long)}, because it is not acquired again while held.
+	 * The lease is released when this node is lost as well as when the time to live elapses.
+	 *
+	 * @param identifier an identifier for the lease
+	 * @param ttl the time to live (milliseconds)
+	 * @return the fencing token, or -1 if the lease is already held
+	 * @see DistributedAdapter#acquireLease(Object, String, long)
+	 */
+	public long tryAcquireLease(Object identifier, long ttl) {
+		logger.debug("Start rule %s", rule.getName());
+		long result;
+		try {
+			result = adapter.acquireLease(scope(identifier), getNodeHost().getNodeId(), ttl);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : tryAcquireLease ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Renews the lease for the time to live from now.
+	 *
+	 * @param identifier an identifier for the lease
+	 * @param token the fencing token returned by {@link #tryAcquireLease(Object, long)}
+	 * @param ttl the time to live (milliseconds)
+	 * @return the result of {@link DistributedAdapter#renewLease(Object, long, long)} execution
+	 * @see DistributedAdapter#renewLease(Object, long, long)
+	 */
+	public boolean renewLease(Object identifier, long token, long ttl) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.renewLease(scope(identifier), token, ttl);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : renewLease ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Releases the lease.
+	 *
+	 * @param identifier an identifier for the lease
+	 * @param token the fencing token returned by {@link #tryAcquireLease(Object, long)}
+	 * @return the result of {@link DistributedAdapter#releaseLease(Object, long)} execution
+	 * @see DistributedAdapter#releaseLease(Object, long)
+	 */
+	public boolean releaseLease(Object identifier, long token) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.releaseLease(scope(identifier), token);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : releaseLease ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Returns whether the fencing token is of the lease held now.
+	 *
+	 * @param identifier an identifier for the lease
+	 * @param token the fencing token
+	 * @return the result of {@link DistributedAdapter#isLeaseValid(Object, long)} execution
+	 * @see DistributedAdapter#isLeaseValid(Object, long)
+	 */
+	public boolean isLeaseValid(Object identifier, long token) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = adapter.isLeaseValid(scope(identifier), token);
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : isLeaseValid ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Decodes the value of the key-value store.
+	 *
+	 * @param value the value with its version
+	 * @return the value, or <code>null</code> if it does not exist
+	 * @throws IOException if the value could not be deserialized
+	 */
+	private static Object decode(VersionedValue value) throws IOException {
+		return value.getValue() == null ? null : ValueCodec.decode(value.getValue());
+	}
+
+	/**
+	 * Reads the resources consumed by the current thread at the start of a code region.
+	 *
+	 * @param identifier an identifier for the code region
+	 * @see #stopResources(Object)
+	 */
+	public void startResources(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		Resource[] resources = Resource.values();
+		long[] usages = new long[resources.length];
+		for(int i = 0; i < resources.length; i++) {
+			usages[i] = resources[i].current();
+		}
+		resourceMeters.get().put(scope(identifier), usages);
+		logger.debug("End rule %s", rule.getName());
+	}
+
+	/**
+	 * Reads the resources consumed by the current thread at the end of a code region,
+	 * and records the resources consumed in the region.
+	 * A resource which the JVM does not support to measure is not recorded.
+	 *
+	 * @param identifier an identifier for the code region
+	 * @return the allocated bytes in the region, or -1 if the region is not started by the current thread
+	 *         or the JVM does not support to measure the allocated bytes
+	 * @see #startResources(Object)
+	 * @see DistributedAdapter#getResourceHistogram(Object, Resource)
+	 */
+	public long stopResources(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		long[] starts = resourceMeters.get().remove(scope(identifier));
+		long result = -1;
+		if(starts != null) {
+			Resource[] resources = Resource.values();
+			for(int i = 0; i < resources.length; i++) {
+				long usage = resources[i].current();
+				if(usage < 0 || starts[i] < 0) {
+					continue;
+				}
+				getNodeHost().getResource(scope(identifier), resources[i]).record(usage - starts[i]);
+				if(resources[i] == Resource.ALLOCATED_BYTES) {
+					result = usage - starts[i];
+				}
+			}
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Records the time when the current thread starts to acquire a monitor.
+	 * It is typically called by a rule at <code>AT SYNCHRONIZE</code>.
+	 *
+	 * @param identifier an identifier for the monitor
+	 * @see #lockAcquired(Object)
+	 */
+	public void lockWaiting(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		lockWaits.get().put(scope(identifier), System.nanoTime());
+		logger.debug("End rule %s", rule.getName());
+	}
+
+	/**
+	 * Records the time waited by the current thread to acquire a monitor.
+	 * It is typically called by a rule at <code>AFTER SYNCHRONIZE</code>.
+	 *
+	 * @param identifier an identifier for the monitor
+	 * @return the waited time (nanoseconds), or -1 if the current thread has not started to acquire the monitor
+	 * @see #lockWaiting(Object)
+	 * @see DistributedAdapter#getContentionHistogram(Object)
+	 * @see DistributedAdapter#getNodeContentionHistograms(Object)
+	 */
+	public long lockAcquired(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		long now = System.nanoTime();
+		Long start = lockWaits.get().remove(scope(identifier));
+		long result = -1;
+		if(start != null) {
+			result = now - start;
+			getNodeHost().getContention(scope(identifier)).record(result);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Starts to sample the stacks of all the threads on the node for the specified duration.
+	 * Only the folded stacks are reported to the controller node when the session ends.
+	 *
+	 * @param identifier an identifier for the profile
+	 * @param seconds the duration of the session, which must not exceed {@link NodeHost#MAX_PROFILE_DURATION}
+	 * @return <code>true</code> if the session is started,
+	 *         or <code>false</code> if a session of the identifier is already running on the node
+	 * @see DistributedAdapter#getProfile(Object)
+	 */
+	public boolean profile(Object identifier, int seconds) {
+		return profile(identifier, seconds, null);
+	}
+
+	/**
+	 * Starts to sample the stacks of the threads in the specified thread group on the node for the specified duration.
+	 * Only the folded stacks are reported to the controller node when the session ends.
+	 *
+	 * @param identifier an identifier for the profile
+	 * @param seconds the duration of the session, which must not exceed {@link NodeHost#MAX_PROFILE_DURATION}
+	 * @param threadGroup the name of the thread group, or <code>null</code> to sample all the threads
+	 * @return <code>true</code> if the session is started,
+	 *         or <code>false</code> if a session of the identifier is already running on the node
+	 * @see DistributedAdapter#getProfile(Object)
+	 */
+	public boolean profile(Object identifier, int seconds, String threadGroup) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = getNodeHost().startProfile(scope(identifier), seconds, threadGroup);
+		} catch (IllegalArgumentException e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : profile ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Records the start of a span, whose end may be recorded on another node.
+	 * The event is reported to the controller node asynchronously.
+	 *
+	 * @param identifier an identifier for the span
+	 * @param key the correlation key which matches the start and the end
+	 * @see #spanEnd(Object, Object)
+	 * @see DistributedAdapter#getSpanHistogram(Object)
+	 */
+	public void spanStart(Object identifier, Object key) {
+		logger.debug("Start rule %s", rule.getName());
+		getNodeHost().addSpan(new SpanEvent(scope(identifier), key, true, Clock.currentTimeNanos()));
+		logger.debug("End rule %s", rule.getName());
+	}
+
+	/**
+	 * Records the end of a span, whose start may be recorded on another node.
+	 * The event is reported to the controller node asynchronously.
+	 *
+	 * @param identifier an identifier for the span
+	 * @param key the correlation key which matches the start and the end
+	 * @see #spanStart(Object, Object)
+	 * @see DistributedAdapter#getSpanHistogram(Object)
+	 */
+	public void spanEnd(Object identifier, Object key) {
+		logger.debug("Start rule %s", rule.getName());
+		getNodeHost().addSpan(new SpanEvent(scope(identifier), key, false, Clock.currentTimeNanos()));
+		logger.debug("End rule %s", rule.getName());
+	}
+
+	/**
+	 * Marks an occurrence of the event, which is accumulated on this node and reported to the controller node
+	 * asynchronously.
+	 *
+	 * @param identifier an identifier for the rate
+	 * @see DistributedAdapter#getRate(Object)
+	 */
+	public void mark(Object identifier) {
+		mark(identifier, 1);
+	}
+
+	/**
+	 * Marks the occurrences of the event, which are accumulated on this node and reported to the controller node
+	 * asynchronously.
+	 *
+	 * @param identifier an identifier for the rate
+	 * @param n the number of the occurrences
+	 * @see DistributedAdapter#getRate(Object)
+	 */
+	public void mark(Object identifier, long n) {
+		logger.debug("Start rule %s", rule.getName());
+		getNodeHost().mark(scope(identifier), n);
+		logger.debug("End rule %s", rule.getName());
+	}
+
+	/**
+	 * Offers a value to the distinct-count sketch on this node, whose precision is {@link HyperLogLog#DEFAULT_PRECISION}.
+	 *
+	 * @param identifier an identifier for the distinct count
+	 * @param value the value
+	 * @see DistributedAdapter#getDistinctCount(Object)
+	 */
+	public void countDistinct(Object identifier, Object value) {
+		countDistinct(identifier, value, HyperLogLog.DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Offers a value to the distinct-count sketch on this node.
+	 * The precision takes effect when the sketch is created, and must be the same on all the nodes.
+	 *
+	 * @param identifier an identifier for the distinct count
+	 * @param value the value
+	 * @param precision the precision of the sketch, which bounds the relative standard error to 1.04/&radic;2<sup>precision</sup>
+	 * @see DistributedAdapter#getDistinctCount(Object)
+	 */
+	public void countDistinct(Object identifier, Object value, int precision) {
+		logger.debug("Start rule %s", rule.getName());
+		getNodeHost().getDistinct(scope(identifier), precision).offer(value);
+		logger.debug("End rule %s", rule.getName());
+	}
+
+	/**
+	 * Offers a value to the heavy hitters on this node, which report the {@link HeavyHitters#DEFAULT_K} most frequent values.
+	 *
+	 * @param identifier an identifier for the frequencies
+	 * @param value the value
+	 * @see DistributedAdapter#getTopFrequent(Object)
+	 */
+	public void countFrequent(Object identifier, Object value) {
+		countFrequent(identifier, value, HeavyHitters.DEFAULT_K);
+	}
+
+	/**
+	 * Offers a value to the heavy hitters on this node.
+	 * K takes effect when the heavy hitters are created.
+	 *
+	 * @param identifier an identifier for the frequencies
+	 * @param value the value
+	 * @param k the number of the most frequent values reported
+	 * @see DistributedAdapter#getTopFrequent(Object)
+	 */
+	public void countFrequent(Object identifier, Object value, int k) {
+		logger.debug("Start rule %s", rule.getName());
+		getNodeHost().getFrequent(scope(identifier), k).offer(value, 1);
+		logger.debug("End rule %s", rule.getName());
+	}
+
+	/**
+	 * Offers a value to the reservoir on this node, which keeps a uniform sample of {@link Reservoir#DEFAULT_SIZE} values.
+	 *
+	 * @param identifier an identifier for the sample
+	 * @param value the value
+	 * @see DistributedAdapter#getSample(Object)
+	 */
+	public void sample(Object identifier, Object value) {
+		sample(identifier, value, 1, Reservoir.DEFAULT_SIZE);
+	}
+
+	/**
+	 * Offers a value with the weight to the reservoir on this node.
+	 * The size takes effect when the reservoir is created.
+	 *
+	 * @param identifier an identifier for the sample
+	 * @param value the value
+	 * @param weight the positive weight, in proportion to which the value is likely to be sampled
+	 * @param size the number of the values kept
+	 * @see DistributedAdapter#getSample(Object)
+	 */
+	public void sample(Object identifier, Object value, double weight, int size) {
+		logger.debug("Start rule %s", rule.getName());
+		getNodeHost().getSample(scope(identifier), size).offer(value, weight);
+		logger.debug("End rule %s", rule.getName());
+	}
+
+	/**
+	 * Delays the current thread by the time sampled from the distribution set on the controller node.
+	 * The delay actually injected is recorded on the node.
+	 *
+	 * @param identifier an identifier for the delay
+	 * @return the injected delay (nanoseconds), or -1 if no distribution is set
+	 * @see DistributedAdapter#setDelay(Object, jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution)
+	 * @see DistributedAdapter#getInjectedDelayHistogram(Object)
+	 */
+	public long delay(Object identifier) {
+		logger.debug("Start rule %s", rule.getName());
+		long result;
+		try {
+			NodeHost host = getNodeHost();
+			Object scoped = scope(identifier);
+			long nanos = host.sampleDelay(scoped);
+			if(nanos >= 0) {
+				long start = System.nanoTime();
+				if(nanos > 0) {
+					Thread.sleep(nanos / NANOS_PER_MILLI, (int) (nanos % NANOS_PER_MILLI));
+				}
+				result = System.nanoTime() - start;
+				host.getInjectedDelay(scoped).record(result);
+			} else {
+				result = -1;
+			}
+		} catch (Exception e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : delay ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %d", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Starts to burn the CPU of this node on the threads for the duration.
+	 * It returns without waiting for the workload to end, which the controller node can cancel.
+	 *
+	 * @param identifier an identifier for the workload
+	 * @param threads the number of the threads, which must not exceed {@link Stress#getMaxThreads()}
+	 *        together with the threads of the other workloads running on this node
+	 * @param seconds the duration, which must not exceed {@link Stress#MAX_DURATION}
+	 * @return <code>true</code> if the workload is started,
+	 *         or <code>false</code> if a workload of the identifier is already running on this node
+	 * @see Stress#cpu(int, int)
+	 * @see DistributedAdapter#cancelStress(Object)
+	 */
+	public boolean burnCpu(Object identifier, int threads, int seconds) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = getNodeHost().startStress(scope(identifier), Stress.cpu(threads, seconds));
+		} catch (IllegalArgumentException e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : burnCpu ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
+
+	/**
+	 * Starts to allocate and retain the heap of this node for the duration.
+	 * It returns without waiting for the workload to end, which the controller node can cancel.
+	 *
+	 * @param identifier an identifier for the workload
+	 * @param bytes the bytes to retain, which must not exceed {@link Stress#getMaxHeap()}
+	 *        together with the bytes of the other workloads running on this node
+	 * @param seconds the duration, which must not exceed {@link Stress#MAX_DURATION}
+	 * @return <code>true</code> if the workload is started,
+	 *         or <code>false</code> if a workload of the identifier is already running on this node
+	 * @see Stress#heap(long, int)
+	 * @see DistributedAdapter#cancelStress(Object)
+	 */
+	public boolean retainHeap(Object identifier, long bytes, int seconds) {
+		logger.debug("Start rule %s", rule.getName());
+		boolean result;
+		try {
+			result = getNodeHost().startStress(scope(identifier), Stress.heap(bytes, seconds));
+		} catch (IllegalArgumentException e) {
+			logger.error(e, "rule %s", rule.getName());
+			throw new ExecuteException(String.format("rule %s : retainHeap ", rule.getName()), e);
+		}
+		logger.debug("End rule %s: Returns %b", rule.getName(), result);
+		return result;
+	}
 }
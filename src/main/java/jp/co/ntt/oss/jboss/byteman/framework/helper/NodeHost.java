@@ -0,0 +1,1059 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.helper;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace.ScopedIdentifier;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.NodeTask;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.VersionedValue;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.NodeIF;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.Stress;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.StressStatus;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Clock;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HeavyHitters;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.LatencyHistogram;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Reservoir;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanEvent;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.StackProfile;
+import jp.co.ntt.oss.jboss.byteman.framework.util.Logger;
+import jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec;
+
+/**
+ * The implementation of {@link NodeIF}, which holds the metrics recorded on the node. <br/>
+ * One instance exists per JVM. It is registered with the controller when a rule uses it for the first time,
+ * and registered again when the adapter refers to another controller, such as a restarted one,
+ * or when a report to the controller fails. <br/>
+ * The span events and the marks are buffered and reported to the controller in batches
+ * every {@link #REPORT_INTERVAL} milliseconds. <br/>
+ * The tokens of a token bucket are leased from the controller in batches, which expire
+ * after {@link #TOKEN_LEASE_EXPIRY} milliseconds so that a change of the rate takes effect soon. <br/>
+ * The values of the key-value store are cached until the controller invalidates them.
+ * A value read before an invalidation of a later version is not cached. <br/>
+ * The distributions of the injected delays are kept in the same way, except that the controller sends the new ones
+ * instead of invalidating them. <br/>
+ * A stress workload runs on its own daemon threads. The controller reads its state and cancels it by the identifier. <br/>
+ * A stack-sampling session samples the stacks every {@link #PROFILE_INTERVAL} milliseconds on a single thread,
+ * and reports only the folded stacks to the controller when it ends.
+ *
+ */
+public class NodeHost extends UnicastRemoteObject implements NodeIF {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The interval to report the buffered span events and marks to the controller (milliseconds). */
+	public static final long REPORT_INTERVAL = 100;
+
+	/** The time after which the tokens leased from the controller are discarded (milliseconds). */
+	public static final long TOKEN_LEASE_EXPIRY = 1000;
+
+	/** The interval to sample the stacks in a profiling session (milliseconds). */
+	public static final long PROFILE_INTERVAL = 50;
+
+	/** The maximum duration of a profiling session (seconds). */
+	public static final int MAX_PROFILE_DURATION = 60;
+
+	/** The maximum number of the frames sampled from a stack. */
+	public static final int MAX_PROFILE_DEPTH = 128;
+
+	private static volatile NodeHost instance;
+
+	/** Logger. **/
+	protected transient Logger logger = Logger.getLogger();
+
+	private String nodeId;
+
+	private volatile boolean registered;
+
+	private ConcurrentMap<Object, LatencyHistogram> latencies = new ConcurrentHashMap<Object, LatencyHistogram>();
+
+	private ConcurrentMap<Object, HyperLogLog> distincts = new ConcurrentHashMap<Object, HyperLogLog>();
+
+	private ConcurrentMap<Object, HeavyHitters> frequents = new ConcurrentHashMap<Object, HeavyHitters>();
+
+	private ConcurrentMap<Object, Reservoir> samples = new ConcurrentHashMap<Object, Reservoir>();
+
+	private ConcurrentMap<Object, LatencyHistogram> allocations = new ConcurrentHashMap<Object, LatencyHistogram>();
+
+	private ConcurrentMap<Object, LatencyHistogram> cpuTimes = new ConcurrentHashMap<Object, LatencyHistogram>();
+
+	private ConcurrentMap<Object, LatencyHistogram> contentions = new ConcurrentHashMap<Object, LatencyHistogram>();
+
+	private transient volatile DistributedAdapter adapter;
+
+	private Queue<SpanEvent> spanEvents = new ConcurrentLinkedQueue<SpanEvent>();
+
+	private ConcurrentMap<Object, AtomicLong> marks = new ConcurrentHashMap<Object, AtomicLong>();
+
+	private transient volatile ScheduledExecutorService reporter;
+
+	private transient ConcurrentMap<Object, TokenLease> tokenLeases = new ConcurrentHashMap<Object, TokenLease>();
+
+	private transient ConcurrentMap<Object, VersionedValue> cachedValues = new ConcurrentHashMap<Object, VersionedValue>();
+
+	private transient ConcurrentMap<Object, Long> invalidatedVersions = new ConcurrentHashMap<Object, Long>();
+
+	private ConcurrentMap<Object, LatencyHistogram> injectedDelays = new ConcurrentHashMap<Object, LatencyHistogram>();
+
+	private transient ConcurrentMap<Object, DelaySetting> delays = new ConcurrentHashMap<Object, DelaySetting>();
+
+	private transient Random random = new Random();
+
+	private transient ConcurrentMap<Object, Stress> stresses = new ConcurrentHashMap<Object, Stress>();
+
+	private transient ConcurrentMap<Object, ProfileSession> profiles = new ConcurrentHashMap<Object, ProfileSession>();
+
+	private transient volatile ScheduledExecutorService profiler;
+
+	private static final Factory<LatencyHistogram> HISTOGRAM_FACTORY = new Factory<LatencyHistogram>() {
+		@Override
+		public LatencyHistogram create() {
+			return new LatencyHistogram();
+		}
+	};
+
+	private static final Factory<TokenLease> TOKEN_LEASE_FACTORY = new Factory<TokenLease>() {
+		@Override
+		public TokenLease create() {
+			return new TokenLease();
+		}
+	};
+
+	private static final Factory<AtomicLong> MARK_FACTORY = new Factory<AtomicLong>() {
+		@Override
+		public AtomicLong create() {
+			return new AtomicLong();
+		}
+	};
+
+	/**
+	 * Constructs with the identifier of the node.
+	 *
+	 * @param nodeId the identifier of the node
+	 * @throws RemoteException if the object could not be exported
+	 */
+	protected NodeHost(String nodeId) throws RemoteException {
+		super();
+		this.nodeId = nodeId;
+	}
+
+	/**
+	 * Returns the instance of this JVM, and registers it with the controller if it is not registered yet.
+	 * It is registered again if the adapter does not equal the one given last, or a report has failed since then.
+	 * No lock is taken once the instance is registered through the adapter.
+	 * The span events are reported through the adapter given last.
+	 *
+	 * @param adapter the adapter to the controller
+	 * @return the instance of this JVM
+	 * @throws Exception if the instance could not be registered
+	 */
+	public static NodeHost getInstance(DistributedAdapter adapter) throws Exception {
+		NodeHost host = instance;
+		if(host != null && host.registered && host.isAdapter(adapter)) {
+			return host;
+		}
+		return register(adapter);
+	}
+
+	private static synchronized NodeHost register(DistributedAdapter adapter) throws Exception {
+		if(instance == null) {
+			instance = new NodeHost(getLocalNodeId());
+		}
+		if(!instance.registered || !instance.isAdapter(adapter)) {
+			if(instance.adapter != null) {
+				instance.discardCachedState();
+			}
+			instance.registered = false;
+			adapter.registerNode(instance.nodeId, instance);
+			instance.adapter = adapter;
+			instance.registered = true;
+			instance.logger.debug("Registered the node %s", instance.nodeId);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns whether the adapter refers to the same controller as the one given last.
+	 * The stubs of RMI are equal if they refer to the same remote object.
+	 */
+	private boolean isAdapter(DistributedAdapter adapter) {
+		DistributedAdapter current = this.adapter;
+		return current == adapter || (current != null && current.equals(adapter));
+	}
+
+	/**
+	 * Marks this node as unregistered after a call to the controller failed,
+	 * so that it is registered again when a rule uses it next time.
+	 * The controller may have been restarted, or may have unregistered this node as lost.
+	 *
+	 * @param e the cause
+	 */
+	protected void lostController(Exception e) {
+		if(registered) {
+			registered = false;
+			logger.debug("Unregistered the node %s: %s", nodeId, e);
+		}
+	}
+
+	/**
+	 * Returns the identifier of this JVM.
+	 * It is given by the node controller, or the name of the JVM if it is not given.
+	 *
+	 * @return the identifier of this JVM
+	 * @see DistributedHelper#PROP_NODE
+	 */
+	public static String getLocalNodeId() {
+		String nodeId = System.getProperty(DistributedHelper.PROP_NODE);
+		return nodeId != null ? nodeId : ManagementFactory.getRuntimeMXBean().getName();
+	}
+
+	/**
+	 * Returns the latency histogram of the specified identifier, creating it if it does not exist.
+	 *
+	 * @param identifier an identifier for the latency
+	 * @return the latency histogram
+	 */
+	public LatencyHistogram getLatency(Object identifier) {
+		return getOrCreate(latencies, identifier, HISTOGRAM_FACTORY);
+	}
+
+	/**
+	 * Returns the distinct-count sketch of the specified identifier, creating it if it does not exist.
+	 *
+	 * @param identifier an identifier for the distinct count
+	 * @param precision the precision of the sketch to create
+	 * @return the distinct-count sketch, whose precision is given when it is created
+	 */
+	public HyperLogLog getDistinct(Object identifier, final int precision) {
+		HyperLogLog sketch = getOrCreate(distincts, identifier, new Factory<HyperLogLog>() {
+			@Override
+			public HyperLogLog create() {
+				return new HyperLogLog(precision);
+			}
+		});
+		return sketch;
+	}
+
+	/**
+	 * Returns the heavy hitters of the specified identifier, creating it if it does not exist.
+	 *
+	 * @param identifier an identifier for the frequencies
+	 * @param k the number of the values reported by the heavy hitters to create
+	 * @return the heavy hitters, whose K is given when it is created
+	 */
+	public HeavyHitters getFrequent(Object identifier, final int k) {
+		HeavyHitters sketch = getOrCreate(frequents, identifier, new Factory<HeavyHitters>() {
+			@Override
+			public HeavyHitters create() {
+				return new HeavyHitters(k);
+			}
+		});
+		return sketch;
+	}
+
+	/**
+	 * Returns the reservoir of the specified identifier, creating it if it does not exist.
+	 *
+	 * @param identifier an identifier for the sample
+	 * @param size the size of the reservoir to create
+	 * @return the reservoir, whose size is given when it is created
+	 */
+	public Reservoir getSample(Object identifier, final int size) {
+		Reservoir reservoir = getOrCreate(samples, identifier, new Factory<Reservoir>() {
+			@Override
+			public Reservoir create() {
+				return new Reservoir(size);
+			}
+		});
+		return reservoir;
+	}
+
+	/**
+	 * Returns the histogram of the resource usages of the specified identifier, creating it if it does not exist.
+	 *
+	 * @param identifier an identifier for the code region
+	 * @param resource the resource
+	 * @return the histogram of the resource usages
+	 */
+	public LatencyHistogram getResource(Object identifier, Resource resource) {
+		ConcurrentMap<Object, LatencyHistogram> usages = resource == Resource.CPU_TIME ? cpuTimes : allocations;
+		return getOrCreate(usages, identifier, HISTOGRAM_FACTORY);
+	}
+
+	/**
+	 * Returns the histogram of the times waited to acquire a monitor, creating it if it does not exist.
+	 *
+	 * @param identifier an identifier for the monitor
+	 * @return the histogram of the waited times
+	 */
+	public LatencyHistogram getContention(Object identifier) {
+		return getOrCreate(contentions, identifier, HISTOGRAM_FACTORY);
+	}
+
+	/**
+	 * Returns the histogram of the injected delays, creating it if it does not exist.
+	 *
+	 * @param identifier an identifier for the delay
+	 * @return the histogram of the injected delays
+	 */
+	public LatencyHistogram getInjectedDelay(Object identifier) {
+		return getOrCreate(injectedDelays, identifier, HISTOGRAM_FACTORY);
+	}
+
+	/**
+	 * Samples a delay from the distribution kept on the node, reading it from the controller if it is not kept yet.
+	 *
+	 * @param identifier an identifier for the delay
+	 * @return the delay (nanoseconds), or -1 if no distribution is set
+	 * @throws Exception if the distribution could not be read
+	 * @see DistributedAdapter#getDelay(Object)
+	 */
+	public long sampleDelay(Object identifier) throws Exception {
+		DelaySetting setting = delays.get(identifier);
+		if(setting == null) {
+			updateDelay(identifier, adapter.getDelay(identifier));
+			setting = delays.get(identifier);
+		}
+		return setting.distribution == null ? -1 : setting.distribution.sample(random);
+	}
+
+	/**
+	 * Takes a token of the token bucket, leasing a batch of the tokens from the controller if no leased token is left.
+	 * The threads of the node lease the tokens one at a time.
+	 *
+	 * @param identifier an identifier for the token bucket
+	 * @return <code>true</code> if a token is taken, or <code>false</code> if no token is available now
+	 * @throws Exception if the tokens could not be leased
+	 */
+	public boolean takeToken(Object identifier) throws Exception {
+		TokenLease lease = getOrCreate(tokenLeases, identifier, TOKEN_LEASE_FACTORY);
+		synchronized(lease) {
+			long now = System.currentTimeMillis();
+			if(lease.remaining > 0 && now < lease.expiry) {
+				lease.remaining--;
+				return true;
+			}
+			int leased = adapter.leaseTokens(identifier);
+			if(leased <= 0) {
+				return false;
+			}
+			lease.remaining = leased - 1;
+			lease.expiry = now + TOKEN_LEASE_EXPIRY;
+			return true;
+		}
+	}
+
+	/**
+	 * Returns the value of the key-value store, reading it from the controller only if it is not cached.
+	 *
+	 * @param identifier an identifier for the value
+	 * @return the value with its version
+	 * @throws Exception if the value could not be read
+	 * @see DistributedAdapter#watchValue(String, Object)
+	 */
+	public VersionedValue getCachedValue(Object identifier) throws Exception {
+		VersionedValue value = cachedValues.get(identifier);
+		if(value != null) {
+			return value;
+		}
+		value = adapter.watchValue(nodeId, identifier);
+		synchronized(cachedValues) {
+			Long invalidated = invalidatedVersions.get(identifier);
+			if(invalidated == null || value.getVersion() >= invalidated) {
+				cachedValues.put(identifier, value);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Buffers a span event, which is reported to the controller asynchronously.
+	 *
+	 * @param event the span event
+	 */
+	public void addSpan(SpanEvent event) {
+		spanEvents.add(event);
+		if(reporter == null) {
+			startReporter();
+		}
+	}
+
+	/**
+	 * Accumulates the occurrences of an event, which are reported to the controller asynchronously.
+	 *
+	 * @param identifier an identifier for the rate
+	 * @param n the number of the occurrences
+	 */
+	public void mark(Object identifier, long n) {
+		AtomicLong counter = getOrCreate(marks, identifier, MARK_FACTORY);
+		counter.addAndGet(n);
+		if(reporter == null) {
+			startReporter();
+		}
+	}
+
+	/**
+	 * Reports the occurrences accumulated since the last report to the controller.
+	 * The occurrences are discarded if the controller cannot be reached.
+	 */
+	public void reportMarks() {
+		Map<Object, Long> deltas = new HashMap<Object, Long>();
+		for(Map.Entry<Object, AtomicLong> entry : marks.entrySet()) {
+			long delta = entry.getValue().getAndSet(0);
+			if(delta != 0) {
+				deltas.put(entry.getKey(), delta);
+			}
+		}
+		if(deltas.isEmpty()) {
+			return;
+		}
+		try {
+			adapter.reportMarks(nodeId, deltas);
+		} catch (Exception e) {
+			logger.error(e, "Failed to report the marks of %d identifiers", deltas.size());
+			lostController(e);
+		}
+	}
+
+	/**
+	 * Reports all the buffered span events to the controller.
+	 * The events are discarded if the controller cannot be reached.
+	 */
+	public void reportSpans() {
+		List<SpanEvent> events = new ArrayList<SpanEvent>();
+		SpanEvent event;
+		while((event = spanEvents.poll()) != null) {
+			events.add(event);
+		}
+		if(events.isEmpty()) {
+			return;
+		}
+		try {
+			adapter.reportSpans(nodeId, events);
+		} catch (Exception e) {
+			logger.error(e, "Failed to report %d span events", events.size());
+			lostController(e);
+		}
+	}
+
+	/**
+	 * Starts a stack-sampling session, which reports the folded stacks to the controller when it ends.
+	 * The threads which are neither runnable nor blocked on a monitor are not sampled,
+	 * so that idle threads do not dilute the profile.
+	 *
+	 * @param identifier an identifier for the profile
+	 * @param seconds the duration of the session
+	 * @param threadGroup the name of the thread group whose threads are sampled, or <code>null</code> to sample all the threads
+	 * @return <code>true</code> if the session is started,
+	 *         or <code>false</code> if a session of the identifier is already running
+	 * @throws IllegalArgumentException if the duration is not positive or exceeds {@link #MAX_PROFILE_DURATION}
+	 */
+	public boolean startProfile(Object identifier, int seconds, String threadGroup) {
+		if(seconds <= 0 || seconds > MAX_PROFILE_DURATION) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid duration.", seconds));
+		}
+		ProfileSession session = new ProfileSession(identifier, seconds * 1000L / PROFILE_INTERVAL, threadGroup);
+		if(profiles.putIfAbsent(identifier, session) != null) {
+			return false;
+		}
+		if(profiler == null) {
+			startProfiler();
+		}
+		session.future = profiler.scheduleAtFixedRate(session, PROFILE_INTERVAL, PROFILE_INTERVAL, TimeUnit.MILLISECONDS);
+		return true;
+	}
+
+	/**
+	 * Starts a stress workload unless another workload of the same identifier is running.
+	 * The limit of a workload applies to the sum of the running workloads of the same kind on this node,
+	 * which is {@link Stress#getMaxThreads()} threads or {@link Stress#getMaxHeap()} bytes.
+	 *
+	 * @param identifier an identifier for the workload
+	 * @param stress the workload which is not started yet
+	 * @return <code>true</code> if the workload is started,
+	 *         or <code>false</code> if a workload of the identifier is already running
+	 * @throws IllegalArgumentException if the workload exceeds the limit together with the running ones
+	 */
+	public boolean startStress(Object identifier, Stress stress) {
+		synchronized(stresses) {
+			Stress current = stresses.get(identifier);
+			if(current != null && current.isRunning()) {
+				return false;
+			}
+			long total = stress.getAmount();
+			for(Stress running : stresses.values()) {
+				if(running.isRunning() && running.getKind() == stress.getKind()) {
+					total += running.getAmount();
+				}
+			}
+			long limit = stress.getKind() == Stress.Kind.CPU ? Stress.getMaxThreads() : Stress.getMaxHeap();
+			if(total > limit) {
+				throw new IllegalArgumentException(String.format("[%d] exceeds the limit of the %s workloads running on this node [%d].",
+						total, stress.getKind(), limit));
+			}
+			stresses.put(identifier, stress);
+			// started in the lock, so that the next workload counts this one.
+			stress.start("NodeHost-stress-" + stress.getKind());
+		}
+		logger.debug("Started the stress %s: %s", identifier, stress.getStatus());
+		return true;
+	}
+
+	/**
+	 * Returns whether a stack-sampling session of the specified identifier is running.
+	 *
+	 * @param identifier an identifier for the profile
+	 * @return <code>true</code> if the session is running
+	 */
+	public boolean isProfiling(Object identifier) {
+		return profiles.containsKey(identifier);
+	}
+
+	/**
+	 * Reports the folded stacks of a session to the controller.
+	 * The profile is discarded if the controller cannot be reached.
+	 *
+	 * @param identifier an identifier for the profile
+	 * @param profile the folded stacks
+	 */
+	protected void reportProfile(Object identifier, StackProfile profile) {
+		try {
+			adapter.reportProfile(nodeId, identifier, profile);
+		} catch (Exception e) {
+			logger.error(e, "Failed to report the profile %s", identifier);
+			lostController(e);
+		}
+	}
+
+	private synchronized void startProfiler() {
+		if(profiler != null) {
+			return;
+		}
+		profiler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "NodeHost-profiler");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	private synchronized void startReporter() {
+		if(reporter != null) {
+			return;
+		}
+		reporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "NodeHost-reporter");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		reporter.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				reportSpans();
+				reportMarks();
+			}
+		}, REPORT_INTERVAL, REPORT_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long currentTimeNanos() {
+		return Clock.currentTimeNanos();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getLatencyHistogram(Object identifier) {
+		LatencyHistogram histogram = latencies.get(identifier);
+		return histogram == null ? null : histogram.copy();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteLatency(Object identifier) {
+		return latencies.remove(identifier) != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HyperLogLog getDistinctSketch(Object identifier) {
+		HyperLogLog sketch = distincts.get(identifier);
+		return sketch == null ? null : sketch.copy();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteDistinct(Object identifier) {
+		return distincts.remove(identifier) != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public HeavyHitters getFrequentSketch(Object identifier) {
+		HeavyHitters sketch = frequents.get(identifier);
+		return sketch == null ? null : sketch.copy();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteFrequent(Object identifier) {
+		return frequents.remove(identifier) != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Reservoir getReservoir(Object identifier) {
+		Reservoir reservoir = samples.get(identifier);
+		return reservoir == null ? null : reservoir.copy();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteSample(Object identifier) {
+		return samples.remove(identifier) != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getResourceHistogram(Object identifier, Resource resource) {
+		LatencyHistogram histogram = (resource == Resource.CPU_TIME ? cpuTimes : allocations).get(identifier);
+		return histogram == null ? null : histogram.copy();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteResource(Object identifier) {
+		boolean allocation = allocations.remove(identifier) != null;
+		boolean cpuTime = cpuTimes.remove(identifier) != null;
+		return allocation || cpuTime;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getContentionHistogram(Object identifier) {
+		LatencyHistogram histogram = contentions.get(identifier);
+		return histogram == null ? null : histogram.copy();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteContention(Object identifier) {
+		return contentions.remove(identifier) != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void updateDelay(Object identifier, VersionedValue distribution) throws RemoteException {
+		logger.debug("Start identifier %s: version %d", identifier, distribution.getVersion());
+		DelaySetting setting = new DelaySetting();
+		setting.version = distribution.getVersion();
+		if(distribution.getValue() != null) {
+			try {
+				setting.distribution = (DelayDistribution) ValueCodec.decode(distribution.getValue());
+			} catch (IOException e) {
+				throw new RemoteException(String.format("Failed to decode the delay [%s].", identifier), e);
+			}
+		}
+		synchronized(delays) {
+			DelaySetting current = delays.get(identifier);
+			if(current == null || current.version < setting.version) {
+				delays.put(identifier, setting);
+			}
+		}
+		logger.debug("End identifier %s", identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencyHistogram getInjectedDelayHistogram(Object identifier) {
+		LatencyHistogram histogram = injectedDelays.get(identifier);
+		return histogram == null ? null : histogram.copy();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean deleteInjectedDelay(Object identifier) {
+		delays.remove(identifier);
+		return injectedDelays.remove(identifier) != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public StressStatus getStressStatus(Object identifier) {
+		Stress stress = stresses.get(identifier);
+		return stress == null ? null : stress.getStatus();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean cancelStress(Object identifier) {
+		logger.debug("Start identifier %s", identifier);
+		Stress stress = stresses.get(identifier);
+		boolean result = stress != null && stress.cancel();
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The linkage errors are also wrapped, so that a task whose dependencies are missing on the node
+	 * is not taken for the loss of the node.
+	 */
+	@Override
+	public <T extends Serializable> T execute(NodeTask<T> task) throws ExecutionException {
+		logger.debug("Start task %s", task);
+		T result;
+		try {
+			result = task.call();
+		} catch (Exception e) {
+			logger.error(e, "task %s", task);
+			throw new ExecutionException(e);
+		} catch (LinkageError e) {
+			logger.error(e, "task %s", task);
+			throw new ExecutionException(e);
+		}
+		logger.debug("End task %s: Returns %s", task, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void discardCachedState() {
+		logger.debug("Start node %s", nodeId);
+		synchronized(cachedValues) {
+			cachedValues.clear();
+			invalidatedVersions.clear();
+		}
+		synchronized(delays) {
+			delays.clear();
+		}
+		logger.debug("End node %s", nodeId);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void invalidateValue(Object identifier, long version) {
+		logger.debug("Start identifier %s: version %d", identifier, version);
+		synchronized(cachedValues) {
+			Long invalidated = invalidatedVersions.get(identifier);
+			if(invalidated == null || invalidated < version) {
+				invalidatedVersions.put(identifier, version);
+			}
+			VersionedValue value = cachedValues.get(identifier);
+			if(value != null && value.getVersion() < version) {
+				cachedValues.remove(identifier);
+			}
+		}
+		logger.debug("End identifier %s", identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int deleteNamespace(String namespace) {
+		logger.debug("Start namespace %s", namespace);
+		for(Map.Entry<Object, Stress> entry : stresses.entrySet()) {
+			if(entry.getKey() instanceof ScopedIdentifier && ((ScopedIdentifier) entry.getKey()).getNamespace().equals(namespace)) {
+				entry.getValue().cancel();
+			}
+		}
+		for(Map.Entry<Object, ProfileSession> entry : profiles.entrySet()) {
+			if(entry.getKey() instanceof ScopedIdentifier && ((ScopedIdentifier) entry.getKey()).getNamespace().equals(namespace)) {
+				entry.getValue().cancel();
+			}
+		}
+		int result = deleteScoped(latencies, namespace) + deleteScoped(marks, namespace)
+				+ deleteScoped(distincts, namespace) + deleteScoped(frequents, namespace) + deleteScoped(samples, namespace)
+				+ deleteScoped(allocations, namespace) + deleteScoped(cpuTimes, namespace) + deleteScoped(contentions, namespace)
+				+ deleteScoped(tokenLeases, namespace) + deleteScoped(cachedValues, namespace)
+				+ deleteScoped(injectedDelays, namespace) + deleteScoped(delays, namespace) + deleteScoped(stresses, namespace)
+				+ deleteScoped(profiles, namespace);
+		synchronized(cachedValues) {
+			deleteScoped(invalidatedVersions, namespace);
+		}
+		logger.debug("End namespace %s: Returns %d", namespace, result);
+		return result;
+	}
+
+	/**
+	 * Deletes the entries whose keys are scoped by the specified namespace.
+	 *
+	 * @param map the map of the metrics
+	 * @param namespace the name of the namespace
+	 * @return the number of the deleted entries
+	 */
+	protected int deleteScoped(Map<Object, ?> map, String namespace) {
+		int count = 0;
+		for(Iterator<Object> iterator = map.keySet().iterator(); iterator.hasNext();) {
+			Object identifier = iterator.next();
+			if(identifier instanceof ScopedIdentifier && ((ScopedIdentifier) identifier).getNamespace().equals(namespace)) {
+				iterator.remove();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the identifiers of the threads in the thread groups of the specified name, including their subgroups.
+	 *
+	 * @param name the name of the thread group
+	 * @return the identifiers of the threads
+	 */
+	protected static long[] getThreadIds(String name) {
+		ThreadGroup root = Thread.currentThread().getThreadGroup();
+		while(root.getParent() != null) {
+			root = root.getParent();
+		}
+		List<ThreadGroup> groups = new ArrayList<ThreadGroup>();
+		groups.add(root);
+		ThreadGroup[] subgroups = new ThreadGroup[root.activeGroupCount() * 2 + 1];
+		groups.addAll(Arrays.asList(subgroups).subList(0, root.enumerate(subgroups, true)));
+		List<Long> ids = new ArrayList<Long>();
+		for(ThreadGroup group : groups) {
+			if(!group.getName().equals(name)) {
+				continue;
+			}
+			Thread[] threads = new Thread[group.activeCount() * 2 + 1];
+			int threadCount = group.enumerate(threads, true);
+			for(int i = 0; i < threadCount; i++) {
+				ids.add(threads[i].getId());
+			}
+		}
+		long[] result = new long[ids.size()];
+		for(int i = 0; i < result.length; i++) {
+			result[i] = ids.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the value of the specified identifier, creating it by the factory if it does not exist.
+	 * The value created by a thread which loses the race is discarded.
+	 *
+	 * @param map the map of the values
+	 * @param identifier an identifier for the value
+	 * @param factory the factory of the value
+	 * @return the value
+	 */
+	protected static <V> V getOrCreate(ConcurrentMap<Object, V> map, Object identifier, Factory<V> factory) {
+		V value = map.get(identifier);
+		if(value == null) {
+			V created = factory.create();
+			value = map.putIfAbsent(identifier, created);
+			if(value == null) {
+				value = created;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * The factory of a value for {@link NodeHost#getOrCreate(ConcurrentMap, Object, Factory)}.
+	 *
+	 * @param <V> the type of the value
+	 */
+	protected interface Factory<V> {
+
+		/**
+		 * Creates a value.
+		 *
+		 * @return the created value
+		 */
+		V create();
+	}
+
+	/**
+	 * The tokens leased from the controller.
+	 *
+	 */
+	private static class TokenLease {
+
+		private int remaining;
+
+		private long expiry;
+	}
+
+	/**
+	 * The distribution of the delays kept on the node with its version.
+	 *
+	 */
+	private static class DelaySetting {
+
+		private long version;
+
+		private DelayDistribution distribution;
+	}
+
+	/**
+	 * The stack-sampling session, which is run every {@link NodeHost#PROFILE_INTERVAL} milliseconds.
+	 *
+	 */
+	private class ProfileSession implements Runnable {
+
+		private Object identifier;
+
+		private long remaining;
+
+		private String threadGroup;
+
+		private StackProfile profile = new StackProfile();
+
+		private volatile ScheduledFuture<?> future;
+
+		private volatile boolean cancelled;
+
+		private ProfileSession(Object identifier, long samples, String threadGroup) {
+			this.identifier = identifier;
+			this.remaining = samples;
+			this.threadGroup = threadGroup;
+		}
+
+		/**
+		 * Cancels the session without reporting the profile.
+		 * The future scheduled after the cancellation is cancelled by its first run.
+		 */
+		private void cancel() {
+			cancelled = true;
+			ScheduledFuture<?> scheduled = future;
+			if(scheduled != null) {
+				scheduled.cancel(false);
+			}
+		}
+
+		@Override
+		public void run() {
+			if(remaining <= 0 || future == null) {
+				return;
+			}
+			if(cancelled) {
+				future.cancel(false);
+				return;
+			}
+			try {
+				sample();
+			} catch (RuntimeException e) {
+				logger.error(e, "Failed to sample the stacks of the profile %s", identifier);
+			}
+			if(--remaining == 0) {
+				future.cancel(false);
+				profiles.remove(identifier);
+				reportProfile(identifier, profile);
+			}
+		}
+
+		private void sample() {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			long[] ids = threadGroup == null ? bean.getAllThreadIds() : getThreadIds(threadGroup);
+			long self = Thread.currentThread().getId();
+			for(ThreadInfo info : bean.getThreadInfo(ids, MAX_PROFILE_DEPTH)) {
+				if(info == null || info.getThreadId() == self) {
+					continue;
+				}
+				if(info.getThreadState() == Thread.State.RUNNABLE || info.getThreadState() == Thread.State.BLOCKED) {
+					profile.add(info.getStackTrace());
+				}
+			}
+		}
+	}
+
+}
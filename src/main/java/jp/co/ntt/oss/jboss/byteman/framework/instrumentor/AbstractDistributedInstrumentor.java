@@ -136,6 +136,8 @@ public abstract class AbstractDistributedInstrumentor implements DistributedInst
 
 	/**
 	 * The wrapper class for {@link Submit}.
+	 * The methods are synchronized, because a controller daemon installs and removes the scripts
+	 * for several clients concurrently.
 	 *
 	 */
 	protected static class SubmitWrapper {
@@ -156,20 +158,41 @@ public abstract class AbstractDistributedInstrumentor implements DistributedInst
 		 * @see Submit#addScripts(List)
 		 * @throws Exception
 		 */
-		protected void addScript(ScriptText script) throws Exception {
+		protected synchronized void addScript(ScriptText script) throws Exception {
 			List<ScriptText> scripts = new ArrayList<ScriptText>();
 			scripts.add(script);
 			submit.addScripts(scripts);
 			this.scripts.add(script);
 		}
 
+		/**
+		 * Removes the installed script with the specified script name.
+		 *
+		 * @param scriptName the script name
+		 * @return true if the script was installed, otherwise false
+		 * @see Submit#deleteScripts(List)
+		 * @throws Exception
+		 */
+		protected synchronized boolean removeScript(String scriptName) throws Exception {
+			for(ScriptText script : scripts) {
+				if(script.getFileName().equals(scriptName)) {
+					List<ScriptText> targets = new ArrayList<ScriptText>();
+					targets.add(script);
+					submit.deleteScripts(targets);
+					scripts.remove(script);
+					return true;
+				}
+			}
+			return false;
+		}
+
 		/**
 		 * Removes all the installed scripts.
 		 *
 		 * @see Submit#deleteScripts(List)
 		 * @throws Exception
 		 */
-		protected void removeScripts() throws Exception {
+		protected synchronized void removeScripts() throws Exception {
 			if(scripts.size() > 0) {
 				try {
 					submit.deleteScripts(scripts);
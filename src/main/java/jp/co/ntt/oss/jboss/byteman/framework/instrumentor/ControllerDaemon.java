@@ -0,0 +1,160 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.instrumentor;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+
+import jp.co.ntt.oss.jboss.byteman.framework.util.DistributedConfig;
+
+/**
+ * The long-lived controller which runs as a standalone process. <br/>
+ * The daemon owns the RMI registry, the {@link jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlHost},
+ * the {@link org.jboss.byteman.agent.submit.Submit} connections to the nodes and the result directory.
+ * Test JVMs attach to the daemon by {@link RemoteDistributedInstrumentor}, so that the nodes stay bound to
+ * the same controller across test JVMs. Start the daemon as follows:
+ * <pre>
+ * java -cp byteman-framework.jar:... jp.co.ntt.oss.jboss.byteman.framework.instrumentor.ControllerDaemon
+ * </pre>
+ */
+public class ControllerDaemon extends DistributedInstrumentorImpl implements InstrumentorIF {
+
+	private boolean running;
+
+	/**
+	 * Constructs a new instance.
+	 * Creates a RMI registry by the port specified by the configuration file.
+	 *
+	 * @throws RemoteException if the registry could not be exported
+	 */
+	public ControllerDaemon() throws RemoteException {
+		super();
+	}
+
+	/**
+	 * Initializes the controller and binds the endpoint for installing rule scripts.
+	 */
+	@Override
+	public void init() throws Exception {
+		super.init();
+		Remote stub = UnicastRemoteObject.exportObject(this, 0);
+		registry.rebind(INSTRUMENTOR_ID, stub);
+		synchronized (this) {
+			running = true;
+		}
+		logger.debug("Started the controller daemon on the port %d", DistributedConfig.getConfig().getRmiPort());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void installScript(Object identifier, String scriptName, String scriptText) throws RemoteException {
+		logger.debug("Start identifier %s: script %s", identifier, scriptName);
+		try {
+			super.installScript(identifier, scriptName, scriptText);
+		} catch (RemoteException e) {
+			throw e;
+		} catch (Exception e) {
+			logger.error(e, "identifier %s", identifier);
+			throw new RemoteException(String.format("Failed to install the script [%s] to [%s].", scriptName, identifier), e);
+		}
+		logger.debug("End identifier %s", identifier);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean removeScript(Object identifier, String scriptName) throws RemoteException {
+		logger.debug("Start identifier %s: script %s", identifier, scriptName);
+		SubmitWrapper submit = submits.get(identifier);
+		if(submit == null) {
+			logger.debug("End identifier %s: Not defined", identifier);
+			return false;
+		}
+		boolean result;
+		try {
+			result = submit.removeScript(scriptName);
+		} catch (Exception e) {
+			logger.error(e, "identifier %s", identifier);
+			throw new RemoteException(String.format("Failed to remove the script [%s] from [%s].", scriptName, identifier), e);
+		}
+		logger.debug("End identifier %s: Returns %b", identifier, result);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getResultDir() throws RemoteException {
+		return DistributedConfig.getConfig().getResultDir();
+	}
+
+	/**
+	 * Stops the daemon. All the installed scripts are removed and the RMI registry is destroyed.
+	 */
+	@Override
+	public void destroy() throws Exception {
+		registry.unbind(INSTRUMENTOR_ID);
+		UnicastRemoteObject.unexportObject(this, true);
+		super.destroy();
+		synchronized (this) {
+			running = false;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Waits until the daemon is stopped.
+	 *
+	 * @throws InterruptedException if the current thread is interrupted
+	 */
+	public synchronized void await() throws InterruptedException {
+		while(running) {
+			wait();
+		}
+	}
+
+	/**
+	 * Starts the controller daemon and waits until the process is terminated.
+	 *
+	 * @param args not used
+	 * @throws Exception if the daemon could not be started
+	 */
+	public static void main(String[] args) throws Exception {
+		final ControllerDaemon daemon = new ControllerDaemon();
+		daemon.init();
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				try {
+					daemon.destroy();
+				} catch (Exception e) {
+					daemon.logger.error(e, "Failed to stop the controller daemon");
+				}
+			}
+		});
+		daemon.await();
+	}
+
+}
@@ -19,16 +19,21 @@
 
 package jp.co.ntt.oss.jboss.byteman.framework.instrumentor;
 
+import java.io.File;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
 
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapterImpl;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Journal;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlHost;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlIF;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ShardedHost;
 import jp.co.ntt.oss.jboss.byteman.framework.util.DistributedConfig;
 import jp.co.ntt.oss.jboss.byteman.framework.util.Logger;
 
@@ -39,10 +44,14 @@ import jp.co.ntt.oss.jboss.byteman.framework.util.Logger;
  */
 public class DistributedInstrumentorImpl extends AbstractDistributedInstrumentor {
 
+	/** The directory under the result directory where the profiles reported by the nodes are written. */
+	public static final String PROFILE_DIRECTORY = ControlHost.PROFILE_DIRECTORY;
+
 	/** Logger. **/
 	protected Logger logger = Logger.getLogger();
 
-	private Registry registry;
+	/** RMI registry. */
+	protected Registry registry;
 
 	private DistributedAdapter adapter;
 
@@ -61,16 +70,49 @@ public class DistributedInstrumentorImpl extends AbstractDistributedInstrumentor
 
 	/**
 	 * Initializes a test controller as a endpoint of RMI.
+	 * If <code>controller.journal</code> is set, the state is restored from the journal in the result directory and journaled.
+	 * If <code>controller.result.dir</code> is set, the profiles reported by the nodes are written to {@link #PROFILE_DIRECTORY} in it.
+	 * If <code>controller.shards</code> is set, the adapter distributes the identifiers across the controller shards,
+	 * and no controller is exported in this process. Each shard journals its state and writes the profiles
+	 * in the directory given when it is started by {@link ControlHost#main(String[])},
+	 * so <code>controller.journal</code> cannot be set with the shards.
+	 *
+	 * @throws IllegalStateException if <code>controller.journal</code> is set without the result directory or with the shards
 	 */
 	@Override
 	public void init() throws Exception {
 		super.init();
 
+		List<String> shards = DistributedConfig.getConfig().getShards();
+		if(!shards.isEmpty()) {
+			if(DistributedConfig.getConfig().isJournal()) {
+				throw new IllegalStateException(String.format("%s cannot be set with %s. Start the shards with the directories of their journals.",
+						DistributedConfig.CONTROLLER_JOURNAL, DistributedConfig.CONTROLLER_SHARDS));
+			}
+			adapter = ShardedHost.lookup(shards);
+			logger.debug("Looked up the shards %s", shards);
+			return;
+		}
+
 		host = new ControlHost();
 		Remote stub = UnicastRemoteObject.exportObject(host, 0);
 		registry.rebind(ControlIF.CONTROL_ID, stub);
 		logger.debug("Replaced the binding in the RMI registry");
 
+		if(DistributedConfig.getConfig().isJournal()) {
+			String resultDir = DistributedConfig.getConfig().getResultDir();
+			if(resultDir == null) {
+				throw new IllegalStateException(String.format("%s is not defined.", DistributedConfig.CONTROLLER_RESULT_DIR));
+			}
+			host.openJournal(new Journal(new File(resultDir)));
+			logger.debug("Opened the journal in %s", resultDir);
+		}
+
+		String resultDir = DistributedConfig.getConfig().getResultDir();
+		if(resultDir != null) {
+			host.setProfileDirectory(new File(resultDir, PROFILE_DIRECTORY));
+		}
+
 		adapter = new DistributedAdapterImpl();
 	}
 
@@ -82,13 +124,35 @@ public class DistributedInstrumentorImpl extends AbstractDistributedInstrumentor
 		return adapter;
 	}
 
+	/**
+	 * Creates an instrumentor which works in the specified namespace.
+	 * The returned instrumentor is initialized and shares the controller with this instrumentor.
+	 *
+	 * @param name the name of the namespace
+	 * @return the initialized instrumentor for the namespace
+	 * @throws IllegalStateException if this instrumentor is not initialized
+	 * @see NamespacedInstrumentor
+	 */
+	public NamespacedInstrumentor createNamespace(String name) throws Exception {
+		if(adapter == null) {
+			throw new IllegalStateException("The instrumentor is not initialized.");
+		}
+		NamespacedInstrumentor instrumentor = new NamespacedInstrumentor(new Namespace(name), adapter);
+		instrumentor.init();
+		return instrumentor;
+	}
+
 	/**
 	 * Destroys a registry of RMI.
 	 */
 	@Override
 	public void destroy() throws Exception {
 		super.destroy();
-		registry.unbind(ControlIF.CONTROL_ID);
+		if(host != null) {
+			registry.unbind(ControlIF.CONTROL_ID);
+			UnicastRemoteObject.unexportObject(host, true);
+			host.closeJournal();
+		}
 		UnicastRemoteObject.unexportObject(registry , true);
 		logger.debug("Removed the RMI registry");
 	}
@@ -0,0 +1,63 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.instrumentor;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * The RMI communication endpoint interface of the controller daemon for installing rule scripts.
+ *
+ * @see ControllerDaemon
+ * @see RemoteDistributedInstrumentor
+ */
+public interface InstrumentorIF extends Remote {
+	/** Instrumentor ID. **/
+	public static final String INSTRUMENTOR_ID = "DISTRIBUTED_INSTRUMENTOR";
+
+	/**
+	 * Installs a rule with the specified script name and script text to the remote node.
+	 *
+	 * @param identifier an identifier of remote node
+	 * @param scriptName a script name
+	 * @param scriptText a script text
+	 * @throws RemoteException
+	 */
+	public void installScript(Object identifier, String scriptName, String scriptText) throws RemoteException;
+
+	/**
+	 * Removes the rule script with the specified script name from the remote node.
+	 *
+	 * @param identifier an identifier of remote node
+	 * @param scriptName a script name
+	 * @return true if the script was installed, otherwise false, including when the remote node is not defined
+	 * @throws RemoteException
+	 */
+	public boolean removeScript(Object identifier, String scriptName) throws RemoteException;
+
+	/**
+	 * Returns the base result directory of the controller.
+	 *
+	 * @return the base result directory
+	 * @throws RemoteException
+	 */
+	public String getResultDir() throws RemoteException;
+
+}
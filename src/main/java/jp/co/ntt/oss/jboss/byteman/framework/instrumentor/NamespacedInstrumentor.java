@@ -0,0 +1,80 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.instrumentor;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.NamespacedAdapter;
+
+/**
+ * The instrumentor which works in a {@link Namespace}. <br/>
+ * Rule scripts installed by this instrumentor belong to the namespace, and the adapter returned by {@link #getAdapter()}
+ * scopes all the identifiers by the namespace. So several tests can share one controller concurrently
+ * as long as each test uses its own namespace. The rule names still need to be unique on each node.
+ *
+ * @see DistributedInstrumentorImpl#createNamespace(String)
+ */
+public class NamespacedInstrumentor extends AbstractDistributedInstrumentor {
+
+	private NamespacedAdapter adapter;
+
+	/**
+	 * Constructs with the namespace and the adapter of the controller.
+	 *
+	 * @param namespace the namespace
+	 * @param adapter the adapter of the controller
+	 */
+	public NamespacedInstrumentor(Namespace namespace, DistributedAdapter adapter) {
+		this.adapter = new NamespacedAdapter(namespace, adapter);
+	}
+
+	/**
+	 * Installs a rule with the script name prefixed by the namespace to the remote node.
+	 *
+	 * @param identifier an identifier of remote node
+	 * @param scriptName a script name
+	 * @param scriptText a script text
+	 * @see Namespace#toScriptName(String)
+	 */
+	@Override
+	public void installScript(Object identifier, String scriptName, String scriptText) throws Exception {
+		super.installScript(identifier, adapter.getNamespace().toScriptName(scriptName), scriptText);
+	}
+
+	/**
+	 * Removes the scripts installed by this instrumentor and deletes the state of the namespace on the controller.
+	 */
+	@Override
+	public void destroy() throws Exception {
+		super.destroy();
+		adapter.deleteNamespace();
+	}
+
+	/**
+	 * Returns the {@link NamespacedAdapter} of this namespace.
+	 *
+	 * @return the {@link NamespacedAdapter}
+	 */
+	@Override
+	public DistributedAdapter getAdapter() {
+		return adapter;
+	}
+
+}
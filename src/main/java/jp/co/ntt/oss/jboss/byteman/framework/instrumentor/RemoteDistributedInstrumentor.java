@@ -0,0 +1,145 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.instrumentor;
+
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.List;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.NamespacedAdapter;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlIF;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ShardedHost;
+import jp.co.ntt.oss.jboss.byteman.framework.util.DistributedConfig;
+import jp.co.ntt.oss.jboss.byteman.framework.util.Logger;
+
+/**
+ * The thin client of {@link ControllerDaemon}. <br/>
+ * This instrumentor does not create a RMI registry nor connections to the nodes,
+ * but attaches to the daemon specified by <code>controller.rmi.address</code> and <code>controller.rmi.port</code>.
+ * Destroying this instrumentor removes only the scripts installed by itself and keeps the daemon running.
+ * If a namespace is given, the scripts and the identifiers are scoped by the namespace.
+ *
+ * @see ControllerDaemon
+ * @see Namespace
+ */
+public class RemoteDistributedInstrumentor extends AbstractDistributedInstrumentor {
+
+	/** Logger. **/
+	protected Logger logger = Logger.getLogger();
+
+	private Namespace namespace;
+
+	private InstrumentorIF instrumentor;
+
+	private DistributedAdapter adapter;
+
+	private List<Object[]> installed = new ArrayList<Object[]>();
+
+	/**
+	 * Constructs a new instance which does not use a namespace.
+	 */
+	public RemoteDistributedInstrumentor() {
+	}
+
+	/**
+	 * Constructs a new instance which works in the specified namespace.
+	 *
+	 * @param namespace the name of the namespace
+	 */
+	public RemoteDistributedInstrumentor(String namespace) {
+		this.namespace = new Namespace(namespace);
+	}
+
+	/**
+	 * Attaches to the controller daemon.
+	 */
+	@Override
+	public void init() throws Exception {
+		DistributedConfig config = DistributedConfig.getConfig();
+		Registry registry = LocateRegistry.getRegistry(config.getRmiHost(), config.getRmiPort());
+		instrumentor = (InstrumentorIF) registry.lookup(InstrumentorIF.INSTRUMENTOR_ID);
+		List<String> shards = DistributedConfig.getConfig().getShards();
+		ControlIF control = shards.isEmpty() ? (ControlIF) registry.lookup(ControlIF.CONTROL_ID) : ShardedHost.lookup(shards);
+		adapter = namespace == null ? control : new NamespacedAdapter(namespace, control);
+		logger.debug("Attached to the controller daemon %s:%d", config.getRmiHost(), config.getRmiPort());
+	}
+
+	/**
+	 * Installs a rule through the controller daemon.
+	 *
+	 * @param identifier an identifier of remote node
+	 * @param scriptName a script name
+	 * @param scriptText a script text
+	 * @see InstrumentorIF#installScript(Object, String, String)
+	 */
+	@Override
+	public void installScript(Object identifier, String scriptName, String scriptText) throws Exception {
+		String name = namespace == null ? scriptName : namespace.toScriptName(scriptName);
+		instrumentor.installScript(identifier, name, scriptText);
+		synchronized (installed) {
+			installed.add(new Object[] {identifier, name});
+		}
+	}
+
+	/**
+	 * Returns the base result directory of the controller daemon.
+	 *
+	 * @return the base result directory
+	 * @throws Exception
+	 */
+	public String getResultDir() throws Exception {
+		return instrumentor.getResultDir();
+	}
+
+	/**
+	 * Removes the scripts installed by this instrumentor and deletes the state of the namespace if it is given.
+	 * The controller daemon keeps running.
+	 */
+	@Override
+	public void destroy() throws Exception {
+		synchronized (installed) {
+			for(Object[] script : installed) {
+				try {
+					instrumentor.removeScript(script[0], (String) script[1]);
+				} catch (Exception e) {
+					// fail if the server is downed, so we ignore.
+				}
+			}
+			installed.clear();
+		}
+		if(namespace != null) {
+			adapter.deleteNamespace(namespace.getName());
+		}
+	}
+
+	/**
+	 * Returns the adapter of the controller daemon.
+	 *
+	 * @return the {@link ControlIF} of the daemon, or {@link NamespacedAdapter} if a namespace is given
+	 */
+	@Override
+	public DistributedAdapter getAdapter() {
+		return adapter;
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+/**
+ * The clock which is comparable across the nodes. <br/>
+ * It returns the wall-clock time in nanoseconds, which advances by {@link System#nanoTime()},
+ * so that it has the resolution of {@link System#nanoTime()} and is not affected by adjustments of the system clock
+ * after the class is loaded.
+ *
+ */
+public class Clock {
+
+	private static final long BASE_MILLIS = System.currentTimeMillis();
+
+	private static final long BASE_NANOS = System.nanoTime();
+
+	private Clock() {
+	}
+
+	/**
+	 * Returns the current time.
+	 *
+	 * @return the nanoseconds since the epoch
+	 */
+	public static long currentTimeNanos() {
+		return BASE_MILLIS * 1000000L + (System.nanoTime() - BASE_NANOS);
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Estimates the offset and the drift of a remote clock from the exchanges of timestamps, in the manner of NTP. <br/>
+ * Each sample consists of the local time when the request is sent, the remote time, and the local time
+ * when the response is received. The remote time is assumed to be read at the midpoint of the round trip,
+ * so that the error of a sample is at most half of its round-trip delay. <br/>
+ * The offset is taken from the sample of the minimum delay among the recent {@link #FILTER_SIZE} samples,
+ * and the drift is the least-squares slope of the offsets of the samples whose delays are near the minimum.
+ * The drift is 0 until the samples span {@link #MIN_DRIFT_SPAN} nanoseconds, because the slope over a short span
+ * is dominated by the errors of the samples.
+ * All the methods are thread-safe.
+ *
+ * @see Clock
+ */
+public class ClockEstimator {
+
+	/** The number of the recent samples from which the offset is taken. */
+	public static final int FILTER_SIZE = 8;
+
+	/** The default number of the samples kept for the drift. */
+	public static final int DEFAULT_HISTORY = 64;
+
+	/** The minimum time span of the samples from which the drift is estimated (nanoseconds). */
+	public static final long MIN_DRIFT_SPAN = 10L * 1000 * 1000 * 1000;
+
+	private int history;
+
+	private LinkedList<Sample> samples = new LinkedList<Sample>();
+
+	private double drift;
+
+	/**
+	 * Constructs with the default number of the samples kept.
+	 */
+	public ClockEstimator() {
+		this(DEFAULT_HISTORY);
+	}
+
+	/**
+	 * Constructs with the number of the samples kept.
+	 *
+	 * @param history the number of the samples kept for the drift
+	 */
+	public ClockEstimator(int history) {
+		if(history < FILTER_SIZE) {
+			throw new IllegalArgumentException(String.format("The history [%d] must be at least %d.", history, FILTER_SIZE));
+		}
+		this.history = history;
+	}
+
+	/**
+	 * Adds a sample of the exchange.
+	 *
+	 * @param sent the local time when the request is sent (nanoseconds)
+	 * @param remote the remote time (nanoseconds)
+	 * @param received the local time when the response is received (nanoseconds)
+	 */
+	public synchronized void addSample(long sent, long remote, long received) {
+		long midpoint = sent + (received - sent) / 2;
+		samples.addLast(new Sample(midpoint, remote - midpoint, received - sent));
+		if(samples.size() > history) {
+			samples.removeFirst();
+		}
+		drift = computeDrift();
+	}
+
+	/**
+	 * Returns the number of the samples kept.
+	 *
+	 * @return the number of the samples
+	 */
+	public synchronized int getSampleCount() {
+		return samples.size();
+	}
+
+	/**
+	 * Returns the offset of the remote clock at the specified local time.
+	 *
+	 * @param at the local time (nanoseconds)
+	 * @return the offset (nanoseconds), which is positive if the remote clock is ahead, or 0 if no sample is added
+	 */
+	public synchronized long getOffset(long at) {
+		Sample best = getBestSample();
+		if(best == null) {
+			return 0;
+		}
+		return best.offset + (long) (drift * (at - best.time));
+	}
+
+	/**
+	 * Returns the drift of the remote clock.
+	 *
+	 * @return the drift (the nanoseconds gained by the remote clock per nanosecond), or 0 if it cannot be estimated
+	 */
+	public synchronized double getDrift() {
+		return drift;
+	}
+
+	/**
+	 * Returns the bound of the error of the offset, which is half of the round-trip delay of the sample it is taken from.
+	 *
+	 * @return the bound of the error (nanoseconds), or {@link Long#MAX_VALUE} if no sample is added
+	 */
+	public synchronized long getError() {
+		Sample best = getBestSample();
+		return best == null ? Long.MAX_VALUE : best.delay / 2;
+	}
+
+	/**
+	 * Converts a remote time to the local time.
+	 *
+	 * @param remote the remote time (nanoseconds)
+	 * @return the local time (nanoseconds)
+	 */
+	public synchronized long toLocalTime(long remote) {
+		Sample best = getBestSample();
+		if(best == null) {
+			return remote;
+		}
+		// the local time to apply the drift is approximated by the offset of the best sample.
+		return remote - getOffset(remote - best.offset);
+	}
+
+	private Sample getBestSample() {
+		Sample best = null;
+		int count = 0;
+		for(Iterator<Sample> iterator = samples.descendingIterator(); iterator.hasNext() && count < FILTER_SIZE; count++) {
+			Sample sample = iterator.next();
+			if(best == null || sample.delay < best.delay) {
+				best = sample;
+			}
+		}
+		return best;
+	}
+
+	private double computeDrift() {
+		long minDelay = Long.MAX_VALUE;
+		for(Sample sample : samples) {
+			minDelay = Math.min(minDelay, sample.delay);
+		}
+		// the samples delayed by the congestion are excluded.
+		List<Sample> filtered = new ArrayList<Sample>();
+		for(Sample sample : samples) {
+			if(sample.delay <= minDelay * 2 + 1000000) {
+				filtered.add(sample);
+			}
+		}
+		if(filtered.size() < 2 || filtered.get(filtered.size() - 1).time - filtered.get(0).time < MIN_DRIFT_SPAN) {
+			return 0;
+		}
+		Sample first = filtered.get(0);
+		double meanTime = 0;
+		double meanOffset = 0;
+		for(Sample sample : filtered) {
+			meanTime += sample.time - first.time;
+			meanOffset += sample.offset - first.offset;
+		}
+		meanTime /= filtered.size();
+		meanOffset /= filtered.size();
+		double covariance = 0;
+		double variance = 0;
+		for(Sample sample : filtered) {
+			double time = sample.time - first.time - meanTime;
+			covariance += time * (sample.offset - first.offset - meanOffset);
+			variance += time * time;
+		}
+		return variance == 0 ? 0 : covariance / variance;
+	}
+
+	/**
+	 * A sample of the exchange.
+	 */
+	private static class Sample {
+
+		private long time;
+
+		private long offset;
+
+		private long delay;
+
+		private Sample(long time, long offset, long delay) {
+			this.time = time;
+			this.offset = offset;
+			this.delay = delay;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.io.Serializable;
+
+/**
+ * The count-min sketch which estimates the frequencies of values in a fixed size of memory. <br/>
+ * An estimate never undercounts, and overcounts by at most e/width of the total count
+ * with the probability 1 - e<sup>-depth</sup>. Sketches with the same dimensions can be merged without
+ * losing accuracy. All the methods are thread-safe.
+ *
+ */
+public class CountMinSketch implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The default depth, which bounds the probability of exceeding the error to 0.7%. */
+	public static final int DEFAULT_DEPTH = 5;
+
+	/** The default width, which bounds the error to 0.13% of the total count. */
+	public static final int DEFAULT_WIDTH = 2048;
+
+	private int depth;
+
+	private int width;
+
+	private long[][] table;
+
+	private long total;
+
+	/**
+	 * Constructs with the default dimensions.
+	 */
+	public CountMinSketch() {
+		this(DEFAULT_DEPTH, DEFAULT_WIDTH);
+	}
+
+	/**
+	 * Constructs with the dimensions.
+	 *
+	 * @param depth the number of the hash functions
+	 * @param width the number of the counters per hash function
+	 */
+	public CountMinSketch(int depth, int width) {
+		if(depth < 1 || width < 1) {
+			throw new IllegalArgumentException(String.format("[%dx%d] is not valid dimensions.", depth, width));
+		}
+		this.depth = depth;
+		this.width = width;
+		this.table = new long[depth][width];
+	}
+
+	/**
+	 * Adds the occurrences of a value.
+	 *
+	 * @param value the value
+	 * @param count the number of the occurrences
+	 * @return the estimated frequency of the value after it is added
+	 */
+	public long add(Object value, long count) {
+		long hash = Hashes.hash64(value);
+		synchronized (this) {
+			long estimate = Long.MAX_VALUE;
+			for(int i = 0; i < depth; i++) {
+				long[] row = table[i];
+				int index = indexOf(hash, i);
+				row[index] += count;
+				estimate = Math.min(estimate, row[index]);
+			}
+			total += count;
+			return estimate;
+		}
+	}
+
+	/**
+	 * Returns the estimated frequency of a value.
+	 *
+	 * @param value the value
+	 * @return the estimated frequency, which is not less than the actual frequency
+	 */
+	public long estimate(Object value) {
+		long hash = Hashes.hash64(value);
+		synchronized (this) {
+			long estimate = Long.MAX_VALUE;
+			for(int i = 0; i < depth; i++) {
+				estimate = Math.min(estimate, table[i][indexOf(hash, i)]);
+			}
+			return estimate;
+		}
+	}
+
+	/**
+	 * Returns the total count of all the values.
+	 *
+	 * @return the total count
+	 */
+	public synchronized long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Returns the bound of the overcount of an estimate, which holds with the probability 1 - e<sup>-depth</sup>.
+	 *
+	 * @return the bound of the overcount
+	 */
+	public synchronized long getError() {
+		return (long) Math.ceil(Math.E / width * total);
+	}
+
+	/**
+	 * Merges the specified sketch into this sketch.
+	 *
+	 * @param other the sketch which has the same dimensions
+	 */
+	public void merge(CountMinSketch other) {
+		if(other.depth != depth || other.width != width) {
+			throw new IllegalArgumentException(String.format("The dimensions [%dx%d] do not match [%dx%d].", other.depth, other.width, depth, width));
+		}
+		CountMinSketch copy = other.copy();
+		synchronized (this) {
+			for(int i = 0; i < depth; i++) {
+				for(int j = 0; j < width; j++) {
+					table[i][j] += copy.table[i][j];
+				}
+			}
+			total += copy.total;
+		}
+	}
+
+	/**
+	 * Returns a copy of this sketch.
+	 *
+	 * @return the copy
+	 */
+	public synchronized CountMinSketch copy() {
+		CountMinSketch copy = new CountMinSketch(depth, width);
+		for(int i = 0; i < depth; i++) {
+			System.arraycopy(table[i], 0, copy.table[i], 0, width);
+		}
+		copy.total = total;
+		return copy;
+	}
+
+	private int indexOf(long hash, int row) {
+		return (int) ((Hashes.hash64(hash, row) >>> 1) % width);
+	}
+}
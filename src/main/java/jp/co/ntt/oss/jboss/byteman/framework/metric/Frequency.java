@@ -0,0 +1,87 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.io.Serializable;
+
+/**
+ * The estimated frequency of a value reported by {@link HeavyHitters}.
+ *
+ */
+public class Frequency implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Object value;
+
+	private long count;
+
+	private long error;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param value the value
+	 * @param count the estimated frequency
+	 * @param error the bound of the overcount of the estimate
+	 */
+	public Frequency(Object value, long count, long error) {
+		this.value = value;
+		this.count = count;
+		this.error = error;
+	}
+
+	/**
+	 * Returns the value.
+	 *
+	 * @return the value
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns the estimated frequency, which is not less than the actual frequency.
+	 *
+	 * @return the estimated frequency
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the bound of the overcount of the estimate.
+	 * The actual frequency is between <code>count - error</code> and <code>count</code>
+	 * with the probability given by {@link CountMinSketch}.
+	 *
+	 * @return the bound of the overcount
+	 */
+	public long getError() {
+		return error;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return value + "=" + count + "(-" + error + ")";
+	}
+}
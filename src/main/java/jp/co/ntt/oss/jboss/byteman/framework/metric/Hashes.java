@@ -0,0 +1,80 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+/**
+ * The 64-bit hash functions for the sketches.
+ *
+ */
+final class Hashes {
+
+	private Hashes() {
+	}
+
+	/**
+	 * Returns the 64-bit hash of the value.
+	 * Strings and numbers are hashed by their contents, and the other values by their hash codes.
+	 *
+	 * @param value the value
+	 * @return the hash
+	 */
+	static long hash64(Object value) {
+		if(value == null) {
+			return mix(0);
+		}
+		if(value instanceof CharSequence) {
+			// FNV-1a over the characters
+			CharSequence chars = (CharSequence) value;
+			long hash = 0xcbf29ce484222325L;
+			for(int i = 0; i < chars.length(); i++) {
+				hash ^= chars.charAt(i);
+				hash *= 0x100000001b3L;
+			}
+			return mix(hash);
+		}
+		if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return mix(((Number) value).longValue());
+		}
+		return mix(value.hashCode());
+	}
+
+	/**
+	 * Returns the hash derived from the hash by the seed, which is used as one of the independent hash functions.
+	 *
+	 * @param hash the hash
+	 * @param seed the seed
+	 * @return the derived hash
+	 */
+	static long hash64(long hash, int seed) {
+		return mix(hash + 0x9e3779b97f4a7c15L * (seed + 1));
+	}
+
+	/**
+	 * The finalizer of MurmurHash3, which spreads every bit of the input over the output.
+	 */
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The top-K most frequent values, whose frequencies are estimated by a {@link CountMinSketch}. <br/>
+ * Besides the sketch, only K candidates are kept. A value replaces the least frequent candidate
+ * when its estimated frequency exceeds that of the candidate. When sketches are merged, the candidates of both
+ * are estimated again by the merged sketch, so that a value frequent over the cluster is found even if it is not
+ * the most frequent on any node. The values which are not serializable are kept as their strings.
+ * All the methods are thread-safe.
+ *
+ */
+public class HeavyHitters implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The default number of the values reported. */
+	public static final int DEFAULT_K = 10;
+
+	private int k;
+
+	private CountMinSketch sketch;
+
+	private Map<Object, Long> candidates = new HashMap<Object, Long>();
+
+	/**
+	 * Constructs with the default K and the default sketch.
+	 */
+	public HeavyHitters() {
+		this(DEFAULT_K);
+	}
+
+	/**
+	 * Constructs with K and the default sketch.
+	 *
+	 * @param k the number of the values reported
+	 */
+	public HeavyHitters(int k) {
+		this(k, new CountMinSketch());
+	}
+
+	/**
+	 * Constructs with K and the sketch.
+	 *
+	 * @param k the number of the values reported
+	 * @param sketch the empty sketch
+	 */
+	public HeavyHitters(int k, CountMinSketch sketch) {
+		if(k < 1) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid K.", k));
+		}
+		this.k = k;
+		this.sketch = sketch;
+	}
+
+	/**
+	 * Returns K.
+	 *
+	 * @return the number of the values reported
+	 */
+	public int getK() {
+		return k;
+	}
+
+	/**
+	 * Offers the occurrences of a value.
+	 *
+	 * @param value the value
+	 * @param count the number of the occurrences
+	 */
+	public synchronized void offer(Object value, long count) {
+		Object key = value == null || value instanceof Serializable ? value : String.valueOf(value);
+		keep(key, sketch.add(key, count));
+	}
+
+	private void keep(Object key, long estimate) {
+		if(candidates.containsKey(key) || candidates.size() < k) {
+			candidates.put(key, estimate);
+			return;
+		}
+		Map.Entry<Object, Long> least = null;
+		for(Map.Entry<Object, Long> entry : candidates.entrySet()) {
+			if(least == null || entry.getValue() < least.getValue()) {
+				least = entry;
+			}
+		}
+		if(estimate > least.getValue()) {
+			candidates.remove(least.getKey());
+			candidates.put(key, estimate);
+		}
+	}
+
+	/**
+	 * Merges the specified heavy hitters into this heavy hitters.
+	 *
+	 * @param other the heavy hitters whose sketch has the same dimensions
+	 */
+	public void merge(HeavyHitters other) {
+		HeavyHitters copy = other.copy();
+		synchronized (this) {
+			sketch.merge(copy.sketch);
+			List<Object> keys = new ArrayList<Object>(candidates.keySet());
+			keys.addAll(copy.candidates.keySet());
+			candidates.clear();
+			for(Object key : keys) {
+				keep(key, sketch.estimate(key));
+			}
+		}
+	}
+
+	/**
+	 * Returns a copy of this heavy hitters.
+	 *
+	 * @return the copy
+	 */
+	public synchronized HeavyHitters copy() {
+		HeavyHitters copy = new HeavyHitters(k, sketch.copy());
+		copy.candidates.putAll(candidates);
+		return copy;
+	}
+
+	/**
+	 * Returns the most frequent values in the descending order of the frequencies.
+	 *
+	 * @return at most K values with their estimated frequencies
+	 */
+	public synchronized List<Frequency> getTop() {
+		List<Frequency> result = new ArrayList<Frequency>(candidates.size());
+		long error = sketch.getError();
+		for(Object key : candidates.keySet()) {
+			result.add(new Frequency(key, sketch.estimate(key), error));
+		}
+		Collections.sort(result, new Comparator<Frequency>() {
+			@Override
+			public int compare(Frequency o1, Frequency o2) {
+				return o1.getCount() > o2.getCount() ? -1 : o1.getCount() < o2.getCount() ? 1 : 0;
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Returns the total count of all the values.
+	 *
+	 * @return the total count
+	 */
+	public synchronized long getTotal() {
+		return sketch.getTotal();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return getTop().toString();
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The HyperLogLog sketch which estimates the number of the distinct values in a fixed size of memory. <br/>
+ * It has 2<sup>precision</sup> registers of one byte, and the relative standard error of the estimate is
+ * 1.04/&radic;2<sup>precision</sup>. Sketches with the same precision can be merged without losing accuracy,
+ * so that the values offered on several nodes are counted once. All the methods are thread-safe.
+ *
+ */
+public class HyperLogLog implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The default precision, which bounds the relative standard error to about 0.81%. */
+	public static final int DEFAULT_PRECISION = 14;
+
+	private int precision;
+
+	private byte[] registers;
+
+	/**
+	 * Constructs with the default precision.
+	 */
+	public HyperLogLog() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Constructs with the precision.
+	 *
+	 * @param precision the number of the bits to choose a register, between 4 and 18
+	 */
+	public HyperLogLog(int precision) {
+		if(precision < 4 || precision > 18) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid precision.", precision));
+		}
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+	/**
+	 * Returns the precision.
+	 *
+	 * @return the number of the bits to choose a register
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Returns the relative standard error of the estimate.
+	 *
+	 * @return the relative standard error
+	 */
+	public double getRelativeError() {
+		return 1.04 / Math.sqrt(registers.length);
+	}
+
+	/**
+	 * Offers a value.
+	 *
+	 * @param value the value
+	 */
+	public void offer(Object value) {
+		long hash = Hashes.hash64(value);
+		int index = (int) (hash >>> (64 - precision));
+		// the sentinel bit bounds the rank when the rest of the bits are all zero.
+		byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+		synchronized (this) {
+			if(registers[index] < rank) {
+				registers[index] = rank;
+			}
+		}
+	}
+
+	/**
+	 * Merges the specified sketch into this sketch.
+	 *
+	 * @param other the sketch which has the same precision
+	 */
+	public void merge(HyperLogLog other) {
+		if(other.precision != precision) {
+			throw new IllegalArgumentException(String.format("The precision [%d] does not match [%d].", other.precision, precision));
+		}
+		HyperLogLog copy = other.copy();
+		synchronized (this) {
+			for(int i = 0; i < registers.length; i++) {
+				registers[i] = (byte) Math.max(registers[i], copy.registers[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns a copy of this sketch.
+	 *
+	 * @return the copy
+	 */
+	public synchronized HyperLogLog copy() {
+		HyperLogLog copy = new HyperLogLog(precision);
+		copy.registers = Arrays.copyOf(registers, registers.length);
+		return copy;
+	}
+
+	/**
+	 * Returns the estimated number of the distinct values.
+	 * It uses the improved estimator by Ertl, which has no bias over the whole range of cardinalities
+	 * without the empirical corrections of the original algorithm.
+	 *
+	 * @return the estimated number of the distinct values
+	 */
+	public synchronized long getCardinality() {
+		int m = registers.length;
+		int q = 64 - precision;
+		int[] histogram = new int[q + 2];
+		for(byte register : registers) {
+			histogram[register]++;
+		}
+		if(histogram[0] == m) {
+			return 0;
+		}
+		double z = m * tau(1 - (double) histogram[q + 1] / m);
+		for(int k = q; k >= 1; k--) {
+			z = 0.5 * (z + histogram[k]);
+		}
+		z += m * sigma((double) histogram[0] / m);
+		return Math.round(m * m / (2 * Math.log(2)) / z);
+	}
+
+	private static double sigma(double x) {
+		if(x == 1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double y = 1;
+		double z = x;
+		double previous;
+		do {
+			x *= x;
+			previous = z;
+			z += x * y;
+			y += y;
+		} while(z != previous);
+		return z;
+	}
+
+	private static double tau(double x) {
+		if(x == 0 || x == 1) {
+			return 0;
+		}
+		double y = 1;
+		double z = 1 - x;
+		double previous;
+		do {
+			x = Math.sqrt(x);
+			previous = z;
+			y *= 0.5;
+			z -= (1 - x) * (1 - x) * y;
+		} while(z != previous);
+		return z / 3;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return String.format("cardinality=%d, error=%.2f%%", getCardinality(), getRelativeError() * 100);
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The histogram of latencies whose buckets grow logarithmically. <br/>
+ * The values less than 2<sup>precision</sup> are recorded exactly, and the larger values are recorded into buckets
+ * whose width is 1/2<sup>precision</sup> of their magnitude, so that the relative error of a percentile
+ * is less than 1/2<sup>precision</sup> over the whole range of <code>long</code>.
+ * Histograms with the same precision can be merged without losing accuracy.
+ * It also records other non-negative amounts, such as the resources consumed by a code region.
+ * All the methods are thread-safe.
+ */
+public class LatencyHistogram implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The default precision, which bounds the relative error to 1/128. */
+	public static final int DEFAULT_PRECISION = 7;
+
+	private int precision;
+
+	private long[] counts = new long[0];
+
+	private long count;
+
+	private long min = Long.MAX_VALUE;
+
+	private long max;
+
+	private long sum;
+
+	/**
+	 * Constructs with the default precision.
+	 */
+	public LatencyHistogram() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Constructs with the precision.
+	 *
+	 * @param precision the number of the significant bits of the recorded values, between 1 and 16
+	 */
+	public LatencyHistogram(int precision) {
+		if(precision < 1 || precision > 16) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid precision.", precision));
+		}
+		this.precision = precision;
+	}
+
+	/**
+	 * Returns the precision.
+	 *
+	 * @return the number of the significant bits of the recorded values
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * Records a value. A negative value is recorded as zero.
+	 *
+	 * @param value the value, typically in nanoseconds
+	 */
+	public synchronized void record(long value) {
+		if(value < 0) {
+			value = 0;
+		}
+		int index = indexOf(value);
+		if(index >= counts.length) {
+			counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+		}
+		counts[index]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Merges the specified histogram into this histogram.
+	 *
+	 * @param other the histogram which has the same precision
+	 */
+	public void merge(LatencyHistogram other) {
+		if(other.precision != precision) {
+			throw new IllegalArgumentException(String.format("The precision [%d] does not match [%d].", other.precision, precision));
+		}
+		LatencyHistogram copy = other.copy();
+		synchronized (this) {
+			if(copy.counts.length > counts.length) {
+				counts = Arrays.copyOf(counts, copy.counts.length);
+			}
+			for(int i = 0; i < copy.counts.length; i++) {
+				counts[i] += copy.counts[i];
+			}
+			count += copy.count;
+			sum += copy.sum;
+			min = Math.min(min, copy.min);
+			max = Math.max(max, copy.max);
+		}
+	}
+
+	/**
+	 * Returns a copy of this histogram.
+	 *
+	 * @return the copy of this histogram
+	 */
+	public synchronized LatencyHistogram copy() {
+		LatencyHistogram copy = new LatencyHistogram(precision);
+		copy.counts = counts.clone();
+		copy.count = count;
+		copy.sum = sum;
+		copy.min = min;
+		copy.max = max;
+		return copy;
+	}
+
+	/**
+	 * Returns the number of the recorded values.
+	 *
+	 * @return the number of the recorded values
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the minimum of the recorded values.
+	 *
+	 * @return the minimum of the recorded values, or 0 if no value is recorded
+	 */
+	public synchronized long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Returns the maximum of the recorded values.
+	 *
+	 * @return the maximum of the recorded values, or 0 if no value is recorded
+	 */
+	public synchronized long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the mean of the recorded values.
+	 *
+	 * @return the mean of the recorded values, or 0 if no value is recorded
+	 */
+	public synchronized double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * Returns the value at the specified percentile.
+	 * The returned value is the largest value of the bucket which the percentile falls into, but not larger than the maximum.
+	 *
+	 * @param percentile the percentile between 0 and 100
+	 * @return the value at the percentile, or 0 if no value is recorded
+	 */
+	public synchronized long getValueAtPercentile(double percentile) {
+		if(percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException(String.format("[%s] is not a valid percentile.", percentile));
+		}
+		if(count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for(int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if(seen >= rank) {
+				return Math.max(Math.min(highestValueOf(i), max), min);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the index of the bucket which the specified value is recorded into.
+	 */
+	int indexOf(long value) {
+		if(value < (1L << precision)) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		long mantissa = value >>> (exponent - precision);
+		return ((exponent - precision + 1) << precision) + (int) (mantissa - (1L << precision));
+	}
+
+	/**
+	 * Returns the largest value which is recorded into the specified bucket.
+	 */
+	long highestValueOf(int index) {
+		if(index < (1 << precision)) {
+			return index;
+		}
+		int shift = (index >>> precision) - 1;
+		long mantissa = (index & ((1 << precision) - 1)) + (1L << precision);
+		long lowest = mantissa << shift;
+		long highest = lowest + (1L << shift) - 1;
+		// the highest bucket reaches Long.MAX_VALUE.
+		return highest < lowest ? Long.MAX_VALUE : highest;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format("count=%d, min=%d, mean=%.1f, p50=%d, p90=%d, p99=%d, p999=%d, max=%d",
+				count, getMin(), getMean(), getValueAtPercentile(50), getValueAtPercentile(90),
+				getValueAtPercentile(99), getValueAtPercentile(99.9), max);
+	}
+}
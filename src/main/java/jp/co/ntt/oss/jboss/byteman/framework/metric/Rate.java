@@ -0,0 +1,98 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.io.Serializable;
+
+/**
+ * The snapshot of a {@link RateMeter}.
+ *
+ */
+public class Rate implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private long count;
+
+	private double oneSecondRate;
+
+	private double tenSecondRate;
+
+	private double sixtySecondRate;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param count the total number of the events
+	 * @param oneSecondRate the 1-second exponentially weighted moving average rate (events per second)
+	 * @param tenSecondRate the 10-second exponentially weighted moving average rate (events per second)
+	 * @param sixtySecondRate the 60-second exponentially weighted moving average rate (events per second)
+	 */
+	public Rate(long count, double oneSecondRate, double tenSecondRate, double sixtySecondRate) {
+		this.count = count;
+		this.oneSecondRate = oneSecondRate;
+		this.tenSecondRate = tenSecondRate;
+		this.sixtySecondRate = sixtySecondRate;
+	}
+
+	/**
+	 * Returns the total number of the events.
+	 *
+	 * @return the total number of the events
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the 1-second exponentially weighted moving average rate.
+	 *
+	 * @return the rate (events per second)
+	 */
+	public double getOneSecondRate() {
+		return oneSecondRate;
+	}
+
+	/**
+	 * Returns the 10-second exponentially weighted moving average rate.
+	 *
+	 * @return the rate (events per second)
+	 */
+	public double getTenSecondRate() {
+		return tenSecondRate;
+	}
+
+	/**
+	 * Returns the 60-second exponentially weighted moving average rate.
+	 *
+	 * @return the rate (events per second)
+	 */
+	public double getSixtySecondRate() {
+		return sixtySecondRate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return String.format("count=%d, 1s=%.2f/s, 10s=%.2f/s, 60s=%.2f/s", count, oneSecondRate, tenSecondRate, sixtySecondRate);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+/**
+ * The meter which measures the rate of events by exponentially weighted moving averages
+ * over 1 second, 10 seconds and 60 seconds. <br/>
+ * The events are accumulated and the averages are updated every {@link #TICK_INTERVAL} nanoseconds,
+ * lazily when the meter is marked or read, so that no thread is needed. All the methods are thread-safe.
+ *
+ * @see Rate
+ */
+public class RateMeter {
+
+	/** The interval to update the averages (nanoseconds). */
+	public static final long TICK_INTERVAL = 1000L * 1000 * 1000;
+
+	private static final double[] WINDOWS = {1, 10, 60};
+
+	private static final double[] ALPHAS = new double[WINDOWS.length];
+
+	static {
+		for(int i = 0; i < WINDOWS.length; i++) {
+			ALPHAS[i] = 1 - Math.exp(-TICK_INTERVAL / 1e9 / WINDOWS[i]);
+		}
+	}
+
+	private long count;
+
+	private long uncounted;
+
+	private double[] rates = new double[WINDOWS.length];
+
+	private boolean initialized;
+
+	private long lastTick;
+
+	/**
+	 * Constructs a new instance which starts now.
+	 */
+	public RateMeter() {
+		this(System.nanoTime());
+	}
+
+	/**
+	 * Constructs a new instance which starts at the specified time.
+	 *
+	 * @param now the current time by {@link System#nanoTime()}
+	 */
+	public RateMeter(long now) {
+		this.lastTick = now;
+	}
+
+	/**
+	 * Marks the occurrences of the event now.
+	 *
+	 * @param n the number of the occurrences
+	 */
+	public void mark(long n) {
+		mark(n, System.nanoTime());
+	}
+
+	/**
+	 * Marks the occurrences of the event at the specified time.
+	 *
+	 * @param n the number of the occurrences
+	 * @param now the current time by {@link System#nanoTime()}
+	 */
+	public synchronized void mark(long n, long now) {
+		tickIfNecessary(now);
+		count += n;
+		uncounted += n;
+	}
+
+	/**
+	 * Returns the snapshot of the rates now.
+	 *
+	 * @return the snapshot of the rates
+	 */
+	public Rate getRate() {
+		return getRate(System.nanoTime());
+	}
+
+	/**
+	 * Returns the snapshot of the rates at the specified time.
+	 *
+	 * @param now the current time by {@link System#nanoTime()}
+	 * @return the snapshot of the rates
+	 */
+	public synchronized Rate getRate(long now) {
+		tickIfNecessary(now);
+		return new Rate(count, rates[0], rates[1], rates[2]);
+	}
+
+	private void tickIfNecessary(long now) {
+		long ticks = (now - lastTick) / TICK_INTERVAL;
+		if(ticks <= 0) {
+			return;
+		}
+		lastTick += ticks * TICK_INTERVAL;
+		double instantRate = uncounted / (TICK_INTERVAL / 1e9);
+		uncounted = 0;
+		for(int i = 0; i < rates.length; i++) {
+			if(initialized) {
+				rates[i] += ALPHAS[i] * (instantRate - rates[i]);
+			} else {
+				rates[i] = instantRate;
+			}
+			// the rest of the ticks have no event.
+			rates[i] *= Math.pow(1 - ALPHAS[i], ticks - 1);
+		}
+		initialized = true;
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * The reservoir which keeps a random sample of a fixed size from any number of values. <br/>
+ * Each value is given a random key -ln(u)/weight, and the values of the smallest keys are kept.
+ * With the weight 1 it is a uniform sample as Algorithm R, and otherwise the weighted sample by Efraimidis and Spirakis.
+ * Since the keys are independent of the order and the place where the values are offered,
+ * the reservoirs of several nodes are merged exactly by keeping the smallest keys of both.
+ * The values which are not serializable are kept as their strings. All the methods are thread-safe.
+ *
+ */
+public class Reservoir implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The default number of the values kept. */
+	public static final int DEFAULT_SIZE = 100;
+
+	private int size;
+
+	private long count;
+
+	private PriorityQueue<Item> items;
+
+	private Random random = new Random();
+
+	/**
+	 * Constructs with the default size.
+	 */
+	public Reservoir() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * Constructs with the size.
+	 *
+	 * @param size the number of the values kept
+	 */
+	public Reservoir(int size) {
+		if(size < 1) {
+			throw new IllegalArgumentException(String.format("[%d] is not a valid size.", size));
+		}
+		this.size = size;
+		this.items = new PriorityQueue<Item>(size, new LargestFirst());
+	}
+
+	/**
+	 * Returns the number of the values kept.
+	 *
+	 * @return the size of the reservoir
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Offers a value with the weight 1.
+	 *
+	 * @param value the value
+	 */
+	public void offer(Object value) {
+		offer(value, 1);
+	}
+
+	/**
+	 * Offers a value with the weight.
+	 *
+	 * @param value the value
+	 * @param weight the positive weight, in proportion to which the value is likely to be kept
+	 */
+	public synchronized void offer(Object value, double weight) {
+		if(!(weight > 0)) {
+			throw new IllegalArgumentException(String.format("[%s] is not a valid weight.", weight));
+		}
+		count++;
+		double key = -Math.log(1 - random.nextDouble()) / weight;
+		if(items.size() < size) {
+			items.add(new Item(toSerializable(value), key));
+		} else if(key < items.peek().key) {
+			items.poll();
+			items.add(new Item(toSerializable(value), key));
+		}
+	}
+
+	/**
+	 * Merges the specified reservoir into this reservoir.
+	 *
+	 * @param other the reservoir
+	 */
+	public void merge(Reservoir other) {
+		Reservoir copy = other.copy();
+		synchronized (this) {
+			count += copy.count;
+			for(Item item : copy.items) {
+				if(items.size() < size) {
+					items.add(item);
+				} else if(item.key < items.peek().key) {
+					items.poll();
+					items.add(item);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a copy of this reservoir.
+	 *
+	 * @return the copy
+	 */
+	public synchronized Reservoir copy() {
+		Reservoir copy = new Reservoir(size);
+		copy.count = count;
+		copy.items.addAll(items);
+		return copy;
+	}
+
+	/**
+	 * Returns the number of the offered values.
+	 *
+	 * @return the number of the offered values
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the sampled values.
+	 *
+	 * @return at most {@link #getSize()} values in no particular order
+	 */
+	public synchronized List<Object> getValues() {
+		List<Object> values = new ArrayList<Object>(items.size());
+		for(Item item : items) {
+			values.add(item.value);
+		}
+		Collections.shuffle(values, random);
+		return values;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return String.format("count=%d, values=%s", getCount(), getValues());
+	}
+
+	private static Object toSerializable(Object value) {
+		return value == null || value instanceof Serializable ? value : String.valueOf(value);
+	}
+
+	/**
+	 * A sampled value with its random key.
+	 */
+	private static class Item implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private Object value;
+
+		private double key;
+
+		private Item(Object value, double key) {
+			this.value = value;
+			this.key = key;
+		}
+	}
+
+	/**
+	 * The order of the items whose head is the largest key, which is evicted first.
+	 */
+	private static class LargestFirst implements Comparator<Item>, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int compare(Item o1, Item o2) {
+			return Double.compare(o2.key, o1.key);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The resource which the current thread consumes. <br/>
+ * The usage is read from {@link ThreadMXBean}, so that the difference between two readings on the same thread
+ * is the amount consumed by the code executed between them.
+ *
+ */
+public enum Resource {
+
+	/** The bytes allocated in the heap. It requires the extension of HotSpot {@link com.sun.management.ThreadMXBean}. */
+	ALLOCATED_BYTES {
+		@Override
+		public long current() {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if(!(bean instanceof com.sun.management.ThreadMXBean)) {
+				return -1;
+			}
+			com.sun.management.ThreadMXBean extension = (com.sun.management.ThreadMXBean) bean;
+			if(!extension.isThreadAllocatedMemorySupported() || !extension.isThreadAllocatedMemoryEnabled()) {
+				return -1;
+			}
+			return extension.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+	},
+
+	/** The CPU time in nanoseconds, which includes both the user time and the system time. */
+	CPU_TIME {
+		@Override
+		public long current() {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if(!bean.isCurrentThreadCpuTimeSupported() || !bean.isThreadCpuTimeEnabled()) {
+				return -1;
+			}
+			return bean.getCurrentThreadCpuTime();
+		}
+	};
+
+	/**
+	 * Returns the amount of the resource which the current thread has consumed since it started.
+	 *
+	 * @return the amount of the resource, or -1 if the JVM does not support to measure it
+	 */
+	public abstract long current();
+
+}
@@ -0,0 +1,110 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.io.Serializable;
+
+/**
+ * The start or the end of a span, which is recorded on a node and sent to the controller.
+ *
+ * @see SpanMatcher
+ */
+public class SpanEvent implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Object identifier;
+
+	private Object key;
+
+	private boolean start;
+
+	private long timestamp;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param identifier an identifier for the span
+	 * @param key the correlation key which matches the start and the end
+	 * @param start <code>true</code> if it is the start of the span
+	 * @param timestamp the time of the event (nanoseconds since the epoch)
+	 * @see Clock#currentTimeNanos()
+	 */
+	public SpanEvent(Object identifier, Object key, boolean start, long timestamp) {
+		this.identifier = identifier;
+		this.key = key;
+		this.start = start;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Returns the identifier for the span.
+	 *
+	 * @return the identifier for the span
+	 */
+	public Object getIdentifier() {
+		return identifier;
+	}
+
+	/**
+	 * Returns the correlation key.
+	 *
+	 * @return the correlation key
+	 */
+	public Object getKey() {
+		return key;
+	}
+
+	/**
+	 * Returns whether it is the start of the span.
+	 *
+	 * @return <code>true</code> if it is the start of the span
+	 */
+	public boolean isStart() {
+		return start;
+	}
+
+	/**
+	 * Returns the time of the event.
+	 *
+	 * @return the nanoseconds since the epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Returns the event shifted by the specified offset, which corrects the clock of the node.
+	 *
+	 * @param offset the offset of the clock of the node (nanoseconds)
+	 * @return the corrected event
+	 */
+	public SpanEvent correct(long offset) {
+		return new SpanEvent(identifier, key, start, timestamp - offset);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return identifier + (start ? " start " : " end ") + key + " at " + timestamp;
+	}
+}
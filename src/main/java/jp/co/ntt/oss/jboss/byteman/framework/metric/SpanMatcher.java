@@ -0,0 +1,173 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Matches the starts and the ends of spans by their correlation keys, and records the durations into histograms. <br/>
+ * The start and the end may arrive in any order. An event whose counterpart does not arrive is kept pending,
+ * and the oldest pending event is discarded as unmatched when the number of the pending events exceeds the limit.
+ * All the methods are thread-safe.
+ *
+ */
+public class SpanMatcher {
+
+	/** The default maximum number of the pending events. */
+	public static final int DEFAULT_MAX_PENDING = 100000;
+
+	private int maxPending;
+
+	private LinkedHashMap<SpanKey, SpanEvent> pending = new LinkedHashMap<SpanKey, SpanEvent>();
+
+	private Map<Object, LatencyHistogram> histograms = new HashMap<Object, LatencyHistogram>();
+
+	private Map<Object, Long> unmatched = new HashMap<Object, Long>();
+
+	/**
+	 * Constructs with the default maximum number of the pending events.
+	 */
+	public SpanMatcher() {
+		this(DEFAULT_MAX_PENDING);
+	}
+
+	/**
+	 * Constructs with the maximum number of the pending events.
+	 *
+	 * @param maxPending the maximum number of the pending events
+	 */
+	public SpanMatcher(int maxPending) {
+		this.maxPending = maxPending;
+	}
+
+	/**
+	 * Adds an event whose timestamp is already corrected.
+	 *
+	 * @param event the event
+	 * @return the duration of the span if the event completes it, or -1
+	 */
+	public synchronized long add(SpanEvent event) {
+		SpanKey spanKey = new SpanKey(event.getIdentifier(), event.getKey());
+		SpanEvent other = pending.get(spanKey);
+		if(other == null || other.isStart() == event.isStart()) {
+			// the event of the same side replaces the previous one.
+			pending.remove(spanKey);
+			pending.put(spanKey, event);
+			if(pending.size() > maxPending) {
+				Iterator<SpanEvent> iterator = pending.values().iterator();
+				Object identifier = iterator.next().getIdentifier();
+				iterator.remove();
+				Long count = unmatched.get(identifier);
+				unmatched.put(identifier, count == null ? 1 : count + 1);
+			}
+			return -1;
+		}
+		pending.remove(spanKey);
+		long duration = Math.max(0, event.isStart() ? other.getTimestamp() - event.getTimestamp() : event.getTimestamp() - other.getTimestamp());
+		LatencyHistogram histogram = histograms.get(event.getIdentifier());
+		if(histogram == null) {
+			histogram = new LatencyHistogram();
+			histograms.put(event.getIdentifier(), histogram);
+		}
+		histogram.record(duration);
+		return duration;
+	}
+
+	/**
+	 * Returns a copy of the histogram of the durations.
+	 *
+	 * @param identifier an identifier for the span
+	 * @return the copy of the histogram, which is empty if no span is completed
+	 */
+	public synchronized LatencyHistogram getHistogram(Object identifier) {
+		LatencyHistogram histogram = histograms.get(identifier);
+		return histogram == null ? new LatencyHistogram() : histogram.copy();
+	}
+
+	/**
+	 * Returns the number of the events which were discarded without their counterparts.
+	 *
+	 * @param identifier an identifier for the span
+	 * @return the number of the discarded events
+	 */
+	public synchronized long getUnmatched(Object identifier) {
+		Long count = unmatched.get(identifier);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * Returns the number of the pending events.
+	 *
+	 * @return the number of the pending events
+	 */
+	public synchronized int getPending() {
+		return pending.size();
+	}
+
+	/**
+	 * Deletes the histogram and the pending events of the span.
+	 *
+	 * @param identifier an identifier for the span
+	 * @return <code>true</code> if the span existed
+	 */
+	public synchronized boolean delete(Object identifier) {
+		boolean result = histograms.remove(identifier) != null;
+		result |= unmatched.remove(identifier) != null;
+		for(Iterator<SpanKey> iterator = pending.keySet().iterator(); iterator.hasNext();) {
+			if(iterator.next().identifier.equals(identifier)) {
+				iterator.remove();
+				result = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The pair of the identifier and the correlation key.
+	 */
+	private static class SpanKey {
+
+		private Object identifier;
+
+		private Object key;
+
+		private SpanKey(Object identifier, Object key) {
+			this.identifier = identifier;
+			this.key = key;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof SpanKey)) {
+				return false;
+			}
+			SpanKey other = (SpanKey) obj;
+			return identifier.equals(other.identifier) && (key == null ? other.key == null : key.equals(other.key));
+		}
+
+		@Override
+		public int hashCode() {
+			return identifier.hashCode() * 31 + (key == null ? 0 : key.hashCode());
+		}
+	}
+}
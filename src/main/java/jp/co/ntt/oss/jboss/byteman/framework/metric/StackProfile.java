@@ -0,0 +1,143 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The stack samples folded into the collapsed-stack format. <br/>
+ * Each distinct stack is kept as one line of the frames from the root to the leaf separated by <code>;</code>,
+ * with the number of the samples which hit it, so that the size depends on the number of the distinct stacks
+ * rather than the number of the samples. The output of {@link #write(Writer)} can be rendered as a flame graph.
+ * Profiles can be merged by adding the counts of the same stacks.
+ * All the methods are thread-safe.
+ */
+public class StackProfile implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The separator of the frames in a folded stack. */
+	public static final String FRAME_SEPARATOR = ";";
+
+	private Map<String, Long> counts = new HashMap<String, Long>();
+
+	private long samples;
+
+	/**
+	 * Adds a sampled stack.
+	 *
+	 * @param stack the stack trace, whose first element is the leaf as returned by {@link Thread#getStackTrace()}
+	 */
+	public void add(StackTraceElement[] stack) {
+		if(stack.length == 0) {
+			return;
+		}
+		StringBuilder folded = new StringBuilder();
+		for(int i = stack.length - 1; i >= 0; i--) {
+			folded.append(stack[i].getClassName()).append('.').append(stack[i].getMethodName());
+			if(i > 0) {
+				folded.append(FRAME_SEPARATOR);
+			}
+		}
+		add(folded.toString(), 1);
+	}
+
+	/**
+	 * Adds the samples of a folded stack.
+	 *
+	 * @param folded the frames from the root to the leaf separated by {@link #FRAME_SEPARATOR}
+	 * @param count the number of the samples
+	 */
+	public synchronized void add(String folded, long count) {
+		Long current = counts.get(folded);
+		counts.put(folded, current == null ? count : current + count);
+		samples += count;
+	}
+
+	/**
+	 * Merges another profile into this profile.
+	 *
+	 * @param other the profile to merge
+	 */
+	public void merge(StackProfile other) {
+		for(Map.Entry<String, Long> entry : other.getCounts().entrySet()) {
+			add(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Returns a copy of this profile.
+	 *
+	 * @return the copy
+	 */
+	public synchronized StackProfile copy() {
+		StackProfile copy = new StackProfile();
+		copy.counts.putAll(counts);
+		copy.samples = samples;
+		return copy;
+	}
+
+	/**
+	 * Returns the folded stacks and the numbers of their samples.
+	 *
+	 * @return the sorted map of the folded stacks and the numbers of their samples
+	 */
+	public synchronized Map<String, Long> getCounts() {
+		return new TreeMap<String, Long>(counts);
+	}
+
+	/**
+	 * Returns the number of the samples.
+	 *
+	 * @return the number of the samples
+	 */
+	public synchronized long getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Writes the profile in the collapsed-stack format, one folded stack and its count per line.
+	 *
+	 * @param writer the writer
+	 * @throws IOException if the profile could not be written
+	 */
+	public void write(Writer writer) throws IOException {
+		for(Map.Entry<String, Long> entry : getCounts().entrySet()) {
+			writer.write(entry.getKey());
+			writer.write(' ');
+			writer.write(String.valueOf(entry.getValue()));
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format("samples=%d, stacks=%d", samples, counts.size());
+	}
+}
@@ -22,7 +22,10 @@ package jp.co.ntt.oss.jboss.byteman.framework.util;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -37,6 +40,10 @@ import java.util.Properties;
  * <tr><td>controller.rmi.address</td><td>true</td><td>&nbsp;</td><td>The host name or IP address of a RMI server.</td></tr>
  * <tr><td>controller.rmi.port</td><td>false</td><td>1099</td><td>The port of a RMI server.</td></tr>
  * <tr><td>controller.result.dir</td><td>false</td><td>&nbsp;</td><td>The directory path for result files.</td></tr>
+ * <tr><td>controller.journal</td><td>false</td><td>false</td><td>Whether to journal the state of the controller in the result directory.
+ * The state is restored when the controller is restarted on the same result directory.</td></tr>
+ * <tr><td>controller.shards</td><td>false</td><td>&nbsp;</td><td>The comma separated addresses of the controller shards in the form of host:port.
+ * The identifiers are distributed across the shards if it is set.</td></tr>
  * <tr><td>deployment.destination</td><td>false</td><td>&nbsp;</td><td>The directory path of the deployment destination.</td></tr>
  * </table>
  * <br/>
@@ -51,6 +58,8 @@ import java.util.Properties;
  * <tr><td>node.bytemanframework.jar.$identifier</td><td>false</td><td>&nbsp;</td><td>The jar file path of this Byteman framework.</td></tr>
  * <tr><td>node.ssh.username.$identifier</td><td>false</td><td>&nbsp;</td><td>The username for SSH login.</td></tr>
  * <tr><td>node.ssh.password.$identifier</td><td>false</td><td>&nbsp;</td><td>The password for SSH login.</td></tr>
+ * <tr><td>node.relay.$identifier</td><td>false</td><td>&nbsp;</td><td>The relay controller which the node uses, in the form of host:port.
+ * The node uses the controller directly if it is not set.</td></tr>
  * </table>
  */
 public class DistributedConfig {
@@ -60,6 +69,10 @@ public class DistributedConfig {
 	public static final String CONTROLLER_RMI_PORT = "controller.rmi.port";
 	/** The property key for the directory path for results on the controller. */
 	public static final String CONTROLLER_RESULT_DIR = "controller.result.dir";
+	/** The property key for whether to journal the state of the controller. */
+	public static final String CONTROLLER_JOURNAL = "controller.journal";
+	/** The property key for the addresses of the controller shards. */
+	public static final String CONTROLLER_SHARDS = "controller.shards";
 	/** The property key for the directory path of the deployment destination. */
 	public static final String DEPLOY_DESTINATION = "deployment.destination";
 	/** The property key for node addresses. */
@@ -74,6 +87,8 @@ public class DistributedConfig {
 	public static final String NODE_SSH_USERNAME = "node.ssh.username";
 	/** The property key for node.ssh.password. */
 	public static final String NODE_SSH_PASSWORD = "node.ssh.password";
+	/** The property key for the relay controller of nodes. */
+	public static final String NODE_RELAY = "node.relay";
 
 	private static final String FILE_NAME = "byteman-framework.properties";
 
@@ -84,6 +99,8 @@ public class DistributedConfig {
 	private String rmiAddress;
 	private int rmiPort;
 	private String resultDir;
+	private boolean journal;
+	private List<String> shards;
 	private String deploymentDestination;
 
 	private Map<String, DistributedNodeConfig> nodeConfigs;
@@ -110,6 +127,16 @@ public class DistributedConfig {
 		}
 		rmiPort = Integer.parseInt(properties.getProperty(CONTROLLER_RMI_PORT, defaultNodeValues.get(CONTROLLER_RMI_PORT)));
 		resultDir = properties.getProperty(CONTROLLER_RESULT_DIR);
+		journal = Boolean.parseBoolean(properties.getProperty(CONTROLLER_JOURNAL));
+		shards = new ArrayList<String>();
+		String shardsValue = properties.getProperty(CONTROLLER_SHARDS);
+		if(shardsValue != null) {
+			for(String shard : shardsValue.split(",")) {
+				if(shard.trim().length() > 0) {
+					shards.add(shard.trim());
+				}
+			}
+		}
 		deploymentDestination = properties.getProperty(DEPLOY_DESTINATION);
 		nodeConfigs = new HashMap<String, DistributedConfig.DistributedNodeConfig>();
 		// extracts node properties.
@@ -173,6 +200,24 @@ public class DistributedConfig {
 		return resultDir;
 	}
 	
+	/**
+	 * Returns whether to journal the state of the controller.
+	 *
+	 * @return <code>true</code> if the state of the controller is journaled
+	 */
+	public boolean isJournal() {
+		return journal;
+	}
+
+	/**
+	 * Returns the addresses of the controller shards.
+	 *
+	 * @return the addresses of the controller shards in the form of host:port, or an empty list if the controller is not sharded
+	 */
+	public List<String> getShards() {
+		return Collections.unmodifiableList(shards);
+	}
+
 	/**
 	 * Returns the deployment destination.
 	 * 
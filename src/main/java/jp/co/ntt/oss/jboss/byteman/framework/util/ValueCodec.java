@@ -0,0 +1,142 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * The utility class which encodes values into compact byte arrays. <br/>
+ * <code>null</code>, the wrappers of the primitive types and strings are encoded as a type byte followed by their
+ * binary representation, and the other values by the Java serialization. The controller node keeps the encoded values
+ * as they are, so that it does not need the classes of the values.
+ */
+public class ValueCodec {
+
+	private static final byte TYPE_NULL = 'N';
+	private static final byte TYPE_STRING = 'S';
+	private static final byte TYPE_INTEGER = 'I';
+	private static final byte TYPE_LONG = 'J';
+	private static final byte TYPE_DOUBLE = 'D';
+	private static final byte TYPE_FLOAT = 'F';
+	private static final byte TYPE_BOOLEAN = 'Z';
+	private static final byte TYPE_SHORT = 'H';
+	private static final byte TYPE_BYTE = 'B';
+	private static final byte TYPE_CHARACTER = 'C';
+	private static final byte TYPE_OBJECT = 'O';
+
+	private ValueCodec() {
+	}
+
+	/**
+	 * Encodes a value.
+	 *
+	 * @param value the value, which must be serializable unless it is <code>null</code>, a primitive wrapper or a string
+	 * @return the encoded value
+	 * @throws IOException if the value could not be serialized
+	 */
+	public static byte[] encode(Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+		DataOutputStream out = new DataOutputStream(bytes);
+		if(value == null) {
+			out.writeByte(TYPE_NULL);
+		} else if(value instanceof String) {
+			out.writeByte(TYPE_STRING);
+			out.write(((String) value).getBytes("UTF-8"));
+		} else if(value instanceof Integer) {
+			out.writeByte(TYPE_INTEGER);
+			out.writeInt((Integer) value);
+		} else if(value instanceof Long) {
+			out.writeByte(TYPE_LONG);
+			out.writeLong((Long) value);
+		} else if(value instanceof Double) {
+			out.writeByte(TYPE_DOUBLE);
+			out.writeDouble((Double) value);
+		} else if(value instanceof Float) {
+			out.writeByte(TYPE_FLOAT);
+			out.writeFloat((Float) value);
+		} else if(value instanceof Boolean) {
+			out.writeByte(TYPE_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if(value instanceof Short) {
+			out.writeByte(TYPE_SHORT);
+			out.writeShort((Short) value);
+		} else if(value instanceof Byte) {
+			out.writeByte(TYPE_BYTE);
+			out.writeByte((Byte) value);
+		} else if(value instanceof Character) {
+			out.writeByte(TYPE_CHARACTER);
+			out.writeChar((Character) value);
+		} else {
+			out.writeByte(TYPE_OBJECT);
+			ObjectOutputStream object = new ObjectOutputStream(out);
+			object.writeObject(value);
+			object.flush();
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Decodes a value encoded by {@link #encode(Object)}.
+	 *
+	 * @param bytes the encoded value
+	 * @return the value
+	 * @throws IOException if the value could not be deserialized
+	 */
+	public static Object decode(byte[] bytes) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		switch(in.readByte()) {
+		case TYPE_NULL:
+			return null;
+		case TYPE_STRING:
+			return new String(bytes, 1, bytes.length - 1, "UTF-8");
+		case TYPE_INTEGER:
+			return in.readInt();
+		case TYPE_LONG:
+			return in.readLong();
+		case TYPE_DOUBLE:
+			return in.readDouble();
+		case TYPE_FLOAT:
+			return in.readFloat();
+		case TYPE_BOOLEAN:
+			return in.readBoolean();
+		case TYPE_SHORT:
+			return in.readShort();
+		case TYPE_BYTE:
+			return in.readByte();
+		case TYPE_CHARACTER:
+			return in.readChar();
+		case TYPE_OBJECT:
+			try {
+				return new ObjectInputStream(in).readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException(String.format("Failed to read the value: %s", e.getMessage()));
+			}
+		default:
+			throw new IOException(String.format("[%d] is not a valid type of the value.", bytes[0]));
+		}
+	}
+}
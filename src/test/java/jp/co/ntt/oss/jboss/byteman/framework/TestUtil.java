@@ -20,6 +20,8 @@
 package jp.co.ntt.oss.jboss.byteman.framework;
 
 import java.lang.reflect.Field;
+import java.rmi.server.ExportException;
+import java.util.concurrent.Callable;
 
 public class TestUtil {
 
@@ -58,4 +60,21 @@ public class TestUtil {
 		field.setAccessible(true);
 		field.set(target, value);
 	}
+
+	/**
+	 * Creates an object which exports a RMI registry.
+	 * Retries while the port is still held by the registry of the previous test.
+	 */
+	public static <T> T export(Callable<T> factory) throws Exception {
+		for(int i = 0; ; i++) {
+			try {
+				return factory.call();
+			} catch (ExportException e) {
+				if(i >= 50) {
+					throw e;
+				}
+				Thread.sleep(100);
+			}
+		}
+	}
 }
@@ -22,19 +22,49 @@ package jp.co.ntt.oss.jboss.byteman.framework.adapter;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.rmi.ConnectException;
 import java.rmi.RemoteException;
+import java.rmi.UnmarshalException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 import jp.co.ntt.oss.jboss.byteman.framework.TestUtil;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Journal.Kind;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Journal.Operation;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.CallbackIF;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.NodeIF;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.Stress;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.StressStatus;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Clock;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Frequency;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HeavyHitters;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.LatencyHistogram;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Rate;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Reservoir;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanEvent;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.StackProfile;
+import jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec;
 
 import org.jboss.byteman.rule.helper.Helper;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 public class DistributedAdapterImplTest {
 
@@ -43,11 +73,15 @@ public class DistributedAdapterImplTest {
 	@Mock
 	private Helper helper;
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Before
 	public void setup() throws Exception {
 		MockitoAnnotations.initMocks(this);
 		adapter = spy(new DistributedAdapterImpl());
 		adapter.helper = helper;
+		((Map<?, ?>) TestUtil.getValue(adapter, "lostNodes")).clear();
 	}
 
 	@Test
@@ -543,4 +577,961 @@ public class DistributedAdapterImplTest {
 		}
 	}
 
+	/* namespace */
+	@Test
+	public void deleteNamespace_1() throws Exception {
+		// stubbing
+		Namespace namespace = new Namespace("ns1");
+		Object flag = namespace.scope("flag");
+		Object rendezvous = namespace.scope("rendezvous");
+		when(helper.createRendezvous(rendezvous, 3, false)).thenReturn(true);
+		when(helper.isCountDown(flag)).thenReturn(true, false);
+
+		adapter.flag(flag);
+		adapter.createRendezvous(rendezvous, 3, false);
+		adapter.flag("unscoped");
+
+		assertEquals(2, adapter.deleteNamespace("ns1"));
+
+		verify(helper).clear(flag);
+		verify(helper).deleteCounter(flag);
+		verify(helper).deleteTimer(flag);
+		verify(helper).traceClose(flag);
+		verify(helper).signalWake(flag, false);
+		verify(helper).countDown(flag);
+		verify(helper).deleteRendezvous(rendezvous, 3);
+		verify(helper, never()).clear("unscoped");
+
+		assertEquals(0, adapter.deleteNamespace("ns1"));
+	}
+
+	@Test
+	public void deleteNamespace_2() throws Exception {
+		// stubbing
+		Object identifier = new Namespace("ns2").scope("test");
+		Map<Object, CallbackIF> map = new ConcurrentHashMap<Object, CallbackIF>();
+		TestUtil.setValue(adapter, "callbacks", map);
+
+		adapter.registerCallback(identifier, mock(CallbackIF.class));
+		adapter.registerCallback("test", mock(CallbackIF.class));
+		assertEquals(2, map.size());
+
+		assertEquals(1, adapter.deleteNamespace("ns2"));
+		assertEquals(1, map.size());
+		assertTrue(map.containsKey("test"));
+	}
+
+	@Test
+	public void deleteNamespace_3() throws Exception {
+		// stubbing
+		Namespace namespace = new Namespace("ns3");
+		Object trace = namespace.scope("trace");
+		Object rendezvous = namespace.scope("rendezvous");
+		when(helper.createRendezvous(rendezvous, 3, false)).thenReturn(true);
+		when(helper.deleteRendezvous(rendezvous, 3)).thenReturn(true);
+
+		// the trace opened by the first output is closed with the namespace.
+		adapter.traceln(trace, "msg");
+		adapter.createRendezvous(rendezvous, 3, false);
+		assertTrue(adapter.deleteRendezvous(rendezvous, 3));
+
+		assertEquals(2, adapter.deleteNamespace("ns3"));
+
+		verify(helper).traceClose(trace);
+		// the deleted rendezvous is not deleted again.
+		verify(helper).deleteRendezvous(rendezvous, 3);
+	}
+
+	@Test
+	public void openJournal_1() throws Exception {
+		// stubbing
+		File dir = folder.getRoot();
+		Journal journal = new Journal(dir);
+		journal.append(Kind.FLAG, Operation.SET, "flag", 1);
+		journal.append(Kind.COUNTER, Operation.SET, "counter", 10);
+		journal.append(Kind.COUNT_DOWN, Operation.SET, "countDown", 2);
+		journal.append(Kind.TIMER, Operation.SET, "timer", System.currentTimeMillis() - 1000);
+		journal.close();
+		when(helper.getElapsedTimeFromTimer("timer")).thenReturn(10L);
+
+		adapter.openJournal(new Journal(dir));
+		try {
+			verify(helper).flag("flag");
+			verify(helper).createCounter("counter", 10);
+			verify(helper).createCountDown("countDown", 2);
+			verify(helper).createTimer("timer");
+			assertTrue(adapter.getElapsedTimeFromTimer("timer") >= 1010);
+		} finally {
+			adapter.closeJournal();
+		}
+	}
+
+	@Test
+	public void openJournal_2() throws Exception {
+		// stubbing
+		File dir = folder.getRoot();
+		when(helper.flag("flag")).thenReturn(true);
+		when(helper.createCounter("counter", 10)).thenReturn(true);
+		when(helper.createCountDown("countDown", 2)).thenReturn(true);
+		when(helper.isCountDown("countDown")).thenReturn(true);
+		when(helper.countDown("countDown")).thenReturn(false);
+		when(helper.flag("cleared")).thenReturn(true);
+		when(helper.clear("cleared")).thenReturn(true);
+
+		adapter.openJournal(new Journal(dir));
+		adapter.flag("flag");
+		adapter.createCounter("counter", 10);
+		adapter.incrementCounter("counter", 5);
+		adapter.decrementCounter("counter");
+		adapter.createCountDown("countDown", 2);
+		adapter.countDown("countDown");
+		adapter.flag("cleared");
+		adapter.clear("cleared");
+		adapter.closeJournal();
+		// not journaled after closed.
+		adapter.flag("closed");
+
+		Journal journal = new Journal(dir);
+		assertEquals(Long.valueOf(1), journal.get(Kind.FLAG, "flag"));
+		assertEquals(Long.valueOf(14), journal.get(Kind.COUNTER, "counter"));
+		assertEquals(Long.valueOf(1), journal.get(Kind.COUNT_DOWN, "countDown"));
+		assertNull(journal.get(Kind.FLAG, "cleared"));
+		assertNull(journal.get(Kind.FLAG, "closed"));
+		journal.close();
+	}
+
+	@Test
+	public void openJournal_3() throws Exception {
+		// stubbing
+		File dir = folder.getRoot();
+		when(helper.flag("flag")).thenReturn(false);
+		when(helper.clear("cleared")).thenReturn(false);
+		when(helper.isCountDown("countDown")).thenReturn(false);
+		when(helper.countDown("countDown")).thenReturn(false);
+		when(helper.deleteCounter("counter")).thenReturn(false);
+		when(helper.deleteTimer("timer")).thenReturn(false);
+
+		adapter.openJournal(new Journal(dir));
+		// none of them changes the state.
+		adapter.flag("flag");
+		adapter.clear("cleared");
+		adapter.countDown("countDown");
+		adapter.deleteCounter("counter");
+		adapter.deleteTimer("timer");
+		adapter.closeJournal();
+
+		assertTrue(Journal.read(dir).isEmpty());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getLatencyHistogram_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		NodeIF node3 = mock(NodeIF.class);
+		LatencyHistogram histogram1 = new LatencyHistogram();
+		histogram1.record(1000);
+		LatencyHistogram histogram2 = new LatencyHistogram();
+		histogram2.record(2000);
+		when(node1.getLatencyHistogram("latency")).thenReturn(histogram1);
+		when(node2.getLatencyHistogram("latency")).thenReturn(histogram2);
+		when(node3.getLatencyHistogram("latency")).thenThrow(new RemoteException());
+		doThrow(new RemoteException()).when(node3).discardCachedState();
+
+		try {
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+			adapter.registerNode("node3", node3);
+
+			LatencyHistogram result = adapter.getLatencyHistogram("latency");
+			assertEquals(2, result.getCount());
+			assertEquals(2000, result.getMax());
+			assertEquals(2, adapter.getLatencyCount("latency"));
+			assertEquals(2000, adapter.getLatencyMax("latency"));
+			assertEquals(1000, adapter.getLatencyPercentile("latency", 50), 1000 / 128);
+			// the node which cannot be reached is unregistered.
+			assertEquals(2, nodes.size());
+			assertFalse(nodes.containsKey("node3"));
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void deleteLatency_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		when(node2.deleteLatency("latency")).thenReturn(true);
+
+		try {
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+
+			assertTrue(adapter.deleteLatency("latency"));
+			assertEquals(0, adapter.deleteNamespace("ns3"));
+			verify(node1).deleteLatency("latency");
+			verify(node1).deleteNamespace("ns3");
+			verify(node2).deleteNamespace("ns3");
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void reportSpans_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		// the clock of node2 is ahead by 10 seconds.
+		when(node1.currentTimeNanos()).thenAnswer(new Answer<Long>() {
+			@Override
+			public Long answer(InvocationOnMock invocation) throws Throwable {
+				return Clock.currentTimeNanos();
+			}
+		});
+		when(node2.currentTimeNanos()).thenAnswer(new Answer<Long>() {
+			@Override
+			public Long answer(InvocationOnMock invocation) throws Throwable {
+				return Clock.currentTimeNanos() + 10000000000L;
+			}
+		});
+
+		try {
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+			assertTrue(Math.abs(10000000000L - (adapter.getClockOffset("node2") - adapter.getClockOffset("node1"))) < 100000000L);
+
+			long start = Clock.currentTimeNanos();
+			adapter.reportSpans("node2", Arrays.asList(new SpanEvent("span", "key1", false, start + 10000000000L + 5000000L)));
+			adapter.reportSpans("node1", Arrays.asList(new SpanEvent("span", "key1", true, start)));
+
+			LatencyHistogram histogram = adapter.getSpanHistogram("span");
+			assertEquals(1, histogram.getCount());
+			assertTrue(Math.abs(5000000L - histogram.getMax()) < 100000000L);
+			assertEquals(0, adapter.getUnmatchedSpans("span"));
+			assertTrue(adapter.deleteSpan("span"));
+			assertFalse(adapter.deleteSpan("span"));
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	public void reportSpans_2() throws Exception {
+		Object identifier = new Namespace("ns4").scope("span");
+		adapter.reportSpans("node1", Arrays.asList(new SpanEvent(identifier, "key1", true, 1000), new SpanEvent(identifier, "key1", false, 2000)));
+		assertEquals(1, adapter.getSpanHistogram(identifier).getCount());
+
+		assertEquals(1, adapter.deleteNamespace("ns4"));
+		assertEquals(0, adapter.getSpanHistogram(identifier).getCount());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getClockOffset_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		when(node1.currentTimeNanos()).thenAnswer(new Answer<Long>() {
+			@Override
+			public Long answer(InvocationOnMock invocation) throws Throwable {
+				return Clock.currentTimeNanos() - 3000000000L;
+			}
+		});
+		when(node2.currentTimeNanos()).thenThrow(new RemoteException());
+
+		try {
+			adapter.getClockOffset("node9");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[node9] is not registered.", e.getMessage());
+		}
+		try {
+			adapter.registerNode("node1", node1);
+			verify(node1, times(DistributedAdapterImpl.CLOCK_INITIAL_SAMPLES)).currentTimeNanos();
+			assertTrue(Math.abs(-3000000000L - adapter.getClockOffset("node1")) < 100000000L);
+			assertTrue(adapter.getClockError("node1") < 100000000L);
+			adapter.getClockDrift("node1");
+
+			// the node which cannot be reached is unregistered.
+			adapter.registerNode("node2", node2);
+			assertFalse(nodes.containsKey("node2"));
+
+			adapter.sampleClocks();
+			verify(node1, atLeast(DistributedAdapterImpl.CLOCK_INITIAL_SAMPLES + 1)).currentTimeNanos();
+			// the lost node is retried.
+			verify(node2, atLeastOnce()).discardCachedState();
+			assertFalse(nodes.containsKey("node2"));
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void retryLostNodes_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		when(node1.currentTimeNanos()).thenThrow(new RemoteException()).thenReturn(1L);
+		doThrow(new RemoteException()).doNothing().when(node1).discardCachedState();
+
+		try {
+			adapter.registerNode("node1", node1);
+			assertFalse(nodes.containsKey("node1"));
+
+			// the node is still unreachable.
+			adapter.retryLostNodes();
+			assertFalse(nodes.containsKey("node1"));
+			// the node comes back, and its cached state is discarded.
+			adapter.retryLostNodes();
+			assertSame(node1, nodes.get("node1"));
+			verify(node1, times(2)).discardCachedState();
+			assertTrue(((Map<?, ?>) TestUtil.getValue(adapter, "lostNodes")).isEmpty());
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	public void reportMarks_1() throws Exception {
+		Map<Object, Long> deltas1 = new HashMap<Object, Long>();
+		deltas1.put("reportMarks_1", 10L);
+		Map<Object, Long> deltas2 = new HashMap<Object, Long>();
+		deltas2.put("reportMarks_1", 5L);
+		deltas2.put(new Namespace("ns5").scope("rate"), 1L);
+
+		adapter.reportMarks("node1", deltas1);
+		adapter.reportMarks("node2", deltas2);
+		adapter.reportMarks("node1", deltas1);
+
+		assertEquals(25, adapter.getRate("reportMarks_1").getCount());
+		Map<String, Rate> result = adapter.getNodeRates("reportMarks_1");
+		assertEquals(2, result.size());
+		assertEquals(20, result.get("node1").getCount());
+		assertEquals(5, result.get("node2").getCount());
+		assertEquals(0, adapter.getRate("other").getCount());
+		assertTrue(adapter.getNodeRates("other").isEmpty());
+
+		assertTrue(adapter.deleteRate("reportMarks_1"));
+		assertFalse(adapter.deleteRate("reportMarks_1"));
+		assertTrue(adapter.getNodeRates("reportMarks_1").isEmpty());
+
+		assertEquals(1, adapter.deleteNamespace("ns5"));
+		assertEquals(0, adapter.getRate(new Namespace("ns5").scope("rate")).getCount());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getDistinctSketch_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		NodeIF node3 = mock(NodeIF.class);
+		HyperLogLog sketch1 = new HyperLogLog();
+		HyperLogLog sketch2 = new HyperLogLog();
+		for(int i = 0; i < 100; i++) {
+			sketch1.offer(i);
+			sketch2.offer(i + 50);
+		}
+		when(node1.getDistinctSketch("distinct")).thenReturn(sketch1);
+		when(node2.getDistinctSketch("distinct")).thenReturn(sketch2);
+		when(node3.deleteDistinct("distinct")).thenReturn(true);
+
+		try {
+			assertNull(adapter.getDistinctSketch("distinct"));
+			assertEquals(0, adapter.getDistinctCount("distinct"));
+
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+			adapter.registerNode("node3", node3);
+
+			assertEquals(150, adapter.getDistinctCount("distinct"), 3);
+			assertTrue(adapter.deleteDistinct("distinct"));
+			verify(node1).deleteDistinct("distinct");
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getTopFrequent_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		HeavyHitters hitters1 = new HeavyHitters();
+		hitters1.offer("select", 5);
+		hitters1.offer("update", 1);
+		HeavyHitters hitters2 = new HeavyHitters();
+		hitters2.offer("update", 7);
+		when(node1.getFrequentSketch("frequent")).thenReturn(hitters1);
+		when(node2.getFrequentSketch("frequent")).thenReturn(hitters2);
+		when(node2.deleteFrequent("frequent")).thenReturn(true);
+
+		try {
+			assertNull(adapter.getFrequentSketch("frequent"));
+			assertTrue(adapter.getTopFrequent("frequent").isEmpty());
+
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+
+			List<Frequency> top = adapter.getTopFrequent("frequent");
+			assertEquals(2, top.size());
+			assertEquals("update", top.get(0).getValue());
+			assertEquals(8, top.get(0).getCount());
+			assertEquals("select", top.get(1).getValue());
+			assertEquals(5, top.get(1).getCount());
+			assertTrue(adapter.deleteFrequent("frequent"));
+			verify(node1).deleteFrequent("frequent");
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getSample_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		Reservoir reservoir1 = new Reservoir(10);
+		reservoir1.offer("value1");
+		Reservoir reservoir2 = new Reservoir(10);
+		reservoir2.offer("value2");
+		when(node1.getReservoir("sample")).thenReturn(reservoir1);
+		when(node2.getReservoir("sample")).thenReturn(reservoir2);
+		when(node1.deleteSample("sample")).thenReturn(true);
+
+		try {
+			assertNull(adapter.getReservoir("sample"));
+			assertTrue(adapter.getSample("sample").isEmpty());
+
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+
+			List<Object> sample = adapter.getSample("sample");
+			assertEquals(2, sample.size());
+			assertTrue(sample.contains("value1"));
+			assertTrue(sample.contains("value2"));
+			assertEquals(2, adapter.getReservoir("sample").getCount());
+			assertTrue(adapter.deleteSample("sample"));
+			verify(node2).deleteSample("sample");
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getResourceHistogram_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		LatencyHistogram histogram1 = new LatencyHistogram();
+		histogram1.record(1000);
+		LatencyHistogram histogram2 = new LatencyHistogram();
+		histogram2.record(3000);
+		when(node1.getResourceHistogram("region", Resource.ALLOCATED_BYTES)).thenReturn(histogram1);
+		when(node2.getResourceHistogram("region", Resource.ALLOCATED_BYTES)).thenReturn(histogram2);
+		when(node2.deleteResource("region")).thenReturn(true);
+
+		try {
+			assertEquals(0, adapter.getResourceHistogram("region", Resource.ALLOCATED_BYTES).getCount());
+
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+
+			LatencyHistogram histogram = adapter.getResourceHistogram("region", Resource.ALLOCATED_BYTES);
+			assertEquals(2, histogram.getCount());
+			assertEquals(1000, histogram.getMin());
+			assertEquals(3000, histogram.getMax());
+			assertEquals(0, adapter.getResourceHistogram("region", Resource.CPU_TIME).getCount());
+			assertTrue(adapter.deleteResource("region"));
+			verify(node1).deleteResource("region");
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getContentionHistogram_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		NodeIF node3 = mock(NodeIF.class);
+		LatencyHistogram histogram1 = new LatencyHistogram();
+		histogram1.record(1000);
+		histogram1.record(2000);
+		LatencyHistogram histogram2 = new LatencyHistogram();
+		histogram2.record(5000);
+		when(node1.getContentionHistogram("monitor")).thenReturn(histogram1);
+		when(node2.getContentionHistogram("monitor")).thenReturn(histogram2);
+		when(node1.deleteContention("monitor")).thenReturn(true);
+
+		try {
+			assertEquals(0, adapter.getContentionHistogram("monitor").getCount());
+
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+			adapter.registerNode("node3", node3);
+
+			Map<String, LatencyHistogram> histograms = adapter.getNodeContentionHistograms("monitor");
+			assertEquals(2, histograms.size());
+			assertEquals(2, histograms.get("node1").getCount());
+			assertEquals(5000, histograms.get("node2").getMax());
+			LatencyHistogram histogram = adapter.getContentionHistogram("monitor");
+			assertEquals(3, histogram.getCount());
+			assertEquals(5000, histogram.getMax());
+			assertEquals(2, histogram1.getCount());
+			assertTrue(adapter.deleteContention("monitor"));
+			verify(node3).deleteContention("monitor");
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	public void reportProfile_1() throws Exception {
+		File directory = new File(folder.getRoot(), "profile");
+		StackProfile profile1 = new StackProfile();
+		profile1.add("a.Root.main;a.Leaf.run", 3);
+		StackProfile profile2 = new StackProfile();
+		profile2.add("a.Root.main", 2);
+
+		try {
+			adapter.setProfileDirectory(directory);
+			assertNull(adapter.getProfile("profile"));
+			adapter.reportProfile("node1", "profile", profile1);
+			adapter.reportProfile("node2", "profile", profile2);
+
+			StackProfile profile = adapter.getProfile("profile");
+			assertEquals(5, profile.getSamples());
+			assertEquals(2, profile.getCounts().size());
+			String[] files = directory.list();
+			Arrays.sort(files);
+			assertEquals(2, files.length);
+			assertTrue(files[0], files[0].startsWith("profile-node1-"));
+			assertTrue(files[1], files[1].startsWith("profile-node2-"));
+			BufferedReader reader = new BufferedReader(new FileReader(new File(directory, files[0])));
+			try {
+				assertEquals("a.Root.main;a.Leaf.run 3", reader.readLine());
+				assertNull(reader.readLine());
+			} finally {
+				reader.close();
+			}
+			assertTrue(adapter.deleteProfile("profile"));
+			assertNull(adapter.getProfile("profile"));
+		} finally {
+			adapter.setProfileDirectory(null);
+		}
+	}
+
+	@Test
+	public void createSemaphore_1() throws Exception {
+		try {
+			assertTrue(adapter.createSemaphore("semaphore", 1));
+			assertFalse(adapter.createSemaphore("semaphore", 2));
+
+			long ticket1 = adapter.requestPermit("semaphore", "node1");
+			long ticket2 = adapter.requestPermit("semaphore", "node1");
+			assertTrue(adapter.pollPermit("semaphore", ticket1));
+			assertFalse(adapter.pollPermit("semaphore", ticket2));
+			assertEquals(0, adapter.getAvailablePermits("semaphore"));
+			assertEquals(1, adapter.getPermitQueueLength("semaphore"));
+			assertTrue(adapter.releasePermit("semaphore", "node1"));
+			assertTrue(adapter.pollPermit("semaphore", ticket2));
+			assertTrue(adapter.releasePermit("semaphore", "node1"));
+			assertFalse(adapter.releasePermit("semaphore", "node1"));
+		} finally {
+			assertTrue(adapter.deleteSemaphore("semaphore"));
+		}
+		assertFalse(adapter.cancelPermit("semaphore", 1));
+		try {
+			adapter.requestPermit("semaphore", "node1");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The semaphore of the identifier [semaphore] is not created.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void createTokenBucket_1() throws Exception {
+		try {
+			assertTrue(adapter.createTokenBucket("bucket", 100, 10));
+			assertFalse(adapter.createTokenBucket("bucket", 200, 10));
+			assertEquals(100.0, adapter.getTokenRate("bucket"), 0);
+
+			assertEquals(5, adapter.leaseTokens("bucket"));
+			assertEquals(5, adapter.leaseTokens("bucket"));
+			adapter.setTokenRate("bucket", 1000, 100);
+			assertEquals(1000.0, adapter.getTokenRate("bucket"), 0);
+		} finally {
+			assertTrue(adapter.deleteTokenBucket("bucket"));
+		}
+		try {
+			adapter.leaseTokens("bucket");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The token bucket of the identifier [bucket] is not created.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void createPhaser_1() throws Exception {
+		try {
+			assertTrue(adapter.createPhaser("phaser", 1));
+			assertFalse(adapter.createPhaser("phaser", 2));
+
+			assertEquals(0, adapter.registerPhaser("phaser"));
+			assertEquals(2, adapter.getPhaserParties("phaser"));
+			assertEquals(0, adapter.arrivePhaser("phaser"));
+			assertEquals(1, adapter.getArrivedParties("phaser"));
+			assertEquals(0, adapter.deregisterPhaser("phaser"));
+			assertEquals(1, adapter.getPhase("phaser"));
+			assertEquals(1, adapter.getPhaserParties("phaser"));
+		} finally {
+			assertTrue(adapter.deletePhaser("phaser"));
+		}
+		try {
+			adapter.getPhase("phaser");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The phaser of the identifier [phaser] is not created.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void awaitCountDown_1() throws Exception {
+		// stubbing
+		adapter.helper = new Helper(null) {
+		};
+		adapter.createCountDown("countDown", 1);
+
+		// a countdown which is not created is waited for.
+		assertFalse(adapter.awaitCountDown("none", 50));
+		long start = System.currentTimeMillis();
+		assertFalse(adapter.awaitCountDown("countDown", 50));
+		assertTrue(System.currentTimeMillis() - start >= 50);
+
+		Thread counter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+					adapter.countDown("countDown");
+					adapter.countDown("countDown");
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		counter.start();
+		assertTrue(adapter.awaitCountDown("countDown", 10000));
+		assertFalse(adapter.isCountDown("countDown"));
+		counter.join();
+		// a thread which arrives after the trigger returns at once, until the countdown is created again.
+		assertTrue(adapter.awaitCountDown("countDown", 0));
+		adapter.createCountDown("countDown", 1);
+		assertFalse(adapter.awaitCountDown("countDown", 0));
+		assertFalse(adapter.countDown("countDown"));
+		assertTrue(adapter.countDown("countDown"));
+		assertTrue(adapter.awaitCountDown("countDown", 0));
+	}
+
+	/**
+	 * A thread which arrives before the countdown is created waits for it to be triggered.
+	 */
+	@Test
+	public void awaitCountDown_2() throws Exception {
+		// stubbing
+		adapter.helper = new Helper(null) {
+		};
+		Thread creator = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+					adapter.createCountDown("awaitCountDown_2", 1);
+					Thread.sleep(50);
+					adapter.countDown("awaitCountDown_2");
+					adapter.countDown("awaitCountDown_2");
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		creator.start();
+		long start = System.currentTimeMillis();
+		assertTrue(adapter.awaitCountDown("awaitCountDown_2", 10000));
+		assertTrue(System.currentTimeMillis() - start >= 100);
+		creator.join();
+	}
+
+	@Test
+	public void awaitCountDown_3() throws Exception {
+		// stubbing
+		adapter.helper = new Helper(null) {
+		};
+		Map<?, ?> gates = (Map<?, ?>) TestUtil.getValue(adapter, "countDownGates");
+
+		// the gate of a countdown never created is removed when its waiter times out.
+		assertFalse(adapter.awaitCountDown("awaitCountDown_3", 10));
+		assertFalse(gates.containsKey("awaitCountDown_3"));
+
+		// the gate of a triggered countdown is removed after the retention.
+		adapter.createCountDown("awaitCountDown_3", 1);
+		adapter.countDown("awaitCountDown_3");
+		assertTrue(adapter.countDown("awaitCountDown_3"));
+		assertTrue(adapter.awaitCountDown("awaitCountDown_3", 10));
+		adapter.pruneCountDownGates(System.currentTimeMillis());
+		assertTrue(gates.containsKey("awaitCountDown_3"));
+		adapter.pruneCountDownGates(System.currentTimeMillis() + DistributedAdapterImpl.COUNT_DOWN_RETENTION + 1);
+		assertFalse(gates.containsKey("awaitCountDown_3"));
+		assertFalse(adapter.awaitCountDown("awaitCountDown_3", 10));
+		assertFalse(gates.containsKey("awaitCountDown_3"));
+	}
+
+	@Test
+	public void createMailbox_1() throws Exception {
+		try {
+			assertTrue(adapter.createMailbox("mailbox", 2));
+			assertFalse(adapter.createMailbox("mailbox", 3));
+
+			assertTrue(adapter.putMail("mailbox", new byte[] {1}, 0));
+			assertTrue(adapter.putMail("mailbox", new byte[] {2}, 0));
+			assertFalse(adapter.putMail("mailbox", new byte[] {3}, 10));
+			assertEquals(2, adapter.getMailboxSize("mailbox"));
+			assertArrayEquals(new byte[] {1}, adapter.takeMail("mailbox", 0));
+			assertEquals(1, adapter.drainMail("mailbox", 10).size());
+			assertNull(adapter.takeMail("mailbox", 10));
+		} finally {
+			assertTrue(adapter.deleteMailbox("mailbox"));
+		}
+		try {
+			adapter.takeMail("mailbox", 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The mailbox of the identifier [mailbox] is not created.", e.getMessage());
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void watchValue_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+
+		try {
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+
+			assertNull(adapter.watchValue("node1", "value").getValue());
+			long version = adapter.putValue("value", new byte[] {1});
+			assertEquals(version, adapter.watchValue("node1", "value").getVersion());
+			assertArrayEquals(new byte[] {1}, adapter.getValue("value").getValue());
+			// only the watching node is notified once per watch.
+			verify(node1).invalidateValue("value", version);
+			assertEquals(-1, adapter.compareAndSetValue("value", new byte[] {2}, new byte[] {3}));
+			long updated = adapter.compareAndSetValue("value", new byte[] {1}, new byte[] {3});
+			assertTrue(updated > version);
+			verify(node1).invalidateValue("value", updated);
+			adapter.putValue("value", new byte[] {4});
+			verify(node1, times(2)).invalidateValue(eq("value"), anyLong());
+			verify(node2, never()).invalidateValue(eq("value"), anyLong());
+		} finally {
+			nodes.clear();
+			adapter.deleteValue("value");
+		}
+	}
+
+	@Test
+	public void getAndUpdateValue_1() throws Exception {
+		try {
+			assertEquals(0, adapter.getAndUpdateValue("number", ValueStore.Update.ADD, 3));
+			assertEquals(3, adapter.getAndUpdateValue("number", ValueStore.Update.ADD, 3));
+			assertEquals(6L, ValueCodec.decode(adapter.getValue("number").getValue()));
+			assertTrue(adapter.deleteValue("number"));
+			assertFalse(adapter.deleteValue("number"));
+		} finally {
+			adapter.deleteValue("number");
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void acquireLease_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+
+		try {
+			adapter.registerNode("node1", node1);
+			adapter.createSemaphore("semaphore", 1);
+			long ticket = adapter.requestPermit("semaphore", "node1");
+			assertTrue(adapter.pollPermit("semaphore", ticket));
+			long token = adapter.acquireLease("lease", "node1", 60000);
+			assertEquals(-1, adapter.acquireLease("lease", "node2", 60000));
+			assertEquals(-1, adapter.acquireLease("lease", "node1", 60000));
+			assertEquals("node1", adapter.getLeaseHolder("lease"));
+			assertTrue(adapter.renewLease("lease", token, 60000));
+			assertTrue(adapter.isLeaseValid("lease", token));
+
+			// the lease is released when the node is lost.
+			when(node1.currentTimeNanos()).thenThrow(new RemoteException());
+			adapter.sampleClocks();
+			assertNull(adapter.getLeaseHolder("lease"));
+			assertFalse(adapter.isLeaseValid("lease", token));
+			assertFalse(adapter.releaseLease("lease", token));
+			// so are the permits of the semaphore.
+			assertEquals(1, adapter.getAvailablePermits("semaphore"));
+			assertFalse(adapter.releasePermit("semaphore", "node1"));
+			assertEquals(token + 1, adapter.acquireLease("lease", "node2", 60000));
+			assertTrue(adapter.releaseLease("lease", token + 1));
+		} finally {
+			nodes.clear();
+			assertTrue(adapter.deleteLease("lease"));
+			adapter.deleteSemaphore("semaphore");
+		}
+		assertFalse(adapter.renewLease("lease", 1, 60000));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void setDelay_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1000);
+		when(node1.getInjectedDelayHistogram("delay")).thenReturn(histogram);
+		when(node2.getInjectedDelayHistogram("delay")).thenReturn(histogram);
+		when(node1.deleteInjectedDelay("delay")).thenReturn(true);
+
+		try {
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+
+			assertNull(adapter.getDelay("delay").getValue());
+			adapter.setDelay("delay", DelayDistribution.exponential(5));
+			VersionedValue delay = adapter.getDelay("delay");
+			assertEquals("exponential(5.0)", ValueCodec.decode(delay.getValue()).toString());
+			// the distribution is sent to all the nodes.
+			ArgumentCaptor<VersionedValue> captor = ArgumentCaptor.forClass(VersionedValue.class);
+			verify(node1).updateDelay(eq("delay"), captor.capture());
+			assertEquals(delay.getVersion(), captor.getValue().getVersion());
+			verify(node2).updateDelay(eq("delay"), (VersionedValue) anyObject());
+			adapter.setDelay("delay", null);
+			verify(node2, times(2)).updateDelay(eq("delay"), (VersionedValue) anyObject());
+			assertNull(adapter.getDelay("delay").getValue());
+
+			assertEquals(2, adapter.getInjectedDelayHistogram("delay").getCount());
+			assertTrue(adapter.deleteDelay("delay"));
+			verify(node2).deleteInjectedDelay("delay");
+		} finally {
+			nodes.clear();
+			adapter.deleteDelay("delay");
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getStressStatuses_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		StressStatus status = new StressStatus(Stress.Kind.CPU, 2, 0, 1000, true, false, 100);
+		when(node1.getStressStatus("stress")).thenReturn(status);
+		when(node1.cancelStress("stress")).thenReturn(true);
+
+		try {
+			adapter.registerNode("node1", node1);
+			adapter.registerNode("node2", node2);
+
+			Map<String, StressStatus> statuses = adapter.getStressStatuses("stress");
+			assertEquals(1, statuses.size());
+			assertSame(status, statuses.get("node1"));
+			assertTrue(adapter.cancelStress("stress"));
+			verify(node2).cancelStress("stress");
+		} finally {
+			nodes.clear();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void executeTask_1() throws Exception {
+		// stubbing
+		Map<String, NodeIF> nodes = (Map<String, NodeIF>) TestUtil.getValue(adapter, "nodes");
+		NodeTask<Integer> task = mock(NodeTask.class);
+		NodeIF node1 = mock(NodeIF.class);
+		NodeIF node2 = mock(NodeIF.class);
+		NodeIF node3 = mock(NodeIF.class);
+		NodeIF node4 = mock(NodeIF.class);
+		NodeIF node5 = mock(NodeIF.class);
+		when(node1.execute(task)).thenReturn(1);
+		when(node2.execute(task)).thenThrow(new ExecutionException(new IllegalStateException("failed")));
+		when(node3.execute(task)).thenAnswer(new Answer<Integer>() {
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep(10000);
+				return 3;
+			}
+		});
+		when(node4.execute(task)).thenThrow(new ConnectException("refused"));
+		doThrow(new ConnectException("refused")).when(node4).discardCachedState();
+		when(node5.execute(task)).thenThrow(new UnmarshalException("no class"));
+
+		try {
+			nodes.put("node1", node1);
+			nodes.put("node2", node2);
+			nodes.put("node3", node3);
+			nodes.put("node4", node4);
+			nodes.put("node5", node5);
+
+			long start = System.currentTimeMillis();
+			TaskResults<Integer> results = adapter.executeTask(task, null, 500);
+			assertTrue(System.currentTimeMillis() - start < 5000);
+			assertFalse(results.isSucceeded());
+			assertEquals(1, results.getResults().size());
+			assertEquals(Integer.valueOf(1), results.getResults().get("node1"));
+			assertEquals(4, results.getFailures().size());
+			// the exception thrown by the task is unwrapped.
+			assertEquals("failed", results.getFailures().get("node2").getMessage());
+			assertEquals("The task did not finish on the node [node3] in 500 milliseconds.", results.getFailures().get("node3").getMessage());
+			assertTrue(results.getFailures().get("node4") instanceof ConnectException);
+			assertTrue(results.getFailures().get("node5") instanceof UnmarshalException);
+			// only the node which cannot be reached is unregistered.
+			assertFalse(nodes.containsKey("node4"));
+			assertTrue(nodes.containsKey("node3"));
+			assertTrue(nodes.containsKey("node5"));
+
+			results = adapter.executeTask(task, Arrays.asList("node1", "node4"), 500);
+			assertEquals(Integer.valueOf(1), results.getResults().get("node1"));
+			assertEquals("[node4] is not a registered node.", results.getFailures().get("node4").getMessage());
+			verify(node4).execute(task);
+			verify(node2).execute(task);
+		} finally {
+			nodes.clear();
+		}
+	}
+
 }
@@ -0,0 +1,69 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class DistributedPhaserTest {
+
+	@Test
+	public void arrive_1() throws Exception {
+		DistributedPhaser phaser = new DistributedPhaser(2);
+		assertEquals(0, phaser.arrive());
+		assertEquals(0, phaser.getPhase());
+		assertEquals(1, phaser.getArrived());
+		assertEquals(0, phaser.arrive());
+		assertEquals(1, phaser.getPhase());
+		assertEquals(0, phaser.getArrived());
+
+		// a party registers between the phases.
+		assertEquals(1, phaser.register());
+		assertEquals(1, phaser.arrive());
+		assertEquals(1, phaser.arrive());
+		assertEquals(1, phaser.getPhase());
+		assertEquals(1, phaser.arrive());
+		assertEquals(2, phaser.getPhase());
+	}
+
+	@Test
+	public void arriveAndDeregister_1() throws Exception {
+		DistributedPhaser phaser = new DistributedPhaser(3);
+		phaser.arrive();
+		phaser.arrive();
+		// the last party leaves, which advances the phase.
+		assertEquals(0, phaser.arriveAndDeregister());
+		assertEquals(1, phaser.getPhase());
+		assertEquals(2, phaser.getParties());
+
+		phaser.arriveAndDeregister();
+		phaser.arriveAndDeregister();
+		assertEquals(0, phaser.getParties());
+		assertEquals(1, phaser.getPhase());
+		try {
+			phaser.arrive();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("All the 0 parties have already arrived at the phase 1.", e.getMessage());
+		}
+	}
+
+}
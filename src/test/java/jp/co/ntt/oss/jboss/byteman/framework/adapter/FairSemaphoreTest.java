@@ -0,0 +1,106 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FairSemaphoreTest {
+
+	@Test
+	public void request_1() throws Exception {
+		FairSemaphore semaphore = new FairSemaphore(2);
+		long ticket1 = semaphore.request("node1");
+		long ticket2 = semaphore.request("node1");
+		long ticket3 = semaphore.request("node1");
+		long ticket4 = semaphore.request("node1");
+		assertEquals(0, semaphore.getAvailablePermits());
+		assertEquals(2, semaphore.getQueueLength());
+
+		// the permits are granted in the order of the requests, not of the polls.
+		assertFalse(semaphore.poll(ticket4));
+		assertTrue(semaphore.poll(ticket2));
+		assertFalse(semaphore.poll(ticket2));
+		assertTrue(semaphore.release("node1"));
+		assertFalse(semaphore.poll(ticket4));
+		assertTrue(semaphore.poll(ticket3));
+		assertTrue(semaphore.poll(ticket1));
+		assertEquals(1, semaphore.getQueueLength());
+
+		assertTrue(semaphore.release("node1"));
+		assertTrue(semaphore.poll(ticket4));
+		assertTrue(semaphore.release("node1"));
+		assertTrue(semaphore.release("node1"));
+		assertFalse(semaphore.release("node1"));
+		assertEquals(2, semaphore.getAvailablePermits());
+	}
+
+	@Test
+	public void cancel_1() throws Exception {
+		FairSemaphore semaphore = new FairSemaphore(1);
+		long ticket1 = semaphore.request("node1");
+		long ticket2 = semaphore.request("node1");
+		long ticket3 = semaphore.request("node1");
+
+		// the waiting ticket is withdrawn.
+		assertTrue(semaphore.cancel(ticket2));
+		assertEquals(1, semaphore.getQueueLength());
+		// the permit granted but not polled is passed to the next ticket.
+		assertTrue(semaphore.cancel(ticket1));
+		assertFalse(semaphore.cancel(ticket1));
+		assertTrue(semaphore.poll(ticket3));
+		// the permit held after the poll is not returned by the cancel.
+		assertFalse(semaphore.cancel(ticket3));
+		assertEquals(0, semaphore.getAvailablePermits());
+	}
+
+	@Test
+	public void releaseNode_1() throws Exception {
+		FairSemaphore semaphore = new FairSemaphore(2);
+		long ticket1 = semaphore.request("node1");
+		semaphore.request("node1");
+		long ticket3 = semaphore.request("node2");
+		long ticket4 = semaphore.request("node1");
+		assertTrue(semaphore.poll(ticket1));
+		// the permit is released only by the node holding it.
+		assertFalse(semaphore.release("node2"));
+
+		// the held permit and the granted one are returned, and the waiting ticket is withdrawn.
+		assertEquals(2, semaphore.releaseNode("node1"));
+		assertEquals(0, semaphore.getQueueLength());
+		assertTrue(semaphore.poll(ticket3));
+		assertFalse(semaphore.poll(ticket4));
+		assertEquals(1, semaphore.getAvailablePermits());
+		assertFalse(semaphore.release("node1"));
+		assertEquals(0, semaphore.releaseNode("node1"));
+	}
+
+	@Test
+	public void constructor_1() throws Exception {
+		try {
+			new FairSemaphore(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[0] is not a valid number of permits.", e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Journal.Entry;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Journal.Kind;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Journal.Operation;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void append_1() throws Exception {
+		File dir = folder.getRoot();
+		Journal journal = new Journal(dir);
+		journal.append(Kind.FLAG, Operation.SET, "flag", 1);
+		journal.append(Kind.COUNTER, Operation.SET, "counter", 10);
+		journal.append(Kind.COUNTER, Operation.ADD, "counter", 5);
+		journal.append(Kind.COUNTER, Operation.ADD, "added", 3);
+		journal.append(Kind.COUNT_DOWN, Operation.ADD, "missing", -1);
+		journal.append(Kind.TIMER, Operation.SET, new Namespace("ns").scope(1), 1234L);
+		journal.append(Kind.TIMER, Operation.SET, "deleted", 1234L);
+		journal.append(Kind.TIMER, Operation.DELETE, "deleted", 0);
+		journal.close();
+
+		journal = new Journal(dir);
+		assertEquals(Long.valueOf(1), journal.get(Kind.FLAG, "flag"));
+		assertEquals(Long.valueOf(15), journal.get(Kind.COUNTER, "counter"));
+		assertEquals(Long.valueOf(3), journal.get(Kind.COUNTER, "added"));
+		assertNull(journal.get(Kind.COUNT_DOWN, "missing"));
+		assertEquals(Long.valueOf(1234), journal.get(Kind.TIMER, new Namespace("ns").scope(1)));
+		assertNull(journal.get(Kind.TIMER, "deleted"));
+		assertEquals(4, journal.getState().size());
+		journal.close();
+	}
+
+	/**
+	 * The journal which is not closed is readable.
+	 */
+	@Test
+	public void read_1() throws Exception {
+		File dir = folder.getRoot();
+		Journal journal = new Journal(dir);
+		try {
+			journal.append(Kind.COUNTER, Operation.SET, "counter", 10);
+			journal.append(Kind.COUNTER, Operation.ADD, 7, 2);
+			journal.commit();
+
+			List<Entry> entries = Journal.read(dir);
+			assertEquals(2, entries.size());
+			assertEquals("COUNTER\tSET\tcounter\t10", entries.get(0).toString());
+			assertEquals(Kind.COUNTER, entries.get(1).getKind());
+			assertEquals(Operation.ADD, entries.get(1).getOperation());
+			assertEquals(7, entries.get(1).getIdentifier());
+			assertEquals(2, entries.get(1).getValue());
+		} finally {
+			journal.close();
+		}
+	}
+
+	/**
+	 * A torn record at the tail is ignored.
+	 */
+	@Test
+	public void read_2() throws Exception {
+		File dir = folder.getRoot();
+		Journal journal = new Journal(dir);
+		journal.append(Kind.FLAG, Operation.SET, "flag", 1);
+		journal.commit();
+		// breaks the checksum of the next record.
+		// the first segment of a new journal is the generation 1.
+		RandomAccessFile file = new RandomAccessFile(Journal.getJournalFile(dir, 1), "rw");
+		try {
+			long position = 0;
+			file.seek(position);
+			position += 8 + file.readInt();
+			file.seek(position);
+			file.writeInt(10);
+			file.writeInt(12345);
+		} finally {
+			file.close();
+		}
+
+		assertEquals(1, Journal.read(dir).size());
+	}
+
+	@Test
+	public void compact_1() throws Exception {
+		File dir = folder.getRoot();
+		Journal journal = new Journal(dir, 256, Journal.DEFAULT_COMMIT_INTERVAL, Journal.DEFAULT_COMPACT_INTERVAL);
+		for(int i = 0; i < 100; i++) {
+			journal.append(Kind.COUNTER, Operation.ADD, "counter", 1);
+		}
+		assertEquals(Long.valueOf(100), journal.get(Kind.COUNTER, "counter"));
+		journal.commit();
+		// the full segments are compacted in the background, and the rest by compact().
+		journal.compact();
+		assertEquals(1, Journal.read(dir).size());
+		assertEquals(Long.valueOf(100), journal.get(Kind.COUNTER, "counter"));
+		journal.append(Kind.COUNTER, Operation.ADD, "counter", 1);
+		journal.commit();
+		assertEquals(2, Journal.read(dir).size());
+		// the background compaction must not run while the directory is reopened.
+		journal.close();
+
+		Journal reopened = new Journal(dir, 256, Journal.DEFAULT_COMMIT_INTERVAL, Journal.DEFAULT_COMPACT_INTERVAL);
+		assertEquals(Long.valueOf(101), reopened.get(Kind.COUNTER, "counter"));
+		reopened.close();
+	}
+
+	@Test
+	public void append_2() throws Exception {
+		Journal journal = new Journal(folder.getRoot(), 64, Journal.DEFAULT_COMMIT_INTERVAL, Journal.DEFAULT_COMPACT_INTERVAL);
+		try {
+			journal.append(Kind.FLAG, Operation.SET, "0123456789012345678901234567890123456789012345678901234567890123456789", 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().endsWith("is too large."));
+		} finally {
+			journal.close();
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LeaseTest {
+
+	@Test
+	public void acquire_1() throws Exception {
+		Lease lease = new Lease();
+		assertEquals(1, lease.acquire("node1", 100, 0));
+		assertEquals(-1, lease.acquire("node2", 100, 50));
+		// the lease is not granted again even to the holder, which renews it instead.
+		assertEquals(-1, lease.acquire("node1", 100, 50));
+		assertTrue(lease.renew(1, 100, 50));
+		assertEquals(-1, lease.acquire("node2", 100, 149));
+		// the lease expires, and the next holder is given a greater token.
+		assertEquals(2, lease.acquire("node2", 100, 150));
+		assertFalse(lease.isValid(1, 150));
+		assertTrue(lease.isValid(2, 150));
+	}
+
+	@Test
+	public void renew_1() throws Exception {
+		Lease lease = new Lease();
+		long token = lease.acquire("node1", 100, 0);
+		assertTrue(lease.renew(token, 100, 90));
+		assertTrue(lease.isValid(token, 189));
+		assertFalse(lease.isValid(token, 190));
+		// the expired lease cannot be renewed.
+		assertFalse(lease.renew(token, 100, 190));
+		assertFalse(lease.renew(token + 1, 100, 0));
+	}
+
+	@Test
+	public void release_1() throws Exception {
+		Lease lease = new Lease();
+		long token = lease.acquire("node1", 10000);
+		assertEquals("node1", lease.getHolder());
+		assertFalse(lease.release(token + 1));
+		assertTrue(lease.release(token));
+		assertNull(lease.getHolder());
+		assertFalse(lease.release(token));
+		assertEquals(token + 1, lease.acquire("node2", 10000));
+	}
+
+	@Test
+	public void releaseHolder_1() throws Exception {
+		Lease lease = new Lease();
+		long token = lease.acquire("node1", 10000);
+		assertFalse(lease.releaseHolder("node2"));
+		assertTrue(lease.releaseHolder("node1"));
+		assertFalse(lease.isValid(token));
+	}
+
+	@Test
+	public void acquire_2() throws Exception {
+		try {
+			new Lease().acquire("node1", 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[0] is not a valid time to live.", e.getMessage());
+		}
+	}
+}
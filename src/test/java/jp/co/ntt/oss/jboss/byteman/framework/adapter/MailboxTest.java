@@ -0,0 +1,130 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class MailboxTest {
+
+	@Test
+	public void offer_1() throws Exception {
+		Mailbox mailbox = new Mailbox(2);
+		assertTrue(mailbox.offer(new byte[] {1}, 0));
+		assertTrue(mailbox.offer(new byte[] {2}, 0));
+		// the mailbox is full.
+		long start = System.currentTimeMillis();
+		assertFalse(mailbox.offer(new byte[] {3}, 50));
+		assertTrue(System.currentTimeMillis() - start >= 50);
+		assertEquals(2, mailbox.size());
+		assertArrayEquals(new byte[] {1}, mailbox.poll(0));
+		assertArrayEquals(new byte[] {2}, mailbox.poll(0));
+		assertNull(mailbox.poll(0));
+	}
+
+	@Test
+	public void offer_2() throws Exception {
+		final Mailbox mailbox = new Mailbox(1);
+		mailbox.offer(new byte[] {1}, 0);
+		Thread consumer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+					mailbox.poll(0);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		consumer.start();
+		// the producer waits until the consumer takes a value.
+		assertTrue(mailbox.offer(new byte[] {2}, 10000));
+		consumer.join();
+		assertArrayEquals(new byte[] {2}, mailbox.poll(0));
+	}
+
+	@Test
+	public void poll_1() throws Exception {
+		final Mailbox mailbox = new Mailbox(1);
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+					mailbox.offer(new byte[] {1}, 0);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		producer.start();
+		assertArrayEquals(new byte[] {1}, mailbox.poll(10000));
+		producer.join();
+	}
+
+	@Test
+	public void drain_1() throws Exception {
+		Mailbox mailbox = new Mailbox(3);
+		for(byte i = 0; i < 3; i++) {
+			mailbox.offer(new byte[] {i}, 0);
+		}
+		List<byte[]> values = mailbox.drain(2);
+		assertEquals(2, values.size());
+		assertArrayEquals(new byte[] {0}, values.get(0));
+		assertArrayEquals(new byte[] {1}, values.get(1));
+		assertEquals(1, mailbox.drain(10).size());
+		assertEquals(0, mailbox.drain(10).size());
+	}
+
+	@Test
+	public void close_1() throws Exception {
+		final Mailbox mailbox = new Mailbox(1);
+		Thread closer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				mailbox.close();
+			}
+		};
+		closer.start();
+		// the waiting consumer is woken up.
+		assertNull(mailbox.poll(10000));
+		closer.join();
+		assertFalse(mailbox.offer(new byte[] {1}, 0));
+	}
+
+	@Test
+	public void constructor_1() throws Exception {
+		try {
+			new Mailbox(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[0] is not a valid capacity.", e.getMessage());
+		}
+	}
+}
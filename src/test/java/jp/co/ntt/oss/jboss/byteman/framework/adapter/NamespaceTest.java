@@ -0,0 +1,89 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import static org.junit.Assert.*;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace.ScopedIdentifier;
+
+import org.junit.Test;
+
+public class NamespaceTest {
+
+	@Test
+	public void constructor_1() throws Exception {
+		try {
+			new Namespace("");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[] is not a valid namespace.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void constructor_2() throws Exception {
+		try {
+			new Namespace("a::b");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[a::b] is not a valid namespace.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void scope_1() throws Exception {
+		Namespace namespace = new Namespace("test");
+
+		Object result = namespace.scope("id");
+
+		assertTrue(result instanceof ScopedIdentifier);
+		assertEquals(new ScopedIdentifier("test", "id"), result);
+		assertEquals(new ScopedIdentifier("test", "id").hashCode(), result.hashCode());
+		assertFalse(result.equals(new Namespace("other").scope("id")));
+		assertFalse(result.equals("id"));
+		assertEquals("test::id", result.toString());
+	}
+
+	@Test
+	public void scopeTrace_1() throws Exception {
+		Namespace namespace = new Namespace("test");
+
+		// the standard streams are shared by all the namespaces.
+		assertEquals("out", namespace.scopeTrace("out"));
+		assertEquals("err", namespace.scopeTrace("err"));
+		assertEquals(new ScopedIdentifier("test", "log"), namespace.scopeTrace("log"));
+	}
+
+	@Test
+	public void toScriptName_1() throws Exception {
+		Namespace namespace = new Namespace("test");
+
+		assertEquals("test::counter.btm", namespace.toScriptName("counter.btm"));
+		assertEquals(namespace, Namespace.fromScriptName("test::counter.btm"));
+	}
+
+	@Test
+	public void fromScriptName_1() throws Exception {
+		assertNull(Namespace.fromScriptName(null));
+		assertNull(Namespace.fromScriptName("counter.btm"));
+		assertNull(Namespace.fromScriptName("::counter.btm"));
+	}
+
+}
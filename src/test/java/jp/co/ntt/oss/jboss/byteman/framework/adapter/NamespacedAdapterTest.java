@@ -0,0 +1,57 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+
+public class NamespacedAdapterTest {
+
+	@Test
+	public void flag_1() throws Exception {
+		DistributedAdapter delegate = mock(DistributedAdapter.class);
+		NamespacedAdapter adapter = new NamespacedAdapter(new Namespace("test"), delegate);
+		when(delegate.flag(new Namespace("test").scope("flag"))).thenReturn(true);
+
+		assertTrue(adapter.flag("flag"));
+		verify(delegate, never()).flag("flag");
+	}
+
+	@Test
+	public void deleteNamespace_1() throws Exception {
+		DistributedAdapter delegate = mock(DistributedAdapter.class);
+		NamespacedAdapter adapter = new NamespacedAdapter(new Namespace("test"), delegate);
+		when(delegate.deleteNamespace("test")).thenReturn(3);
+
+		assertEquals(3, adapter.deleteNamespace());
+		assertEquals(3, adapter.deleteNamespace("test"));
+		// the namespace of another test is not deleted.
+		try {
+			adapter.deleteNamespace("other");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[other] is not the namespace of this adapter.", e.getMessage());
+		}
+		verify(delegate, never()).deleteNamespace("other");
+	}
+
+}
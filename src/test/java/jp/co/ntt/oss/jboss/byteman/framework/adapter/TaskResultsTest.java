@@ -0,0 +1,55 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+public class TaskResultsTest {
+
+	@Test
+	public void reduce_1() throws Exception {
+		TaskResults<Integer> results = new TaskResults<Integer>();
+		assertTrue(results.isSucceeded());
+		assertEquals(Integer.valueOf(0), results.reduce(0, new TaskResults.Reducer<Integer, Integer>() {
+			@Override
+			public Integer reduce(Integer value, String node, Integer result) {
+				return value + result;
+			}
+		}));
+
+		results.addResult("node2", 20);
+		results.addResult("node1", 10);
+		results.addFailure("node3", new TimeoutException());
+		assertFalse(results.isSucceeded());
+		// the results are reduced in the order of the nodes, and the failures are skipped.
+		assertEquals("node1=10,node2=20,", results.reduce("", new TaskResults.Reducer<Integer, String>() {
+			@Override
+			public String reduce(String value, String node, Integer result) {
+				return value + node + "=" + result + ",";
+			}
+		}));
+		assertEquals("results={node1=10, node2=20}, failures=[node3]", results.toString());
+	}
+
+}
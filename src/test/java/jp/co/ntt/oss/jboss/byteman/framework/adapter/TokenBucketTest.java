@@ -0,0 +1,92 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+	private static final long SECOND = 1000L * 1000 * 1000;
+
+	@Test
+	public void lease_1() throws Exception {
+		TokenBucket bucket = new TokenBucket(500, 100, 0);
+		// a batch covers 50 milliseconds of the rate.
+		assertEquals(25, bucket.getBatchSize());
+		assertEquals(25, bucket.lease(0));
+		assertEquals(25, bucket.lease(0));
+		assertEquals(25, bucket.lease(0));
+		assertEquals(25, bucket.lease(0));
+		assertEquals(0, bucket.lease(0));
+		// 10 milliseconds adds 5 tokens.
+		assertEquals(5, bucket.lease(SECOND / 100));
+		assertEquals(0, bucket.lease(SECOND / 100));
+
+		// the tokens never exceed the burst.
+		int total = 0;
+		for(long now = SECOND; now <= 2 * SECOND; now += SECOND / 1000) {
+			total += bucket.lease(now);
+		}
+		assertEquals(600, total);
+	}
+
+	@Test
+	public void lease_2() throws Exception {
+		TokenBucket bucket = new TokenBucket(2, 5, 0);
+		assertEquals(1, bucket.getBatchSize());
+		for(int i = 0; i < 5; i++) {
+			assertEquals(1, bucket.lease(0));
+		}
+		assertEquals(0, bucket.lease(SECOND / 4));
+		assertEquals(1, bucket.lease(SECOND / 2));
+	}
+
+	@Test
+	public void setRate_1() throws Exception {
+		TokenBucket bucket = new TokenBucket(1000, 1000, 0);
+		assertEquals(50, bucket.lease(0));
+		bucket.setRate(100, 10, 0);
+		assertEquals(100.0, bucket.getRate(), 0);
+		assertEquals(10, bucket.getBurst());
+		assertEquals(5, bucket.getBatchSize());
+		assertEquals(5, bucket.lease(0));
+		assertEquals(5, bucket.lease(0));
+		assertEquals(0, bucket.lease(0));
+	}
+
+	@Test
+	public void constructor_1() throws Exception {
+		try {
+			new TokenBucket(0, 10);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[0.0] is not a valid rate.", e.getMessage());
+		}
+		try {
+			new TokenBucket(10, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[0] is not a valid burst.", e.getMessage());
+		}
+	}
+
+}
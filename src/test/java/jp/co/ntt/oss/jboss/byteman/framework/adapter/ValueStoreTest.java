@@ -0,0 +1,89 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter;
+
+import static org.junit.Assert.*;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.ValueStore.Update;
+import jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec;
+
+import org.junit.Test;
+
+public class ValueStoreTest {
+
+	@Test
+	public void put_1() throws Exception {
+		ValueStore store = new ValueStore();
+		assertNull(store.get("key").getValue());
+		assertEquals(0, store.get("key").getVersion());
+
+		assertEquals(1, store.put("key", ValueCodec.encode("value1")));
+		assertEquals(2, store.put("other", ValueCodec.encode("value2")));
+		// the versions are shared by all the identifiers.
+		assertEquals(3, store.put("key", ValueCodec.encode("value3")));
+		assertEquals("value3", ValueCodec.decode(store.get("key").getValue()));
+		assertEquals(3, store.get("key").getVersion());
+
+		assertEquals(4, store.delete("key"));
+		assertEquals(-1, store.delete("key"));
+		assertNull(store.get("key").getValue());
+		assertEquals(4, store.get("key").getVersion());
+		assertEquals(1, store.size());
+	}
+
+	@Test
+	public void compareAndSet_1() throws Exception {
+		ValueStore store = new ValueStore();
+		assertEquals(-1, store.compareAndSet("key", ValueCodec.encode("value1"), ValueCodec.encode("value2")));
+		assertEquals(1, store.compareAndSet("key", null, ValueCodec.encode("value1")));
+		assertEquals(-1, store.compareAndSet("key", null, ValueCodec.encode("value2")));
+		assertEquals(2, store.compareAndSet("key", ValueCodec.encode("value1"), ValueCodec.encode("value2")));
+		assertEquals("value2", ValueCodec.decode(store.get("key").getValue()));
+	}
+
+	@Test
+	public void getAndUpdate_1() throws Exception {
+		ValueStore store = new ValueStore();
+		assertEquals(0, store.getAndUpdate("key", Update.ADD, 5));
+		assertEquals(5, store.getAndUpdate("key", Update.MAX, 3));
+		assertEquals(5, store.getAndUpdate("key", Update.MAX, 8));
+		assertEquals(8, store.getAndUpdate("key", Update.MIN, 2));
+		assertEquals(2, store.getAndUpdate("key", Update.SET, 10));
+		assertEquals(10L, ValueCodec.decode(store.get("key").getValue()));
+		assertEquals(5, store.get("key").getVersion());
+
+		// an integer put by a rule is also updated.
+		store.put("int", ValueCodec.encode(7));
+		assertEquals(7, store.getAndUpdate("int", Update.ADD, 1));
+		assertEquals(8L, ValueCodec.decode(store.get("int").getValue()));
+	}
+
+	@Test
+	public void getAndUpdate_2() throws Exception {
+		ValueStore store = new ValueStore();
+		store.put("key", ValueCodec.encode("value"));
+		try {
+			store.getAndUpdate("key", Update.ADD, 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The value of the identifier [key] is not an integer.", e.getMessage());
+		}
+	}
+}
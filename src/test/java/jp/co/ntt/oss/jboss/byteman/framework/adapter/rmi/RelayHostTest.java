@@ -0,0 +1,247 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class RelayHostTest {
+
+	private RelayHost relay;
+
+	@Mock
+	private ControlIF upstream;
+
+	@Before
+	public void setup() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		relay = new RelayHost(upstream, 60 * 1000);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		relay.shutdown();
+	}
+
+	@Test
+	public void flag_1() throws Exception {
+		// stubbing
+		String identifier = "test";
+		when(upstream.flag(identifier)).thenReturn(true);
+
+		assertTrue(relay.flag(identifier));
+		verify(upstream).flag(identifier);
+	}
+
+	@Test
+	public void incrementCounter_1() throws Exception {
+		// stubbing
+		String identifier = "test";
+		when(upstream.incrementCounter(identifier, 3)).thenReturn(3);
+
+		assertEquals(3, relay.incrementCounter(identifier, 3));
+		verify(upstream).incrementCounter(identifier, 3);
+	}
+
+	@Test
+	public void incrementCounter_2() throws Exception {
+		// stubbing
+		final String identifier = "test";
+		final AtomicInteger value = new AtomicInteger();
+		final CountDownLatch inFlight = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		when(upstream.incrementCounter(eq(identifier), anyInt())).thenAnswer(new Answer<Integer>() {
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				inFlight.countDown();
+				release.await();
+				return value.addAndGet((Integer) invocation.getArguments()[1]);
+			}
+		});
+
+		final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int i = 0; i < 5; i++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						results.add(relay.incrementCounter(identifier, 1));
+					} catch (RemoteException e) {
+						fail();
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+			if(i == 0) {
+				// the other increments are combined while the first one is in flight.
+				inFlight.await();
+			}
+		}
+		Thread.sleep(200);
+		release.countDown();
+		for(Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(5, value.get());
+		Collections.sort(results);
+		assertEquals(java.util.Arrays.asList(1, 2, 3, 4, 5), results);
+		verify(upstream).incrementCounter(identifier, 1);
+		verify(upstream).incrementCounter(identifier, 4);
+	}
+
+	@Test
+	public void incrementCounter_3() throws Exception {
+		// stubbing
+		String identifier = "test";
+		when(upstream.incrementCounter(identifier, 1)).thenThrow(new RemoteException("error"));
+
+		try {
+			relay.incrementCounter(identifier, 1);
+			fail();
+		} catch (RemoteException e) {
+			assertEquals("error", e.getMessage());
+		}
+	}
+
+	@Test
+	public void trace_1() throws Exception {
+		// stubbing
+		String identifier = "test";
+		String separator = System.getProperty("line.separator");
+
+		assertTrue(relay.trace(identifier, "a"));
+		assertTrue(relay.traceln(identifier, "b"));
+		verify(upstream, never()).trace(anyObject(), anyString());
+
+		relay.flush();
+		verify(upstream).trace(identifier, "ab" + separator);
+		relay.flush();
+		verifyNoMoreInteractions(upstream);
+	}
+
+	@Test
+	public void trace_2() throws Exception {
+		// stubbing
+		when(upstream.trace("test1", "a")).thenThrow(new RemoteException()).thenReturn(true);
+		when(upstream.trace("test2", "b")).thenReturn(true);
+
+		assertTrue(relay.trace("test1", "a"));
+		assertTrue(relay.trace("test2", "b"));
+		try {
+			relay.flush();
+			fail();
+		} catch (RemoteException e) {
+			// the other traces are sent anyway.
+			verify(upstream).trace("test2", "b");
+		}
+
+		// the failure is reported by the next message of the identifier.
+		assertFalse(relay.trace("test1", "a"));
+		assertTrue(relay.trace("test1", "a"));
+		assertTrue(relay.trace("test2", "b"));
+	}
+
+	@Test
+	public void traceClose_1() throws Exception {
+		// stubbing
+		String identifier = "test";
+		when(upstream.traceClose(identifier)).thenReturn(true);
+
+		relay.trace(identifier, "message");
+		assertTrue(relay.traceClose(identifier));
+
+		org.mockito.InOrder inOrder = inOrder(upstream);
+		inOrder.verify(upstream).trace(identifier, "message");
+		inOrder.verify(upstream).traceClose(identifier);
+	}
+
+	@Test
+	public void traceClose_2() throws Exception {
+		// stubbing
+		final String identifier = "test";
+		final CountDownLatch sending = new CountDownLatch(1);
+		final CountDownLatch sent = new CountDownLatch(1);
+		when(upstream.trace(identifier, "message")).thenAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				sending.countDown();
+				sent.await();
+				return true;
+			}
+		});
+		when(upstream.traceClose(identifier)).thenReturn(true);
+
+		relay.trace(identifier, "message");
+		Thread flusher = new Thread() {
+			@Override
+			public void run() {
+				try {
+					relay.flush();
+				} catch (RemoteException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		flusher.start();
+		assertTrue(sending.await(5, TimeUnit.SECONDS));
+		Thread closer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					relay.traceClose(identifier);
+				} catch (RemoteException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		closer.start();
+
+		// the trace is not closed until the batch taken by the flush is sent.
+		closer.join(200);
+		verify(upstream, never()).traceClose(identifier);
+		sent.countDown();
+		flusher.join();
+		closer.join();
+
+		org.mockito.InOrder inOrder = inOrder(upstream);
+		inOrder.verify(upstream).trace(identifier, "message");
+		inOrder.verify(upstream).traceClose(identifier);
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+package jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShardedHostTest {
+
+	private Map<String, ControlIF> shards;
+
+	@Before
+	public void setup() throws Exception {
+		shards = new LinkedHashMap<String, ControlIF>();
+		shards.put("host1:1199", mock(ControlIF.class));
+		shards.put("host2:1199", mock(ControlIF.class));
+		shards.put("host3:1199", mock(ControlIF.class));
+	}
+
+	@Test
+	public void getShardIndex_1() throws Exception {
+		ShardedHost host1 = new ShardedHost(shards);
+		ShardedHost host2 = new ShardedHost(shards);
+
+		int[] counts = new int[3];
+		for(int i = 0; i < 3000; i++) {
+			int index = host1.getShardIndex("id" + i);
+			// the same shards route an identifier to the same shard.
+			assertEquals(index, host2.getShardIndex("id" + i));
+			counts[index]++;
+		}
+		for(int count : counts) {
+			assertTrue(String.valueOf(count), count > 600);
+		}
+		assertEquals(host1.getShardIndex(new Namespace("ns").scope("id")), host2.getShardIndex("ns::id"));
+	}
+
+	/**
+	 * Adding a shard moves only the identifiers which the new shard takes over.
+	 */
+	@Test
+	public void getShardIndex_2() throws Exception {
+		ShardedHost host1 = new ShardedHost(shards);
+		shards.put("host4:1199", mock(ControlIF.class));
+		ShardedHost host2 = new ShardedHost(shards);
+
+		int moved = 0;
+		for(int i = 0; i < 3000; i++) {
+			int index = host2.getShardIndex("id" + i);
+			if(index != host1.getShardIndex("id" + i)) {
+				assertEquals(3, index);
+				moved++;
+			}
+		}
+		assertTrue(String.valueOf(moved), moved > 400 && moved < 1200);
+	}
+
+	@Test
+	public void getShardIndex_3() throws Exception {
+		try {
+			new ShardedHost(new LinkedHashMap<String, ControlIF>());
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("No shard is defined.", e.getMessage());
+		}
+	}
+
+	/**
+	 * The identifiers whose string representations differ between the JVMs are rejected.
+	 */
+	@Test
+	public void getShardIndex_4() throws Exception {
+		ShardedHost host = new ShardedHost(shards);
+		assertEquals(host.getShardIndex("7"), host.getShardIndex(7));
+		assertEquals(host.getShardIndex("ns::7"), host.getShardIndex(new Namespace("ns").scope(7)));
+		try {
+			host.getShardIndex(new Object());
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().endsWith("cannot be routed to a shard, because its string representation is not stable."));
+		}
+		try {
+			host.getShardIndex(new Namespace("ns").scope(new int[0]));
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	@Test
+	public void flag_1() throws Exception {
+		ShardedHost host = new ShardedHost(shards);
+		ControlIF shard = host.getShards().get(host.getShardIndex("flag"));
+		// stubbing
+		when(shard.flag("flag")).thenReturn(true);
+
+		assertTrue(host.flag("flag"));
+		verify(shard).flag("flag");
+		for(ControlIF other : shards.values()) {
+			if(other != shard) {
+				verifyZeroInteractions(other);
+			}
+		}
+	}
+
+	@Test
+	public void joinEnlist_1() throws Exception {
+		ShardedHost host = new ShardedHost(shards);
+		int index = host.getShardIndex("join");
+		ControlIF shard = host.getShards().get(index);
+		// stubbing
+		when(shard.joinEnlistStart("join")).thenReturn("12345:1");
+
+		String key = host.joinEnlistStart("join");
+		assertEquals(index + ":12345:1", key);
+		host.joinEnlistEnd(key);
+		verify(shard).joinEnlistEnd("12345:1");
+	}
+
+	@Test
+	public void deleteNamespace_1() throws Exception {
+		// stubbing
+		when(shards.get("host1:1199").deleteNamespace("ns")).thenReturn(1);
+		when(shards.get("host2:1199").deleteNamespace("ns")).thenReturn(2);
+		when(shards.get("host3:1199").deleteNamespace("ns")).thenReturn(3);
+
+		ShardedHost host = new ShardedHost(shards);
+		assertEquals(6, host.deleteNamespace("ns"));
+	}
+
+}
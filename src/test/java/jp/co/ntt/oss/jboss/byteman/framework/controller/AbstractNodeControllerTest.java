@@ -22,6 +22,7 @@ package jp.co.ntt.oss.jboss.byteman.framework.controller;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 import jp.co.ntt.oss.jboss.byteman.framework.TestUtil;
+import jp.co.ntt.oss.jboss.byteman.framework.util.DistributedConfig;
 import jp.co.ntt.oss.jboss.byteman.framework.util.DistributedConfig.DistributedNodeConfig;
 import jp.co.ntt.oss.jboss.byteman.framework.util.Logger;
 import jp.co.ntt.oss.jboss.byteman.framework.util.ServerCommandManager;
@@ -96,7 +97,8 @@ public class AbstractNodeControllerTest {
 												 "address:127.0.1.1," +
 												 "port:9091," +
 												 "prop:org.jboss.byteman.jp.co.ntt.oss.jboss.byteman.framework.host=127.0.0.1," +
-												 "prop:org.jboss.byteman.jp.co.ntt.oss.jboss.byteman.framework.port=1199", agentProperties);
+												 "prop:org.jboss.byteman.jp.co.ntt.oss.jboss.byteman.framework.port=1199," +
+												 "prop:org.jboss.byteman.jp.co.ntt.oss.jboss.byteman.framework.node=server1", agentProperties);
 	}
 
 	/**
@@ -112,6 +114,7 @@ public class AbstractNodeControllerTest {
 												 "port:9091," +
 												 "prop:org.jboss.byteman.jp.co.ntt.oss.jboss.byteman.framework.host=127.0.0.1," +
 												 "prop:org.jboss.byteman.jp.co.ntt.oss.jboss.byteman.framework.port=1199," +
+												 "prop:org.jboss.byteman.jp.co.ntt.oss.jboss.byteman.framework.node=server1," +
 												 "script:/test1.btm", agentProperties);
 	}
 
@@ -128,6 +131,7 @@ public class AbstractNodeControllerTest {
 												 "port:9091," +
 												 "prop:org.jboss.byteman.jp.co.ntt.oss.jboss.byteman.framework.host=127.0.0.1," +
 												 "prop:org.jboss.byteman.jp.co.ntt.oss.jboss.byteman.framework.port=1199," +
+												 "prop:org.jboss.byteman.jp.co.ntt.oss.jboss.byteman.framework.node=server1," +
 												 "script:/test1.btm," +
 												 "script:/test2.btm", agentProperties);
 	}
@@ -160,6 +164,31 @@ public class AbstractNodeControllerTest {
 		}
 	}
 
+	/**
+	 * node.relay is defined.
+	 */
+	@Test
+	public void getControllerHost_1() throws Exception {
+		TestNodeController controller = new TestNodeController("server1");
+		DistributedNodeConfig config = mock(DistributedNodeConfig.class);
+		when(config.get(DistributedConfig.NODE_RELAY)).thenReturn("relay1:1299");
+		TestUtil.setValue(controller, "config", config);
+
+		assertEquals("relay1", controller.getControllerHost());
+		assertEquals(1299, controller.getControllerPort());
+	}
+
+	/**
+	 * node.relay is not defined.
+	 */
+	@Test
+	public void getControllerHost_2() throws Exception {
+		TestNodeController controller = new TestNodeController("server1");
+
+		assertEquals("127.0.0.1", controller.getControllerHost());
+		assertEquals(1199, controller.getControllerPort());
+	}
+
 	/**
 	 * get default value.
 	 */
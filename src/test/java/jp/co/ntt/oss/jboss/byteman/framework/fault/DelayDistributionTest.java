@@ -0,0 +1,117 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.fault;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution.Kind;
+import jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec;
+
+import org.junit.Test;
+
+public class DelayDistributionTest {
+
+	private static final long MILLI = 1000 * 1000;
+
+	private static final int SAMPLES = 10000;
+
+	@Test
+	public void fixed_1() throws Exception {
+		DelayDistribution distribution = DelayDistribution.fixed(2.5);
+		assertEquals(Kind.FIXED, distribution.getKind());
+		assertEquals(2500000, distribution.sample(new Random()));
+		assertEquals("fixed(2.5)", distribution.toString());
+	}
+
+	@Test
+	public void uniform_1() throws Exception {
+		DelayDistribution distribution = DelayDistribution.uniform(10, 20);
+		Random random = new Random(1);
+		for(int i = 0; i < SAMPLES; i++) {
+			long delay = distribution.sample(random);
+			assertTrue(delay >= 10 * MILLI && delay <= 20 * MILLI);
+		}
+	}
+
+	@Test
+	public void exponential_1() throws Exception {
+		DelayDistribution distribution = DelayDistribution.exponential(10);
+		Random random = new Random(1);
+		double sum = 0;
+		for(int i = 0; i < SAMPLES; i++) {
+			sum += distribution.sample(random);
+		}
+		assertEquals(10 * MILLI, sum / SAMPLES, MILLI);
+	}
+
+	@Test
+	public void logNormal_1() throws Exception {
+		DelayDistribution distribution = DelayDistribution.logNormal(10, 1);
+		Random random = new Random(1);
+		long[] delays = new long[SAMPLES];
+		for(int i = 0; i < SAMPLES; i++) {
+			delays[i] = distribution.sample(random);
+		}
+		Arrays.sort(delays);
+		assertEquals(10 * MILLI, delays[SAMPLES / 2], MILLI);
+		// the tail is much longer than the median.
+		assertTrue(delays[SAMPLES * 99 / 100] > 50 * MILLI);
+	}
+
+	@Test
+	public void bimodal_1() throws Exception {
+		DelayDistribution distribution = DelayDistribution.bimodal(DelayDistribution.fixed(0), DelayDistribution.fixed(100), 0.1);
+		Random random = new Random(1);
+		int slow = 0;
+		for(int i = 0; i < SAMPLES; i++) {
+			if(distribution.sample(random) == 100 * MILLI) {
+				slow++;
+			}
+		}
+		assertEquals(SAMPLES / 10, slow, SAMPLES / 100);
+		// it is sent to the nodes encoded.
+		assertEquals("bimodal(fixed(0.0), fixed(100.0), 0.1)", ValueCodec.decode(ValueCodec.encode(distribution)).toString());
+	}
+
+	@Test
+	public void validate_1() throws Exception {
+		try {
+			DelayDistribution.fixed(-1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[-1.0] is not a valid delay.", e.getMessage());
+		}
+		try {
+			DelayDistribution.uniform(2, 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[2.0, 1.0] is not a valid range of the delay.", e.getMessage());
+		}
+		try {
+			DelayDistribution.bimodal(DelayDistribution.fixed(0), DelayDistribution.fixed(1), 1.5);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[1.5] is not a valid probability.", e.getMessage());
+		}
+	}
+}
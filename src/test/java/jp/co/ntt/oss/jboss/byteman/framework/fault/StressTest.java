@@ -0,0 +1,103 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.fault;
+
+import static org.junit.Assert.*;
+
+import jp.co.ntt.oss.jboss.byteman.framework.fault.Stress.Kind;
+
+import org.junit.Test;
+
+public class StressTest {
+
+	@Test
+	public void cpu_1() throws Exception {
+		Stress stress = Stress.cpu(2, 60);
+		assertFalse(stress.isRunning());
+		stress.start("cpu_1");
+		try {
+			assertTrue(stress.isRunning());
+			Thread.sleep(100);
+			StressStatus status = stress.getStatus();
+			assertEquals(Kind.CPU, status.getKind());
+			assertEquals(2, status.getAmount());
+			assertTrue(status.isRunning());
+			assertTrue(status.getApplied() > 0);
+		} finally {
+			assertTrue(stress.cancel());
+		}
+		// the threads end soon after the cancellation.
+		assertTrue(stress.await(10000));
+		assertFalse(stress.isRunning());
+		assertTrue(stress.getStatus().isCancelled());
+		assertFalse(stress.cancel());
+	}
+
+	@Test
+	public void heap_1() throws Exception {
+		Stress stress = Stress.heap(Stress.CHUNK_SIZE * 3 + 10, 60);
+		stress.start("heap_1");
+		try {
+			long deadline = System.currentTimeMillis() + 10000;
+			while(stress.getStatus().getApplied() < Stress.CHUNK_SIZE * 3 + 10 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(Stress.CHUNK_SIZE * 3 + 10, stress.getStatus().getApplied());
+			assertTrue(stress.isRunning());
+		} finally {
+			stress.cancel();
+		}
+		assertTrue(stress.await(10000));
+		// the heap is released.
+		assertEquals(0, stress.getStatus().getApplied());
+	}
+
+	@Test
+	public void heap_2() throws Exception {
+		Stress stress = Stress.heap(1024, 1);
+		long start = System.currentTimeMillis();
+		stress.start("heap_2");
+		assertTrue(stress.await(10000));
+		assertTrue(System.currentTimeMillis() - start >= 1000);
+		assertFalse(stress.getStatus().isCancelled());
+	}
+
+	@Test
+	public void validate_1() throws Exception {
+		try {
+			Stress.cpu(0, 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[0] is not a valid number of threads.", e.getMessage());
+		}
+		try {
+			Stress.heap(Runtime.getRuntime().maxMemory(), 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals(String.format("[%d] is not a valid number of bytes.", Runtime.getRuntime().maxMemory()), e.getMessage());
+		}
+		try {
+			Stress.cpu(1, Stress.MAX_DURATION + 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[601] is not a valid duration.", e.getMessage());
+		}
+	}
+}
@@ -22,13 +22,16 @@ package jp.co.ntt.oss.jboss.byteman.framework.helper;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -38,15 +41,25 @@ import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 
 import jp.co.ntt.oss.jboss.byteman.framework.TestUtil;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.ValueStore;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.VersionedValue;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.CallbackIF;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.CallbackInvoker;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlHost;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlIF;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.LatencyHistogram;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.Resource;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.SpanEvent;
+import jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec;
 
 import org.jboss.byteman.rule.Rule;
 import org.jboss.byteman.rule.exception.ExecuteException;
@@ -127,6 +140,44 @@ public class DistributedHelperTest {
 		}
 	}
 
+	@Test
+	public void scope_1() throws Exception {
+		// stubbing
+		when(rule.getFile()).thenReturn("test::script.btm");
+		setupHelper();
+
+		String identifier = "test";
+		Object scoped = new Namespace("test").scope(identifier);
+		when(adapter.flag(scoped)).thenReturn(true);
+
+		assertTrue(helper.flag(identifier));
+		verify(adapter).flag(scoped);
+	}
+
+	@Test
+	public void scope_2() throws Exception {
+		// stubbing
+		when(rule.getFile()).thenReturn("script.btm");
+		setupHelper();
+
+		assertSame("test", helper.scope("test"));
+	}
+
+	@Test
+	public void scope_3() throws Exception {
+		// stubbing
+		when(rule.getFile()).thenReturn("test::script.btm");
+		setupHelper();
+		Object scoped = new Namespace("test").scope("log");
+		when(adapter.trace("out", "msg")).thenReturn(true);
+		when(adapter.traceln(scoped, "msg")).thenReturn(true);
+
+		assertTrue(helper.trace("msg"));
+		assertTrue(helper.traceln("log", "msg"));
+		verify(adapter).trace("out", "msg");
+		verify(adapter).traceln(scoped, "msg");
+	}
+
 	/* waiting */
 	@Test
 	public void waiting_1() throws Exception {
@@ -608,6 +659,42 @@ public class DistributedHelperTest {
 		verify(adapter).joinEnlistEnd(serverThreadKey2);
 	}
 
+	/**
+	 * 2 namespaces use same identifier
+	 */
+	@Test
+	public void joinEnlist_5() throws Exception {
+		// stubbing
+		setupRegistry();
+		ControlIF adapter = mock(ControlIF.class);
+		when(rule.getFile()).thenReturn("ns1::script.btm");
+		DistributedHelper helper1 = new DistributedHelper(rule);
+		helper1.adapter = adapter;
+		when(rule.getFile()).thenReturn("ns2::script.btm");
+		DistributedHelper helper2 = new DistributedHelper(rule);
+		helper2.adapter = adapter;
+
+		String identifier = name.getMethodName();
+		Object scoped1 = new Namespace("ns1").scope(identifier);
+		Object scoped2 = new Namespace("ns2").scope(identifier);
+		when(adapter.joinEnlistStart(scoped1)).thenReturn("key1");
+		when(adapter.joinEnlistStart(scoped2)).thenReturn("key2");
+
+		@SuppressWarnings("unchecked")
+		Map<Object, List<Thread>> threadMap = (Map<Object, List<Thread>>) TestUtil.getValue(helper1, "joinThreadMap");
+
+		// the same thread enlists in the joins of both the namespaces.
+		assertTrue(helper1.joinEnlist(identifier));
+		assertTrue(helper2.joinEnlist(identifier));
+		assertFalse(helper1.joinEnlist(identifier));
+
+		assertTrue(threadMap.get(scoped1).contains(Thread.currentThread()));
+		assertTrue(threadMap.get(scoped2).contains(Thread.currentThread()));
+		assertNull(threadMap.get(identifier));
+		verify(adapter).joinEnlistStart(scoped1);
+		verify(adapter).joinEnlistStart(scoped2);
+	}
+
 	private class TestJoinEnlistThread extends Thread {
 		private boolean result;
 		private Object identifier;
@@ -1426,4 +1513,436 @@ public class DistributedHelperTest {
 			return "test!!!";
 		}
 	}
+
+	/* latency */
+	@Test
+	public void recordLatency_1() throws Exception {
+		// stubbing
+		setupHelper();
+
+		helper.recordLatency("recordLatency_1", 1000);
+		helper.recordLatency("recordLatency_1", 2000);
+
+		LatencyHistogram histogram = NodeHost.getInstance(adapter).getLatencyHistogram("recordLatency_1");
+		assertEquals(2, histogram.getCount());
+		assertEquals(2000, histogram.getMax());
+	}
+
+	@Test
+	public void stopLatency_1() throws Exception {
+		// stubbing
+		setupHelper();
+
+		assertEquals(-1, helper.stopLatency("stopLatency_1"));
+		helper.startLatency("stopLatency_1");
+		Thread.sleep(10);
+		long latency = helper.stopLatency("stopLatency_1");
+		assertTrue(latency >= 10 * 1000 * 1000);
+		assertEquals(-1, helper.stopLatency("stopLatency_1"));
+
+		LatencyHistogram histogram = NodeHost.getInstance(adapter).getLatencyHistogram("stopLatency_1");
+		assertEquals(1, histogram.getCount());
+		assertEquals(latency, histogram.getMax());
+	}
+
+	@Test
+	public void stopLatency_2() throws Exception {
+		// stubbing
+		when(rule.getFile()).thenReturn("test::script.btm");
+		setupHelper();
+
+		helper.startLatency("stopLatency_2");
+		helper.stopLatency("stopLatency_2");
+
+		assertNull(NodeHost.getInstance(adapter).getLatencyHistogram("stopLatency_2"));
+		assertEquals(1, NodeHost.getInstance(adapter).getLatencyHistogram(new Namespace("test").scope("stopLatency_2")).getCount());
+	}
+
+	@Test
+	public void awaitCountDown_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		when(adapter.awaitCountDown(identifier, 100)).thenReturn(true);
+
+		assertTrue(helper.awaitCountDown(identifier, 100));
+		verify(adapter).awaitCountDown(identifier, 100);
+	}
+
+	/* semaphore */
+	@Test
+	public void acquire_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		String node = NodeHost.getLocalNodeId();
+		when(adapter.createSemaphore(identifier, 2)).thenReturn(true);
+		when(adapter.requestPermit(identifier, node)).thenReturn(7L);
+		when(adapter.pollPermit(identifier, 7L)).thenReturn(false, false, true);
+		when(adapter.releasePermit(identifier, node)).thenReturn(true);
+
+		assertTrue(helper.createSemaphore(identifier, 2));
+		assertTrue(helper.acquire(identifier, 10000));
+		assertTrue(helper.release(identifier));
+
+		verify(adapter, times(3)).pollPermit(identifier, 7L);
+		verify(adapter, never()).cancelPermit(identifier, 7L);
+	}
+
+	@Test
+	public void acquire_2() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		String node = NodeHost.getLocalNodeId();
+		when(adapter.requestPermit(identifier, node)).thenReturn(7L);
+		when(adapter.pollPermit(identifier, 7L)).thenReturn(false);
+
+		long start = System.currentTimeMillis();
+		assertFalse(helper.acquire(identifier, 100));
+		assertTrue(System.currentTimeMillis() - start >= 100);
+
+		verify(adapter).cancelPermit(identifier, 7L);
+	}
+
+	@Test
+	public void acquire_3() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		String node = NodeHost.getLocalNodeId();
+		when(adapter.requestPermit(identifier, node)).thenThrow(new IllegalArgumentException());
+
+		try {
+			helper.acquire(identifier, 100);
+			fail();
+		} catch (ExecuteException e) {
+			assertEquals("rule acquire_3 : acquire ", e.getMessage());
+		}
+	}
+
+	/* token bucket */
+	@Test
+	public void throttle_1() throws Exception {
+		// stubbing
+		setupHelper();
+		when(adapter.leaseTokens("throttle_1")).thenReturn(0, 0, 2);
+
+		assertTrue(helper.throttle("throttle_1") >= 0);
+		// the second token is taken from the leased batch.
+		helper.throttle("throttle_1");
+		verify(adapter, times(3)).leaseTokens("throttle_1");
+	}
+
+	/* phaser */
+	@Test
+	public void arriveAndAwaitAdvance_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		when(adapter.arrivePhaser(identifier)).thenReturn(3);
+		when(adapter.getPhase(identifier)).thenReturn(3, 3, 4);
+
+		assertEquals(4, helper.arriveAndAwaitAdvance(identifier, 10000));
+		verify(adapter, times(3)).getPhase(identifier);
+	}
+
+	@Test
+	public void arriveAndAwaitAdvance_2() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		when(adapter.arrivePhaser(identifier)).thenReturn(3);
+		when(adapter.getPhase(identifier)).thenReturn(3);
+
+		long start = System.currentTimeMillis();
+		assertEquals(-1, helper.arriveAndAwaitAdvance(identifier, 100));
+		assertTrue(System.currentTimeMillis() - start >= 100);
+	}
+
+	@Test
+	public void register_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		when(adapter.createPhaser(identifier, 2)).thenReturn(true);
+		when(adapter.registerPhaser(identifier)).thenReturn(1);
+		when(adapter.arrivePhaser(identifier)).thenReturn(1);
+		when(adapter.deregisterPhaser(identifier)).thenReturn(2);
+		when(adapter.getPhase(identifier)).thenReturn(2);
+
+		assertTrue(helper.createPhaser(identifier, 2));
+		assertEquals(1, helper.register(identifier));
+		assertEquals(1, helper.arrive(identifier));
+		assertEquals(2, helper.deregister(identifier));
+		assertEquals(2, helper.getPhase(identifier));
+	}
+
+	/* mailbox */
+	@Test
+	public void put_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		when(adapter.createMailbox(identifier, 2)).thenReturn(true);
+		when(adapter.putMail(eq(identifier), (byte[]) anyObject(), eq(0L))).thenReturn(true, false);
+		when(adapter.putMail(eq(identifier), (byte[]) anyObject(), eq(100L))).thenReturn(true);
+
+		assertTrue(helper.createMailbox(identifier, 2));
+		assertTrue(helper.put(identifier, 1));
+		assertFalse(helper.put(identifier, "value"));
+		assertTrue(helper.put(identifier, 2L, 100));
+
+		ArgumentCaptor<byte[]> captor = ArgumentCaptor.forClass(byte[].class);
+		verify(adapter, times(2)).putMail(eq(identifier), captor.capture(), eq(0L));
+		assertEquals(1, ValueCodec.decode(captor.getAllValues().get(0)));
+		assertEquals("value", ValueCodec.decode(captor.getAllValues().get(1)));
+	}
+
+	@Test
+	public void take_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		when(adapter.takeMail(identifier, 100)).thenReturn(ValueCodec.encode("value"));
+		when(adapter.takeMail(identifier, 0)).thenReturn(null);
+
+		assertEquals("value", helper.take(identifier, 100));
+		assertNull(helper.poll(identifier));
+	}
+
+	@Test
+	public void drain_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		when(adapter.drainMail(identifier, 10)).thenReturn(Arrays.asList(ValueCodec.encode(1), ValueCodec.encode("value")));
+
+		List<Object> values = helper.drain(identifier, 10);
+		assertEquals(2, values.size());
+		assertEquals(1, values.get(0));
+		assertEquals("value", values.get(1));
+	}
+
+	/* value */
+	@Test
+	public void setValue_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		when(adapter.putValue(eq(identifier), (byte[]) anyObject())).thenReturn(3L);
+		when(adapter.getValue(identifier)).thenReturn(new VersionedValue(ValueCodec.encode("value"), 3), new VersionedValue(null, 4));
+		when(adapter.deleteValue(identifier)).thenReturn(true);
+
+		assertEquals(3, helper.setValue(identifier, "value"));
+		assertEquals("value", helper.getValue(identifier));
+		assertTrue(helper.deleteValue(identifier));
+		assertNull(helper.getValue(identifier));
+
+		ArgumentCaptor<byte[]> captor = ArgumentCaptor.forClass(byte[].class);
+		verify(adapter).putValue(eq(identifier), captor.capture());
+		assertEquals("value", ValueCodec.decode(captor.getValue()));
+	}
+
+	@Test
+	public void compareAndSet_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		when(adapter.compareAndSetValue(eq(identifier), (byte[]) anyObject(), (byte[]) anyObject())).thenReturn(5L, -1L);
+
+		assertTrue(helper.compareAndSet(identifier, null, "node1"));
+		assertFalse(helper.compareAndSet(identifier, "node2", "node3"));
+
+		ArgumentCaptor<byte[]> expected = ArgumentCaptor.forClass(byte[].class);
+		verify(adapter, times(2)).compareAndSetValue(eq(identifier), expected.capture(), (byte[]) anyObject());
+		assertNull(expected.getAllValues().get(0));
+		assertEquals("node2", ValueCodec.decode(expected.getAllValues().get(1)));
+	}
+
+	@Test
+	public void getAndUpdate_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		when(adapter.getAndUpdateValue(identifier, ValueStore.Update.ADD, 2)).thenReturn(10L);
+		when(adapter.getAndUpdateValue(identifier, ValueStore.Update.MAX, 20)).thenReturn(12L);
+
+		assertEquals(10, helper.getAndAdd(identifier, 2));
+		assertEquals(12, helper.getAndUpdate(identifier, "max", 20));
+		try {
+			helper.getAndUpdate(identifier, "multiply", 2);
+			fail();
+		} catch (ExecuteException e) {
+			assertEquals("rule getAndUpdate_1 : getAndUpdate ", e.getMessage());
+		}
+	}
+
+	/* lease */
+	@Test
+	public void tryAcquireLease_1() throws Exception {
+		// stubbing
+		setupHelper();
+		String identifier = "test";
+		String node = NodeHost.getLocalNodeId();
+		when(adapter.acquireLease(identifier, node, 1000)).thenReturn(3L);
+		when(adapter.renewLease(identifier, 3, 1000)).thenReturn(true);
+		when(adapter.isLeaseValid(identifier, 3)).thenReturn(true);
+		when(adapter.releaseLease(identifier, 3)).thenReturn(true);
+
+		assertEquals(3, helper.tryAcquireLease(identifier, 1000));
+		assertTrue(helper.renewLease(identifier, 3, 1000));
+		assertTrue(helper.isLeaseValid(identifier, 3));
+		assertTrue(helper.releaseLease(identifier, 3));
+		verify(adapter).acquireLease(identifier, node, 1000);
+	}
+
+	/* fault */
+	@Test
+	public void delay_1() throws Exception {
+		// stubbing
+		setupHelper();
+		when(adapter.getDelay("delay_1")).thenReturn(new VersionedValue(ValueCodec.encode(DelayDistribution.fixed(5)), 1));
+		when(adapter.getDelay("delay_none")).thenReturn(new VersionedValue(null, 1));
+
+		assertTrue(helper.delay("delay_1") >= 5 * 1000 * 1000);
+		assertEquals(-1, helper.delay("delay_none"));
+		assertEquals(1, NodeHost.getInstance(adapter).getInjectedDelayHistogram("delay_1").getCount());
+		assertNull(NodeHost.getInstance(adapter).getInjectedDelayHistogram("delay_none"));
+	}
+
+	@Test
+	public void burnCpu_1() throws Exception {
+		// stubbing
+		setupHelper();
+		NodeHost host = NodeHost.getInstance(adapter);
+
+		assertTrue(helper.retainHeap("retainHeap_1", 1024, 60));
+		assertTrue(helper.burnCpu("burnCpu_1", 1, 60));
+		try {
+			assertFalse(helper.burnCpu("burnCpu_1", 1, 60));
+		} finally {
+			assertTrue(host.cancelStress("burnCpu_1"));
+			assertTrue(host.cancelStress("retainHeap_1"));
+		}
+		try {
+			helper.burnCpu("burnCpu_1", 1, 0);
+			fail();
+		} catch (ExecuteException e) {
+			assertEquals("rule burnCpu_1 : burnCpu ", e.getMessage());
+		}
+	}
+
+	/* resource */
+	@Test
+	public void stopResources_1() throws Exception {
+		// stubbing
+		setupHelper();
+
+		assertEquals(-1, helper.stopResources("stopResources_1"));
+		helper.startResources("stopResources_1");
+		byte[][] garbage = new byte[16][];
+		for(int i = 0; i < garbage.length; i++) {
+			garbage[i] = new byte[64 * 1024];
+		}
+		long allocated = helper.stopResources("stopResources_1");
+		assertEquals(-1, helper.stopResources("stopResources_1"));
+
+		NodeHost host = NodeHost.getInstance(adapter);
+		if(Resource.ALLOCATED_BYTES.current() >= 0) {
+			assertTrue(allocated >= garbage.length * 64 * 1024);
+			assertEquals(allocated, host.getResourceHistogram("stopResources_1", Resource.ALLOCATED_BYTES).getMax());
+		} else {
+			assertEquals(-1, allocated);
+		}
+		if(Resource.CPU_TIME.current() >= 0) {
+			assertEquals(1, host.getResourceHistogram("stopResources_1", Resource.CPU_TIME).getCount());
+		}
+		assertTrue(host.deleteResource("stopResources_1"));
+		assertNull(host.getResourceHistogram("stopResources_1", Resource.CPU_TIME));
+	}
+
+	/* contention */
+	@Test
+	public void lockAcquired_1() throws Exception {
+		// stubbing
+		setupHelper();
+		final Object monitor = new Object();
+		final CountDownLatch locked = new CountDownLatch(1);
+		Thread holder = new Thread() {
+			@Override
+			public void run() {
+				synchronized(monitor) {
+					locked.countDown();
+					try {
+						Thread.sleep(50);
+					} catch (InterruptedException e) {
+					}
+				}
+			}
+		};
+		holder.start();
+		locked.await();
+
+		assertEquals(-1, helper.lockAcquired("lockAcquired_1"));
+		helper.lockWaiting("lockAcquired_1");
+		long waited;
+		synchronized(monitor) {
+			waited = helper.lockAcquired("lockAcquired_1");
+		}
+		holder.join();
+		assertTrue(waited >= 10 * 1000 * 1000);
+
+		LatencyHistogram histogram = NodeHost.getInstance(adapter).getContentionHistogram("lockAcquired_1");
+		assertEquals(1, histogram.getCount());
+		assertEquals(waited, histogram.getMax());
+		assertTrue(NodeHost.getInstance(adapter).deleteContention("lockAcquired_1"));
+	}
+
+	/* profile */
+	@Test
+	public void profile_1() throws Exception {
+		// stubbing
+		setupHelper();
+
+		try {
+			helper.profile("profile_1", 0);
+			fail();
+		} catch (ExecuteException e) {
+			assertEquals("rule profile_1 : profile ", e.getMessage());
+		}
+	}
+
+	/* span */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void spanStart_1() throws Exception {
+		// stubbing
+		setupHelper();
+
+		helper.spanStart("spanStart_1", "key1");
+		helper.spanEnd("spanStart_1", "key1");
+		NodeHost host = NodeHost.getInstance(adapter);
+		host.reportSpans();
+
+		// the events may be reported by the background reporter as well.
+		ArgumentCaptor<List<SpanEvent>> captor = (ArgumentCaptor<List<SpanEvent>>) (Object) ArgumentCaptor.forClass(List.class);
+		verify(adapter, atLeastOnce()).reportSpans(eq(host.getNodeId()), captor.capture());
+		SpanEvent start = null;
+		SpanEvent end = null;
+		for(List<SpanEvent> batch : captor.getAllValues()) {
+			for(SpanEvent event : batch) {
+				if(event.isStart()) {
+					start = event;
+				} else {
+					end = event;
+				}
+			}
+		}
+		assertEquals("spanStart_1", start.getIdentifier());
+		assertEquals("key1", start.getKey());
+		assertEquals("spanStart_1", end.getIdentifier());
+		assertEquals("key1", end.getKey());
+		assertTrue(start.getTimestamp() <= end.getTimestamp());
+	}
 }
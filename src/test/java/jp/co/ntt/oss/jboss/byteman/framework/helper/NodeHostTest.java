@@ -0,0 +1,352 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+package jp.co.ntt.oss.jboss.byteman.framework.helper;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.Serializable;
+import java.rmi.RemoteException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import javax.management.InstanceNotFoundException;
+
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.MBeanAttributeTask;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.Namespace;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.VersionedValue;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.DelayDistribution;
+import jp.co.ntt.oss.jboss.byteman.framework.fault.Stress;
+import jp.co.ntt.oss.jboss.byteman.framework.helper.NodeHost.Factory;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.HyperLogLog;
+import jp.co.ntt.oss.jboss.byteman.framework.metric.StackProfile;
+import jp.co.ntt.oss.jboss.byteman.framework.util.ValueCodec;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+
+public class NodeHostTest {
+
+	@Test
+	public void getLatency_1() throws Exception {
+		NodeHost host = new NodeHost("node1");
+		assertEquals("node1", host.getNodeId());
+		assertNull(host.getLatencyHistogram("latency"));
+
+		host.getLatency("latency").record(100);
+		host.getLatency("latency").record(200);
+
+		assertEquals(2, host.getLatencyHistogram("latency").getCount());
+		// returns a copy.
+		host.getLatencyHistogram("latency").record(300);
+		assertEquals(2, host.getLatencyHistogram("latency").getCount());
+
+		assertTrue(host.deleteLatency("latency"));
+		assertFalse(host.deleteLatency("latency"));
+	}
+
+	@Test
+	public void deleteNamespace_1() throws Exception {
+		NodeHost host = new NodeHost("node1");
+		host.getLatency(new Namespace("ns1").scope("latency")).record(100);
+		host.getLatency(new Namespace("ns2").scope("latency")).record(100);
+		host.getLatency("latency").record(100);
+
+		assertEquals(1, host.deleteNamespace("ns1"));
+		assertNull(host.getLatencyHistogram(new Namespace("ns1").scope("latency")));
+		assertNotNull(host.getLatencyHistogram(new Namespace("ns2").scope("latency")));
+		assertNotNull(host.getLatencyHistogram("latency"));
+	}
+
+	@Test
+	public void getInstance_1() throws Exception {
+		DistributedAdapter adapter = mock(DistributedAdapter.class);
+		System.setProperty(DistributedHelper.PROP_NODE, "node1");
+		try {
+			assertEquals("node1", NodeHost.getLocalNodeId());
+		} finally {
+			System.clearProperty(DistributedHelper.PROP_NODE);
+		}
+		assertNotNull(NodeHost.getLocalNodeId());
+
+		NodeHost host = NodeHost.getInstance(adapter);
+		assertSame(host, NodeHost.getInstance(adapter));
+		verify(adapter).registerNode(host.getNodeId(), host);
+	}
+
+	@Test
+	public void getInstance_2() throws Exception {
+		DistributedAdapter adapter1 = mock(DistributedAdapter.class);
+		DistributedAdapter adapter2 = mock(DistributedAdapter.class);
+		NodeHost host = NodeHost.getInstance(adapter1);
+		when(adapter1.watchValue(host.getNodeId(), "getInstance_2")).thenReturn(new VersionedValue(new byte[] {0}, 5));
+		assertArrayEquals(new byte[] {0}, host.getCachedValue("getInstance_2").getValue());
+		assertArrayEquals(new byte[] {0}, host.getCachedValue("getInstance_2").getValue());
+		verify(adapter1).watchValue(host.getNodeId(), "getInstance_2");
+
+		// registered again with another controller, discarding the cached state.
+		when(adapter2.watchValue(host.getNodeId(), "getInstance_2")).thenReturn(new VersionedValue(new byte[] {1}, 1));
+		assertSame(host, NodeHost.getInstance(adapter2));
+		verify(adapter2).registerNode(host.getNodeId(), host);
+		assertArrayEquals(new byte[] {1}, host.getCachedValue("getInstance_2").getValue());
+		NodeHost.getInstance(adapter2);
+		verify(adapter2).registerNode(host.getNodeId(), host);
+
+		// registered again after a report failed.
+		doThrow(new RemoteException()).when(adapter2).reportMarks(anyString(), anyMapOf(Object.class, Long.class));
+		host.mark("getInstance_2", 1);
+		host.reportMarks();
+		NodeHost.getInstance(adapter2);
+		verify(adapter2, times(2)).registerNode(host.getNodeId(), host);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void reportMarks_1() throws Exception {
+		DistributedAdapter adapter = mock(DistributedAdapter.class);
+		NodeHost host = NodeHost.getInstance(adapter);
+		host.mark("reportMarks_1", 3);
+		host.mark("reportMarks_1", 4);
+		host.mark(new Namespace("ns1").scope("reportMarks_1"), 1);
+		assertEquals(1, host.deleteNamespace("ns1"));
+		host.reportMarks();
+		host.reportMarks();
+
+		// the marks may be reported by the background reporter as well.
+		ArgumentCaptor<Map<Object, Long>> captor = (ArgumentCaptor<Map<Object, Long>>) (Object) ArgumentCaptor.forClass(Map.class);
+		verify(adapter, atLeastOnce()).reportMarks(eq(host.getNodeId()), captor.capture());
+		long total = 0;
+		for(Map<Object, Long> deltas : captor.getAllValues()) {
+			assertEquals(1, deltas.size());
+			total += deltas.get("reportMarks_1");
+		}
+		assertEquals(7, total);
+	}
+
+	@Test
+	public void getDistinct_1() throws Exception {
+		NodeHost host = new NodeHost("node1");
+		assertNull(host.getDistinctSketch("distinct"));
+
+		host.getDistinct("distinct", 10).offer("value1");
+		host.getDistinct("distinct", 12).offer("value2");
+		host.getDistinct(new Namespace("ns1").scope("distinct"), 10).offer("value1");
+
+		// the precision is given when the sketch is created.
+		assertEquals(10, host.getDistinctSketch("distinct").getPrecision());
+		assertEquals(2, host.getDistinctSketch("distinct").getCardinality());
+		assertEquals(1, host.deleteNamespace("ns1"));
+		assertTrue(host.deleteDistinct("distinct"));
+		assertFalse(host.deleteDistinct("distinct"));
+	}
+
+	@Test
+	public void startProfile_1() throws Exception {
+		DistributedAdapter adapter = mock(DistributedAdapter.class);
+		NodeHost host = NodeHost.getInstance(adapter);
+		ThreadGroup group = new ThreadGroup("startProfile_1");
+		final CountDownLatch done = new CountDownLatch(1);
+		Thread busy = new Thread(group, "busy") {
+			@Override
+			public void run() {
+				while(done.getCount() > 0) {
+					Math.sqrt(System.nanoTime());
+				}
+			}
+		};
+		busy.start();
+		try {
+			assertTrue(host.startProfile("startProfile_1", 1, "startProfile_1"));
+			assertFalse(host.startProfile("startProfile_1", 1, null));
+			assertTrue(host.isProfiling("startProfile_1"));
+
+			ArgumentCaptor<StackProfile> captor = ArgumentCaptor.forClass(StackProfile.class);
+			verify(adapter, timeout(5000)).reportProfile(eq(host.getNodeId()), eq("startProfile_1"), captor.capture());
+			assertFalse(host.isProfiling("startProfile_1"));
+			StackProfile profile = captor.getValue();
+			assertTrue(profile.getSamples() > 0);
+			assertTrue(profile.getSamples() <= 1000 / NodeHost.PROFILE_INTERVAL);
+			for(String stack : profile.getCounts().keySet()) {
+				assertTrue(stack, stack.startsWith(getClass().getName() + "$"));
+			}
+		} finally {
+			done.countDown();
+			busy.join();
+		}
+	}
+
+	@Test
+	public void startProfile_2() throws Exception {
+		NodeHost host = new NodeHost("node1");
+		try {
+			host.startProfile("startProfile_2", NodeHost.MAX_PROFILE_DURATION + 1, null);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[61] is not a valid duration.", e.getMessage());
+		}
+		assertFalse(host.isProfiling("startProfile_2"));
+	}
+
+	@Test
+	public void startProfile_3() throws Exception {
+		DistributedAdapter adapter = mock(DistributedAdapter.class);
+		NodeHost host = NodeHost.getInstance(adapter);
+		Object identifier = new Namespace("ns1").scope("startProfile_3");
+		assertTrue(host.startProfile(identifier, 1, null));
+
+		// the session is cancelled with the namespace, and the profile is not reported.
+		assertEquals(1, host.deleteNamespace("ns1"));
+		assertFalse(host.isProfiling(identifier));
+		Thread.sleep(1500);
+		verify(adapter, never()).reportProfile(eq(host.getNodeId()), eq(identifier), any(StackProfile.class));
+	}
+
+	@Test
+	public void takeToken_1() throws Exception {
+		DistributedAdapter adapter = mock(DistributedAdapter.class);
+		NodeHost host = NodeHost.getInstance(adapter);
+		when(adapter.leaseTokens("takeToken_1")).thenReturn(3, 0, 1);
+
+		// a batch is leased once and taken locally.
+		assertTrue(host.takeToken("takeToken_1"));
+		assertTrue(host.takeToken("takeToken_1"));
+		assertTrue(host.takeToken("takeToken_1"));
+		verify(adapter, times(1)).leaseTokens("takeToken_1");
+		assertFalse(host.takeToken("takeToken_1"));
+		assertTrue(host.takeToken("takeToken_1"));
+		verify(adapter, times(3)).leaseTokens("takeToken_1");
+	}
+
+	@Test
+	public void getCachedValue_1() throws Exception {
+		DistributedAdapter adapter = mock(DistributedAdapter.class);
+		NodeHost host = NodeHost.getInstance(adapter);
+		String nodeId = host.getNodeId();
+		when(adapter.watchValue(nodeId, "getCachedValue_1")).thenReturn(
+				new VersionedValue(new byte[] {1}, 3), new VersionedValue(new byte[] {2}, 5), new VersionedValue(new byte[] {3}, 8));
+
+		// the value is read from the controller once until it is invalidated.
+		assertEquals(3, host.getCachedValue("getCachedValue_1").getVersion());
+		assertEquals(3, host.getCachedValue("getCachedValue_1").getVersion());
+		verify(adapter, times(1)).watchValue(nodeId, "getCachedValue_1");
+		host.invalidateValue("getCachedValue_1", 5);
+		assertEquals(5, host.getCachedValue("getCachedValue_1").getVersion());
+		// a value older than the invalidation which arrived first is not cached.
+		host.invalidateValue("getCachedValue_1", 9);
+		assertEquals(8, host.getCachedValue("getCachedValue_1").getVersion());
+		assertEquals(8, host.getCachedValue("getCachedValue_1").getVersion());
+		verify(adapter, times(4)).watchValue(nodeId, "getCachedValue_1");
+	}
+
+	@Test
+	public void sampleDelay_1() throws Exception {
+		DistributedAdapter adapter = mock(DistributedAdapter.class);
+		NodeHost host = NodeHost.getInstance(adapter);
+		when(adapter.getDelay("sampleDelay_1")).thenReturn(new VersionedValue(ValueCodec.encode(DelayDistribution.fixed(2)), 3));
+
+		// the distribution is read from the controller once.
+		assertEquals(2000000, host.sampleDelay("sampleDelay_1"));
+		assertEquals(2000000, host.sampleDelay("sampleDelay_1"));
+		verify(adapter, times(1)).getDelay("sampleDelay_1");
+		// an older update is ignored.
+		host.updateDelay("sampleDelay_1", new VersionedValue(ValueCodec.encode(DelayDistribution.fixed(5)), 2));
+		assertEquals(2000000, host.sampleDelay("sampleDelay_1"));
+		host.updateDelay("sampleDelay_1", new VersionedValue(null, 4));
+		assertEquals(-1, host.sampleDelay("sampleDelay_1"));
+
+		host.getInjectedDelay("sampleDelay_1").record(100);
+		assertEquals(1, host.getInjectedDelayHistogram("sampleDelay_1").getCount());
+		assertTrue(host.deleteInjectedDelay("sampleDelay_1"));
+		assertNull(host.getInjectedDelayHistogram("sampleDelay_1"));
+	}
+
+	@Test
+	public void startStress_1() throws Exception {
+		NodeHost host = new NodeHost("node1");
+		assertNull(host.getStressStatus("stress"));
+		assertTrue(host.startStress("stress", Stress.cpu(1, 60)));
+		try {
+			// only one workload of an identifier runs at a time.
+			assertFalse(host.startStress("stress", Stress.cpu(1, 60)));
+			assertTrue(host.getStressStatus("stress").isRunning());
+		} finally {
+			assertTrue(host.cancelStress("stress"));
+		}
+		assertFalse(host.cancelStress("stress"));
+		assertTrue(host.getStressStatus("stress").isCancelled());
+		assertFalse(host.cancelStress("none"));
+	}
+
+	@Test
+	public void startStress_2() throws Exception {
+		NodeHost host = new NodeHost("node1");
+		int threads = Stress.getMaxThreads();
+		assertTrue(host.startStress("stress1", Stress.cpu(threads - 1, 60)));
+		try {
+			// the limit applies to the sum of the running workloads.
+			try {
+				host.startStress("stress2", Stress.cpu(2, 60));
+				fail();
+			} catch (IllegalArgumentException e) {
+				assertEquals(String.format("[%d] exceeds the limit of the CPU workloads running on this node [%d].", threads + 1, threads),
+						e.getMessage());
+			}
+			assertNull(host.getStressStatus("stress2"));
+		} finally {
+			assertTrue(host.cancelStress("stress1"));
+		}
+		assertTrue(host.getStressStatus("stress1").isCancelled());
+	}
+
+	@Test
+	public void execute_1() throws Exception {
+		NodeHost host = new NodeHost("node1");
+		Serializable threads = host.execute(new MBeanAttributeTask("java.lang:type=Threading", "ThreadCount"));
+		assertTrue((Integer) threads > 0);
+		try {
+			host.execute(new MBeanAttributeTask("java.lang:type=None", "ThreadCount"));
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof InstanceNotFoundException);
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getOrCreate_1() throws Exception {
+		ConcurrentMap<Object, String> map = new ConcurrentHashMap<Object, String>();
+		Factory<String> factory = mock(Factory.class);
+		when(factory.create()).thenReturn("created1", "created2");
+
+		assertEquals("created1", NodeHost.getOrCreate(map, "id", factory));
+		// the existing value is returned without creating another one.
+		assertEquals("created1", NodeHost.getOrCreate(map, "id", factory));
+		verify(factory, times(1)).create();
+
+		NodeHost host = new NodeHost("node1");
+		HyperLogLog sketch = host.getDistinct("distinct", 10);
+		assertSame(sketch, host.getDistinct("distinct", 12));
+	}
+
+}
@@ -20,7 +20,10 @@
 package jp.co.ntt.oss.jboss.byteman.framework.instrumentor;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -213,4 +216,28 @@ public class AbstractDistributedInstrumentorTest {
 		verify(submit).deleteScripts(scripts);
 		assertEquals(0, scripts.size());
 	}
+
+	@Test
+	public void removeScript_1() throws Exception {
+		Submit submit = mock(Submit.class);
+		SubmitWrapper submitWrapper = new SubmitWrapper(submit);
+
+		List<ScriptText> scripts = new ArrayList<ScriptText>();
+		ScriptText script1 = new ScriptText("name1", "text1");
+		ScriptText script2 = new ScriptText("name2", "text2");
+		scripts.add(script1);
+		scripts.add(script2);
+		submitWrapper.scripts = scripts;
+
+		assertTrue(submitWrapper.removeScript("name2"));
+		assertFalse(submitWrapper.removeScript("name3"));
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<ScriptText>> captor = (ArgumentCaptor<List<ScriptText>>) (Object) ArgumentCaptor.forClass(List.class);
+		verify(submit).deleteScripts(captor.capture());
+		assertEquals(1, captor.getValue().size());
+		assertSame(script2, captor.getValue().get(0));
+		assertEquals(1, scripts.size());
+		assertSame(script1, scripts.get(0));
+	}
 }
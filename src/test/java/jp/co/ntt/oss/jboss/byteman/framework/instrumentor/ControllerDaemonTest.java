@@ -0,0 +1,143 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.instrumentor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import static org.mockito.Mockito.mock;
+
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jp.co.ntt.oss.jboss.byteman.framework.TestUtil;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.DistributedAdapter;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.NamespacedAdapter;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlIF;
+import jp.co.ntt.oss.jboss.byteman.framework.instrumentor.AbstractDistributedInstrumentor.SubmitWrapper;
+
+import org.jboss.byteman.agent.submit.Submit;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ControllerDaemonTest {
+
+	private static ControllerDaemon daemon;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		daemon = TestUtil.export(new Callable<ControllerDaemon>() {
+			@Override
+			public ControllerDaemon call() throws Exception {
+				return new ControllerDaemon();
+			}
+		});
+		daemon.init();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		daemon.destroy();
+		Registry registry = LocateRegistry.getRegistry(1199);
+		try {
+			registry.lookup(InstrumentorIF.INSTRUMENTOR_ID);
+			fail();
+		} catch (Exception e) {
+		}
+	}
+
+	@Test
+	public void attach_1() throws Exception {
+		RemoteDistributedInstrumentor client1 = new RemoteDistributedInstrumentor();
+		client1.init();
+		RemoteDistributedInstrumentor client2 = new RemoteDistributedInstrumentor("test");
+		client2.init();
+
+		assertTrue(client1.getAdapter() instanceof ControlIF);
+		assertTrue(client2.getAdapter() instanceof NamespacedAdapter);
+		assertEquals("data", client1.getResultDir());
+
+		DistributedAdapter adapter1 = client1.getAdapter();
+		DistributedAdapter adapter2 = client2.getAdapter();
+		adapter1.flag("daemon");
+		assertTrue(adapter1.flagged("daemon"));
+		assertFalse(adapter2.flagged("daemon"));
+		adapter2.flag("daemon");
+		assertTrue(adapter2.flagged("daemon"));
+
+		// destroying the client keeps the daemon running.
+		client2.destroy();
+		assertFalse(adapter2.flagged("daemon"));
+		assertTrue(adapter1.flagged("daemon"));
+		adapter1.clear("daemon");
+		client1.destroy();
+	}
+
+	@Test
+	public void removeScript_1() throws Exception {
+		assertFalse(daemon.removeScript("server1", "dummy"));
+		// the unknown node is not an error of the server.
+		assertFalse(daemon.removeScript("dummy", "dummy"));
+	}
+
+	@Test
+	public void removeScript_2() throws Exception {
+		// stubbing
+		SubmitWrapper submit = new SubmitWrapper(mock(Submit.class));
+		daemon.submits.put("concurrent", submit);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+			for(int i = 0; i < 8; i++) {
+				final String prefix = "script" + i + "_";
+				futures.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						boolean removed = true;
+						for(int j = 0; j < 100; j++) {
+							daemon.installScript("concurrent", prefix + j, "text");
+							daemon.installScript("concurrent", prefix + j + "_kept", "text");
+							removed &= daemon.removeScript("concurrent", prefix + j);
+						}
+						return removed;
+					}
+				}));
+			}
+			// no script is lost by the concurrent installs and removes.
+			for(Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+			assertEquals(800, submit.scripts.size());
+		} finally {
+			executor.shutdown();
+			daemon.submits.remove("concurrent");
+		}
+	}
+
+}
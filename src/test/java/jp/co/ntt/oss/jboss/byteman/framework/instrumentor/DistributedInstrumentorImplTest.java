@@ -19,13 +19,19 @@
 
 package jp.co.ntt.oss.jboss.byteman.framework.instrumentor;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.util.concurrent.Callable;
 
+import jp.co.ntt.oss.jboss.byteman.framework.TestUtil;
+import jp.co.ntt.oss.jboss.byteman.framework.adapter.NamespacedAdapter;
 import jp.co.ntt.oss.jboss.byteman.framework.adapter.rmi.ControlIF;
 
 import org.junit.Test;
@@ -36,7 +42,12 @@ public class DistributedInstrumentorImplTest {
 
 	@Test
 	public void init_1() throws Exception {
-		instrumentor = new DistributedInstrumentorImpl();
+		instrumentor = TestUtil.export(new Callable<DistributedInstrumentorImpl>() {
+			@Override
+			public DistributedInstrumentorImpl call() throws Exception {
+				return new DistributedInstrumentorImpl();
+			}
+		});
 
 		assertNull(instrumentor.getAdapter());
 		instrumentor.init();
@@ -53,4 +64,32 @@ public class DistributedInstrumentorImplTest {
 		}
 	}
 
+	@Test
+	public void createNamespace_1() throws Exception {
+		instrumentor = TestUtil.export(new Callable<DistributedInstrumentorImpl>() {
+			@Override
+			public DistributedInstrumentorImpl call() throws Exception {
+				return new DistributedInstrumentorImpl();
+			}
+		});
+		try {
+			instrumentor.createNamespace("test");
+			fail();
+		} catch (IllegalStateException e) {
+		}
+
+		instrumentor.init();
+		NamespacedInstrumentor namespace = instrumentor.createNamespace("test");
+		assertTrue(namespace.getAdapter() instanceof NamespacedAdapter);
+		assertEquals("test", ((NamespacedAdapter) namespace.getAdapter()).getNamespace().getName());
+
+		namespace.getAdapter().flag("flag");
+		assertTrue(namespace.getAdapter().flagged("flag"));
+		assertFalse(instrumentor.getAdapter().flagged("flag"));
+
+		namespace.destroy();
+		assertFalse(namespace.getAdapter().flagged("flag"));
+		instrumentor.destroy();
+	}
+
 }
@@ -0,0 +1,96 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ClockEstimatorTest {
+
+	@Test
+	public void getOffset_1() throws Exception {
+		ClockEstimator clock = new ClockEstimator();
+		assertEquals(0, clock.getOffset(0));
+		assertEquals(Long.MAX_VALUE, clock.getError());
+
+		// the remote clock is ahead by 5000, and the remote time is read 100 after the request is sent.
+		clock.addSample(1000, 1000 + 100 + 5000, 1000 + 400);
+		assertEquals(1, clock.getSampleCount());
+		assertEquals(4900, clock.getOffset(1200));
+		assertEquals(200, clock.getError());
+
+		// the sample of the shorter delay is preferred.
+		clock.addSample(2000, 2000 + 20 + 5000, 2000 + 40);
+		clock.addSample(3000, 3000 + 500 + 5000, 3000 + 2000);
+		assertEquals(5000, clock.getOffset(2020));
+		assertEquals(20, clock.getError());
+	}
+
+	@Test
+	public void getOffset_2() throws Exception {
+		ClockEstimator clock = new ClockEstimator();
+		// the remote clock is ahead by 1000000 and gains 100 ppm.
+		for(int i = 0; i < 20; i++) {
+			long sent = i * 1000000000L;
+			long remote = sent + 50000 + 1000000 + (sent + 50000) / 10000;
+			clock.addSample(sent, remote, sent + 100000);
+		}
+		assertEquals(0.0001, clock.getDrift(), 0.000001);
+		long at = 30 * 1000000000L;
+		assertTrue(Math.abs(1000000 + at / 10000 - clock.getOffset(at)) < 1000);
+		assertTrue(Math.abs(at - clock.toLocalTime(at + 1000000 + at / 10000)) < 1000);
+		assertEquals(50000, clock.getError());
+	}
+
+	@Test
+	public void getDrift_1() throws Exception {
+		ClockEstimator clock = new ClockEstimator();
+		// the drift is not estimated from the samples of a short span.
+		clock.addSample(0, 50 + 1000, 100);
+		clock.addSample(1000000, 1000050 + 1100, 1000100);
+		assertEquals(0, clock.getDrift(), 0);
+		clock.addSample(ClockEstimator.MIN_DRIFT_SPAN, ClockEstimator.MIN_DRIFT_SPAN + 50 + 1000 + 1000, ClockEstimator.MIN_DRIFT_SPAN + 100);
+		assertEquals(1000.0 / ClockEstimator.MIN_DRIFT_SPAN, clock.getDrift(), 1e-8);
+	}
+
+	@Test
+	public void getOffset_3() throws Exception {
+		ClockEstimator clock = new ClockEstimator(ClockEstimator.FILTER_SIZE);
+		clock.addSample(0, 10, 2);
+		for(int i = 1; i <= ClockEstimator.FILTER_SIZE; i++) {
+			clock.addSample(i * 1000, i * 1000 + 10 + 20, i * 1000 + 40);
+		}
+		// the oldest sample is discarded even though its delay is the shortest.
+		assertEquals(ClockEstimator.FILTER_SIZE, clock.getSampleCount());
+		assertEquals(20, clock.getError());
+	}
+
+	@Test
+	public void constructor_1() throws Exception {
+		try {
+			new ClockEstimator(ClockEstimator.FILTER_SIZE - 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The history [7] must be at least 8.", e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CountMinSketchTest {
+
+	@Test
+	public void estimate_1() throws Exception {
+		CountMinSketch sketch = new CountMinSketch();
+		for(int i = 0; i < 10000; i++) {
+			sketch.add("key" + (i % 1000), 1);
+		}
+		assertEquals(5, sketch.add("hot", 5));
+		assertEquals(10005, sketch.getTotal());
+		assertEquals((long) Math.ceil(Math.E / CountMinSketch.DEFAULT_WIDTH * 10005), sketch.getError());
+		for(int i = 0; i < 1000; i++) {
+			long estimate = sketch.estimate("key" + i);
+			// never undercounts.
+			assertTrue(estimate >= 10);
+			assertTrue(estimate <= 10 + sketch.getError());
+		}
+		assertEquals(0, new CountMinSketch().estimate("key0"));
+	}
+
+	@Test
+	public void merge_1() throws Exception {
+		CountMinSketch sketch1 = new CountMinSketch(4, 128);
+		CountMinSketch sketch2 = new CountMinSketch(4, 128);
+		sketch1.add("key", 3);
+		sketch2.add("key", 4);
+		sketch1.merge(sketch2);
+		assertEquals(7, sketch1.estimate("key"));
+		assertEquals(7, sketch1.getTotal());
+		assertEquals(4, sketch2.estimate("key"));
+
+		try {
+			sketch1.merge(new CountMinSketch(4, 64));
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The dimensions [4x64] do not match [4x128].", e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class HeavyHittersTest {
+
+	@Test
+	public void getTop_1() throws Exception {
+		HeavyHitters hitters = new HeavyHitters(3);
+		for(int i = 0; i < 1000; i++) {
+			hitters.offer("cold" + i, 1);
+		}
+		hitters.offer("hot1", 100);
+		hitters.offer("hot2", 50);
+		hitters.offer("hot3", 30);
+		hitters.offer(new Object() {
+			@Override
+			public String toString() {
+				return "unserializable";
+			}
+		}, 10);
+
+		List<Frequency> top = hitters.getTop();
+		assertEquals(3, top.size());
+		assertEquals("hot1", top.get(0).getValue());
+		assertEquals(100, top.get(0).getCount(), top.get(0).getError());
+		assertEquals("hot2", top.get(1).getValue());
+		assertEquals("hot3", top.get(2).getValue());
+		assertEquals(1190, hitters.getTotal());
+	}
+
+	@Test
+	public void merge_1() throws Exception {
+		HeavyHitters hitters1 = new HeavyHitters(2);
+		HeavyHitters hitters2 = new HeavyHitters(2);
+		// "shared" is not the most frequent on either node, but it is over the cluster.
+		hitters1.offer("local1", 10);
+		hitters1.offer("shared", 8);
+		hitters2.offer("local2", 10);
+		hitters2.offer("shared", 8);
+
+		hitters1.merge(hitters2);
+		List<Frequency> top = hitters1.getTop();
+		assertEquals(2, top.size());
+		assertEquals("shared", top.get(0).getValue());
+		assertEquals(16, top.get(0).getCount());
+		assertEquals(10, top.get(1).getCount());
+	}
+
+	@Test
+	public void constructor_1() throws Exception {
+		try {
+			new HeavyHitters(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[0] is not a valid K.", e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+	@Test
+	public void getCardinality_1() throws Exception {
+		HyperLogLog sketch = new HyperLogLog();
+		assertEquals(0, sketch.getCardinality());
+		for(int i = 0; i < 1000; i++) {
+			sketch.offer("session" + (i % 100));
+		}
+		assertEquals(100, sketch.getCardinality(), 2);
+	}
+
+	@Test
+	public void getCardinality_2() throws Exception {
+		HyperLogLog sketch = new HyperLogLog(12);
+		for(long i = 0; i < 100000; i++) {
+			sketch.offer(i);
+		}
+		// within 3 standard errors
+		assertEquals(100000, sketch.getCardinality(), 100000 * sketch.getRelativeError() * 3);
+		assertEquals(1.04 / 64, sketch.getRelativeError(), 0.0001);
+	}
+
+	@Test
+	public void merge_1() throws Exception {
+		HyperLogLog sketch1 = new HyperLogLog();
+		HyperLogLog sketch2 = new HyperLogLog();
+		for(int i = 0; i < 30000; i++) {
+			sketch1.offer("user" + i);
+			sketch2.offer("user" + (i + 10000));
+		}
+		sketch1.merge(sketch2);
+		assertEquals(40000, sketch1.getCardinality(), 40000 * sketch1.getRelativeError() * 3);
+
+		// the copy is independent.
+		HyperLogLog copy = sketch2.copy();
+		copy.merge(sketch1);
+		assertEquals(30000, sketch2.getCardinality(), 30000 * sketch2.getRelativeError() * 3);
+	}
+
+	@Test
+	public void merge_2() throws Exception {
+		try {
+			new HyperLogLog(10).merge(new HyperLogLog(12));
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The precision [12] does not match [10].", e.getMessage());
+		}
+		try {
+			new HyperLogLog(3);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[3] is not a valid precision.", e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void record_1() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		histogram.record(-1);
+
+		assertEquals(101, histogram.getCount());
+		assertEquals(0, histogram.getMin());
+		assertEquals(100, histogram.getMax());
+		assertEquals(50, histogram.getValueAtPercentile(50));
+		assertEquals(99, histogram.getValueAtPercentile(99));
+		assertEquals(100, histogram.getValueAtPercentile(100));
+		assertEquals(0, histogram.getValueAtPercentile(0));
+	}
+
+	/**
+	 * The relative error is bounded by the precision.
+	 */
+	@Test
+	public void record_2() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		long value = 1;
+		while(value > 0) {
+			histogram.record(value);
+			histogram.record(value - 1);
+			long recorded = histogram.highestValueOf(histogram.indexOf(value));
+			assertTrue(recorded >= value);
+			assertTrue(String.valueOf(value), (double) (recorded - value) / value <= 1.0 / 128);
+			assertEquals(histogram.indexOf(value), histogram.indexOf(recorded));
+			value = value * 3 + 1;
+		}
+		assertEquals(Long.MAX_VALUE, histogram.highestValueOf(histogram.indexOf(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void record_3() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMin());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getValueAtPercentile(99), 0);
+		assertEquals(0.0, histogram.getMean(), 0);
+	}
+
+	@Test
+	public void merge_1() throws Exception {
+		LatencyHistogram histogram1 = new LatencyHistogram();
+		LatencyHistogram histogram2 = new LatencyHistogram();
+		for(int i = 0; i < 99; i++) {
+			histogram1.record(1000);
+		}
+		histogram2.record(5000000);
+
+		histogram1.merge(histogram2);
+
+		assertEquals(100, histogram1.getCount());
+		// the value is the highest value of the bucket.
+		assertEquals(1000, histogram1.getValueAtPercentile(99), 1000 / 128);
+		assertEquals(5000000, histogram1.getValueAtPercentile(99.9));
+		assertEquals(5000000, histogram1.getMax());
+		assertEquals(1000, histogram1.getMin());
+		assertEquals(50990.0, histogram1.getMean(), 0.001);
+		// the merged histogram is not changed.
+		assertEquals(1, histogram2.getCount());
+	}
+
+	@Test
+	public void merge_2() throws Exception {
+		try {
+			new LatencyHistogram().merge(new LatencyHistogram(3));
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("The precision [3] does not match [7].", e.getMessage());
+		}
+	}
+
+	@Test
+	public void getValueAtPercentile_1() throws Exception {
+		try {
+			new LatencyHistogram().getValueAtPercentile(101);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[101.0] is not a valid percentile.", e.getMessage());
+		}
+	}
+
+}
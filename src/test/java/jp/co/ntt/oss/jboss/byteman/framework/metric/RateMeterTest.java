@@ -0,0 +1,70 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RateMeterTest {
+
+	private static final long SECOND = RateMeter.TICK_INTERVAL;
+
+	@Test
+	public void getRate_1() throws Exception {
+		RateMeter meter = new RateMeter(0);
+		assertEquals(0, meter.getRate(0).getCount());
+
+		meter.mark(100, 0);
+		// not updated until a tick passes.
+		assertEquals(0, meter.getRate(SECOND - 1).getOneSecondRate(), 0);
+		Rate rate = meter.getRate(SECOND);
+		assertEquals(100, rate.getCount());
+		assertEquals(100, rate.getOneSecondRate(), 0.001);
+		assertEquals(100, rate.getTenSecondRate(), 0.001);
+		assertEquals(100, rate.getSixtySecondRate(), 0.001);
+
+		// 200 events per second for 10 seconds.
+		for(int i = 1; i <= 10; i++) {
+			meter.mark(200, i * SECOND);
+		}
+		rate = meter.getRate(11 * SECOND);
+		assertEquals(2100, rate.getCount());
+		assertEquals(200, rate.getOneSecondRate(), 0.01);
+		assertTrue(rate.getTenSecondRate() > 150 && rate.getTenSecondRate() < 200);
+		assertTrue(rate.getSixtySecondRate() > 100 && rate.getSixtySecondRate() < rate.getTenSecondRate());
+	}
+
+	@Test
+	public void getRate_2() throws Exception {
+		RateMeter meter = new RateMeter(0);
+		meter.mark(600, 0);
+		meter.getRate(SECOND);
+
+		// the rates decay while no event is marked.
+		Rate rate = meter.getRate(61 * SECOND);
+		assertEquals(600, rate.getCount());
+		assertEquals(0, rate.getOneSecondRate(), 0.001);
+		assertEquals(600 * Math.exp(-6), rate.getTenSecondRate(), 0.001);
+		assertEquals(600 * Math.exp(-1), rate.getSixtySecondRate(), 0.001);
+		assertEquals("count=600, 1s=0.00/s, 10s=1.49/s, 60s=220.73/s", rate.toString());
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ReservoirTest {
+
+	@Test
+	public void offer_1() throws Exception {
+		Reservoir reservoir = new Reservoir(10);
+		for(int i = 0; i < 5; i++) {
+			reservoir.offer(i);
+		}
+		assertEquals(5, reservoir.getValues().size());
+		for(int i = 5; i < 100000; i++) {
+			reservoir.offer(i);
+		}
+		assertEquals(100000, reservoir.getCount());
+		assertEquals(10, reservoir.getValues().size());
+	}
+
+	@Test
+	public void offer_2() throws Exception {
+		// every value is sampled with the same probability.
+		int[] hits = new int[10];
+		for(int trial = 0; trial < 2000; trial++) {
+			Reservoir reservoir = new Reservoir(2);
+			for(int i = 0; i < 10; i++) {
+				reservoir.offer(i);
+			}
+			for(Object value : reservoir.getValues()) {
+				hits[(Integer) value]++;
+			}
+		}
+		for(int hit : hits) {
+			assertEquals(400, hit, 80);
+		}
+	}
+
+	@Test
+	public void offer_3() throws Exception {
+		// the heavier value is sampled more likely.
+		int heavy = 0;
+		for(int trial = 0; trial < 1000; trial++) {
+			Reservoir reservoir = new Reservoir(1);
+			reservoir.offer("light", 1);
+			reservoir.offer("heavy", 9);
+			if("heavy".equals(reservoir.getValues().get(0))) {
+				heavy++;
+			}
+		}
+		assertEquals(900, heavy, 50);
+
+		try {
+			new Reservoir().offer("value", 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("[0.0] is not a valid weight.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void merge_1() throws Exception {
+		// the merged sample is uniform over the values of both reservoirs.
+		int fromFirst = 0;
+		for(int trial = 0; trial < 100; trial++) {
+			Reservoir reservoir1 = new Reservoir(10);
+			Reservoir reservoir2 = new Reservoir(10);
+			for(int i = 0; i < 900; i++) {
+				reservoir1.offer("first");
+			}
+			for(int i = 0; i < 100; i++) {
+				reservoir2.offer("second");
+			}
+			reservoir1.merge(reservoir2);
+			assertEquals(1000, reservoir1.getCount());
+			List<Object> values = reservoir1.getValues();
+			assertEquals(10, values.size());
+			for(Object value : values) {
+				if("first".equals(value)) {
+					fromFirst++;
+				}
+			}
+		}
+		assertEquals(900, fromFirst, 50);
+	}
+
+	@Test
+	public void copy_1() throws Exception {
+		Reservoir reservoir = new Reservoir(3);
+		reservoir.offer("value1");
+		reservoir.offer(new Object() {
+			@Override
+			public String toString() {
+				return "value2";
+			}
+		});
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(reservoir);
+		out.close();
+		Reservoir copy = (Reservoir) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertEquals(2, copy.getCount());
+		assertTrue(copy.getValues().contains("value2"));
+		copy.offer("value3");
+		assertEquals(2, reservoir.getValues().size());
+	}
+
+}
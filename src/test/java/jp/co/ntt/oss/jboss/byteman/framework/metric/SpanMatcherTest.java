@@ -0,0 +1,89 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SpanMatcherTest {
+
+	@Test
+	public void add_1() throws Exception {
+		SpanMatcher matcher = new SpanMatcher();
+		assertEquals(-1, matcher.add(new SpanEvent("span", "key1", true, 1000)));
+		assertEquals(500, matcher.add(new SpanEvent("span", "key1", false, 1500)));
+		// the end arrives before the start.
+		assertEquals(-1, matcher.add(new SpanEvent("span", "key2", false, 3000)));
+		assertEquals(1000, matcher.add(new SpanEvent("span", "key2", true, 2000)));
+		// the negative duration caused by the clock error is recorded as zero.
+		matcher.add(new SpanEvent("span", "key3", true, 5000));
+		assertEquals(0, matcher.add(new SpanEvent("span", "key3", false, 4000)));
+
+		LatencyHistogram histogram = matcher.getHistogram("span");
+		assertEquals(3, histogram.getCount());
+		assertEquals(0, histogram.getMin());
+		assertEquals(1000, histogram.getMax());
+		assertEquals(0, matcher.getPending());
+		assertEquals(0, matcher.getHistogram("other").getCount());
+	}
+
+	@Test
+	public void add_2() throws Exception {
+		SpanMatcher matcher = new SpanMatcher(2);
+		matcher.add(new SpanEvent("span", "key1", true, 1000));
+		// the start of the same key replaces the previous one.
+		matcher.add(new SpanEvent("span", "key1", true, 2000));
+		assertEquals(1, matcher.getPending());
+		matcher.add(new SpanEvent("span", "key2", true, 3000));
+		matcher.add(new SpanEvent("span", "key3", true, 4000));
+
+		// the oldest event is discarded.
+		assertEquals(2, matcher.getPending());
+		assertEquals(1, matcher.getUnmatched("span"));
+		assertEquals(-1, matcher.add(new SpanEvent("span", "key1", false, 5000)));
+		assertEquals(1000, matcher.add(new SpanEvent("span", "key3", false, 5000)));
+	}
+
+	@Test
+	public void delete_1() throws Exception {
+		SpanMatcher matcher = new SpanMatcher();
+		matcher.add(new SpanEvent("span1", "key1", true, 1000));
+		matcher.add(new SpanEvent("span1", "key1", false, 2000));
+		matcher.add(new SpanEvent("span1", "key2", true, 1000));
+		matcher.add(new SpanEvent("span2", "key1", true, 1000));
+
+		assertTrue(matcher.delete("span1"));
+		assertFalse(matcher.delete("span1"));
+		assertEquals(0, matcher.getHistogram("span1").getCount());
+		assertEquals(1, matcher.getPending());
+	}
+
+	@Test
+	public void correct_1() throws Exception {
+		SpanEvent event = new SpanEvent("span", "key", true, 1000);
+		SpanEvent corrected = event.correct(300);
+		assertEquals(700, corrected.getTimestamp());
+		assertEquals("span", corrected.getIdentifier());
+		assertEquals("key", corrected.getKey());
+		assertTrue(corrected.isStart());
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.metric;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class StackProfileTest {
+
+	@Test
+	public void add_1() throws Exception {
+		StackProfile profile = new StackProfile();
+		StackTraceElement[] stack = new StackTraceElement[] {
+				new StackTraceElement("a.Leaf", "run", "Leaf.java", 1),
+				new StackTraceElement("a.Root", "main", "Root.java", 2)
+		};
+		profile.add(stack);
+		profile.add(stack);
+		profile.add(new StackTraceElement[0]);
+
+		Map<String, Long> counts = profile.getCounts();
+		assertEquals(1, counts.size());
+		assertEquals(Long.valueOf(2), counts.get("a.Root.main;a.Leaf.run"));
+		assertEquals(2, profile.getSamples());
+	}
+
+	@Test
+	public void merge_1() throws Exception {
+		StackProfile profile1 = new StackProfile();
+		profile1.add("a.Root.main;a.Leaf.run", 3);
+		StackProfile profile2 = new StackProfile();
+		profile2.add("a.Root.main;a.Leaf.run", 1);
+		profile2.add("a.Root.main", 2);
+
+		StackProfile copy = profile1.copy();
+		copy.merge(profile2);
+		assertEquals(6, copy.getSamples());
+		assertEquals(Long.valueOf(4), copy.getCounts().get("a.Root.main;a.Leaf.run"));
+		assertEquals(3, profile1.getSamples());
+
+		StringWriter writer = new StringWriter();
+		copy.write(writer);
+		assertEquals("a.Root.main 2\na.Root.main;a.Leaf.run 4\n", writer.toString());
+	}
+
+}
@@ -40,6 +40,7 @@ public class DistributedConfigTest {
 		assertEquals("127.0.0.1", config.getRmiHost());
 		assertEquals(1199, config.getRmiPort());
 		assertEquals("data", config.getResultDir());
+		assertTrue(config.getShards().isEmpty());
 		Map<String, DistributedNodeConfig> nodeConfigs = config.getNodeConfigs();
 		assertEquals(4, nodeConfigs.size());
 		{
@@ -0,0 +1,60 @@
+/*
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ *
+ * @authors Nippon Telegraph and Telephone Corporation
+ */
+
+package jp.co.ntt.oss.jboss.byteman.framework.util;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ValueCodecTest {
+
+	@Test
+	public void encode_1() throws Exception {
+		Object[] values = {null, "value", "あ", 1, 2L, 3.5d, 4.5f, true, (short) 5, (byte) 6, 'c'};
+		for(Object value : values) {
+			assertEquals(value, ValueCodec.decode(ValueCodec.encode(value)));
+		}
+		// the primitive wrappers are encoded with a type byte.
+		assertEquals(5, ValueCodec.encode(1).length);
+		assertEquals(9, ValueCodec.encode(2L).length);
+		assertEquals(6, ValueCodec.encode("value").length);
+	}
+
+	@Test
+	public void encode_2() throws Exception {
+		List<String> value = new ArrayList<String>();
+		value.add("value");
+		assertEquals(value, ValueCodec.decode(ValueCodec.encode(value)));
+	}
+
+	@Test
+	public void decode_1() throws Exception {
+		try {
+			ValueCodec.decode(new byte[] {'X'});
+			fail();
+		} catch (IOException e) {
+			assertEquals("[88] is not a valid type of the value.", e.getMessage());
+		}
+	}
+}